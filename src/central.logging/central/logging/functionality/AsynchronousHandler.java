@@ -0,0 +1,265 @@
+package central.logging.functionality;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * The AsynchronousHandler class queues records for the threads of the {@link LoggingWriterPool}, 
+ * which hand them to the delegate handler. The handler is queued for writing once when 
+ * records arrive and writes a batch of records per turn, so all handlers share the writer 
+ * threads fairly and no thread is started per handler. Its backpressure measures the queue 
+ * depth and the time taken by the delegate and drops records of low levels before they are 
+ * queued while the writers cannot keep up. Records of at least {@link LoggingWriterPool#PRIORITY_LEVEL} 
+ * are queued in a separate lane, which the writer empties first and flushes after 
+ * every record, so they never wait behind bulk records. The {@link LoggingContext} of 
+ * the publishing thread is queued along with each record and current on the writer 
+ * thread while the record is written, as is the call site measured by a {@link LoggingProfiler}.
+ *
+ * @author Planters
+ *
+ */
+final class AsynchronousHandler extends Handler {
+
+	/**
+	 * The maximum number of records written per turn.
+	 */
+	private static final int BATCH_SIZE = 256;
+	/**
+	 * The time in milliseconds between two checks of degraded logging without records.
+	 */
+	private static final long RESTORE_INTERVAL = 100L;
+	/**
+	 * The maximum time in milliseconds to wait for queued records being written.
+	 */
+	private static final long TIMEOUT = 5000L;
+
+	private final Handler delegate;
+	private final LoggingBackpressure backpressure;
+	private final BlockingQueue<Entry> queue;
+	private final BlockingQueue<Entry> priorityQueue;
+	/**
+	 * The number of records queued in both lanes.
+	 */
+	private final Semaphore queued = new Semaphore(0);
+	/**
+	 * Whether the handler is queued for or taken by a writer thread, so at most one thread 
+	 * writes its records at any time.
+	 */
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	/**
+	 * Whether a check of degraded logging is pending.
+	 */
+	private final AtomicBoolean restoreScheduled = new AtomicBoolean();
+	private final Runnable writeTask = this::writeQueued;
+	private final String loggerName;
+	private final LongAdder accepted = new LongAdder();
+	private final AtomicLong handled = new AtomicLong();
+	/**
+	 * Shared by publishing threads while queueing a record and held exclusively while 
+	 * closing, so no record is queued once the handler has been closed.
+	 */
+	private final ReentrantReadWriteLock closing = new ReentrantReadWriteLock();
+	/**
+	 * The monitor notified whenever a batch of records has been written.
+	 */
+	private final Object written = new Object();
+	private volatile boolean closed = false;
+
+	/**
+	 * Create a handler writing records to the specified handler on the threads of the writer pool.
+	 *
+	 * @param delegate - the handler writing the records
+	 * @param backpressure - the backpressure adapting the records written to the load
+	 * @param loggerName - the name of the logger the records are published to
+	 */
+	AsynchronousHandler(Handler delegate, LoggingBackpressure backpressure, String loggerName) {
+		this.delegate = delegate;
+		this.backpressure = backpressure;
+		this.queue = new ArrayBlockingQueue<Entry>(backpressure.getQueueCapacity());
+		this.priorityQueue = new ArrayBlockingQueue<Entry>(backpressure.getQueueCapacity());
+		this.loggerName = loggerName;
+		LoggingWriterPool.register(this);
+	}
+
+	@Override
+	public void publish(LogRecord record) {
+		LoggingCallSite site = LoggingProfiler.takeCurrentSite();
+		if (this.closed || !this.delegate.isLoggable(record) || !this.backpressure.admits(record.getLevel())) {
+			return;
+		}
+		record.getSourceClassName(); // infer the caller while still on its thread
+		BlockingQueue<Entry> lane = AsynchronousHandler.isPriority(record) ? this.priorityQueue : this.queue;
+		this.closing.readLock().lock();
+		try {
+			if (this.closed) {
+				return;
+			}
+			if (lane.offer(new Entry(record, LoggingContext.current(), site))) {
+				this.accepted.increment();
+				this.queued.release();
+				this.schedule();
+			} else {
+				this.backpressure.dropped();
+			}
+		} finally {
+			this.closing.readLock().unlock();
+		}
+	}
+
+	private static boolean isPriority(LogRecord record) {
+		return record.getLevel().intValue() >= LoggingWriterPool.PRIORITY_LEVEL.intValue();
+	}
+
+	/**
+	 * Wait until all records published so far have been written and flush the delegate.
+	 */
+	@Override
+	public void flush() {
+		this.drain(System.currentTimeMillis() + AsynchronousHandler.TIMEOUT);
+	}
+
+	/**
+	 * Wait until all records published so far have been written or the deadline has 
+	 * passed and flush the delegate.
+	 *
+	 * @param deadline - the time in milliseconds to stop waiting at
+	 * @return true if all records have been written
+	 */
+	boolean drain(long deadline) {
+		long target = this.accepted.sum();
+		synchronized (this.written) {
+			long remaining;
+			while (this.handled.get() < target && (remaining = deadline - System.currentTimeMillis()) > 0) {
+				try {
+					this.written.wait(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+		}
+		this.delegate.flush();
+		return this.handled.get() >= target;
+	}
+
+	/**
+	 * Stop accepting records, wait until all queued ones have been written and close the delegate.
+	 */
+	@Override
+	public void close() throws SecurityException {
+		this.close(System.currentTimeMillis() + AsynchronousHandler.TIMEOUT);
+	}
+
+	/**
+	 * Stop accepting records, wait until all queued ones have been written or the deadline 
+	 * has passed and close the delegate.
+	 *
+	 * @param deadline - the time in milliseconds to stop waiting at
+	 */
+	void close(long deadline) {
+		this.closing.writeLock().lock();
+		try {
+			this.closed = true;
+		} finally {
+			this.closing.writeLock().unlock();
+		}
+		this.drain(deadline);
+		LoggingWriterPool.unregister(this);
+		this.delegate.close();
+	}
+
+	/**
+	 * Get the number of records currently queued for writing.
+	 *
+	 * @return the number of queued records
+	 */
+	int getQueuedRecords() {
+		return this.queue.size() + this.priorityQueue.size();
+	}
+
+	/**
+	 * Queue this handler for writing unless it is already queued or being written.
+	 */
+	private void schedule() {
+		if (this.scheduled.compareAndSet(false, true)) {
+			LoggingWriterPool.schedule(this.writeTask);
+		}
+	}
+
+	/**
+	 * Write a batch of queued records and adapt the backpressure to the load. The handler 
+	 * is queued again while records are left, so the handlers of other logging facilities 
+	 * get their turn in between. While logging is degraded, the load is checked again 
+	 * after a while, so logging is restored without further records.
+	 */
+	private void writeQueued() {
+		int batch = Math.min(this.queued.availablePermits(), AsynchronousHandler.BATCH_SIZE);
+		if (batch > 0 && this.queued.tryAcquire(batch)) { // only released by publishing threads
+			for (int i = 0; i < batch; i++) {
+				// look at the priority lane before every record, so it never waits for a whole batch
+				Entry entry = this.priorityQueue.poll();
+				boolean priority = entry != null;
+				if (!priority) {
+					entry = this.queue.poll();
+				}
+				long start = System.nanoTime();
+				LoggingProfiler.setCurrentSite(entry.site);
+				LogRecord record = entry.record;
+				entry.context.run(() -> this.delegate.publish(record));
+				this.backpressure.sample(System.nanoTime() - start);
+				if (priority) {
+					this.delegate.flush();
+				}
+				this.handled.incrementAndGet();
+			}
+			synchronized (this.written) {
+				this.written.notifyAll();
+			}
+		}
+		LoggingProfiler.setCurrentSite(null);
+		String transition = this.backpressure.update(this.queue.size(), System.currentTimeMillis());
+		if (transition != null) {
+			LogRecord record = new LogRecord(Level.WARNING, transition);
+			record.setLoggerName(this.loggerName);
+			record.setSourceClassName(LoggingBackpressure.class.getName());
+			record.setSourceMethodName("update");
+			this.delegate.publish(record);
+		}
+		this.scheduled.set(false);
+		if (this.queued.availablePermits() > 0) {
+			this.schedule();
+		} else if (this.backpressure.getEffectiveLevel() != Level.ALL && !this.closed 
+				&& this.restoreScheduled.compareAndSet(false, true)) {
+			LoggingWriterPool.scheduleLater(() -> {
+				this.restoreScheduled.set(false);
+				this.schedule();
+			}, AsynchronousHandler.RESTORE_INTERVAL);
+		}
+	}
+
+	/**
+	 * A queued record along with the context and call site it has been published in.
+	 */
+	private static final class Entry {
+
+		private final LogRecord record;
+		private final LoggingContext context;
+		private final LoggingCallSite site;
+
+		private Entry(LogRecord record, LoggingContext context, LoggingCallSite site) {
+			this.record = record;
+			this.context = context;
+			this.site = site;
+		}
+
+	}
+
+}
@@ -0,0 +1,120 @@
+package central.logging.functionality;
+
+import java.util.ArrayDeque;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * The BufferingHandler class keeps records in memory until their actual destination is
+ * available. Once forwarding starts, the buffered records are handed to the target first
+ * and all further records are passed on directly, so no record overtakes an older one.
+ * Buffered records are handed on in the {@link LoggingContext} they have been published in.
+ * If the destination cannot be opened, the buffer is released and all further records 
+ * are dropped until another destination is available.
+ *
+ * @author Planters
+ *
+ */
+final class BufferingHandler extends Handler {
+
+	private final int capacity;
+	private final ArrayDeque<LogRecord> records = new ArrayDeque<LogRecord>();
+	private final ArrayDeque<LoggingContext> contexts = new ArrayDeque<LoggingContext>();
+	private volatile Handler target = null;
+	private boolean failed = false;
+	private long droppedRecords = 0L;
+
+	/**
+	 * Create a handler buffering up to the specified number of records.
+	 *
+	 * @param capacity - the maximum number of buffered records
+	 * @throws IllegalArgumentException if the capacity is less than 1
+	 */
+	BufferingHandler(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The buffer capacity must be at least 1.");
+		}
+		this.capacity = capacity;
+	}
+
+	@Override
+	public void publish(LogRecord record) {
+		Handler currentTarget = this.target;
+		if (currentTarget != null) { // the buffer is never used again once forwarding started
+			currentTarget.publish(record);
+			return;
+		}
+		record.getSourceClassName(); // infer the caller while still on its thread
+		synchronized (this) {
+			if (this.target != null) {
+				this.target.publish(record);
+			} else if (!this.failed && this.records.size() < this.capacity) {
+				this.records.add(record);
+				this.contexts.add(LoggingContext.current());
+			} else { // keep the oldest records, which usually explain the startup
+				this.droppedRecords++;
+			}
+		}
+	}
+
+	/**
+	 * Release all buffered records and drop all further records until records are 
+	 * forwarded, as the destination could not be opened.
+	 */
+	synchronized void fail() {
+		if (this.target == null && !this.failed) {
+			this.failed = true;
+			this.droppedRecords += this.records.size();
+			this.contexts.clear();
+			this.records.clear();
+			this.reportError("The destination could not be opened, so records are dropped.", null, 
+					ErrorManager.OPEN_FAILURE);
+		}
+	}
+
+	/**
+	 * Hand all buffered records to the specified handler and pass on all further records.
+	 *
+	 * @param handler - the destination of all records
+	 */
+	synchronized void forwardTo(Handler handler) {
+		while (!this.records.isEmpty()) {
+			LogRecord record = this.records.poll();
+			this.contexts.poll().run(() -> handler.publish(record));
+		}
+		this.target = handler;
+	}
+
+	/**
+	 * Get the number of records currently held in memory.
+	 *
+	 * @return the number of buffered records
+	 */
+	synchronized int getBufferedRecords() {
+		return this.records.size();
+	}
+
+	/**
+	 * Get the number of records discarded because the buffer was full.
+	 *
+	 * @return the number of dropped records
+	 */
+	synchronized long getDroppedRecords() {
+		return this.droppedRecords;
+	}
+
+	@Override
+	public synchronized void flush() {
+		if (this.target != null) {
+			this.target.flush();
+		}
+	}
+
+	@Override
+	public synchronized void close() throws SecurityException {
+		this.contexts.clear();
+		this.records.clear(); // the target is closed by its owner
+	}
+
+}
@@ -0,0 +1,34 @@
+package central.logging.functionality;
+
+import java.util.logging.LogRecord;
+
+/**
+ * The CallerInfoMode enumeration defines how the source class and method of a record
+ * are determined.
+ *
+ * @author Planters
+ *
+ */
+public enum CallerInfoMode {
+
+	/**
+	 * The caller is inferred by {@link LogRecord} walking the whole stack the first time
+	 * the source is requested, which is the default behaviour of java.util.logging.
+	 */
+	INFERRED,
+	/**
+	 * No caller information is recorded.
+	 */
+	OFF,
+	/**
+	 * Only caller information passed explicitly via
+	 * {@link Logging#logp(java.util.logging.Level, String, String, String)} is recorded.
+	 */
+	EXPLICIT,
+	/**
+	 * The caller is captured when logging by walking only the top frames of the stack.
+	 * Explicitly passed caller information takes precedence.
+	 */
+	STACK_WALKER;
+
+}
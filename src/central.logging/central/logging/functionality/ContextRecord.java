@@ -0,0 +1,67 @@
+package central.logging.functionality;
+
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * The ContextRecord class binds the {@link LoggingContext} a record has been logged in to
+ * records read from log files and archives, decoded by a collector or kept by a flight
+ * recorder, which are written on threads unrelated to the one that logged them.
+ *
+ * @author Planters
+ *
+ * @see LoggingContext#of(LogRecord)
+ */
+final class ContextRecord extends LogRecord {
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient LoggingContext context;
+
+	/**
+	 * Create a record logged in the specified context.
+	 *
+	 * @param level - the level of the record
+	 * @param msg - the message of the record
+	 * @param context - the context the record has been logged in
+	 */
+	ContextRecord(Level level, String msg, LoggingContext context) {
+		super(level, msg);
+		this.context = context;
+	}
+
+	/**
+	 * Copy the specified record. Its source is only copied if it has been set explicitly, 
+	 * as inferring the caller lazily on another thread would attribute the record to the 
+	 * wrong caller.
+	 *
+	 * @param record - the record to copy
+	 * @param context - the context the record has been logged in
+	 * @param explicitCaller - true if the source of the record has been set explicitly
+	 * @return the copy bound to the context
+	 */
+	static ContextRecord copy(LogRecord record, LoggingContext context, boolean explicitCaller) {
+		ContextRecord copy = new ContextRecord(record.getLevel(), record.getMessage(), context);
+		copy.setInstant(record.getInstant());
+		copy.setSequenceNumber(record.getSequenceNumber());
+		copy.setLoggerName(record.getLoggerName());
+		copy.setParameters(record.getParameters());
+		copy.setResourceBundle(record.getResourceBundle());
+		copy.setResourceBundleName(record.getResourceBundleName());
+		copy.setLongThreadID(record.getLongThreadID());
+		copy.setThrown(record.getThrown());
+		copy.setSourceClassName(explicitCaller ? record.getSourceClassName() : null);
+		copy.setSourceMethodName(explicitCaller ? record.getSourceMethodName() : null);
+		return copy;
+	}
+
+	/**
+	 * Get the context the record has been logged in.
+	 *
+	 * @return the context, {@link LoggingContext#EMPTY} if it has been lost by serialization
+	 */
+	LoggingContext getContext() {
+		return this.context != null ? this.context : LoggingContext.EMPTY;
+	}
+
+}
@@ -0,0 +1,31 @@
+package central.logging.functionality;
+
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * The ExplicitCallerRecord class marks records whose source class and method have been
+ * passed explicitly by the caller, so they are kept regardless of the caller info mode.
+ *
+ * @author Planters
+ *
+ */
+final class ExplicitCallerRecord extends LogRecord {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Create a record with the specified source.
+	 *
+	 * @param level - the level of the record
+	 * @param sourceClass - the name of the class issuing the record
+	 * @param sourceMethod - the name of the method issuing the record
+	 * @param msg - the message of the record
+	 */
+	ExplicitCallerRecord(Level level, String sourceClass, String sourceMethod, String msg) {
+		super(level, msg);
+		this.setSourceClassName(sourceClass);
+		this.setSourceMethodName(sourceMethod);
+	}
+
+}
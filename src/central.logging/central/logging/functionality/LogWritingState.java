@@ -0,0 +1,30 @@
+package central.logging.functionality;
+
+/**
+ * The LogWritingState enumeration describes whether a logging facility is writing its
+ * records to a log file.
+ *
+ * @author Planters
+ *
+ */
+public enum LogWritingState {
+
+	/**
+	 * Log writing has not been started or has been stopped.
+	 */
+	STOPPED,
+	/**
+	 * The log file is being opened in the background while records are buffered in memory.
+	 */
+	STARTING,
+	/**
+	 * Records are written to the log file.
+	 */
+	WRITING,
+	/**
+	 * The log file could not be opened. Records are dropped until log writing is stopped 
+	 * or moved to another log file.
+	 */
+	FAILED;
+
+}
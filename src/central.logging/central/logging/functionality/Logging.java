@@ -3,9 +3,22 @@ package central.logging.functionality;
 import java.io.File;
 import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.logging.FileHandler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.logging.Handler;
 import java.util.logging.Level;
+import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 
 /**
@@ -15,29 +28,64 @@ import java.util.logging.Logger;
  * @author Planters
  *
  */
-public class Logging {
+public class Logging implements AutoCloseable {
 
 	/**
-	 * An incremental suffix for the logger names.
+	 * The maximum number of records buffered in memory while log writing is started 
+	 * in the background.
 	 */
-	private static long logIdentifier = Long.MIN_VALUE;
+	public static final int STARTUP_BUFFER_CAPACITY = 10000;
+
+	/**
+	 * An incremental suffix for the logger names. Names are never reused, so stale 
+	 * references to the logger of a closed logging facility cannot write to the files 
+	 * of another one.
+	 */
+	private static final AtomicLong LOG_IDENTIFIER = new AtomicLong(Long.MIN_VALUE);
+	private static final String DEFAULT_LOGGING_FOLDER = "Logs";
+	private static final String DEFAULT_LOG_FILE_NAME = "Log";
+	private static final int DEFAULT_NUMBER_LOG_FILES = 5;
 	
 	/**
-	 * The centralised logger to be used.
+	 * The centralised logger to be used, created on first use.
 	 */
-	private final Logger log = Logger.getLogger(Logging.class.getName() + "." + Logging.logIdentifier++);
+	private volatile Logger log = null;
+	private long logIdentifier = 0L;
 
-	private Handler logHandler = null;
-	private File logFolder = new File("Logs"); // the folder containing all log files
-	private String logFileName = "Log";
-	private int numberLogFiles = 5;
+	private SwappableHandler logHandler = null;
+	/**
+	 * The handler attached to the logger, either the log handler or an asynchronous 
+	 * handler writing to it.
+	 */
+	private Handler attachedHandler = null;
+	private LoggingBackpressure backpressure = null;
+	private volatile LoggingProfiler profiler = null;
+	/**
+	 * Completed once the log file is opened, null if log writing is stopped.
+	 */
+	private volatile CompletableFuture<Void> logWritingStarted = null;
+	private File logFolder = new File(Logging.DEFAULT_LOGGING_FOLDER); // the folder containing all log files
+	private File[] stripeFolders = new File[0]; // further folders sharing the writes to the log files
+	private String logFileName = Logging.DEFAULT_LOG_FILE_NAME;
+	private volatile String currentLogFileName = null; // the name of the log file and its stripes being written
+	private int numberLogFiles = Logging.DEFAULT_NUMBER_LOG_FILES;
+	private LoggingFormat logFormat = LoggingFormat.XML;
+	private boolean logIndexing = false;
+	private boolean pooledWriting = false;
+	private final List<Consumer<LogRecord>> subscribers = new CopyOnWriteArrayList<Consumer<LogRecord>>();
+	private volatile LoggingSampler sampler = null;
+	private volatile CallerInfoMode callerInfoMode = CallerInfoMode.INFERRED;
+	private Level fileLevel = Level.ALL;
+	private LoggingFlightRecorder flightRecorder = null;
+	private LoggingRollup rollup = null;
+	private Level levelBeforeRecording = null;
+	private Level fileLevelBeforeRecording = null;
 	
 	/**
 	 * Create a Logging facility with default values.
 	 */
 	public Logging() {
-		// disable logging to console via global logger
-		this.getLog().setUseParentHandlers(false);
+		// Do nothing as the logger is created on first use.
 	}
 	
 	/**
@@ -49,59 +97,331 @@ public class Logging {
 	public Logging(File loggingFolder, String logFileName) {
 		this.setLoggingFolder(loggingFolder);
 		this.setLogFileName(logFileName);
-		// disable logging to console via global logger
-		this.getLog().setUseParentHandlers(false);
 	}
 	
 	/**
 	 * Start the log writing procedure.
 	 */
-	public void startLogWriting() throws LoggingFailureException {
+	public synchronized void startLogWriting() throws LoggingFailureException {
 		if (this.logHandler == null) {
-			if (!this.getLoggingFolder().exists()) {
-				this.getLoggingFolder().mkdirs(); // create directory if necessary
-			} else if (!this.getLoggingFolder().isDirectory()) {
-				throw new LoggingFailureException("The specified logging folder exists, but is not a directory.");
+			this.logHandler = new SwappableHandler(this.openLogFile(), this.subscribers);
+			this.logHandler.setLevel(this.getFileLevel());
+			this.logWritingStarted = CompletableFuture.completedFuture(null);
+			this.attachLogHandler();
+		} else {
+			this.getLog().warning("Logging has already been started.");
+		}
+	}
+	
+	/**
+	 * Start the log writing procedure without delaying the calling thread. Records are 
+	 * buffered in memory while the logging folder is prepared, old log files are deleted 
+	 * and the new log file is opened on a background thread. Once the file is open, the 
+	 * buffered records are written to it in their original order.
+	 * 
+	 * @see #awaitLogWriting(long, TimeUnit)
+	 * @see #getLogWritingState()
+	 */
+	public synchronized void startLogWritingInBackground() {
+		if (this.logHandler == null) {
+			BufferingHandler buffer = new BufferingHandler(Logging.STARTUP_BUFFER_CAPACITY);
+			SwappableHandler handler = new SwappableHandler(buffer, this.subscribers);
+			handler.setLevel(this.getFileLevel());
+			CompletableFuture<Void> started = new CompletableFuture<Void>();
+			this.logHandler = handler;
+			this.logWritingStarted = started;
+			this.attachLogHandler();
+			Thread startupThread = new Thread(() -> this.openInBackground(handler, buffer, started), 
+					"LoggingStartup-" + this.getLogFileName());
+			startupThread.setDaemon(true);
+			startupThread.start();
+		} else {
+			this.getLog().warning("Logging has already been started.");
+		}
+	}
+	
+	/**
+	 * Attach the log handler to the logger, writing asynchronously if a backpressure is set 
+	 * and measuring the cost of every call site whenever a profiler is set.
+	 */
+	private void attachLogHandler() {
+		Handler handler = LoggingProfiler.profile(this.logHandler, this::getProfiler);
+		this.attachedHandler = this.backpressure == null ? handler 
+				: new AsynchronousHandler(handler, this.backpressure, this.getLog().getName());
+		this.getLog().addHandler(this.attachedHandler);
+		LoggingWriterPool.attach(this.attachedHandler);
+	}
+	
+	/**
+	 * Open the log file and replace the startup buffer by it, unless log writing has been 
+	 * stopped or moved to another file in the meantime.
+	 */
+	private void openInBackground(SwappableHandler handler, BufferingHandler buffer, 
+			CompletableFuture<Void> started) {
+		Handler fileHandler;
+		try {
+			fileHandler = this.openLogFile();
+		} catch (LoggingFailureException e) {
+			buffer.fail(); // records are not written until log writing is moved to another file
+			started.completeExceptionally(e);
+			return;
+		}
+		synchronized (this) {
+			if (this.logHandler == handler && handler.getDelegate() == buffer) {
+				this.replaceLogFile(fileHandler);
+			} else {
+				fileHandler.close();
 			}
-			// delete the oldest files
-			File[] currentLogFiles = this.getLogFiles();
-			for (int i = 0; i <= currentLogFiles.length - this.getNumberLogFiles(); i++) {
-				if (!currentLogFiles[i].delete()) {
-					this.getLog().warning("The old  log file " + currentLogFiles[i] + " could not be deleted.");
+		}
+	}
+	
+	/**
+	 * Continue writing to the specified log file, handing over the records buffered 
+	 * since log writing has been started in the background.
+	 * 
+	 * @param fileHandler - the handler writing to the new log file
+	 */
+	private void replaceLogFile(Handler fileHandler) {
+		Handler oldHandler = this.logHandler.getDelegate();
+		long droppedRecords = 0L;
+		if (oldHandler instanceof BufferingHandler) {
+			droppedRecords = ((BufferingHandler) oldHandler).getDroppedRecords();
+			((BufferingHandler) oldHandler).forwardTo(fileHandler);
+		}
+		this.logHandler.swap(fileHandler).close();
+		if (this.logWritingStarted.isCompletedExceptionally()) {
+			this.logWritingStarted = CompletableFuture.completedFuture(null);
+		} else {
+			this.logWritingStarted.complete(null);
+		}
+		if (droppedRecords > 0L) {
+			this.getLog().warning(droppedRecords + " records have been dropped while opening the log file.");
+		}
+	}
+	
+	/**
+	 * Wait until the log file has been opened after log writing has been started.
+	 * 
+	 * @param timeout - the maximum time to wait
+	 * @param unit - the unit of the timeout
+	 * @return true if records are written to the log file, false if the timeout elapsed before
+	 * @throws LoggingFailureException if log writing has not been started or the log file 
+	 * could not be opened
+	 * @throws InterruptedException if the current thread is interrupted while waiting
+	 */
+	public boolean awaitLogWriting(long timeout, TimeUnit unit) 
+			throws LoggingFailureException, InterruptedException {
+		CompletableFuture<Void> started = this.logWritingStarted;
+		if (started == null) {
+			throw new LoggingFailureException("Log writing has not been started.");
+		}
+		try {
+			started.get(timeout, unit);
+			return true;
+		} catch (TimeoutException e) {
+			return false;
+		} catch (ExecutionException e) {
+			throw new LoggingFailureException("Log writing could not be started.", e.getCause());
+		}
+	}
+	
+	/**
+	 * Get whether records are currently written to a log file.
+	 * 
+	 * @return the current state of log writing
+	 */
+	public LogWritingState getLogWritingState() {
+		CompletableFuture<Void> started = this.logWritingStarted;
+		if (started == null) {
+			return LogWritingState.STOPPED;
+		} else if (!started.isDone()) {
+			return LogWritingState.STARTING;
+		} else if (started.isCompletedExceptionally()) {
+			return LogWritingState.FAILED;
+		}
+		return LogWritingState.WRITING;
+	}
+	
+	/**
+	 * Apply the specified configuration. Settings not specified by the configuration 
+	 * are left unchanged. If logging has already been started and the folder, file name 
+	 * or format changes, writing seamlessly continues in a new log file without losing 
+	 * or blocking any records.
+	 * 
+	 * @param configuration - the configuration to apply
+	 * @throws LoggingFailureException if the new log file could not be opened, in which 
+	 * case logging continues to the old one
+	 * @throws IllegalArgumentException if the configuration is null
+	 */
+	public synchronized void reconfigure(LoggingConfiguration configuration) throws LoggingFailureException {
+		if (configuration == null) {
+			throw new IllegalArgumentException("The logging configuration cannot be null.");
+		}
+		boolean newLogFile = false;
+		if (configuration.getLoggingFolder() != null 
+				&& !configuration.getLoggingFolder().equals(this.getLoggingFolder())) {
+			this.setLoggingFolder(configuration.getLoggingFolder());
+			newLogFile = true;
+		}
+		if (configuration.getLogFileName() != null 
+				&& !configuration.getLogFileName().equals(this.getLogFileName())) {
+			this.setLogFileName(configuration.getLogFileName());
+			newLogFile = true;
+		}
+		if (configuration.getFormat() != null && configuration.getFormat() != this.getLogFormat()) {
+			this.setLogFormat(configuration.getFormat());
+			newLogFile = true;
+		}
+		if (configuration.getNumberLogFiles() != null) {
+			this.setNumberLogFiles(configuration.getNumberLogFiles());
+		}
+		if (configuration.getLevel() != null) {
+			this.getLog().setLevel(configuration.getLevel());
+		}
+		if (this.logHandler != null) {
+			if (newLogFile) {
+				// open the new file first, so records can be written at any time
+				Handler fileHandler = this.openLogFile();
+				this.reportSampledOut();
+				this.replaceLogFile(fileHandler);
+			} else {
+				this.deleteOldLogFiles(this.getNumberLogFiles());
+			}
+		}
+	}
+	
+	/**
+	 * Write the numbers of records sampled out since the last report to the current log 
+	 * file, bypassing the level and filter of the logger and raised to the file level.
+	 */
+	private void reportSampledOut() {
+		if (this.sampler != null && this.attachedHandler != null) {
+			for (LogRecord record : this.sampler.report(this.getLog().getName(), this.getFileLevel())) {
+				this.attachedHandler.publish(record);
+			}
+			this.attachedHandler.flush(); // before the log file is replaced
+		}
+	}
+	
+	/**
+	 * Prepare the logging folders and open a new log file for the current settings. If 
+	 * stripe folders are set, a stripe of the log file is opened in every folder.
+	 * 
+	 * @return the handler writing to the new log file
+	 * @throws LoggingFailureException if the log file could not be opened
+	 */
+	private Handler openLogFile() throws LoggingFailureException {
+		File[] folders = this.getLoggingFolders();
+		for (File folder : folders) {
+			if (!folder.exists()) {
+				folder.mkdirs(); // create directory if necessary
+			} else if (!folder.isDirectory()) {
+				throw new LoggingFailureException("The specified logging folder " + folder 
+						+ " exists, but is not a directory.");
+			}
+		}
+		// delete the oldest files, leaving space for the new one
+		this.deleteOldLogFiles(this.getNumberLogFiles() - 1);
+		String startingTime = LocalDateTime.now().format(LoggingHandler.FILE_TIME_FORMAT);
+		String logFileName = this.getLogFileName() + "_" + startingTime + this.getLogFormat().getFileExtension();
+		this.currentLogFileName = logFileName;
+		if (folders.length == 1) {
+			return this.openLogFile(folders[0].toPath().resolve(logFileName).toString());
+		}
+		Handler[] stripes = new Handler[folders.length];
+		try {
+			for (int i = 0; i < folders.length; i++) {
+				stripes[i] = this.openLogFile(folders[i].toPath().resolve(logFileName).toString());
+			}
+		} catch (LoggingFailureException e) {
+			for (Handler stripe : stripes) {
+				if (stripe != null) {
+					stripe.close();
 				}
 			}
-			try {
-				LocalDateTime dateTimeNow = LocalDateTime.now();
-				String startingTime = String.format("%d_%d_%d_%d_%d_%d_%d", dateTimeNow.getYear(), 
-						dateTimeNow.getMonthValue(), dateTimeNow.getDayOfMonth(), dateTimeNow.getHour(), 
-						dateTimeNow.getMinute(), dateTimeNow.getSecond(), dateTimeNow.getNano());
-				this.logHandler = new FileHandler((this.getLoggingFolder().toPath().resolve(
-						this.getLogFileName() + "_" + startingTime 
-						+ LoggingHandler.LOG_FILE_EXTENSION)).toString()); // always write to first log file
-				this.getLog().addHandler(this.logHandler);
-			} catch (SecurityException e) {
-				this.getLog().log(Level.SEVERE, "Security problem accessing log file.", e);
-				e.printStackTrace();
-				throw new LoggingFailureException("Security problem accessing log file.", e);
-			} catch (IOException e) {
-				this.getLog().log(Level.SEVERE, "The log file could not be written to.", e);
-				e.printStackTrace();
-				throw new LoggingFailureException("The log file could not be written to.", e);
+			throw e;
+		}
+		return new StripedHandler(stripes);
+	}
+	
+	/**
+	 * Open the specified log file.
+	 * 
+	 * @param logFile - the path of the log file
+	 * @return the handler writing to the log file
+	 * @throws LoggingFailureException if the log file could not be opened
+	 */
+	private Handler openLogFile(String logFile) throws LoggingFailureException {
+		try {
+			Handler fileHandler;
+			if (this.isLogIndexing() && this.getLogFormat() == LoggingFormat.XML) {
+				fileHandler = new LoggingIndexingHandler(logFile, this.getLogFormat().createFormatter());
+			} else if (this.isPooledWriting() && this.getLogFormat() != LoggingFormat.TEMPLATE) {
+				fileHandler = new PooledFileHandler(logFile, this.getLogFormat().createFormatter());
+			} else {
+				fileHandler = this.getLogFormat().createHandler(logFile);
+			}
+			if (fileHandler.getFormatter() != null && this.getLogFormat() != LoggingFormat.TEMPLATE) {
+				fileHandler.setFormatter(LoggingProfiler.profile(fileHandler.getFormatter(), this::getProfiler));
+			}
+			return LoggingDiskQuota.track(fileHandler, new File(logFile));
+		} catch (SecurityException e) {
+			this.getLog().log(Level.SEVERE, "Security problem accessing log file.", e);
+			e.printStackTrace();
+			throw new LoggingFailureException("Security problem accessing log file.", e);
+		} catch (IOException e) {
+			this.getLog().log(Level.SEVERE, "The log file could not be written to.", e);
+			e.printStackTrace();
+			throw new LoggingFailureException("The log file could not be written to.", e);
+		}
+	}
+	
+	/**
+	 * Delete the oldest log files until only the specified number is left. The stripes 
+	 * of a log file share its name and count as a single log file.
+	 * 
+	 * @param numberKept - the number of log files to keep
+	 */
+	private void deleteOldLogFiles(int numberKept) {
+		File[] currentLogFiles = this.getLogFiles();
+		if (currentLogFiles != null) {
+			List<String> names = new ArrayList<String>();
+			for (File logFile : currentLogFiles) {
+				if (names.isEmpty() || !names.get(names.size() - 1).equals(logFile.getName())) {
+					names.add(logFile.getName());
+				}
+			}
+			Set<String> deletedNames = new HashSet<String>(names.subList(0, Math.max(0, names.size() - numberKept)));
+			for (File logFile : currentLogFiles) {
+				if (deletedNames.contains(logFile.getName())) {
+					if (!logFile.delete()) {
+						this.getLog().warning("The old  log file " + logFile + " could not be deleted.");
+					}
+					LoggingIndex.indexFile(logFile).delete(); // only exists if the file was indexed
+					LoggingDiskQuota.deleted(logFile);
+				} else {
+					LoggingDiskQuota.found(logFile);
+				}
 			}
-		} else {
-			this.getLog().warning("Logging has already been started.");
 		}
 	}
 	
 	/**
 	 * Stop the log writing procedure.
 	 */
-	public void stopLogWriting() throws LoggingFailureException {
+	public synchronized void stopLogWriting() throws LoggingFailureException {
 		if(this.logHandler != null) {
+			this.reportSampledOut(); // keep the sampled out counts of this log file
 			try {
-				this.logHandler.close();
-				this.getLog().removeHandler(logHandler);
+				this.getLog().removeHandler(this.attachedHandler);
+				LoggingWriterPool.detach(this.attachedHandler);
+				this.attachedHandler.close();
+				this.attachedHandler = null;
 				this.logHandler = null;
+				this.currentLogFileName = null;
+				this.logWritingStarted.completeExceptionally(new LoggingFailureException(
+						"Log writing has been stopped before the log file was opened."));
+				this.logWritingStarted = null;
 			} catch (SecurityException e) { // false if logging could not be stopped
 				e.printStackTrace();
 				this.getLog().log(Level.WARNING, "Logging could not be stopped.", e);
@@ -114,26 +434,241 @@ public class Logging {
 	}
 
 	/**
-	 * Get all logging files for the current settings.
+	 * Start recording the most recent records of all levels in memory. The logger level 
+	 * is lowered to {@link Level#ALL}, while only records of the specified file level 
+	 * are written to the log files. The recorded records are dumped to a separate file 
+	 * in the logging folder whenever a {@link Level#SEVERE} record is logged or an 
+	 * uncaught exception terminates a thread.
 	 * 
-	 * @return an array of all log files
+	 * @param capacity - the minimum number of records to keep in memory
+	 * @param fileLevel - the minimum level of records written to the log files
+	 * @throws IllegalArgumentException if the capacity is less than 1 or the level is null
+	 */
+	public synchronized void startFlightRecording(int capacity, Level fileLevel) {
+		if (this.flightRecorder == null) {
+			LoggingFlightRecorder recorder = new LoggingFlightRecorder(capacity, 
+					this.getLoggingFolder(), this.getLogFileName());
+			Level previousFileLevel = this.getFileLevel();
+			this.setFileLevel(fileLevel);
+			recorder.dumpOnUncaughtException();
+			recorder.setExplicitCallerInfo(this.getCallerInfoMode() != CallerInfoMode.INFERRED);
+			this.flightRecorder = recorder;
+			this.levelBeforeRecording = this.getLog().getLevel();
+			this.fileLevelBeforeRecording = previousFileLevel;
+			this.getLog().addHandler(recorder);
+			this.getLog().setLevel(Level.ALL);
+		} else {
+			this.getLog().warning("Flight recording has already been started.");
+		}
+	}
+	
+	/**
+	 * Stop recording records in memory and restore the previous levels.
+	 */
+	public synchronized void stopFlightRecording() {
+		if (this.flightRecorder != null) {
+			this.getLog().removeHandler(this.flightRecorder);
+			this.flightRecorder.close();
+			this.flightRecorder = null;
+			this.getLog().setLevel(this.levelBeforeRecording);
+			this.setFileLevel(this.fileLevelBeforeRecording);
+		} else {
+			this.getLog().warning("No flight recording is currently performed "
+					+ "and can thereby not be stopped.");
+		}
+	}
+	
+	/**
+	 * Start counting the records written to the log files per level, logger and message 
+	 * template in intervals of the specified length. Finished intervals are appended to 
+	 * a rollup file named after the log files in the logging folder. Records less severe 
+	 * than the file level are not written and therefore not counted either.
+	 * 
+	 * @param intervalLength - the length of an interval in milliseconds
+	 * @throws LoggingFailureException if the rollup file cannot be opened
+	 * @throws IllegalArgumentException if the length is less than 1
+	 * @see LoggingRollup
+	 */
+	public synchronized void startRollup(long intervalLength) throws LoggingFailureException {
+		if (this.rollup == null) {
+			this.getLoggingFolder().mkdirs();
+			this.rollup = new LoggingRollup(this.getLoggingFolder().toPath().resolve(
+					this.getLogFileName() + LoggingRollup.ROLLUP_FILE_EXTENSION).toFile(), intervalLength);
+			this.addSubscriber(this.rollup);
+		} else {
+			this.getLog().warning("The rollup has already been started.");
+		}
+	}
+	
+	/**
+	 * Stop counting records and append the current interval to the rollup file.
+	 */
+	public synchronized void stopRollup() {
+		if (this.rollup != null) {
+			this.removeSubscriber(this.rollup);
+			this.rollup.close();
+			this.rollup = null;
+		} else {
+			this.getLog().warning("No rollup is currently performed "
+					+ "and can thereby not be stopped.");
+		}
+	}
+	
+	/**
+	 * Get the rollup counting the records written to the log files.
+	 * 
+	 * @return the rollup or null if no rollup is performed
+	 */
+	public LoggingRollup getRollup() {
+		return this.rollup;
+	}
+	
+	/**
+	 * Get the flight recorder keeping the most recent records in memory.
+	 * 
+	 * @return the flight recorder or null if no flight recording is performed
+	 */
+	public LoggingFlightRecorder getFlightRecorder() {
+		return this.flightRecorder;
+	}
+
+	/**
+	 * Get all logging files for the current settings in all logging folders sorted in 
+	 * alphabetical order of their names, which is the order they have been created in. 
+	 * The stripes of a log file follow each other in the order of their folders.
+	 * 
+	 * @return an array of all log files or null if no logging folder could be listed
 	 */
 	public File[] getLogFiles() {
-		// list all log files created with the current settings
-		return this.getLoggingFolder().listFiles(file -> {
-			String name = file.getName();
-			return name.startsWith(this.getLogFileName()) 
-					&& name.endsWith(LoggingHandler.LOG_FILE_EXTENSION);
-		});
+		List<File> logFiles = null;
+		for (File folder : this.getLoggingFolders()) {
+			// list all log files created with the current settings
+			File[] folderLogFiles = folder.listFiles(file -> {
+				String name = file.getName();
+				return name.startsWith(this.getLogFileName()) 
+						&& LoggingFormat.isLogFileName(name);
+			});
+			if (folderLogFiles != null) {
+				if (logFiles == null) {
+					logFiles = new ArrayList<File>();
+				}
+				logFiles.addAll(Arrays.asList(folderLogFiles));
+			}
+		}
+		if (logFiles == null) {
+			return null;
+		}
+		// the file system does not guarantee any order, the stable sort keeps the folder order
+		logFiles.sort(Comparator.comparing(File::getName));
+		return logFiles.toArray(new File[logFiles.size()]);
+	}
+	
+	/**
+	 * Pass the records of all log files in all logging folders in time order to the consumer, 
+	 * merging the stripes of every log file. Plain text log files written in the 
+	 * {@link LoggingFormat#SIMPLE} format are skipped.
+	 * 
+	 * @param consumer - the consumer of the records
+	 * @return the number of records
+	 * @throws LoggingFailureException if any log file cannot be read
+	 * @see LoggingAggregator#merge(List, Consumer)
+	 */
+	public long readLogFiles(Consumer<LogRecord> consumer) throws LoggingFailureException {
+		List<File> logFiles = new ArrayList<File>();
+		for (File logFile : Logging.orEmpty(this.getLogFiles())) {
+			if (LoggingRecordReader.isReadable(logFile.getName())) {
+				logFiles.add(logFile);
+			}
+		}
+		return LoggingAggregator.merge(logFiles, consumer);
+	}
+	
+	private static File[] orEmpty(File[] files) {
+		return files != null ? files : new File[0];
 	}
 
 	/**
-	 * Get the current logger in order to access logging functionality.
+	 * Get the current logger in order to access logging functionality. 
+	 * The logger is created on first use.
 	 * 
 	 * @return the current Logger
 	 */
 	public Logger getLog() {
-		return this.log;
+		Logger currentLog = this.log;
+		if (currentLog == null) {
+			synchronized (this) {
+				currentLog = this.log;
+				if (currentLog == null) {
+					this.logIdentifier = Logging.LOG_IDENTIFIER.getAndIncrement();
+					currentLog = new FacilityLogger(Logging.class.getName() + "." + this.logIdentifier);
+					// disable logging to console via global logger
+					currentLog.setUseParentHandlers(false);
+					this.log = currentLog;
+				}
+			}
+		}
+		return currentLog;
+	}
+	
+	/**
+	 * Stop all logging activity, detach all handlers from the logger and restore 
+	 * the default settings. The logger itself is kept for further use.
+	 * 
+	 * @throws LoggingFailureException if logging could not be stopped
+	 */
+	synchronized void reset() throws LoggingFailureException {
+		if (this.flightRecorder != null) {
+			this.stopFlightRecording();
+		}
+		if (this.logHandler != null) {
+			this.stopLogWriting();
+		}
+		if (this.rollup != null) {
+			this.stopRollup();
+		}
+		this.logFolder = new File(Logging.DEFAULT_LOGGING_FOLDER);
+		this.stripeFolders = new File[0];
+		this.logFileName = Logging.DEFAULT_LOG_FILE_NAME;
+		this.numberLogFiles = Logging.DEFAULT_NUMBER_LOG_FILES;
+		this.logFormat = LoggingFormat.XML;
+		this.logIndexing = false;
+		this.pooledWriting = false;
+		this.subscribers.clear();
+		if (this.sampler != null) {
+			this.sampler.release();
+			this.sampler = null;
+		}
+		this.backpressure = null;
+		if (this.profiler != null) {
+			this.profiler.unregister();
+			this.profiler = null;
+		}
+		this.callerInfoMode = CallerInfoMode.INFERRED;
+		this.fileLevel = Level.ALL;
+		Logger currentLog = this.log;
+		if (currentLog != null) {
+			for (Handler handler : currentLog.getHandlers()) {
+				currentLog.removeHandler(handler);
+			}
+			currentLog.setFilter(null);
+			currentLog.setLevel(null);
+		}
+	}
+	
+	/**
+	 * Stop all logging activity, restore the default settings and release the logger. 
+	 * The released logger is turned off for good, so references to it kept after 
+	 * closing log nothing. Using this logging facility again creates a new logger.
+	 * 
+	 * @throws LoggingFailureException if logging could not be stopped
+	 */
+	@Override
+	public synchronized void close() throws LoggingFailureException {
+		this.reset();
+		if (this.log != null) {
+			this.log.setLevel(Level.OFF);
+			this.log = null;
+		}
 	}
 
 	/**
@@ -175,6 +710,44 @@ public class Logging {
 		}
 	}
 
+	/**
+	 * Get the further folders the log files are striped across besides the logging folder.
+	 * 
+	 * @return the stripe folders, empty if all log files are written to the logging folder
+	 */
+	public File[] getStripeFolders() {
+		return this.stripeFolders.clone();
+	}
+	
+	/**
+	 * Set further folders, usually on separate devices, the log files are striped across 
+	 * besides the logging folder. Every log file is written as one stripe per folder, each 
+	 * receiving the records of some of the logging threads. All methods reading or deleting 
+	 * log files treat the stripes as a single log file. It must be set before logging is started.
+	 * 
+	 * @param stripeFolders - the further folders, none to write to the logging folder only
+	 * @throws IllegalArgumentException if any folder is null
+	 */
+	public void setStripeFolders(File... stripeFolders) {
+		if (stripeFolders == null || Arrays.asList(stripeFolders).contains(null)) {
+			throw new IllegalArgumentException("The stripe folders cannot be null.");
+		}
+		this.stripeFolders = stripeFolders.clone();
+	}
+	
+	/**
+	 * Get all folders log files are written to, the logging folder followed by the 
+	 * stripe folders.
+	 * 
+	 * @return all logging folders
+	 */
+	public File[] getLoggingFolders() {
+		File[] folders = new File[this.stripeFolders.length + 1];
+		folders[0] = this.getLoggingFolder();
+		System.arraycopy(this.stripeFolders, 0, folders, 1, this.stripeFolders.length);
+		return folders;
+	}
+
 	/**
 	 * Get the base name of the corresponding logging files.
 	 * 
@@ -224,6 +797,360 @@ public class Logging {
 		}
 	}
 	
+	/**
+	 * Get the format new log files are written in.
+	 * 
+	 * @return the log format
+	 */
+	public LoggingFormat getLogFormat() {
+		return this.logFormat;
+	}
+
+	/**
+	 * Set the format new log files are written in.
+	 * It must be set before logging is started.
+	 * 
+	 * @param logFormat - the log format
+	 * @throws IllegalArgumentException if the log format is null
+	 */
+	public void setLogFormat(LoggingFormat logFormat) {
+		if (logFormat != null) {
+			this.logFormat = logFormat;
+		} else {
+			throw new IllegalArgumentException("The log format cannot be null.");
+		}
+	}
+	
+	/**
+	 * Subscribe to all records written to the log files while log writing is running. The 
+	 * subscriber is called on the logging thread right after the record has been handed to 
+	 * the log file, so it must return quickly. To follow the log files from another process 
+	 * use {@link LoggingFollower}.
+	 * 
+	 * @param subscriber - the consumer of the written records
+	 * @throws IllegalArgumentException if the subscriber is null
+	 */
+	public void addSubscriber(Consumer<LogRecord> subscriber) {
+		if (subscriber == null) {
+			throw new IllegalArgumentException("The subscriber cannot be null.");
+		}
+		this.subscribers.add(subscriber);
+	}
+	
+	/**
+	 * Stop passing records to the specified subscriber.
+	 * 
+	 * @param subscriber - the subscriber to remove
+	 * @return true if the subscriber has been subscribed
+	 */
+	public boolean removeSubscriber(Consumer<LogRecord> subscriber) {
+		return this.subscribers.remove(subscriber);
+	}
+	
+	/**
+	 * Get whether an index of the tokens of all records is written next to each XML log file.
+	 * 
+	 * @return true if new log files are indexed
+	 */
+	public boolean isLogIndexing() {
+		return this.logIndexing;
+	}
+
+	/**
+	 * Set whether an index of the tokens of all records is written next to each XML log file, 
+	 * which lets {@link #search(String)} skip files and blocks of records not containing 
+	 * the searched tokens. The index is written while logging, whenever a block of records 
+	 * is complete, and when the log file is flushed or closed, so log files still being 
+	 * written can be searched by their index as well.
+	 * It must be set before logging is started.
+	 * 
+	 * @param logIndexing - true to index new log files
+	 */
+	public void setLogIndexing(boolean logIndexing) {
+		this.logIndexing = logIndexing;
+	}
+	
+	/**
+	 * Get whether the log files are written by the writer threads shared by all logging facilities.
+	 * 
+	 * @return true if new log files are written by the writer pool
+	 */
+	public boolean isPooledWriting() {
+		return this.pooledWriting;
+	}
+
+	/**
+	 * Set whether the log files are written by the writer threads shared by all logging 
+	 * facilities instead of the logging threads. Indexed and template log files are always 
+	 * written by their own handlers. It must be set before logging is started.
+	 * 
+	 * @param pooledWriting - true to write new log files by the writer pool
+	 * @see LoggingWriterPool
+	 */
+	public void setPooledWriting(boolean pooledWriting) {
+		this.pooledWriting = pooledWriting;
+	}
+	
+	/**
+	 * Convert the log files that have not been modified for the specified time into 
+	 * archives and delete them. The log file currently written is never archived.
+	 * 
+	 * @param minimumAge - the minimum time in milliseconds since the last modification
+	 * @return the written archives
+	 * @throws LoggingFailureException if any log file cannot be archived
+	 * @see LoggingArchive
+	 */
+	public synchronized List<File> archiveLogFiles(long minimumAge) throws LoggingFailureException {
+		File[] logFiles = this.getLogFiles();
+		if (logFiles == null) {
+			return new ArrayList<File>();
+		}
+		List<File> archivable = new ArrayList<File>(Arrays.asList(logFiles));
+		String currentName = this.currentLogFileName;
+		if (this.logHandler != null && currentName != null) {
+			archivable.removeIf(logFile -> logFile.getName().equals(currentName));
+		}
+		return LoggingArchive.archive(archivable, minimumAge);
+	}
+	
+	/**
+	 * Find all records of the log files containing all tokens of the specified query.
+	 * 
+	 * @param query - the text to search for
+	 * @return the matching records in file order
+	 * @throws LoggingFailureException if a log file cannot be read
+	 * @throws IllegalArgumentException if the query contains no letters or digits
+	 * @see LoggingSearch
+	 */
+	public List<LogRecord> search(String query) throws LoggingFailureException {
+		File[] logFiles = this.getLogFiles();
+		return new LoggingSearch(query).search(logFiles != null ? logFiles : new File[0]);
+	}
+	
+	/**
+	 * Get the minimum level of records written to the log files.
+	 * 
+	 * @return the file level
+	 */
+	public Level getFileLevel() {
+		return this.fileLevel;
+	}
+
+	/**
+	 * Set the minimum level of records written to the log files, independently 
+	 * of the level of the logger.
+	 * 
+	 * @param fileLevel - the file level
+	 * @throws IllegalArgumentException if the file level is null
+	 */
+	public synchronized void setFileLevel(Level fileLevel) {
+		if (fileLevel != null) {
+			this.fileLevel = fileLevel;
+			if (this.logHandler != null) {
+				this.logHandler.setLevel(fileLevel);
+			}
+		} else {
+			throw new IllegalArgumentException("The file level cannot be null.");
+		}
+	}
+	
+	/**
+	 * Get the sampler thinning out the records of this logging facility.
+	 * 
+	 * @return the sampler or null if all records are logged
+	 */
+	public LoggingSampler getSampler() {
+		return this.sampler;
+	}
+
+	/**
+	 * Set the sampler thinning out the records of this logging facility. The numbers 
+	 * of sampled out records are written to the log file whenever log writing is stopped 
+	 * or continues in a new log file. A replaced sampler forgets the counters of all threads.
+	 * 
+	 * @param sampler - the sampler or null to log all records
+	 */
+	public synchronized void setSampler(LoggingSampler sampler) {
+		if (this.sampler != null && this.sampler != sampler) {
+			this.sampler.release();
+		}
+		this.sampler = sampler;
+		this.updateFilter();
+	}
+	
+	/**
+	 * Get the backpressure adapting the records written to the load of the writer.
+	 * 
+	 * @return the backpressure or null if records are written synchronously
+	 */
+	public LoggingBackpressure getBackpressure() {
+		return this.backpressure;
+	}
+
+	/**
+	 * Get the profiler measuring the cost of logging per call site.
+	 * 
+	 * @return the profiler or null if logging is not profiled
+	 */
+	public LoggingProfiler getProfiler() {
+		return this.profiler;
+	}
+
+	/**
+	 * Set the profiler measuring the records, bytes and time spent writing them per 
+	 * statement logging them. The profiler is registered with the platform MBean server 
+	 * under the name of the logger. Records are measured from the next record on, even 
+	 * while log writing is running.
+	 * 
+	 * @param profiler - the profiler or null to stop profiling
+	 * @see LoggingProfiler
+	 */
+	public synchronized void setProfiler(LoggingProfiler profiler) {
+		if (this.profiler != null) {
+			this.profiler.unregister();
+		}
+		if (profiler != null) {
+			try {
+				profiler.register(this.getLog().getName());
+			} catch (LoggingFailureException e) {
+				e.printStackTrace();
+				this.getLog().log(Level.WARNING, "The profiler could not be registered.", e);
+			}
+		}
+		this.profiler = profiler;
+		this.updateFilter();
+	}
+
+	/**
+	 * Set the backpressure adapting the records written to the load of the writer. With 
+	 * a backpressure set, records are queued and written to the log file by the writer 
+	 * threads shared by all logging facilities, see {@link LoggingWriterPool}. It takes 
+	 * effect the next time log writing is started.
+	 * 
+	 * @param backpressure - the backpressure or null to write records synchronously
+	 * @see LoggingBackpressure
+	 */
+	public synchronized void setBackpressure(LoggingBackpressure backpressure) {
+		this.backpressure = backpressure;
+	}
+	
+	/**
+	 * Get the way the source class and method of records are determined.
+	 * 
+	 * @return the caller info mode
+	 */
+	public CallerInfoMode getCallerInfoMode() {
+		return this.callerInfoMode;
+	}
+
+	/**
+	 * Set the way the source class and method of records are determined. Any mode 
+	 * other than {@link CallerInfoMode#INFERRED} avoids walking the whole stack 
+	 * when a record is written.
+	 * 
+	 * @param callerInfoMode - the caller info mode
+	 * @throws IllegalArgumentException if the caller info mode is null
+	 */
+	public synchronized void setCallerInfoMode(CallerInfoMode callerInfoMode) {
+		if (callerInfoMode != null) {
+			this.callerInfoMode = callerInfoMode;
+			if (this.flightRecorder != null) {
+				this.flightRecorder.setExplicitCallerInfo(callerInfoMode != CallerInfoMode.INFERRED);
+			}
+			this.updateFilter();
+		} else {
+			throw new IllegalArgumentException("The caller info mode cannot be null.");
+		}
+	}
+	
+	/**
+	 * Install the logger filter if any records need to be filtered or updated.
+	 */
+	private void updateFilter() {
+		if (this.sampler == null && this.callerInfoMode == CallerInfoMode.INFERRED && this.profiler == null) {
+			this.getLog().setFilter(null);
+		} else {
+			this.getLog().setFilter(this::filter);
+		}
+	}
+	
+	/**
+	 * Sample the record and set its source according to the caller info mode.
+	 * 
+	 * @param record - the record to check
+	 * @return true if the record should be logged
+	 */
+	private boolean filter(LogRecord record) {
+		LoggingSampler currentSampler = this.sampler;
+		if (currentSampler != null && !currentSampler.isLoggable(record)) {
+			return false;
+		}
+		LoggingCallSite callSite = null;
+		switch (this.callerInfoMode) {
+		case OFF:
+			record.setSourceClassName(null);
+			record.setSourceMethodName(null);
+			break;
+		case EXPLICIT:
+			if (!(record instanceof ExplicitCallerRecord)) {
+				record.setSourceClassName(null);
+				record.setSourceMethodName(null);
+			}
+			break;
+		case STACK_WALKER:
+			if (!(record instanceof ExplicitCallerRecord)) {
+				callSite = LoggingCallSite.capture(LoggingCallSite.DEFAULT_MAXIMUM_DEPTH);
+				if (callSite != null) {
+					callSite.applyTo(record);
+				} else {
+					record.setSourceClassName(null);
+					record.setSourceMethodName(null);
+				}
+			}
+			break;
+		default:
+			break;
+		}
+		if (this.profiler != null) { // the handlers run on this thread right after the filter
+			LoggingProfiler.setCurrentSite(callSite != null ? callSite 
+					: LoggingCallSite.capture(LoggingCallSite.DEFAULT_MAXIMUM_DEPTH));
+		}
+		return true;
+	}
+	
+	/**
+	 * Log the specified message with an explicitly passed source, which is recorded 
+	 * for every caller info mode except {@link CallerInfoMode#OFF}.
+	 * 
+	 * @param level - the log level
+	 * @param sourceClass - the name of the class issuing the message
+	 * @param sourceMethod - the name of the method issuing the message
+	 * @param msg - the message to log
+	 */
+	public void logp(Level level, String sourceClass, String sourceMethod, String msg) {
+		if (this.getLog().isLoggable(level)) {
+			this.getLog().log(new ExplicitCallerRecord(level, sourceClass, sourceMethod, msg));
+		}
+	}
+	
+	/**
+	 * Log the specified message with an explicitly passed source, which is recorded 
+	 * for every caller info mode except {@link CallerInfoMode#OFF}.
+	 * 
+	 * @param level - the log level
+	 * @param sourceClass - the name of the class issuing the message
+	 * @param sourceMethod - the name of the method issuing the message
+	 * @param msg - the message to log
+	 * @param thrown - the exception raised
+	 */
+	public void logp(Level level, String sourceClass, String sourceMethod, String msg, Throwable thrown) {
+		if (this.getLog().isLoggable(level)) {
+			LogRecord record = new ExplicitCallerRecord(level, sourceClass, sourceMethod, msg);
+			record.setThrown(thrown);
+			this.getLog().log(record);
+		}
+	}
+	
 	/**
 	 * Log the specified message and print it to the console. Depending on the log level the 
 	 * message will be printed to err or out.
@@ -265,6 +1192,7 @@ public class Logging {
 		int result = 1;
 		result = prime * result + ((this.logFileName == null) ? 0 : this.logFileName.hashCode());
 		result = prime * result + ((this.logFolder == null) ? 0 : this.logFolder.hashCode());
+		result = prime * result + Arrays.hashCode(this.stripeFolders);
 		result = prime * result + this.numberLogFiles;
 		return result;
 	}
@@ -292,6 +1220,9 @@ public class Logging {
 		} else if (!this.logFolder.equals(other.logFolder)) {
 			return false;
 		}
+		if (!Arrays.equals(this.stripeFolders, other.stripeFolders)) {
+			return false;
+		}
 		if (this.numberLogFiles != other.numberLogFiles) {
 			return false;
 		}
@@ -300,7 +1231,20 @@ public class Logging {
 	
 	@Override
 	public String toString() {
-		return String.format("Log [%s:%s; %s]", Logging.logIdentifier, 
+		return String.format("Log [%s:%s; %s]", Logging.LOG_IDENTIFIER.get(), 
 				this.getLoggingFolder().toPath().resolve(this.getLogFileName()) , this.getNumberLogFiles());
 	}
+
+	/**
+	 * A logger of a logging facility. It is not registered with the log manager, which 
+	 * never forgets a logger name, so it is collected along with its logging facility. 
+	 * Its handler is closed by the {@link LoggingWriterPool} when the JVM shuts down instead.
+	 */
+	private static final class FacilityLogger extends Logger {
+
+		private FacilityLogger(String name) {
+			super(name, null);
+		}
+
+	}
 }
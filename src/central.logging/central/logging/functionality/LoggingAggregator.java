@@ -0,0 +1,345 @@
+package central.logging.functionality;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * The LoggingAggregator class merges the XML and template log files of many logging 
+ * folders, for example written by separate processes, into a single time ordered stream 
+ * of records.
+ * The files are merged with a k-way merge over one cursor per file. Each cursor reads
+ * ahead a window of records and passes them on in time order, as records of the 
+ * priority lane of the {@link AsynchronousHandler} are written ahead of older queued 
+ * records, so only the window of records per file is held in memory at any time. A file 
+ * is only opened once the merge has reached the time of its first records, so files 
+ * written one after another are read one after another. Every record carries its {@link LoggingContext}, see {@link LoggingContext#of(LogRecord)}, so 
+ * merged files keep the context of their records.
+ *
+ * @author Planters
+ *
+ */
+public class LoggingAggregator {
+
+	/**
+	 * The default number of records read ahead per file, which covers records overtaken 
+	 * by the priority lane of a short backlog. Files written with a long backlog are 
+	 * merged in order with a larger window.
+	 */
+	public static final int DEFAULT_REORDER_WINDOW = 256;
+	/**
+	 * Records are ordered by time, records of the same time by their file.
+	 */
+	private static final Comparator<Cursor> ORDER = Comparator
+			.comparing((Cursor cursor) -> cursor.current.record.getInstant())
+			.thenComparingInt(cursor -> cursor.index);
+	/**
+	 * Records read ahead are ordered by time, records of the same time by their position.
+	 */
+	private static final Comparator<Entry> WINDOW_ORDER = Comparator
+			.comparing((Entry entry) -> entry.record.getInstant())
+			.thenComparingLong(entry -> entry.position);
+
+	private LoggingAggregator() {
+		// Do nothing as this class only provides static methods.
+	}
+
+	/**
+	 * Get all XML and template log files in the specified folders regardless of their base name.
+	 *
+	 * @param loggingFolders - the folders to search
+	 * @return all log files sorted by folder and name
+	 */
+	public static List<File> findLogFiles(File... loggingFolders) {
+		List<File> logFiles = new ArrayList<File>();
+		for (File folder : loggingFolders) {
+			File[] files = folder.listFiles(file -> file.isFile() 
+					&& LoggingRecordReader.isReadable(file.getName()));
+			if (files != null) {
+				Arrays.sort(files);
+				logFiles.addAll(Arrays.asList(files));
+			}
+		}
+		return logFiles;
+	}
+
+	/**
+	 * Pass the records of all specified log files in time order to the consumer, reading 
+	 * ahead the {@link #DEFAULT_REORDER_WINDOW} of records per file.
+	 *
+	 * @param logFiles - the log files to merge
+	 * @param consumer - the consumer of the merged records
+	 * @return the number of merged records
+	 * @throws LoggingFailureException if any of the files cannot be read
+	 */
+	public static long merge(List<File> logFiles, Consumer<LogRecord> consumer) throws LoggingFailureException {
+		return LoggingAggregator.merge(logFiles, LoggingAggregator.DEFAULT_REORDER_WINDOW, consumer);
+	}
+
+	/**
+	 * Pass the records of all specified log files in time order to the consumer. Records 
+	 * of a file written more than the reorder window after younger records of the same 
+	 * file are passed on out of order. The first records of every file are read in advance 
+	 * to find its start, while the file is kept open only from its start until it has been 
+	 * merged completely.
+	 *
+	 * @param logFiles - the log files to merge
+	 * @param reorderWindow - the number of records read ahead per file
+	 * @param consumer - the consumer of the merged records
+	 * @return the number of merged records
+	 * @throws LoggingFailureException if any of the files cannot be read
+	 * @throws IllegalArgumentException if the reorder window is less than 1
+	 */
+	public static long merge(List<File> logFiles, int reorderWindow, Consumer<LogRecord> consumer) 
+			throws LoggingFailureException {
+		if (reorderWindow < 1) {
+			throw new IllegalArgumentException("The reorder window must be at least 1.");
+		}
+		List<Pending> pending = new ArrayList<Pending>(logFiles.size());
+		for (int i = 0; i < logFiles.size(); i++) {
+			Instant start = LoggingAggregator.readStart(logFiles.get(i), reorderWindow);
+			if (start != null) {
+				pending.add(new Pending(logFiles.get(i), i, start));
+			}
+		}
+		pending.sort(Comparator.comparing((Pending file) -> file.start).thenComparingInt(file -> file.index));
+		PriorityQueue<Cursor> cursors = new PriorityQueue<Cursor>(Math.max(1, logFiles.size()),
+				LoggingAggregator.ORDER);
+		List<Cursor> opened = new ArrayList<Cursor>();
+		int next = 0;
+		long merged = 0L;
+		try {
+			while (true) {
+				// open the files starting before the next record, which may start even earlier
+				while (next < pending.size() && (cursors.isEmpty() 
+						|| !pending.get(next).start.isAfter(cursors.peek().current.record.getInstant()))) {
+					Pending file = pending.get(next++);
+					Cursor cursor = new Cursor(LoggingRecordReader.open(file.logFile), file.index, reorderWindow);
+					opened.add(cursor);
+					if (cursor.advance()) {
+						cursors.add(cursor);
+					} else {
+						cursor.close();
+					}
+				}
+				if (cursors.isEmpty()) {
+					break;
+				}
+				Cursor cursor = cursors.poll();
+				consumer.accept(cursor.current.record);
+				merged++;
+				if (cursor.advance()) {
+					cursors.add(cursor);
+				} else {
+					cursor.close();
+				}
+			}
+		} catch (IOException e) {
+			throw new LoggingFailureException("A log file could not be closed.", e);
+		} finally {
+			for (Cursor cursor : opened) {
+				try {
+					cursor.close();
+				} catch (IOException e) {
+					// Do nothing as the original failure is more important.
+				}
+			}
+		}
+		return merged;
+	}
+
+	/**
+	 * Read the time the merge of the specified file starts at, which is the earliest time 
+	 * of the records read ahead first.
+	 *
+	 * @param logFile - the log file
+	 * @param reorderWindow - the number of records read ahead
+	 * @return the start time or null if the file contains no records
+	 * @throws LoggingFailureException if the file cannot be read
+	 */
+	private static Instant readStart(File logFile, int reorderWindow) throws LoggingFailureException {
+		try (LoggingRecordReader reader = LoggingRecordReader.open(logFile)) {
+			Instant start = null;
+			LogRecord record;
+			for (int i = 0; i < reorderWindow && (record = reader.next()) != null; i++) {
+				start = start == null || record.getInstant().isBefore(start) ? record.getInstant() : start;
+			}
+			return start;
+		} catch (IOException e) {
+			throw new LoggingFailureException("The log file " + logFile + " could not be closed.", e);
+		}
+	}
+
+	/**
+	 * Merge the log files of all specified folders into a single XML log file.
+	 *
+	 * @param output - the file to write the merged records to
+	 * @param loggingFolders - the folders containing the log files to merge
+	 * @return the number of merged records
+	 * @throws LoggingFailureException if any file cannot be read or written
+	 */
+	public static long aggregate(Path output, File... loggingFolders) throws LoggingFailureException {
+		return LoggingAggregator.aggregate(output, LoggingAggregator.findLogFiles(loggingFolders));
+	}
+
+	/**
+	 * Merge the specified log files into a single XML log file.
+	 *
+	 * @param output - the file to write the merged records to
+	 * @param logFiles - the log files to merge
+	 * @return the number of merged records
+	 * @throws LoggingFailureException if any file cannot be read or written
+	 */
+	public static long aggregate(Path output, List<File> logFiles) throws LoggingFailureException {
+		Formatter formatter = LoggingFormat.XML.createFormatter();
+		Handler formatterSource = new Handler() { // required to write head and tail
+			@Override
+			public void publish(LogRecord record) {
+				// Do nothing as this handler only supplies the encoding.
+			}
+
+			@Override
+			public void flush() {
+				// Do nothing as this handler only supplies the encoding.
+			}
+
+			@Override
+			public void close() {
+				// Do nothing as this handler only supplies the encoding.
+			}
+		};
+		try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+			writer.write(formatter.getHead(formatterSource));
+			IOException[] failure = new IOException[1];
+			long merged = LoggingAggregator.merge(logFiles, record -> {
+				if (failure[0] == null) {
+					try {
+						writer.write(formatter.format(record));
+					} catch (IOException e) {
+						failure[0] = e;
+					}
+				}
+			});
+			if (failure[0] != null) {
+				throw failure[0];
+			}
+			writer.write(formatter.getTail(formatterSource));
+			return merged;
+		} catch (IOException e) {
+			throw new LoggingFailureException("The merged log file " + output + " could not be written.", e);
+		}
+	}
+
+	/**
+	 * Merge the log files of several logging folders into a single log file.
+	 *
+	 * @param args - the output file followed by the logging folders to merge
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage: LoggingAggregator <output file> <logging folder>...");
+			System.exit(1);
+		}
+		File[] folders = new File[args.length - 1];
+		for (int i = 1; i < args.length; i++) {
+			folders[i - 1] = new File(args[i]);
+		}
+		try {
+			long merged = LoggingAggregator.aggregate(Paths.get(args[0]), folders);
+			System.out.println("Merged " + merged + " records into " + args[0]);
+		} catch (LoggingFailureException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * The current record of a single log file and the records read ahead.
+	 */
+	private static final class Cursor {
+
+		private final LoggingRecordReader reader;
+		private final int index;
+		private final int reorderWindow;
+		private final PriorityQueue<Entry> window;
+		private long position = 0L;
+		private boolean exhausted = false;
+		private boolean closed = false;
+		private Entry current = null;
+
+		private Cursor(LoggingRecordReader reader, int index, int reorderWindow) {
+			this.reader = reader;
+			this.index = index;
+			this.reorderWindow = reorderWindow;
+			this.window = new PriorityQueue<Entry>(Math.min(reorderWindow, 64), LoggingAggregator.WINDOW_ORDER);
+		}
+
+		private boolean advance() throws LoggingFailureException {
+			while (!this.exhausted && this.window.size() < this.reorderWindow) {
+				LogRecord record = this.reader.next();
+				if (record == null) {
+					this.exhausted = true;
+				} else {
+					this.window.add(new Entry(record, this.position++));
+				}
+			}
+			this.current = this.window.poll();
+			return this.current != null;
+		}
+
+		private void close() throws IOException {
+			if (!this.closed) {
+				this.closed = true;
+				this.reader.close();
+			}
+		}
+
+	}
+
+	/**
+	 * A log file not opened yet along with the time its merge starts at.
+	 */
+	private static final class Pending {
+
+		private final File logFile;
+		private final int index;
+		private final Instant start;
+
+		private Pending(File logFile, int index, Instant start) {
+			this.logFile = logFile;
+			this.index = index;
+			this.start = start;
+		}
+
+	}
+
+	/**
+	 * A record read ahead along with its position in the file.
+	 */
+	private static final class Entry {
+
+		private final LogRecord record;
+		private final long position;
+
+		private Entry(LogRecord record, long position) {
+			this.record = record;
+			this.position = position;
+		}
+
+	}
+
+}
@@ -0,0 +1,586 @@
+package central.logging.functionality;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The LoggingArchive class converts log files no longer written to into a compact columnar 
+ * format for analytical queries. The records are split into blocks, whose header holds the 
+ * minimum and maximum time and level as well as the dictionaries of the levels and loggers 
+ * of the block. Each {@link LoggingArchiveColumn} of a block is compressed separately, so a 
+ * {@link LoggingArchiveScan} skips blocks ruled out by their header and reads only the 
+ * columns it needs. XML and template log files can be archived. The decoded records carry 
+ * the {@link LoggingContext} they have been logged in, which is empty for archives written 
+ * before the context column had been added.
+ *
+ * @author Planters
+ *
+ */
+public final class LoggingArchive {
+
+	/**
+	 * The file extension of archives, which replaces the extension of the archived log file.
+	 */
+	public static final String ARCHIVE_FILE_EXTENSION = ".larc";
+	/**
+	 * The number of records per block.
+	 */
+	public static final int BLOCK_SIZE = 4096;
+	private static final int MAGIC = 0x434C4152;
+	private static final byte VERSION = 1;
+	private static final byte BLOCK_WITHOUT_CONTEXT = 1;
+	private static final byte BLOCK = 2;
+	private static final byte END = 0;
+
+	private LoggingArchive() {
+		// Do nothing as this class only provides static methods.
+	}
+
+	/**
+	 * Get the archive of the specified log file.
+	 *
+	 * @param logFile - the log file
+	 * @return the archive next to the log file
+	 */
+	public static File archiveFile(File logFile) {
+		String name = logFile.getName();
+		int extension = name.lastIndexOf('.');
+		return new File(logFile.getParentFile(), (extension > 0 ? name.substring(0, extension) : name) 
+				+ LoggingArchive.ARCHIVE_FILE_EXTENSION);
+	}
+
+	/**
+	 * Archive all XML and template log files of the specified folder that have not been 
+	 * modified for the specified time and delete them along with their indexes. Log files 
+	 * still being written, by this or another process, are skipped.
+	 *
+	 * @param loggingFolder - the folder containing the log files
+	 * @param minimumAge - the minimum time in milliseconds since the last modification
+	 * @return the written archives
+	 * @throws LoggingFailureException if any log file cannot be archived
+	 */
+	public static List<File> archive(File loggingFolder, long minimumAge) throws LoggingFailureException {
+		File[] logFiles = loggingFolder.listFiles(file -> file.isFile() && LoggingArchive.isArchivable(file));
+		return LoggingArchive.archive(logFiles != null ? Arrays.asList(logFiles) : new ArrayList<File>(), minimumAge);
+	}
+
+	/**
+	 * Archive the specified log files that have not been modified for the specified time 
+	 * and delete them along with their indexes. Log files still being written are skipped.
+	 *
+	 * @param logFiles - the log files to archive
+	 * @param minimumAge - the minimum time in milliseconds since the last modification
+	 * @return the written archives
+	 * @throws LoggingFailureException if any log file cannot be archived
+	 */
+	static List<File> archive(List<File> logFiles, long minimumAge) throws LoggingFailureException {
+		List<File> archives = new ArrayList<File>();
+		long modifiedBefore = System.currentTimeMillis() - minimumAge;
+		for (File logFile : logFiles) {
+			if (LoggingArchive.isArchivable(logFile) && logFile.lastModified() <= modifiedBefore 
+					&& !LoggingArchive.isWritten(logFile)) {
+				File archiveFile = LoggingArchive.archiveFile(logFile);
+				LoggingArchive.write(logFile, archiveFile);
+				LoggingDiskQuota.deleted(archiveFile); // forget the size of a replaced archive
+				LoggingDiskQuota.found(archiveFile);
+				archives.add(archiveFile);
+				if (logFile.delete()) {
+					LoggingIndex.indexFile(logFile).delete(); // only exists if the file was indexed
+					LoggingDiskQuota.deleted(logFile);
+				}
+			}
+		}
+		return archives;
+	}
+
+	/**
+	 * Check whether the specified log file is still being written, either by a handler of 
+	 * this JVM or by a handler of another process holding the lock of the log file.
+	 */
+	private static boolean isWritten(File logFile) {
+		return LoggingDiskQuota.isWritten(logFile) || new File(logFile.getPath() + ".lck").exists();
+	}
+
+	private static boolean isArchivable(File logFile) {
+		return logFile.getName().endsWith(LoggingFormat.XML.getFileExtension()) 
+				|| logFile.getName().endsWith(LoggingFormat.TEMPLATE.getFileExtension());
+	}
+
+	/**
+	 * Write all records of the specified XML or template log file to an archive.
+	 *
+	 * @param logFile - the log file to archive
+	 * @param archiveFile - the archive to write, which is replaced if it exists
+	 * @return the number of archived records
+	 * @throws LoggingFailureException if the log file cannot be read or the archive cannot be written
+	 * @throws IllegalArgumentException if the log file is neither an XML nor a template log file
+	 */
+	public static long write(File logFile, File archiveFile) throws LoggingFailureException {
+		if (!LoggingArchive.isArchivable(logFile)) {
+			throw new IllegalArgumentException("Only XML and template log files can be archived.");
+		}
+		boolean template = logFile.getName().endsWith(LoggingFormat.TEMPLATE.getFileExtension());
+		Formatter formatter = new SimpleFormatter();
+		long archived = 0L;
+		try (LoggingFileReader xmlReader = template ? null : new LoggingFileReader(logFile);
+				LoggingTemplateReader templateReader = template ? new LoggingTemplateReader(logFile) : null;
+				DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+						Files.newOutputStream(archiveFile.toPath())))) {
+			output.writeInt(LoggingArchive.MAGIC);
+			output.writeByte(LoggingArchive.VERSION);
+			List<LogRecord> block = new ArrayList<LogRecord>(LoggingArchive.BLOCK_SIZE);
+			LogRecord record;
+			while ((record = template ? templateReader.next() : xmlReader.next()) != null) {
+				block.add(record);
+				if (block.size() == LoggingArchive.BLOCK_SIZE) {
+					LoggingArchive.writeBlock(output, block, formatter);
+					archived += block.size();
+					block.clear();
+				}
+			}
+			if (!block.isEmpty()) {
+				LoggingArchive.writeBlock(output, block, formatter);
+				archived += block.size();
+			}
+			output.writeByte(LoggingArchive.END);
+		} catch (IOException | LoggingFailureException e) {
+			archiveFile.delete();
+			e.printStackTrace();
+			throw new LoggingFailureException("The log file " + logFile + " could not be archived.", e);
+		}
+		return archived;
+	}
+
+	private static void writeBlock(DataOutputStream output, List<LogRecord> records, Formatter formatter) 
+			throws IOException {
+		ByteArrayOutputStream[] columnBytes = new ByteArrayOutputStream[LoggingArchiveColumn.values().length];
+		DataOutputStream[] columns = new DataOutputStream[columnBytes.length];
+		for (int i = 0; i < columns.length; i++) {
+			columnBytes[i] = new ByteArrayOutputStream();
+			columns[i] = new DataOutputStream(columnBytes[i]);
+		}
+		Map<Level, Integer> levels = new LinkedHashMap<Level, Integer>();
+		Map<String, Integer> loggers = new LinkedHashMap<String, Integer>();
+		Map<List<String>, Integer> sources = new HashMap<List<String>, Integer>();
+		Map<LoggingContext, Integer> contexts = new HashMap<LoggingContext, Integer>();
+		Instant minimumTime = null;
+		Instant maximumTime = null;
+		int minimumLevel = Integer.MAX_VALUE;
+		int maximumLevel = Integer.MIN_VALUE;
+		long previousMillis = 0L;
+		long previousSequence = 0L;
+		for (LogRecord record : records) {
+			Instant instant = record.getInstant();
+			minimumTime = minimumTime == null || instant.isBefore(minimumTime) ? instant : minimumTime;
+			maximumTime = maximumTime == null || instant.isAfter(maximumTime) ? instant : maximumTime;
+			minimumLevel = Math.min(minimumLevel, record.getLevel().intValue());
+			maximumLevel = Math.max(maximumLevel, record.getLevel().intValue());
+			DataOutputStream time = columns[LoggingArchiveColumn.TIME.ordinal()];
+			LoggingRecordCodec.writeZigZagLong(time, instant.toEpochMilli() - previousMillis);
+			LoggingRecordCodec.writeVarLong(time, instant.getNano() % 1000000);
+			previousMillis = instant.toEpochMilli();
+			LoggingRecordCodec.writeVarLong(columns[LoggingArchiveColumn.LEVEL.ordinal()], 
+					levels.computeIfAbsent(record.getLevel(), level -> levels.size()));
+			LoggingRecordCodec.writeVarLong(columns[LoggingArchiveColumn.LOGGER.ordinal()], 
+					loggers.computeIfAbsent(record.getLoggerName(), logger -> loggers.size()));
+			DataOutputStream source = columns[LoggingArchiveColumn.SOURCE.ordinal()];
+			List<String> sourceKey = Arrays.asList(record.getSourceClassName(), record.getSourceMethodName());
+			Integer sourceIndex = sources.get(sourceKey);
+			if (sourceIndex == null) { // new sources follow their index
+				LoggingRecordCodec.writeVarLong(source, sources.size());
+				LoggingRecordCodec.writeString(source, sourceKey.get(0));
+				LoggingRecordCodec.writeString(source, sourceKey.get(1));
+				sources.put(sourceKey, sources.size());
+			} else {
+				LoggingRecordCodec.writeVarLong(source, sourceIndex);
+			}
+			DataOutputStream sequence = columns[LoggingArchiveColumn.SEQUENCE.ordinal()];
+			LoggingRecordCodec.writeZigZagLong(sequence, record.getSequenceNumber() - previousSequence);
+			LoggingRecordCodec.writeVarLong(sequence, record.getLongThreadID());
+			previousSequence = record.getSequenceNumber();
+			LoggingRecordCodec.writeString(columns[LoggingArchiveColumn.MESSAGE.ordinal()], 
+					formatter.formatMessage(record));
+			LoggingArchive.writeThrown(columns[LoggingArchiveColumn.THROWN.ordinal()], record.getThrown());
+			LoggingArchive.writeContext(columns[LoggingArchiveColumn.CONTEXT.ordinal()], 
+					LoggingContext.of(record), contexts);
+		}
+		output.writeByte(LoggingArchive.BLOCK);
+		LoggingRecordCodec.writeVarLong(output, records.size());
+		output.writeLong(minimumTime.getEpochSecond());
+		output.writeInt(minimumTime.getNano());
+		output.writeLong(maximumTime.getEpochSecond());
+		output.writeInt(maximumTime.getNano());
+		output.writeInt(minimumLevel);
+		output.writeInt(maximumLevel);
+		LoggingRecordCodec.writeVarLong(output, levels.size());
+		for (Level level : levels.keySet()) {
+			output.writeUTF(level.getName());
+			output.writeInt(level.intValue());
+		}
+		LoggingRecordCodec.writeVarLong(output, loggers.size());
+		for (String logger : loggers.keySet()) {
+			LoggingRecordCodec.writeString(output, logger);
+		}
+		Deflater deflater = new Deflater();
+		try {
+			for (ByteArrayOutputStream column : columnBytes) {
+				byte[] compressed = LoggingArchive.deflate(deflater, column.toByteArray());
+				LoggingRecordCodec.writeVarLong(output, column.size());
+				LoggingRecordCodec.writeVarLong(output, compressed.length);
+				output.write(compressed);
+			}
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private static void writeContext(DataOutputStream output, LoggingContext context, 
+			Map<LoggingContext, Integer> contexts) throws IOException {
+		Integer contextIndex = contexts.get(context);
+		if (contextIndex != null) {
+			LoggingRecordCodec.writeVarLong(output, contextIndex);
+			return;
+		}
+		LoggingRecordCodec.writeVarLong(output, contexts.size()); // new contexts follow their index
+		LoggingRecordCodec.writeVarLong(output, context.size());
+		IOException[] failure = new IOException[1];
+		context.forEach((key, value) -> {
+			try {
+				LoggingRecordCodec.writeString(output, key);
+				LoggingRecordCodec.writeString(output, value);
+			} catch (IOException e) {
+				failure[0] = e;
+			}
+		});
+		if (failure[0] != null) {
+			throw failure[0];
+		}
+		contexts.put(context, contexts.size());
+	}
+
+	private static LoggingContext readContext(DataInputStream input, List<LoggingContext> contexts) 
+			throws IOException {
+		int index = (int) LoggingRecordCodec.readVarLong(input);
+		if (index == contexts.size()) {
+			LoggingContext context = LoggingContext.EMPTY;
+			int size = (int) LoggingRecordCodec.readVarLong(input);
+			for (int i = 0; i < size; i++) {
+				context = context.with(LoggingRecordCodec.readString(input), LoggingRecordCodec.readString(input));
+			}
+			contexts.add(context);
+		}
+		return contexts.get(index);
+	}
+
+	private static void writeThrown(DataOutputStream output, Throwable thrown) throws IOException {
+		LoggingRecordCodec.writeString(output, thrown != null ? thrown.toString() : null);
+		if (thrown != null) {
+			StackTraceElement[] stackTrace = thrown.getStackTrace();
+			LoggingRecordCodec.writeVarLong(output, stackTrace.length);
+			for (StackTraceElement element : stackTrace) {
+				LoggingRecordCodec.writeString(output, element.getClassName());
+				LoggingRecordCodec.writeString(output, element.getMethodName());
+				LoggingRecordCodec.writeString(output, element.getFileName());
+				output.writeInt(element.getLineNumber());
+			}
+		}
+	}
+
+	private static Throwable readThrown(DataInputStream input) throws IOException {
+		String representation = LoggingRecordCodec.readString(input);
+		if (representation == null) {
+			return null;
+		}
+		StackTraceElement[] stackTrace = new StackTraceElement[(int) LoggingRecordCodec.readVarLong(input)];
+		for (int i = 0; i < stackTrace.length; i++) {
+			String className = String.valueOf(LoggingRecordCodec.readString(input));
+			String methodName = String.valueOf(LoggingRecordCodec.readString(input));
+			String fileName = LoggingRecordCodec.readString(input);
+			stackTrace[i] = new StackTraceElement(className, methodName, fileName, input.readInt());
+		}
+		return LoggingRecordCodec.decodeThrown(representation, stackTrace);
+	}
+
+	private static byte[] deflate(Deflater deflater, byte[] raw) {
+		deflater.reset();
+		deflater.setInput(raw);
+		deflater.finish();
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 4 + 16);
+		byte[] buffer = new byte[8192];
+		while (!deflater.finished()) {
+			compressed.write(buffer, 0, deflater.deflate(buffer));
+		}
+		return compressed.toByteArray();
+	}
+
+	/**
+	 * Open the specified archive for reading blocks.
+	 *
+	 * @param archiveFile - the archive to read
+	 * @return the input positioned at the first block
+	 * @throws IOException if the archive cannot be read or is no archive
+	 */
+	static DataInputStream open(File archiveFile) throws IOException {
+		DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(archiveFile.toPath())));
+		try {
+			if (input.readInt() != LoggingArchive.MAGIC) {
+				throw new IOException("The file " + archiveFile + " is no archive.");
+			}
+			byte version = input.readByte();
+			if (version < 1 || version > LoggingArchive.VERSION) {
+				throw new IOException("The file " + archiveFile + " is an archive of the unknown version " + version + ".");
+			}
+		} catch (IOException e) {
+			input.close();
+			throw e;
+		}
+		return input;
+	}
+
+	/**
+	 * Archive the log files of a logging folder, skipping log files still being written.
+	 *
+	 * @param args - the logging folder followed by the optional minimum age in hours, 24 by default
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: LoggingArchive <logging folder> [minimum age in hours]");
+			System.exit(1);
+		}
+		try {
+			long hours = args.length > 1 ? Long.parseLong(args[1]) : 24L;
+			List<File> archives = LoggingArchive.archive(new File(args[0]), hours * 60L * 60L * 1000L);
+			System.out.println("Archived " + archives.size() + " log files");
+		} catch (LoggingFailureException | NumberFormatException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * A block of records, whose header is read first to decide whether its columns are needed.
+	 */
+	static final class Block {
+
+		private final int size;
+		private final Instant minimumTime;
+		private final Instant maximumTime;
+		private final int minimumLevel;
+		private final int maximumLevel;
+		private final Level[] levels;
+		private final String[] loggers;
+		private final int columnCount;
+		private final byte[][] columns = new byte[LoggingArchiveColumn.values().length][];
+		private final int[] rawLengths = new int[LoggingArchiveColumn.values().length];
+
+		private Block(DataInputStream input, int columnCount) throws IOException {
+			this.columnCount = columnCount;
+			this.size = (int) LoggingRecordCodec.readVarLong(input);
+			this.minimumTime = Instant.ofEpochSecond(input.readLong(), input.readInt());
+			this.maximumTime = Instant.ofEpochSecond(input.readLong(), input.readInt());
+			this.minimumLevel = input.readInt();
+			this.maximumLevel = input.readInt();
+			this.levels = new Level[(int) LoggingRecordCodec.readVarLong(input)];
+			for (int i = 0; i < this.levels.length; i++) {
+				this.levels[i] = LoggingRecordCodec.parseLevel(input.readUTF(), input.readInt());
+			}
+			this.loggers = new String[(int) LoggingRecordCodec.readVarLong(input)];
+			for (int i = 0; i < this.loggers.length; i++) {
+				this.loggers[i] = LoggingRecordCodec.readString(input);
+			}
+		}
+
+		/**
+		 * Read the header of the next block.
+		 *
+		 * @param input - the input positioned at a block
+		 * @return the block without columns or null if there are no more blocks
+		 * @throws IOException if the archive cannot be read or is truncated
+		 */
+		static Block readHeader(DataInputStream input) throws IOException {
+			switch (input.readByte()) {
+			case LoggingArchive.BLOCK:
+				return new Block(input, LoggingArchiveColumn.values().length);
+			case LoggingArchive.BLOCK_WITHOUT_CONTEXT:
+				return new Block(input, LoggingArchiveColumn.CONTEXT.ordinal());
+			default:
+				return null;
+			}
+		}
+
+		/**
+		 * Read the specified columns of the block and skip all others. Columns added after 
+		 * the block has been written are left out.
+		 *
+		 * @param input - the input positioned after the header
+		 * @param needed - the columns to read
+		 * @throws IOException if the archive cannot be read or is truncated
+		 */
+		void readColumns(DataInputStream input, Set<LoggingArchiveColumn> needed) throws IOException {
+			for (LoggingArchiveColumn column : LoggingArchiveColumn.values()) {
+				if (column.ordinal() >= this.columnCount) {
+					break;
+				}
+				this.rawLengths[column.ordinal()] = (int) LoggingRecordCodec.readVarLong(input);
+				int length = (int) LoggingRecordCodec.readVarLong(input);
+				if (needed.contains(column)) {
+					this.columns[column.ordinal()] = new byte[length];
+					input.readFully(this.columns[column.ordinal()]);
+				} else if (input.skipBytes(length) < length) {
+					throw new EOFException("The archive is truncated.");
+				}
+			}
+		}
+
+		/**
+		 * Skip all columns of the block.
+		 *
+		 * @param input - the input positioned after the header
+		 * @throws IOException if the archive cannot be read or is truncated
+		 */
+		void skipColumns(DataInputStream input) throws IOException {
+			this.readColumns(input, EnumSet.noneOf(LoggingArchiveColumn.class));
+		}
+
+		/**
+		 * Decompress a column read before.
+		 *
+		 * @param column - the column to decompress
+		 * @return the input of the column
+		 * @throws IOException if the column is malformed
+		 */
+		DataInputStream column(LoggingArchiveColumn column) throws IOException {
+			Inflater inflater = new Inflater();
+			try {
+				inflater.setInput(this.columns[column.ordinal()]);
+				byte[] raw = new byte[this.rawLengths[column.ordinal()]];
+				int inflated = 0;
+				while (inflated < raw.length && !inflater.finished()) {
+					inflated += inflater.inflate(raw, inflated, raw.length - inflated);
+				}
+				return new DataInputStream(new ByteArrayInputStream(raw));
+			} catch (DataFormatException e) {
+				throw new IOException("The column " + column + " is malformed.", e);
+			} finally {
+				inflater.end();
+			}
+		}
+
+		/**
+		 * Decode the records of the block, leaving out all columns not read.
+		 *
+		 * @param read - the columns read
+		 * @return the records of the block, with level {@link Level#ALL}, the epoch as time 
+		 * and an empty context unless these columns have been read
+		 * @throws IOException if a column is malformed
+		 */
+		LogRecord[] decode(Set<LoggingArchiveColumn> read) throws IOException {
+			LogRecord[] records = new LogRecord[this.size];
+			InputStream[] inputs = new InputStream[LoggingArchiveColumn.values().length];
+			for (LoggingArchiveColumn column : read) {
+				if (column.ordinal() < this.columnCount) {
+					inputs[column.ordinal()] = this.column(column);
+				}
+			}
+			DataInputStream time = (DataInputStream) inputs[LoggingArchiveColumn.TIME.ordinal()];
+			DataInputStream level = (DataInputStream) inputs[LoggingArchiveColumn.LEVEL.ordinal()];
+			DataInputStream logger = (DataInputStream) inputs[LoggingArchiveColumn.LOGGER.ordinal()];
+			DataInputStream source = (DataInputStream) inputs[LoggingArchiveColumn.SOURCE.ordinal()];
+			DataInputStream sequence = (DataInputStream) inputs[LoggingArchiveColumn.SEQUENCE.ordinal()];
+			DataInputStream message = (DataInputStream) inputs[LoggingArchiveColumn.MESSAGE.ordinal()];
+			DataInputStream thrown = (DataInputStream) inputs[LoggingArchiveColumn.THROWN.ordinal()];
+			DataInputStream context = (DataInputStream) inputs[LoggingArchiveColumn.CONTEXT.ordinal()];
+			List<String[]> sources = new ArrayList<String[]>();
+			List<LoggingContext> contexts = new ArrayList<LoggingContext>();
+			long millis = 0L;
+			long sequenceNumber = 0L;
+			for (int i = 0; i < this.size; i++) {
+				LogRecord record = new ContextRecord(level != null 
+						? this.levels[(int) LoggingRecordCodec.readVarLong(level)] : Level.ALL, null, 
+						context != null ? LoggingArchive.readContext(context, contexts) : LoggingContext.EMPTY);
+				record.setInstant(Instant.EPOCH);
+				if (time != null) {
+					millis += LoggingRecordCodec.readZigZagLong(time);
+					record.setInstant(Instant.ofEpochMilli(millis).plusNanos(LoggingRecordCodec.readVarLong(time)));
+				}
+				if (logger != null) {
+					record.setLoggerName(this.loggers[(int) LoggingRecordCodec.readVarLong(logger)]);
+				}
+				record.setSourceClassName(null); // never infer the caller
+				if (source != null) {
+					int index = (int) LoggingRecordCodec.readVarLong(source);
+					if (index == sources.size()) {
+						sources.add(new String[] {LoggingRecordCodec.readString(source), 
+								LoggingRecordCodec.readString(source)});
+					}
+					record.setSourceClassName(sources.get(index)[0]);
+					record.setSourceMethodName(sources.get(index)[1]);
+				}
+				if (sequence != null) {
+					sequenceNumber += LoggingRecordCodec.readZigZagLong(sequence);
+					record.setSequenceNumber(sequenceNumber);
+					record.setLongThreadID(LoggingRecordCodec.readVarLong(sequence));
+				}
+				if (message != null) {
+					record.setMessage(LoggingRecordCodec.readString(message));
+				}
+				if (thrown != null) {
+					record.setThrown(LoggingArchive.readThrown(thrown));
+				}
+				records[i] = record;
+			}
+			return records;
+		}
+
+		int getSize() {
+			return this.size;
+		}
+
+		Instant getMinimumTime() {
+			return this.minimumTime;
+		}
+
+		Instant getMaximumTime() {
+			return this.maximumTime;
+		}
+
+		int getMinimumLevel() {
+			return this.minimumLevel;
+		}
+
+		int getMaximumLevel() {
+			return this.maximumLevel;
+		}
+
+		String[] getLoggers() {
+			return this.loggers;
+		}
+
+	}
+
+}
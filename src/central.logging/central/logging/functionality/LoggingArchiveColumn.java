@@ -0,0 +1,45 @@
+package central.logging.functionality;
+
+/**
+ * The LoggingArchiveColumn enumeration lists the columns of a {@link LoggingArchive}, 
+ * each of which is compressed and read separately.
+ *
+ * @author Planters
+ *
+ */
+public enum LoggingArchiveColumn {
+
+	/**
+	 * The instant of the records, delta encoded.
+	 */
+	TIME,
+	/**
+	 * The level of the records, dictionary encoded.
+	 */
+	LEVEL,
+	/**
+	 * The logger name of the records, dictionary encoded.
+	 */
+	LOGGER,
+	/**
+	 * The source class and method of the records, dictionary encoded.
+	 */
+	SOURCE,
+	/**
+	 * The sequence number, delta encoded, and the thread id of the records.
+	 */
+	SEQUENCE,
+	/**
+	 * The formatted message of the records.
+	 */
+	MESSAGE,
+	/**
+	 * The exception of the records.
+	 */
+	THROWN,
+	/**
+	 * The context fields of the records, dictionary encoded.
+	 */
+	CONTEXT;
+
+}
@@ -0,0 +1,201 @@
+package central.logging.functionality;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * The LoggingArchiveScan class filters the records of {@link LoggingArchive} files by level, 
+ * logger and time. Blocks whose header rules out the filter are skipped, blocks whose header 
+ * shows that all records match are counted without being read, and of the remaining 
+ * blocks only the filtered and the requested columns are decompressed.
+ *
+ * @author Planters
+ *
+ */
+public class LoggingArchiveScan {
+
+	private final Level minimumLevel;
+	private final String loggerName;
+	private final Instant from;
+	private final Instant to;
+	private final Set<LoggingArchiveColumn> columns;
+	private long skippedBlocks = 0L;
+	private long countedBlocks = 0L;
+	private long readBlocks = 0L;
+
+	/**
+	 * Create a scan for the records matching all specified criteria. Any criterion may be 
+	 * null, in which case it matches all records.
+	 *
+	 * @param minimumLevel - the minimum level of the records
+	 * @param loggerName - the name of the logger of the records
+	 * @param from - the earliest time of the records
+	 * @param to - the time all records are before
+	 * @param columns - the columns passed to the consumer of the records or null for all columns
+	 */
+	public LoggingArchiveScan(Level minimumLevel, String loggerName, Instant from, Instant to, 
+			Set<LoggingArchiveColumn> columns) {
+		this.minimumLevel = minimumLevel;
+		this.loggerName = loggerName;
+		this.from = from;
+		this.to = to;
+		this.columns = columns != null ? EnumSet.copyOf(columns) : EnumSet.allOf(LoggingArchiveColumn.class);
+	}
+
+	/**
+	 * Get all matching records of the specified archives.
+	 *
+	 * @param archiveFiles - the archives to scan
+	 * @return the matching records in file order, containing only the requested columns
+	 * @throws LoggingFailureException if any of the archives cannot be read
+	 */
+	public List<LogRecord> scan(File... archiveFiles) throws LoggingFailureException {
+		List<LogRecord> records = new ArrayList<LogRecord>();
+		this.scan(Arrays.asList(archiveFiles), records::add);
+		return records;
+	}
+
+	/**
+	 * Pass all matching records of the specified archives to the consumer. Records contain 
+	 * only the requested columns, their level is {@link Level#ALL} and their time the epoch 
+	 * unless these columns have been requested.
+	 *
+	 * @param archiveFiles - the archives to scan
+	 * @param consumer - the consumer of the matching records
+	 * @return the number of matching records
+	 * @throws LoggingFailureException if any of the archives cannot be read
+	 */
+	public long scan(List<File> archiveFiles, Consumer<LogRecord> consumer) throws LoggingFailureException {
+		long matching = 0L;
+		for (File archiveFile : archiveFiles) {
+			matching += this.scan(archiveFile, consumer);
+		}
+		return matching;
+	}
+
+	/**
+	 * Count the matching records of the specified archives, reading only the columns filtered by.
+	 *
+	 * @param archiveFiles - the archives to scan
+	 * @return the number of matching records
+	 * @throws LoggingFailureException if any of the archives cannot be read
+	 */
+	public long count(File... archiveFiles) throws LoggingFailureException {
+		long matching = 0L;
+		for (File archiveFile : archiveFiles) {
+			matching += this.scan(archiveFile, null);
+		}
+		return matching;
+	}
+
+	private long scan(File archiveFile, Consumer<LogRecord> consumer) throws LoggingFailureException {
+		Set<LoggingArchiveColumn> needed = EnumSet.noneOf(LoggingArchiveColumn.class);
+		if (consumer != null) {
+			needed.addAll(this.columns);
+		}
+		if (this.minimumLevel != null) {
+			needed.add(LoggingArchiveColumn.LEVEL);
+		}
+		if (this.loggerName != null) {
+			needed.add(LoggingArchiveColumn.LOGGER);
+		}
+		if (this.from != null || this.to != null) {
+			needed.add(LoggingArchiveColumn.TIME);
+		}
+		long matching = 0L;
+		try (DataInputStream input = LoggingArchive.open(archiveFile)) {
+			LoggingArchive.Block block;
+			while ((block = LoggingArchive.Block.readHeader(input)) != null) {
+				if (!this.mayMatch(block)) {
+					block.skipColumns(input);
+					this.skippedBlocks++;
+				} else if (consumer == null && this.matchesAll(block)) {
+					block.skipColumns(input);
+					matching += block.getSize();
+					this.countedBlocks++;
+				} else {
+					block.readColumns(input, needed);
+					this.readBlocks++;
+					for (LogRecord record : block.decode(needed)) {
+						if (this.matches(record)) {
+							matching++;
+							if (consumer != null) {
+								consumer.accept(record);
+							}
+						}
+					}
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			throw new LoggingFailureException("The archive " + archiveFile + " could not be read.", e);
+		}
+		return matching;
+	}
+
+	private boolean mayMatch(LoggingArchive.Block block) {
+		return (this.minimumLevel == null || block.getMaximumLevel() >= this.minimumLevel.intValue()) 
+				&& (this.from == null || !block.getMaximumTime().isBefore(this.from)) 
+				&& (this.to == null || block.getMinimumTime().isBefore(this.to)) 
+				&& (this.loggerName == null || Arrays.asList(block.getLoggers()).contains(this.loggerName));
+	}
+
+	private boolean matchesAll(LoggingArchive.Block block) {
+		return (this.minimumLevel == null || block.getMinimumLevel() >= this.minimumLevel.intValue()) 
+				&& (this.from == null || !block.getMinimumTime().isBefore(this.from)) 
+				&& (this.to == null || block.getMaximumTime().isBefore(this.to)) 
+				&& (this.loggerName == null || block.getLoggers().length == 1 
+						&& this.loggerName.equals(block.getLoggers()[0]));
+	}
+
+	/**
+	 * Check whether the specified record read from an archive matches all criteria.
+	 *
+	 * @param record - the record to check
+	 * @return true if the record matches
+	 */
+	public boolean matches(LogRecord record) {
+		return (this.minimumLevel == null || record.getLevel().intValue() >= this.minimumLevel.intValue()) 
+				&& (this.loggerName == null || this.loggerName.equals(record.getLoggerName())) 
+				&& (this.from == null || !record.getInstant().isBefore(this.from)) 
+				&& (this.to == null || record.getInstant().isBefore(this.to));
+	}
+
+	/**
+	 * Get the number of blocks that have been skipped as no record could match.
+	 *
+	 * @return the number of skipped blocks
+	 */
+	public long getSkippedBlocks() {
+		return this.skippedBlocks;
+	}
+
+	/**
+	 * Get the number of blocks that have been counted without reading any column.
+	 *
+	 * @return the number of counted blocks
+	 */
+	public long getCountedBlocks() {
+		return this.countedBlocks;
+	}
+
+	/**
+	 * Get the number of blocks whose columns have been read.
+	 *
+	 * @return the number of read blocks
+	 */
+	public long getReadBlocks() {
+		return this.readBlocks;
+	}
+
+}
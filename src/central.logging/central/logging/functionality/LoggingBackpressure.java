@@ -0,0 +1,255 @@
+package central.logging.functionality;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * The LoggingBackpressure class configures asynchronous log writing for a {@link Logging} 
+ * instance and adapts its verbosity to the load of the writer. Whenever the queue of records 
+ * waiting to be written fills up or writing a record takes too long, records of the next 
+ * more severe level are dropped before being queued, first {@link Level#FINE} and 
+ * {@link Level#CONFIG} and then {@link Level#INFO}. Records of at least the 
+ * {@link LoggingWriterPool#PRIORITY_LEVEL} are never dropped for the load. Once 
+ * both queue depth and write latency have been low for the restore delay, the previous 
+ * level is restored step by step. Every transition is written to the log file.
+ *
+ * @author Planters
+ *
+ */
+public class LoggingBackpressure {
+
+	/**
+	 * The default maximum number of queued records.
+	 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 8192;
+	/**
+	 * The minimum levels of records queued, from not degraded to fully degraded.
+	 */
+	private static final Level[] STEPS = {Level.ALL, Level.INFO, LoggingWriterPool.PRIORITY_LEVEL};
+	/**
+	 * The weight of a new latency sample in the moving average.
+	 */
+	private static final double LATENCY_WEIGHT = 0.05;
+
+	private int queueCapacity = LoggingBackpressure.DEFAULT_QUEUE_CAPACITY;
+	private volatile double highQueueDepth = 0.5;
+	private volatile double lowQueueDepth = 0.1;
+	private volatile long highLatency = 1000000L;
+	private volatile long lowLatency = 200000L;
+	private volatile long restoreDelay = 1000L;
+	private volatile int step = 0;
+	private volatile double writeLatency = 0.0;
+	private long lastTransition = 0L;
+	private long lowSince = -1L;
+	private final LongAdder droppedRecords = new LongAdder();
+
+	/**
+	 * Create a backpressure configuration with the default queue capacity and thresholds.
+	 */
+	public LoggingBackpressure() {
+		// Do nothing as all settings have default values.
+	}
+
+	/**
+	 * Get the maximum number of records waiting to be written.
+	 *
+	 * @return the queue capacity
+	 */
+	public int getQueueCapacity() {
+		return this.queueCapacity;
+	}
+
+	/**
+	 * Set the maximum number of records waiting to be written. Records arriving at a 
+	 * full queue are dropped. It must be set before logging is started.
+	 *
+	 * @param queueCapacity - the queue capacity
+	 * @throws IllegalArgumentException if the capacity is less than 1
+	 */
+	public void setQueueCapacity(int queueCapacity) {
+		if (queueCapacity < 1) {
+			throw new IllegalArgumentException("The queue capacity must be at least 1.");
+		}
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Set the share of the queue capacity above which and below which logging is degraded 
+	 * respectively restored.
+	 *
+	 * @param lowQueueDepth - the share below which logging may be restored
+	 * @param highQueueDepth - the share above which logging is degraded
+	 * @throws IllegalArgumentException if the shares are not within 0 and 1 or the low share 
+	 * exceeds the high one
+	 */
+	public void setQueueDepthThresholds(double lowQueueDepth, double highQueueDepth) {
+		if (lowQueueDepth < 0.0 || highQueueDepth > 1.0 || lowQueueDepth > highQueueDepth) {
+			throw new IllegalArgumentException("The queue depth thresholds must satisfy 0 <= low <= high <= 1.");
+		}
+		this.lowQueueDepth = lowQueueDepth;
+		this.highQueueDepth = highQueueDepth;
+	}
+
+	/**
+	 * Get the share of the queue capacity above which logging is degraded.
+	 *
+	 * @return the high queue depth
+	 */
+	public double getHighQueueDepth() {
+		return this.highQueueDepth;
+	}
+
+	/**
+	 * Get the share of the queue capacity below which logging may be restored.
+	 *
+	 * @return the low queue depth
+	 */
+	public double getLowQueueDepth() {
+		return this.lowQueueDepth;
+	}
+
+	/**
+	 * Set the average time of writing a single record above which and below which logging 
+	 * is degraded respectively restored.
+	 *
+	 * @param lowLatency - the latency in nanoseconds below which logging may be restored
+	 * @param highLatency - the latency in nanoseconds above which logging is degraded
+	 * @throws IllegalArgumentException if a latency is negative or the low latency exceeds the high one
+	 */
+	public void setLatencyThresholds(long lowLatency, long highLatency) {
+		if (lowLatency < 0L || lowLatency > highLatency) {
+			throw new IllegalArgumentException("The latency thresholds must satisfy 0 <= low <= high.");
+		}
+		this.lowLatency = lowLatency;
+		this.highLatency = highLatency;
+	}
+
+	/**
+	 * Get the average time of writing a single record above which logging is degraded.
+	 *
+	 * @return the high latency in nanoseconds
+	 */
+	public long getHighLatency() {
+		return this.highLatency;
+	}
+
+	/**
+	 * Get the average time of writing a single record below which logging may be restored.
+	 *
+	 * @return the low latency in nanoseconds
+	 */
+	public long getLowLatency() {
+		return this.lowLatency;
+	}
+
+	/**
+	 * Get the time queue depth and latency have to stay low before logging is restored by one step.
+	 *
+	 * @return the restore delay in milliseconds
+	 */
+	public long getRestoreDelay() {
+		return this.restoreDelay;
+	}
+
+	/**
+	 * Set the time queue depth and latency have to stay low before logging is restored by one 
+	 * step, which is also the minimum time between two degradations.
+	 *
+	 * @param restoreDelay - the restore delay in milliseconds
+	 * @throws IllegalArgumentException if the delay is negative
+	 */
+	public void setRestoreDelay(long restoreDelay) {
+		if (restoreDelay < 0L) {
+			throw new IllegalArgumentException("The restore delay cannot be negative.");
+		}
+		this.restoreDelay = restoreDelay;
+	}
+
+	/**
+	 * Get the minimum level of records currently queued for writing.
+	 *
+	 * @return the effective level, {@link Level#ALL} if logging is not degraded
+	 */
+	public Level getEffectiveLevel() {
+		return LoggingBackpressure.STEPS[this.step];
+	}
+
+	/**
+	 * Get the moving average of the time taken to write a single record.
+	 *
+	 * @return the write latency in nanoseconds
+	 */
+	public long getWriteLatency() {
+		return (long) this.writeLatency;
+	}
+
+	/**
+	 * Get the number of records dropped due to degraded logging or a full queue.
+	 *
+	 * @return the number of dropped records
+	 */
+	public long getDroppedRecords() {
+		return this.droppedRecords.sum();
+	}
+
+	/**
+	 * Check whether the specified record is written at the current load.
+	 *
+	 * @param level - the level of the record
+	 * @return false if the record is dropped
+	 */
+	boolean admits(Level level) {
+		if (level.intValue() < LoggingBackpressure.STEPS[this.step].intValue()) {
+			this.droppedRecords.increment();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Count a record dropped because the queue is full.
+	 */
+	void dropped() {
+		this.droppedRecords.increment();
+	}
+
+	/**
+	 * Take the time of writing a single record into account.
+	 *
+	 * @param latency - the write latency in nanoseconds
+	 */
+	void sample(long latency) {
+		this.writeLatency += LoggingBackpressure.LATENCY_WEIGHT * (latency - this.writeLatency);
+	}
+
+	/**
+	 * Adapt the effective level to the current load. This method is only called by the writer.
+	 *
+	 * @param queueDepth - the number of queued records
+	 * @param now - the current time in milliseconds
+	 * @return the message describing the transition or null if the level did not change
+	 */
+	String update(int queueDepth, long now) {
+		double depth = (double) queueDepth / this.queueCapacity;
+		boolean high = depth > this.highQueueDepth || this.writeLatency > this.highLatency;
+		boolean low = depth < this.lowQueueDepth && this.writeLatency < this.lowLatency;
+		this.lowSince = low ? (this.lowSince < 0L ? now : this.lowSince) : -1L;
+		int newStep = this.step;
+		if (high && this.step < LoggingBackpressure.STEPS.length - 1 
+				&& now - this.lastTransition >= this.restoreDelay) {
+			newStep++;
+		} else if (this.step > 0 && this.lowSince >= 0L && now - this.lowSince >= this.restoreDelay 
+				&& now - this.lastTransition >= this.restoreDelay) {
+			newStep--;
+		}
+		if (newStep == this.step) {
+			return null;
+		}
+		this.step = newStep;
+		this.lastTransition = now;
+		this.lowSince = -1L;
+		return String.format("Logging %s to level %s at a queue depth of %d records and a write latency of %d us.", 
+				high ? "degraded" : "restored", this.getEffectiveLevel(), queueDepth, this.getWriteLatency() / 1000L);
+	}
+
+}
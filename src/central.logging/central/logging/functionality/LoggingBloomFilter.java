@@ -0,0 +1,101 @@
+package central.logging.functionality;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * The LoggingBloomFilter class tells whether a token might be contained in a set of 
+ * tokens without storing the tokens themselves. Tokens reported as absent are never 
+ * contained, while about one in a hundred absent tokens is reported as possibly contained.
+ *
+ * @author Planters
+ *
+ */
+final class LoggingBloomFilter {
+
+	/**
+	 * The number of bits per token, which results in a false positive rate of about 1%.
+	 */
+	private static final int BITS_PER_TOKEN = 10;
+	private static final int NUMBER_HASHES = 7;
+
+	private final long[] bits;
+
+	private LoggingBloomFilter(long[] bits) {
+		this.bits = bits;
+	}
+
+	/**
+	 * Create a filter containing the specified tokens.
+	 *
+	 * @param tokens - the distinct tokens to add
+	 * @return a filter sized for the tokens
+	 */
+	static LoggingBloomFilter of(Collection<String> tokens) {
+		int words = Math.max(1, (tokens.size() * LoggingBloomFilter.BITS_PER_TOKEN + 63) / 64);
+		LoggingBloomFilter filter = new LoggingBloomFilter(new long[words]);
+		for (String token : tokens) {
+			long hash = LoggingBloomFilter.hash(token);
+			for (int i = 0; i < LoggingBloomFilter.NUMBER_HASHES; i++) {
+				int bit = filter.bitIndex(hash, i);
+				filter.bits[bit >>> 6] |= 1L << bit;
+			}
+		}
+		return filter;
+	}
+
+	/**
+	 * Check whether the specified token might have been added.
+	 *
+	 * @param token - the token to check
+	 * @return false if the token has definitely not been added
+	 */
+	boolean mightContain(String token) {
+		long hash = LoggingBloomFilter.hash(token);
+		for (int i = 0; i < LoggingBloomFilter.NUMBER_HASHES; i++) {
+			int bit = this.bitIndex(hash, i);
+			if ((this.bits[bit >>> 6] & (1L << bit)) == 0L) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Derive the i-th bit from the two halves of a single hash.
+	 */
+	private int bitIndex(long hash, int i) {
+		int combined = (int) hash + i * (int) (hash >>> 32);
+		return (combined & Integer.MAX_VALUE) % (this.bits.length * 64);
+	}
+
+	/**
+	 * The 64 bit FNV-1a hash of the token.
+	 */
+	private static long hash(String token) {
+		long hash = 0xCBF29CE484222325L;
+		for (int i = 0; i < token.length(); i++) {
+			hash ^= token.charAt(i);
+			hash *= 0x100000001B3L;
+		}
+		return hash;
+	}
+
+	void write(DataOutput output) throws IOException {
+		LoggingRecordCodec.writeVarLong(output, this.bits.length);
+		for (long word : this.bits) {
+			output.writeLong(word);
+		}
+	}
+
+	static LoggingBloomFilter read(DataInput input) throws IOException {
+		long[] bits = new long[(int) LoggingRecordCodec.readVarLong(input)];
+		for (int i = 0; i < bits.length; i++) {
+			bits[i] = input.readLong();
+		}
+		return new LoggingBloomFilter(bits);
+	}
+
+}
@@ -0,0 +1,150 @@
+package central.logging.functionality;
+
+import java.lang.StackWalker.StackFrame;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.logging.LogRecord;
+
+/**
+ * The LoggingCallSite class identifies a single statement logging records. Call sites
+ * are captured by walking only the top frames of the stack and are cached per
+ * declaring class, method and bytecode index, so resolving the same statement again
+ * neither creates a new call site nor computes its line number again.
+ *
+ * @author Planters
+ *
+ */
+final class LoggingCallSite {
+
+	/**
+	 * The default maximum number of frames walked to find the caller.
+	 */
+	static final int DEFAULT_MAXIMUM_DEPTH = 16;
+	private static final StackWalker WALKER = StackWalker.getInstance(
+			Set.of(StackWalker.Option.RETAIN_CLASS_REFERENCE), LoggingCallSite.DEFAULT_MAXIMUM_DEPTH);
+	/**
+	 * The call sites of every class.
+	 */
+	private static final ClassValue<Sites> CACHE = new ClassValue<Sites>() {
+		@Override
+		protected Sites computeValue(Class<?> type) {
+			return new Sites();
+		}
+	};
+
+	private final String className;
+	private final String methodName;
+	private final int bytecodeIndex;
+	private final int lineNumber;
+
+	private LoggingCallSite(StackFrame frame) {
+		this.className = frame.getClassName();
+		this.methodName = frame.getMethodName();
+		this.bytecodeIndex = frame.getByteCodeIndex();
+		this.lineNumber = frame.getLineNumber();
+	}
+
+	/**
+	 * Find the first frame outside the logging framework within the specified depth.
+	 *
+	 * @param maximumDepth - the maximum number of frames to walk
+	 * @return the call site or null if it could not be found within the depth
+	 */
+	static LoggingCallSite capture(int maximumDepth) {
+		return LoggingCallSite.WALKER.walk(frames -> frames.limit(maximumDepth)
+				.filter(frame -> !LoggingCallSite.isFramework(frame.getClassName()))
+				.findFirst()
+				.map(LoggingCallSite::cached)
+				.orElse(null));
+	}
+
+	private static boolean isFramework(String className) {
+		return className.startsWith("java.util.logging.") || className.startsWith("central.logging.functionality.")
+				|| className.startsWith("sun.util.logging.") || className.startsWith("jdk.internal.logger.");
+	}
+
+	private static LoggingCallSite cached(StackFrame frame) {
+		return LoggingCallSite.CACHE.get(frame.getDeclaringClass()).get(frame);
+	}
+
+	/**
+	 * Set the source of the specified record to this call site.
+	 *
+	 * @param record - the record to update
+	 */
+	void applyTo(LogRecord record) {
+		record.setSourceClassName(this.className);
+		record.setSourceMethodName(this.methodName);
+	}
+
+	/**
+	 * Get the name of the class containing the call site.
+	 *
+	 * @return the class name
+	 */
+	String getClassName() {
+		return this.className;
+	}
+
+	/**
+	 * Get the name of the method containing the call site.
+	 *
+	 * @return the method name
+	 */
+	String getMethodName() {
+		return this.methodName;
+	}
+
+	/**
+	 * Get the source line of the call site.
+	 *
+	 * @return the line number or a negative number if unknown
+	 */
+	int getLineNumber() {
+		return this.lineNumber;
+	}
+
+	@Override
+	public String toString() {
+		return this.className + "." + this.methodName + ":" + this.lineNumber;
+	}
+
+	/**
+	 * The call sites of a single class. Classes contain few logging statements, so
+	 * they are kept in an array that is scanned without locking and replaced as a
+	 * whole whenever a new call site is added.
+	 */
+	private static final class Sites {
+
+		private volatile LoggingCallSite[] sites = new LoggingCallSite[0];
+
+		private LoggingCallSite get(StackFrame frame) {
+			LoggingCallSite site = Sites.find(this.sites, frame);
+			return site != null ? site : this.add(frame);
+		}
+
+		private synchronized LoggingCallSite add(StackFrame frame) {
+			LoggingCallSite site = Sites.find(this.sites, frame);
+			if (site == null) {
+				site = new LoggingCallSite(frame);
+				LoggingCallSite[] newSites = Arrays.copyOf(this.sites, this.sites.length + 1);
+				newSites[this.sites.length] = site;
+				this.sites = newSites;
+			}
+			return site;
+		}
+
+		private static LoggingCallSite find(LoggingCallSite[] sites, StackFrame frame) {
+			int bytecodeIndex = frame.getByteCodeIndex();
+			String methodName = frame.getMethodName();
+			for (LoggingCallSite site : sites) {
+				if (site.bytecodeIndex == bytecodeIndex && site.methodName.equals(methodName)) {
+					return site;
+				}
+			}
+			return null;
+		}
+
+	}
+
+}
@@ -0,0 +1,263 @@
+package central.logging.functionality;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * The LoggingCollector class receives the records forwarded by
+ * {@link LoggingForwardingHandler}s over a local TCP or Unix domain socket and writes
+ * them to the log files of a single {@link Logging} instance. All connections are
+ * served by one thread with non-blocking channels.
+ *
+ * @author Planters
+ *
+ */
+public class LoggingCollector {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final SocketAddress bindAddress;
+	private final Logging output;
+	private final AtomicLong receivedRecords = new AtomicLong();
+	private ServerSocketChannel server = null;
+	private Selector selector = null;
+	private Thread collectorThread = null;
+
+	/**
+	 * Create a collector writing all received records to the specified logging facility.
+	 * Log writing of the facility must be started separately.
+	 *
+	 * @param bindAddress - the address to listen on, either an {@link InetSocketAddress}
+	 * or a {@link UnixDomainSocketAddress}
+	 * @param output - the logging facility to write the received records to
+	 * @throws IllegalArgumentException if the address or logging facility is null
+	 */
+	public LoggingCollector(SocketAddress bindAddress, Logging output) {
+		if (bindAddress == null) {
+			throw new IllegalArgumentException("The bind address cannot be null.");
+		}
+		if (output == null) {
+			throw new IllegalArgumentException("The logging facility cannot be null.");
+		}
+		this.bindAddress = bindAddress;
+		this.output = output;
+	}
+
+	/**
+	 * Start listening for forwarded records.
+	 *
+	 * @throws LoggingFailureException if the address cannot be bound
+	 */
+	public synchronized void startCollecting() throws LoggingFailureException {
+		if (this.server == null) {
+			try {
+				this.selector = Selector.open();
+				this.server = this.bindAddress instanceof UnixDomainSocketAddress
+						? ServerSocketChannel.open(StandardProtocolFamily.UNIX) : ServerSocketChannel.open();
+				this.server.bind(this.bindAddress);
+				this.server.configureBlocking(false);
+				this.server.register(this.selector, SelectionKey.OP_ACCEPT);
+			} catch (IOException e) {
+				this.closeChannels();
+				throw new LoggingFailureException("The collector could not listen on " + this.bindAddress + ".", e);
+			}
+			Selector collectorSelector = this.selector;
+			this.collectorThread = new Thread(() -> this.collect(collectorSelector),
+					"LoggingCollector-" + this.bindAddress);
+			this.collectorThread.setDaemon(true);
+			this.collectorThread.start();
+		} else {
+			this.output.getLog().warning("Collecting has already been started.");
+		}
+	}
+
+	/**
+	 * Stop listening and close all connections.
+	 */
+	public synchronized void stopCollecting() {
+		if (this.server != null) {
+			this.closeChannels();
+			try {
+				this.collectorThread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			this.collectorThread = null;
+		} else {
+			this.output.getLog().warning("No collecting is currently performed "
+					+ "and can thereby not be stopped.");
+		}
+	}
+
+	/**
+	 * Get the address the collector actually listens on, which differs from the bind
+	 * address if an ephemeral port has been requested.
+	 *
+	 * @return the local address or null if not collecting
+	 */
+	public synchronized SocketAddress getLocalAddress() {
+		try {
+			return this.server != null ? this.server.getLocalAddress() : null;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Get the number of records received so far.
+	 *
+	 * @return the number of received records
+	 */
+	public long getReceivedRecords() {
+		return this.receivedRecords.get();
+	}
+
+	private void collect(Selector collectorSelector) {
+		try {
+			while (collectorSelector.isOpen()) {
+				collectorSelector.select();
+				for (SelectionKey key : collectorSelector.selectedKeys()) {
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						SocketChannel client = ((ServerSocketChannel) key.channel()).accept();
+						if (client != null) {
+							client.configureBlocking(false);
+							client.register(collectorSelector, SelectionKey.OP_READ,
+									ByteBuffer.allocate(LoggingCollector.BUFFER_SIZE));
+						}
+					} else if (key.isReadable()) {
+						this.read(key);
+					}
+				}
+				collectorSelector.selectedKeys().clear();
+			}
+		} catch (IOException | ClosedSelectorException e) {
+			// Do nothing as collecting has been stopped.
+		}
+	}
+
+	private void read(SelectionKey key) {
+		SocketChannel client = (SocketChannel) key.channel();
+		ByteBuffer buffer = (ByteBuffer) key.attachment();
+		try {
+			if (client.read(buffer) < 0) {
+				key.cancel();
+				client.close();
+				return;
+			}
+			buffer.flip();
+			while (buffer.remaining() >= Integer.BYTES) {
+				int length = buffer.getInt(buffer.position());
+				if (length < 0) {
+					throw new IOException("Malformed frame of length " + length + ".");
+				}
+				if (buffer.remaining() < Integer.BYTES + length) {
+					if (Integer.BYTES + length > buffer.capacity()) { // grow for large records
+						ByteBuffer larger = ByteBuffer.allocate(Integer.BYTES + length);
+						larger.put(buffer);
+						larger.flip();
+						buffer = larger;
+						key.attach(buffer);
+					}
+					break;
+				}
+				buffer.getInt();
+				byte[] encoded = new byte[length];
+				buffer.get(encoded);
+				LogRecord record = LoggingRecordCodec.decode(encoded);
+				this.output.getLog().log(record);
+				this.receivedRecords.incrementAndGet();
+			}
+			buffer.compact();
+		} catch (IOException e) {
+			this.output.getLog().log(Level.WARNING, "The connection " + client + " failed.", e);
+			key.cancel();
+			try {
+				client.close();
+			} catch (IOException closeException) {
+				// Do nothing as the connection is dropped anyway.
+			}
+		}
+	}
+
+	private void closeChannels() {
+		try {
+			if (this.selector != null) {
+				for (SelectionKey key : this.selector.keys()) {
+					key.channel().close();
+				}
+				this.selector.close();
+			}
+			if (this.server != null) {
+				this.server.close();
+			}
+			if (this.bindAddress instanceof UnixDomainSocketAddress) {
+				Files.deleteIfExists(((UnixDomainSocketAddress) this.bindAddress).getPath());
+			}
+		} catch (IOException e) {
+			this.output.getLog().log(Level.WARNING, "The collector could not be closed properly.", e);
+		}
+		this.selector = null;
+		this.server = null;
+	}
+
+	/**
+	 * Run a collector process writing all received records to log files.
+	 *
+	 * @param args - the local port or Unix domain socket path to listen on, optionally
+	 * followed by the logging folder and the log file name
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1 || args.length > 3) {
+			System.err.println("Usage: LoggingCollector <port|socket path> [logging folder] [log file name]");
+			System.exit(1);
+		}
+		SocketAddress address;
+		if (args[0].matches("\\d+")) {
+			address = new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(args[0]));
+		} else {
+			address = UnixDomainSocketAddress.of(Paths.get(args[0]));
+		}
+		String[] settings = Arrays.copyOfRange(args, 1, 3);
+		Logging output = new Logging(new File(settings[0] != null ? settings[0] : "Logs"),
+				settings[1] != null ? settings[1] : "Collected");
+		output.getLog().setLevel(Level.ALL);
+		LoggingCollector collector = new LoggingCollector(address, output);
+		try {
+			output.startLogWriting();
+			collector.startCollecting();
+		} catch (LoggingFailureException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			collector.stopCollecting();
+			try {
+				output.stopLogWriting();
+			} catch (LoggingFailureException e) {
+				e.printStackTrace();
+			}
+		}));
+		System.out.println("Collecting records on " + collector.getLocalAddress());
+	}
+
+}
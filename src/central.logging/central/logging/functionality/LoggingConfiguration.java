@@ -0,0 +1,192 @@
+package central.logging.functionality;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.logging.Level;
+
+/**
+ * The LoggingConfiguration class holds a set of logging settings, which can be applied
+ * to a {@link Logging} instance or the static {@link LoggingHandler} at once.
+ * Settings that are not specified are left unchanged when the configuration is applied.
+ * <p>
+ * A configuration can be read from a properties file with the following keys:
+ * <ul>
+ * <li>{@value #FOLDER} - the folder to write the log files to</li>
+ * <li>{@value #FILE_NAME} - the basic filename for all the log files</li>
+ * <li>{@value #NUMBER_LOG_FILES} - the number of log files to keep</li>
+ * <li>{@value #LEVEL} - the level of the logger</li>
+ * <li>{@value #FORMAT} - the format of the log files as named by {@link LoggingFormat}</li>
+ * </ul>
+ *
+ * @author Planters
+ *
+ */
+public class LoggingConfiguration {
+
+	/**
+	 * The property key for the logging folder.
+	 */
+	public static final String FOLDER = "folder";
+	/**
+	 * The property key for the log file name.
+	 */
+	public static final String FILE_NAME = "fileName";
+	/**
+	 * The property key for the number of log files.
+	 */
+	public static final String NUMBER_LOG_FILES = "numberLogFiles";
+	/**
+	 * The property key for the log level.
+	 */
+	public static final String LEVEL = "level";
+	/**
+	 * The property key for the log format.
+	 */
+	public static final String FORMAT = "format";
+
+	private final File loggingFolder;
+	private final String logFileName;
+	private final Integer numberLogFiles;
+	private final Level level;
+	private final LoggingFormat format;
+
+	/**
+	 * Create a configuration with the specified settings. Any setting may be null,
+	 * in which case it is left unchanged when the configuration is applied.
+	 *
+	 * @param loggingFolder - the folder to write the log files to
+	 * @param logFileName - the basic filename for all the log files
+	 * @param numberLogFiles - the number of log files to keep
+	 * @param level - the level of the logger
+	 * @param format - the format of the log files
+	 * @throws IllegalArgumentException if the log file name is empty or the number
+	 * of log files is less than 1
+	 */
+	public LoggingConfiguration(File loggingFolder, String logFileName, Integer numberLogFiles,
+			Level level, LoggingFormat format) {
+		if (logFileName != null && logFileName.length() == 0) {
+			throw new IllegalArgumentException("The log file name cannot be empty.");
+		}
+		if (numberLogFiles != null && numberLogFiles <= 0) {
+			throw new IllegalArgumentException("The number of log files cannot be zero or less.");
+		}
+		this.loggingFolder = loggingFolder;
+		this.logFileName = logFileName;
+		this.numberLogFiles = numberLogFiles;
+		this.level = level;
+		this.format = format;
+	}
+
+	/**
+	 * Create a configuration from the specified properties.
+	 *
+	 * @param properties - the properties to read the settings from
+	 * @return the configuration
+	 * @throws IllegalArgumentException if any of the properties has an invalid value
+	 */
+	public static LoggingConfiguration fromProperties(Properties properties) {
+		String folder = LoggingConfiguration.getProperty(properties, LoggingConfiguration.FOLDER);
+		String fileName = LoggingConfiguration.getProperty(properties, LoggingConfiguration.FILE_NAME);
+		String number = LoggingConfiguration.getProperty(properties, LoggingConfiguration.NUMBER_LOG_FILES);
+		String level = LoggingConfiguration.getProperty(properties, LoggingConfiguration.LEVEL);
+		String format = LoggingConfiguration.getProperty(properties, LoggingConfiguration.FORMAT);
+		try {
+			return new LoggingConfiguration(folder != null ? new File(folder) : null, fileName,
+					number != null ? Integer.valueOf(number) : null,
+					level != null ? Level.parse(level) : null,
+					format != null ? LoggingFormat.forName(format) : null);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("The number of log files \"" + number
+					+ "\" is not a number.", e);
+		}
+	}
+
+	/**
+	 * Read a configuration from the specified properties file.
+	 *
+	 * @param configurationFile - the properties file to read
+	 * @return the configuration
+	 * @throws LoggingFailureException if the file cannot be read or contains invalid values
+	 */
+	public static LoggingConfiguration load(Path configurationFile) throws LoggingFailureException {
+		Properties properties = new Properties();
+		try (Reader reader = Files.newBufferedReader(configurationFile, StandardCharsets.UTF_8)) {
+			properties.load(reader);
+			return LoggingConfiguration.fromProperties(properties);
+		} catch (IOException e) {
+			throw new LoggingFailureException("The logging configuration " + configurationFile
+					+ " could not be read.", e);
+		} catch (IllegalArgumentException e) {
+			throw new LoggingFailureException("The logging configuration " + configurationFile
+					+ " is invalid.", e);
+		}
+	}
+
+	private static String getProperty(Properties properties, String key) {
+		String value = properties.getProperty(key);
+		if (value != null) {
+			value = value.trim();
+			if (value.length() == 0) {
+				value = null;
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Get the folder to write the log files to.
+	 *
+	 * @return the logging folder or null if not specified
+	 */
+	public File getLoggingFolder() {
+		return this.loggingFolder;
+	}
+
+	/**
+	 * Get the basic filename for all the log files.
+	 *
+	 * @return the log file name or null if not specified
+	 */
+	public String getLogFileName() {
+		return this.logFileName;
+	}
+
+	/**
+	 * Get the number of log files to keep.
+	 *
+	 * @return the number of log files or null if not specified
+	 */
+	public Integer getNumberLogFiles() {
+		return this.numberLogFiles;
+	}
+
+	/**
+	 * Get the level of the logger.
+	 *
+	 * @return the level or null if not specified
+	 */
+	public Level getLevel() {
+		return this.level;
+	}
+
+	/**
+	 * Get the format of the log files.
+	 *
+	 * @return the format or null if not specified
+	 */
+	public LoggingFormat getFormat() {
+		return this.format;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("LoggingConfiguration [%s; %s; %s; %s; %s]", this.getLoggingFolder(),
+				this.getLogFileName(), this.getNumberLogFiles(), this.getLevel(), this.getFormat());
+	}
+
+}
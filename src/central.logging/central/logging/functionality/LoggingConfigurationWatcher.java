@@ -0,0 +1,196 @@
+package central.logging.functionality;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The LoggingConfigurationWatcher class watches a properties file as described by
+ * {@link LoggingConfiguration} and applies it to a {@link Logging} instance or the static
+ * {@link LoggingHandler} whenever it changes. Writing continues seamlessly while the
+ * configuration is reloaded.
+ *
+ * @author Planters
+ *
+ */
+public class LoggingConfigurationWatcher {
+
+	private final Path configurationFile;
+	private final Reconfigurable target;
+	/**
+	 * The logger of failures, resolved on every use, as the logger of a closed or reset 
+	 * logging facility is replaced.
+	 */
+	private final Supplier<Logger> log;
+	private WatchService watchService = null;
+	private Thread watchThread = null;
+
+	/**
+	 * Create a watcher applying the specified configuration file to a Logging instance.
+	 *
+	 * @param configurationFile - the properties file to watch
+	 * @param logging - the logging facility to reconfigure
+	 * @throws IllegalArgumentException if the configuration file or logging facility is null
+	 */
+	public LoggingConfigurationWatcher(Path configurationFile, Logging logging) {
+		this(configurationFile, LoggingConfigurationWatcher.requireLogging(logging)::reconfigure,
+				logging::getLog);
+	}
+
+	/**
+	 * Create a watcher applying the specified configuration file to the static LoggingHandler.
+	 *
+	 * @param configurationFile - the properties file to watch
+	 * @throws IllegalArgumentException if the configuration file is null
+	 */
+	public LoggingConfigurationWatcher(Path configurationFile) {
+		this(configurationFile, LoggingHandler::reconfigure, LoggingHandler::getLog);
+	}
+
+	private LoggingConfigurationWatcher(Path configurationFile, Reconfigurable target, Supplier<Logger> log) {
+		if (configurationFile == null) {
+			throw new IllegalArgumentException("The configuration file cannot be null.");
+		}
+		this.configurationFile = configurationFile.toAbsolutePath();
+		this.target = target;
+		this.log = log;
+	}
+
+	private static Logging requireLogging(Logging logging) {
+		if (logging == null) {
+			throw new IllegalArgumentException("The logging facility cannot be null.");
+		}
+		return logging;
+	}
+
+	/**
+	 * Apply the configuration file once and start watching it for changes.
+	 *
+	 * @throws LoggingFailureException if the configuration file cannot be watched
+	 */
+	public synchronized void startWatching() throws LoggingFailureException {
+		if (this.watchService == null) {
+			try {
+				this.watchService = this.configurationFile.getFileSystem().newWatchService();
+				this.configurationFile.getParent().register(this.watchService,
+						StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+			} catch (IOException e) {
+				this.closeWatchService();
+				throw new LoggingFailureException("The configuration file " + this.configurationFile
+						+ " cannot be watched.", e);
+			}
+			if (Files.exists(this.configurationFile)) {
+				this.reload();
+			}
+			WatchService service = this.watchService;
+			this.watchThread = new Thread(() -> this.watch(service),
+					"LoggingConfigurationWatcher-" + this.configurationFile.getFileName());
+			this.watchThread.setDaemon(true);
+			this.watchThread.start();
+		} else {
+			this.log.get().warning("The configuration file " + this.configurationFile + " is already watched.");
+		}
+	}
+
+	/**
+	 * Stop watching the configuration file.
+	 */
+	public synchronized void stopWatching() {
+		if (this.watchService != null) {
+			this.closeWatchService();
+			this.watchThread.interrupt();
+			this.watchThread = null;
+		} else {
+			this.log.get().warning("The configuration file " + this.configurationFile + " is not watched.");
+		}
+	}
+
+	/**
+	 * Check whether the configuration file is currently watched.
+	 *
+	 * @return true if the configuration file is watched
+	 */
+	public synchronized boolean isWatching() {
+		return this.watchService != null;
+	}
+
+	/**
+	 * Read the configuration file and apply it. Failures are logged and leave the current
+	 * configuration in place.
+	 *
+	 * @return true if the configuration has been applied
+	 */
+	public boolean reload() {
+		try {
+			this.target.reconfigure(LoggingConfiguration.load(this.configurationFile));
+			return true;
+		} catch (LoggingFailureException | IllegalArgumentException e) {
+			this.log.get().log(Level.WARNING, "The logging configuration " + this.configurationFile
+					+ " could not be applied.", e);
+			return false;
+		}
+	}
+
+	/**
+	 * Get the watched configuration file.
+	 *
+	 * @return the configuration file
+	 */
+	public Path getConfigurationFile() {
+		return this.configurationFile;
+	}
+
+	private void watch(WatchService service) {
+		try {
+			while (true) {
+				WatchKey key = service.take();
+				boolean changed = false;
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (this.configurationFile.getFileName().equals(event.context())
+							|| event.kind() == StandardWatchEventKinds.OVERFLOW) {
+						changed = true;
+					}
+				}
+				// several events of a single write are coalesced into a single reload
+				if (changed && Files.exists(this.configurationFile)) {
+					this.reload();
+				}
+				if (!key.reset()) {
+					this.log.get().warning("The folder of the configuration file " + this.configurationFile
+							+ " cannot be watched anymore.");
+					return;
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// Do nothing as watching has been stopped.
+		}
+	}
+
+	private void closeWatchService() {
+		try {
+			this.watchService.close();
+		} catch (IOException e) {
+			this.log.get().log(Level.WARNING, "The watch service could not be closed.", e);
+		}
+		this.watchService = null;
+	}
+
+	/**
+	 * A target a configuration can be applied to.
+	 */
+	@FunctionalInterface
+	private interface Reconfigurable {
+
+		void reconfigure(LoggingConfiguration configuration) throws LoggingFailureException;
+
+	}
+
+}
@@ -0,0 +1,301 @@
+package central.logging.functionality;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.logging.LogRecord;
+
+/**
+ * The LoggingContext class holds diagnostic fields, such as a request id, tenant or trace 
+ * id, that are written along with every record logged by a thread while the context is 
+ * current. Contexts are immutable, adding a field creates a new context, so records and 
+ * queued tasks capture the current context by reference without copying it. The output 
+ * formats write the fields of the context as structured fields of the record, and records 
+ * read back carry them again, see {@link #of(LogRecord)}.
+ * <p>
+ * The context of a thread is not inherited by threads it creates, as pooled threads would 
+ * keep the context of an unrelated task. Tasks passed to executors, including executors 
+ * running each task on a new thread, are wrapped to run in the context current when 
+ * they are submitted.
+ *
+ * @author Planters
+ *
+ */
+public final class LoggingContext {
+
+	/**
+	 * The context without any fields.
+	 */
+	public static final LoggingContext EMPTY = new LoggingContext(new String[0], new String[0]);
+	private static final ThreadLocal<LoggingContext> CURRENT = ThreadLocal.withInitial(() -> LoggingContext.EMPTY);
+
+	private final String[] keys;
+	private final String[] values;
+
+	private LoggingContext(String[] keys, String[] values) {
+		this.keys = keys;
+		this.values = values;
+	}
+
+	/**
+	 * Get the context of the current thread.
+	 *
+	 * @return the current context, {@link #EMPTY} if none has been set
+	 */
+	public static LoggingContext current() {
+		return LoggingContext.CURRENT.get();
+	}
+
+	/**
+	 * Get the context the specified record has been logged in. Records read from log files 
+	 * and archives, received by a {@link LoggingCollector} or dumped by a 
+	 * {@link LoggingFlightRecorder} carry their context, all other records are being 
+	 * written in the context of the current thread.
+	 *
+	 * @param record - the record
+	 * @return the context of the record
+	 */
+	public static LoggingContext of(LogRecord record) {
+		return record instanceof ContextRecord ? ((ContextRecord) record).getContext() : LoggingContext.current();
+	}
+
+	/**
+	 * Add the specified field to the context of the current thread until the returned scope 
+	 * is closed.
+	 *
+	 * @param key - the name of the field
+	 * @param value - the value of the field
+	 * @return the scope restoring the previous context when closed
+	 * @throws IllegalArgumentException if the key or value is null
+	 */
+	public static Scope put(String key, String value) {
+		return LoggingContext.current().with(key, value).attach();
+	}
+
+	/**
+	 * Make this context the context of the current thread until the returned scope is closed.
+	 *
+	 * @return the scope restoring the previous context when closed
+	 */
+	public Scope attach() {
+		LoggingContext previous = LoggingContext.CURRENT.get();
+		LoggingContext.CURRENT.set(this);
+		return new Scope(previous);
+	}
+
+	/**
+	 * Run the specified task with this context as the context of the current thread and 
+	 * restore the previous context afterwards.
+	 *
+	 * @param task - the task to run
+	 */
+	public void run(Runnable task) {
+		LoggingContext previous = LoggingContext.CURRENT.get();
+		LoggingContext.CURRENT.set(this);
+		try {
+			task.run();
+		} finally {
+			LoggingContext.CURRENT.set(previous);
+		}
+	}
+
+	/**
+	 * Call the specified task with this context as the context of the current thread and 
+	 * restore the previous context afterwards.
+	 *
+	 * @param <T> - the type of the result
+	 * @param task - the task to call
+	 * @return the result of the task
+	 * @throws Exception if the task fails
+	 */
+	public <T> T call(Callable<T> task) throws Exception {
+		LoggingContext previous = LoggingContext.CURRENT.get();
+		LoggingContext.CURRENT.set(this);
+		try {
+			return task.call();
+		} finally {
+			LoggingContext.CURRENT.set(previous);
+		}
+	}
+
+	/**
+	 * Get a context with the specified field added or replaced.
+	 *
+	 * @param key - the name of the field
+	 * @param value - the value of the field
+	 * @return the new context
+	 * @throws IllegalArgumentException if the key or value is null
+	 */
+	public LoggingContext with(String key, String value) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException("The key and value of a context field cannot be null.");
+		}
+		int index = this.indexOf(key);
+		if (index >= 0) {
+			String[] newValues = this.values.clone();
+			newValues[index] = value;
+			return new LoggingContext(this.keys, newValues);
+		}
+		String[] newKeys = Arrays.copyOf(this.keys, this.keys.length + 1);
+		String[] newValues = Arrays.copyOf(this.values, this.values.length + 1);
+		newKeys[this.keys.length] = key;
+		newValues[this.values.length] = value;
+		return new LoggingContext(newKeys, newValues);
+	}
+
+	/**
+	 * Get a context without the specified field.
+	 *
+	 * @param key - the name of the field
+	 * @return the new context or this context if it does not contain the field
+	 */
+	public LoggingContext without(String key) {
+		int index = this.indexOf(key);
+		if (index < 0) {
+			return this;
+		}
+		String[] newKeys = new String[this.keys.length - 1];
+		String[] newValues = new String[this.values.length - 1];
+		System.arraycopy(this.keys, 0, newKeys, 0, index);
+		System.arraycopy(this.keys, index + 1, newKeys, index, newKeys.length - index);
+		System.arraycopy(this.values, 0, newValues, 0, index);
+		System.arraycopy(this.values, index + 1, newValues, index, newValues.length - index);
+		return newKeys.length == 0 ? LoggingContext.EMPTY : new LoggingContext(newKeys, newValues);
+	}
+
+	private int indexOf(String key) {
+		for (int i = 0; i < this.keys.length; i++) {
+			if (this.keys[i].equals(key)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Get the value of the specified field.
+	 *
+	 * @param key - the name of the field
+	 * @return the value or null if the context does not contain the field
+	 */
+	public String get(String key) {
+		int index = this.indexOf(key);
+		return index >= 0 ? this.values[index] : null;
+	}
+
+	/**
+	 * Check whether the context contains no fields.
+	 *
+	 * @return true if the context is empty
+	 */
+	public boolean isEmpty() {
+		return this.keys.length == 0;
+	}
+
+	/**
+	 * Get the number of fields.
+	 *
+	 * @return the number of fields
+	 */
+	public int size() {
+		return this.keys.length;
+	}
+
+	/**
+	 * Pass all fields to the consumer in the order they have been added.
+	 *
+	 * @param consumer - the consumer of the keys and values
+	 */
+	public void forEach(BiConsumer<String, String> consumer) {
+		for (int i = 0; i < this.keys.length; i++) {
+			consumer.accept(this.keys[i], this.values[i]);
+		}
+	}
+
+	/**
+	 * Get all fields as a map.
+	 *
+	 * @return an unmodifiable map of the fields in the order they have been added
+	 */
+	public Map<String, String> asMap() {
+		Map<String, String> fields = new LinkedHashMap<String, String>();
+		this.forEach(fields::put);
+		return Collections.unmodifiableMap(fields);
+	}
+
+	/**
+	 * Get a task running the specified task in the context current now.
+	 *
+	 * @param task - the task to run later, possibly on another thread
+	 * @return the task running in the captured context
+	 */
+	public static Runnable wrap(Runnable task) {
+		LoggingContext captured = LoggingContext.current();
+		return () -> captured.run(task);
+	}
+
+	/**
+	 * Get a task calling the specified task in the context current now.
+	 *
+	 * @param <T> - the type of the result
+	 * @param task - the task to call later, possibly on another thread
+	 * @return the task calling in the captured context
+	 */
+	public static <T> Callable<T> wrap(Callable<T> task) {
+		LoggingContext captured = LoggingContext.current();
+		return () -> captured.call(task);
+	}
+
+	/**
+	 * Get an executor running every task in the context current when it is submitted.
+	 *
+	 * @param executor - the executor running the tasks
+	 * @return the executor propagating the context
+	 */
+	public static Executor wrap(Executor executor) {
+		return task -> executor.execute(LoggingContext.wrap(task));
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("{");
+		for (int i = 0; i < this.keys.length; i++) {
+			builder.append(i > 0 ? ", " : "").append(this.keys[i]).append('=').append(this.values[i]);
+		}
+		return builder.append('}').toString();
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof LoggingContext && Arrays.equals(this.keys, ((LoggingContext) other).keys) 
+				&& Arrays.equals(this.values, ((LoggingContext) other).values);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(this.keys) + Arrays.hashCode(this.values);
+	}
+
+	/**
+	 * The time a context is current, which restores the previous context when closed.
+	 */
+	public static final class Scope implements AutoCloseable {
+
+		private final LoggingContext previous;
+
+		private Scope(LoggingContext previous) {
+			this.previous = previous;
+		}
+
+		@Override
+		public void close() {
+			LoggingContext.CURRENT.set(this.previous);
+		}
+
+	}
+
+}
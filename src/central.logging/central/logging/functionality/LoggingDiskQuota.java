@@ -0,0 +1,327 @@
+package central.logging.functionality;
+
+import java.io.File;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * The LoggingDiskQuota class limits the disk space taken by the log files of all 
+ * {@link Logging} instances and the {@link LoggingHandler} of this JVM together, including 
+ * their indexes and archives. The size of every log file is tracked as it is written, by checking only the file itself every 
+ * few records, so no folder is ever scanned. Once the quota is approached, the oldest log 
+ * files no longer written to are deleted, regardless of which logging facility wrote them. 
+ * If the files being written exceed the quota on their own, records less severe than the 
+ * degrade level are dropped until the usage falls again.
+ * 
+ * @author Planters
+ *
+ */
+public final class LoggingDiskQuota {
+
+	/**
+	 * The quota that never limits the disk space.
+	 */
+	public static final long UNLIMITED = Long.MAX_VALUE;
+	/**
+	 * The share of the quota above which old log files are deleted.
+	 */
+	public static final double EVICTION_THRESHOLD = 0.9;
+	/**
+	 * The number of records written to a log file between checks of its size.
+	 */
+	public static final int RECORDS_PER_CHECK = 128;
+	private static final Logger LOG = Logger.getLogger(LoggingDiskQuota.class.getName());
+	static { // disable logging to console via global logger
+		LoggingDiskQuota.LOG.setUseParentHandlers(false);
+	}
+
+	/**
+	 * All tracked log files and their sizes.
+	 */
+	private static final Map<File, TrackedFile> FILES = new HashMap<File, TrackedFile>();
+	/**
+	 * The log files no longer written to, the oldest first.
+	 */
+	private static final PriorityQueue<TrackedFile> CLOSED_FILES = new PriorityQueue<TrackedFile>(
+			Comparator.comparingLong((TrackedFile file) -> file.lastModified).thenComparing(file -> file.file));
+	private static final AtomicLong USED_BYTES = new AtomicLong();
+	private static final AtomicLong EVICTED_FILES = new AtomicLong();
+	private static final AtomicLong DEGRADED_RECORDS = new AtomicLong();
+	private static volatile long quota = LoggingDiskQuota.UNLIMITED;
+	private static volatile Level degradeLevel = Level.WARNING;
+	private static volatile boolean degraded = false;
+
+	private LoggingDiskQuota() {
+		// Do nothing as this class only provides static methods.
+	}
+
+	/**
+	 * Get the maximum number of bytes all log files may take together.
+	 * 
+	 * @return the quota in bytes
+	 */
+	public static long getQuota() {
+		return LoggingDiskQuota.quota;
+	}
+
+	/**
+	 * Set the maximum number of bytes all log files may take together and delete old log 
+	 * files right away if necessary.
+	 * 
+	 * @param quota - the quota in bytes or {@link #UNLIMITED}
+	 * @throws IllegalArgumentException if the quota is less than 1
+	 */
+	public static void setQuota(long quota) {
+		if (quota < 1L) {
+			throw new IllegalArgumentException("The disk quota must be at least 1 byte.");
+		}
+		LoggingDiskQuota.quota = quota;
+		LoggingDiskQuota.enforce();
+	}
+
+	/**
+	 * Get the minimum level of records still written while the quota is exceeded.
+	 * 
+	 * @return the degrade level
+	 */
+	public static Level getDegradeLevel() {
+		return LoggingDiskQuota.degradeLevel;
+	}
+
+	/**
+	 * Set the minimum level of records still written while the quota is exceeded.
+	 * 
+	 * @param degradeLevel - the degrade level, {@link Level#OFF} to drop all records
+	 * @throws IllegalArgumentException if the level is null
+	 */
+	public static void setDegradeLevel(Level degradeLevel) {
+		if (degradeLevel == null) {
+			throw new IllegalArgumentException("The degrade level cannot be null.");
+		}
+		LoggingDiskQuota.degradeLevel = degradeLevel;
+	}
+
+	/**
+	 * Get the number of bytes all tracked log files take together.
+	 * 
+	 * @return the used bytes
+	 */
+	public static long getUsedBytes() {
+		return LoggingDiskQuota.USED_BYTES.get();
+	}
+
+	/**
+	 * Check whether less severe records are currently dropped, because the log files being 
+	 * written exceed the quota on their own.
+	 * 
+	 * @return true if logging is degraded
+	 */
+	public static boolean isDegraded() {
+		return LoggingDiskQuota.degraded;
+	}
+
+	/**
+	 * Get the number of log files deleted to stay within the quota.
+	 * 
+	 * @return the number of evicted files
+	 */
+	public static long getEvictedFiles() {
+		return LoggingDiskQuota.EVICTED_FILES.get();
+	}
+
+	/**
+	 * Get the number of records dropped while logging was degraded.
+	 * 
+	 * @return the number of dropped records
+	 */
+	public static long getDegradedRecords() {
+		return LoggingDiskQuota.DEGRADED_RECORDS.get();
+	}
+
+	/**
+	 * Track the size of the log file written by the specified handler.
+	 * 
+	 * @param fileHandler - the handler writing the log file
+	 * @param logFile - the log file
+	 * @return a handler tracking the size of the log file while writing to it
+	 */
+	static Handler track(Handler fileHandler, File logFile) {
+		TrackedFile tracked = new TrackedFile(logFile.getAbsoluteFile());
+		synchronized (LoggingDiskQuota.class) {
+			TrackedFile old = LoggingDiskQuota.FILES.put(tracked.file, tracked);
+			if (old != null) {
+				LoggingDiskQuota.untrack(old);
+			}
+		}
+		return new TrackingHandler(fileHandler, tracked);
+	}
+
+	/**
+	 * Track an existing log file no longer written to, unless it is tracked already.
+	 * 
+	 * @param logFile - the log file
+	 */
+	static void found(File logFile) {
+		File file = logFile.getAbsoluteFile();
+		synchronized (LoggingDiskQuota.class) {
+			if (!LoggingDiskQuota.FILES.containsKey(file)) {
+				TrackedFile tracked = new TrackedFile(file);
+				LoggingDiskQuota.FILES.put(file, tracked);
+				LoggingDiskQuota.close(tracked);
+			}
+		}
+	}
+
+	/**
+	 * Stop tracking a deleted log file.
+	 * 
+	 * @param logFile - the deleted log file
+	 */
+	static void deleted(File logFile) {
+		synchronized (LoggingDiskQuota.class) {
+			TrackedFile tracked = LoggingDiskQuota.FILES.remove(logFile.getAbsoluteFile());
+			if (tracked != null) {
+				LoggingDiskQuota.untrack(tracked);
+			}
+		}
+	}
+
+	/**
+	 * Check whether the specified log file is currently being written in this JVM.
+	 * 
+	 * @param logFile - the log file
+	 * @return true if a handler still writes the log file
+	 */
+	static synchronized boolean isWritten(File logFile) {
+		TrackedFile tracked = LoggingDiskQuota.FILES.get(logFile.getAbsoluteFile());
+		return tracked != null && !LoggingDiskQuota.CLOSED_FILES.contains(tracked);
+	}
+
+	private static void close(TrackedFile tracked) {
+		LoggingDiskQuota.update(tracked);
+		tracked.lastModified = tracked.file.lastModified();
+		LoggingDiskQuota.CLOSED_FILES.add(tracked);
+	}
+
+	private static void untrack(TrackedFile tracked) {
+		LoggingDiskQuota.CLOSED_FILES.remove(tracked);
+		LoggingDiskQuota.USED_BYTES.addAndGet(-tracked.size);
+		tracked.size = 0L;
+	}
+
+	/**
+	 * Take over the current size of the file and its index, which is 0 if they have been deleted.
+	 */
+	private static void update(TrackedFile tracked) {
+		long size = tracked.file.length() + LoggingIndex.indexFile(tracked.file).length();
+		LoggingDiskQuota.USED_BYTES.addAndGet(size - tracked.size);
+		tracked.size = size;
+	}
+
+	/**
+	 * Delete the oldest log files no longer written to while the quota is approached and 
+	 * degrade logging if that is not sufficient.
+	 */
+	private static synchronized void enforce() {
+		long limit = LoggingDiskQuota.quota;
+		long threshold = limit == LoggingDiskQuota.UNLIMITED ? limit 
+				: (long) (limit * LoggingDiskQuota.EVICTION_THRESHOLD);
+		while (LoggingDiskQuota.USED_BYTES.get() > threshold && !LoggingDiskQuota.CLOSED_FILES.isEmpty()) {
+			TrackedFile oldest = LoggingDiskQuota.CLOSED_FILES.poll();
+			LoggingDiskQuota.FILES.remove(oldest.file);
+			if (oldest.file.delete()) {
+				LoggingIndex.indexFile(oldest.file).delete();
+				LoggingDiskQuota.EVICTED_FILES.incrementAndGet();
+			} else if (oldest.file.exists()) {
+				LoggingDiskQuota.LOG.warning("The old log file " + oldest.file + " could not be deleted.");
+			}
+			LoggingDiskQuota.untrack(oldest);
+		}
+		boolean exceeded = LoggingDiskQuota.USED_BYTES.get() > limit;
+		if (exceeded != LoggingDiskQuota.degraded) {
+			LoggingDiskQuota.degraded = exceeded;
+			LoggingDiskQuota.LOG.warning(exceeded ? "The log files exceed the disk quota of " + limit 
+					+ " bytes, dropping records below " + LoggingDiskQuota.degradeLevel + "." 
+					: "The log files are within the disk quota again.");
+		}
+	}
+
+	/**
+	 * A log file and its size when last checked.
+	 */
+	private static final class TrackedFile {
+
+		private final File file;
+		private long size = 0L;
+		private long lastModified = 0L;
+
+		private TrackedFile(File file) {
+			this.file = file;
+		}
+
+	}
+
+	/**
+	 * A handler checking the size of its log file every few records.
+	 */
+	private static final class TrackingHandler extends Handler {
+
+		private final Handler fileHandler;
+		private final TrackedFile tracked;
+		private final AtomicInteger unchecked = new AtomicInteger();
+
+		private TrackingHandler(Handler fileHandler, TrackedFile tracked) {
+			this.fileHandler = fileHandler;
+			this.tracked = tracked;
+		}
+
+		@Override
+		public void publish(LogRecord record) {
+			if (LoggingDiskQuota.degraded 
+					&& record.getLevel().intValue() < LoggingDiskQuota.degradeLevel.intValue()) {
+				LoggingDiskQuota.DEGRADED_RECORDS.incrementAndGet();
+			} else {
+				this.fileHandler.publish(record);
+			}
+			// dropped records count as well, so degraded logging notices when the usage falls
+			if (this.unchecked.incrementAndGet() % LoggingDiskQuota.RECORDS_PER_CHECK == 0) {
+				this.check();
+			}
+		}
+
+		private void check() {
+			synchronized (LoggingDiskQuota.class) {
+				if (LoggingDiskQuota.FILES.get(this.tracked.file) == this.tracked) {
+					LoggingDiskQuota.update(this.tracked);
+				}
+			}
+			LoggingDiskQuota.enforce();
+		}
+
+		@Override
+		public void flush() {
+			this.fileHandler.flush();
+		}
+
+		@Override
+		public void close() throws SecurityException {
+			this.fileHandler.close();
+			synchronized (LoggingDiskQuota.class) {
+				if (LoggingDiskQuota.FILES.get(this.tracked.file) == this.tracked) {
+					LoggingDiskQuota.close(this.tracked);
+				}
+			}
+			LoggingDiskQuota.enforce();
+		}
+
+	}
+
+}
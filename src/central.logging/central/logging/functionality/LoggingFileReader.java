@@ -0,0 +1,317 @@
+package central.logging.functionality;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * The LoggingFileReader class reads the records of a log file written in the
+ * {@link LoggingFormat#XML} format one after another. The file is streamed through
+ * a large buffer and never loaded into memory as a whole. Files still being written
+ * to, which end before their closing tag, are read up to their last complete record. The 
+ * records carry the {@link LoggingContext} they have been logged in, see 
+ * {@link LoggingContext#of(LogRecord)}, which is also available from {@link #getContext()}.
+ *
+ * @author Planters
+ *
+ */
+public class LoggingFileReader implements LoggingRecordReader {
+
+	/**
+	 * The size of the read buffer in bytes.
+	 */
+	public static final int BUFFER_SIZE = 256 * 1024;
+	private static final XMLInputFactory FACTORY = XMLInputFactory.newFactory();
+	static { // log files reference a DTD that does not exist
+		LoggingFileReader.FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		LoggingFileReader.FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+	}
+
+	private final EndInputStream input;
+	private final XMLStreamReader reader;
+	private final String name;
+	private LoggingContext context = LoggingContext.EMPTY;
+	private boolean finished = false;
+	private boolean logClosed = false;
+
+	/**
+	 * Open the specified log file for reading.
+	 *
+	 * @param logFile - the log file to read
+	 * @throws LoggingFailureException if the file cannot be opened
+	 */
+	public LoggingFileReader(File logFile) throws LoggingFailureException {
+		this(LoggingFileReader.open(logFile), logFile.toString());
+	}
+
+	/**
+	 * Read log records from the specified stream, which is closed along with the reader.
+	 *
+	 * @param input - the stream to read from
+	 * @param name - the name of the stream used in error messages
+	 * @throws LoggingFailureException if the stream cannot be read
+	 */
+	public LoggingFileReader(InputStream input, String name) throws LoggingFailureException {
+		this.input = new EndInputStream(input);
+		this.name = name;
+		try {
+			this.reader = LoggingFileReader.FACTORY.createXMLStreamReader(this.input);
+		} catch (XMLStreamException e) {
+			try {
+				input.close();
+			} catch (IOException closeException) {
+				e.addSuppressed(closeException);
+			}
+			throw new LoggingFailureException("The log file " + name + " could not be read.", e);
+		}
+	}
+
+	private static InputStream open(File logFile) throws LoggingFailureException {
+		try {
+			return new BufferedInputStream(Files.newInputStream(logFile.toPath()), LoggingFileReader.BUFFER_SIZE);
+		} catch (IOException e) {
+			throw new LoggingFailureException("The log file " + logFile + " could not be opened.", e);
+		}
+	}
+
+	/**
+	 * Read the next record.
+	 *
+	 * @return the next record or null if there are no more complete records
+	 * @throws LoggingFailureException if the file is malformed
+	 */
+	public LogRecord next() throws LoggingFailureException {
+		if (this.finished) {
+			return null;
+		}
+		try {
+			while (this.reader.hasNext()) {
+				int event = this.reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT && "record".equals(this.reader.getLocalName())) {
+					return this.readRecord();
+				} else if (event == XMLStreamConstants.END_ELEMENT && "log".equals(this.reader.getLocalName())) {
+					this.logClosed = true;
+				}
+			}
+		} catch (XMLStreamException e) {
+			if (!this.isTruncated()) {
+				throw new LoggingFailureException("The log file " + this.name + " is malformed.", e);
+			}
+		}
+		this.finished = true;
+		return null;
+	}
+
+	/**
+	 * Check whether a failure has been caused by the end of a file still being written, 
+	 * that is the whole file has been read but the log element has not been closed.
+	 */
+	private boolean isTruncated() {
+		return this.input.ended && !this.logClosed;
+	}
+
+	private LogRecord readRecord() throws XMLStreamException {
+		long millis = 0L;
+		long nanos = 0L;
+		long sequence = 0L;
+		Level level = Level.INFO;
+		String loggerName = null;
+		String sourceClass = null;
+		String sourceMethod = null;
+		long thread = 0L;
+		String message = null;
+		Throwable thrown = null;
+		LoggingContext recordContext = LoggingContext.EMPTY;
+		while (this.reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			String element = this.reader.getLocalName();
+			switch (element) {
+			case "millis":
+				millis = Long.parseLong(this.reader.getElementText().trim());
+				break;
+			case "nanos":
+				nanos = Long.parseLong(this.reader.getElementText().trim());
+				break;
+			case "sequence":
+				sequence = Long.parseLong(this.reader.getElementText().trim());
+				break;
+			case "logger":
+				loggerName = this.reader.getElementText();
+				break;
+			case "level":
+				level = LoggingFileReader.parseLevel(this.reader.getElementText().trim());
+				break;
+			case "class":
+				sourceClass = this.reader.getElementText();
+				break;
+			case "method":
+				sourceMethod = this.reader.getElementText();
+				break;
+			case "thread":
+				thread = Long.parseLong(this.reader.getElementText().trim());
+				break;
+			case "message":
+				message = this.reader.getElementText();
+				break;
+			case "exception":
+				thrown = this.readThrown();
+				break;
+			case "context":
+				String key = String.valueOf(this.reader.getAttributeValue(null, "name"));
+				recordContext = recordContext.with(key, this.reader.getElementText());
+				break;
+			default:
+				this.skipElement();
+			}
+		}
+		LogRecord record = new ContextRecord(level, message, recordContext);
+		record.setInstant(Instant.ofEpochMilli(millis).plusNanos(nanos));
+		record.setSequenceNumber(sequence);
+		record.setLoggerName(loggerName);
+		record.setSourceClassName(sourceClass);
+		record.setSourceMethodName(sourceMethod);
+		record.setLongThreadID(thread);
+		record.setThrown(thrown);
+		this.context = recordContext;
+		return record;
+	}
+
+	/**
+	 * Get the context the record read last has been logged in.
+	 *
+	 * @return the context of the last record
+	 */
+	public LoggingContext getContext() {
+		return this.context;
+	}
+
+	private Throwable readThrown() throws XMLStreamException {
+		String representation = null;
+		List<StackTraceElement> stackTrace = new ArrayList<StackTraceElement>();
+		while (this.reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			if ("message".equals(this.reader.getLocalName())) {
+				representation = this.reader.getElementText();
+			} else if ("frame".equals(this.reader.getLocalName())) {
+				String className = null;
+				String methodName = null;
+				int line = -1;
+				while (this.reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+					switch (this.reader.getLocalName()) {
+					case "class":
+						className = this.reader.getElementText();
+						break;
+					case "method":
+						methodName = this.reader.getElementText();
+						break;
+					case "line":
+						line = Integer.parseInt(this.reader.getElementText().trim());
+						break;
+					default:
+						this.skipElement();
+					}
+				}
+				stackTrace.add(new StackTraceElement(String.valueOf(className), String.valueOf(methodName),
+						null, line));
+			} else {
+				this.skipElement();
+			}
+		}
+		return LoggingRecordCodec.decodeThrown(String.valueOf(representation),
+				stackTrace.toArray(new StackTraceElement[stackTrace.size()]));
+	}
+
+	private void skipElement() throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0) {
+			int event = this.reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	/**
+	 * Get the level with the specified name, falling back to {@link Level#INFO} for
+	 * custom levels unknown to this JVM.
+	 */
+	private static Level parseLevel(String name) {
+		try {
+			return Level.parse(name);
+		} catch (IllegalArgumentException e) {
+			return Level.INFO;
+		}
+	}
+
+	/**
+	 * Read all complete records of the specified log file.
+	 *
+	 * @param logFile - the log file to read
+	 * @return all records in the order they have been written
+	 * @throws LoggingFailureException if the file cannot be read or is malformed
+	 */
+	public static List<LogRecord> readAll(File logFile) throws LoggingFailureException {
+		List<LogRecord> records = new ArrayList<LogRecord>();
+		try (LoggingFileReader reader = new LoggingFileReader(logFile)) {
+			LogRecord record;
+			while ((record = reader.next()) != null) {
+				records.add(record);
+			}
+		} catch (IOException e) {
+			throw new LoggingFailureException("The log file " + logFile + " could not be closed.", e);
+		}
+		return records;
+	}
+
+	/**
+	 * An input stream remembering whether its end has been reached.
+	 */
+	private static final class EndInputStream extends FilterInputStream {
+
+		private boolean ended = false;
+
+		private EndInputStream(InputStream input) {
+			super(input);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int read = super.read();
+			this.ended |= read < 0;
+			return read;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int read = super.read(buffer, offset, length);
+			this.ended |= read < 0;
+			return read;
+		}
+
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			this.reader.close();
+		} catch (XMLStreamException e) {
+			throw new IOException("The log file " + this.name + " could not be closed.", e);
+		} finally {
+			this.input.close();
+		}
+	}
+
+}
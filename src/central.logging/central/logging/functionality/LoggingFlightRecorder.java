@@ -0,0 +1,366 @@
+package central.logging.functionality;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * The LoggingFlightRecorder class keeps the most recent records of all levels in a
+ * fixed-size in-memory ring and dumps them to a separate file whenever a record of
+ * the trigger level is published or an uncaught exception terminates a thread.
+ * This gives debug context for errors without writing debug records all the time.
+ * <p>
+ * Recording a record only claims a slot of the ring with a single atomic increment,
+ * the oldest record is overwritten once the ring is full. Dumps triggered by records 
+ * are written on a background thread, at most one per dump interval, so a burst of 
+ * records of the trigger level results in a single dump. Only the most recent dump 
+ * files are kept.
+ * <p>
+ * Every record is recorded along with the {@link LoggingContext} it has been logged in, 
+ * which is written to the dumps in the {@link LoggingFormat#XML} format by default.
+ *
+ * @author Planters
+ *
+ */
+public class LoggingFlightRecorder extends Handler {
+
+	/**
+	 * The file extension used for flight record dumps.
+	 */
+	public static final String FLIGHT_RECORD_FILE_EXTENSION = ".flight";
+	/**
+	 * The default minimum time in milliseconds between two dumps triggered by records.
+	 */
+	public static final long DEFAULT_DUMP_INTERVAL = 1000L;
+	/**
+	 * The default maximum number of dump files kept.
+	 */
+	public static final int DEFAULT_MAXIMUM_DUMP_FILES = 10;
+	/**
+	 * The thread writing the dumps triggered by records of all recorders.
+	 */
+	private static final ScheduledExecutorService DUMPER = Executors.newSingleThreadScheduledExecutor(task -> {
+		Thread dumper = new Thread(task, "LoggingFlightRecorder");
+		dumper.setDaemon(true);
+		return dumper;
+	});
+	/**
+	 * All recorders dumping on uncaught exceptions.
+	 */
+	private static final CopyOnWriteArraySet<LoggingFlightRecorder> RECORDERS = new CopyOnWriteArraySet<LoggingFlightRecorder>();
+	private static boolean uncaughtExceptionHandlerInstalled = false;
+
+	private final AtomicReferenceArray<Entry> ring;
+	private final int mask;
+	private final AtomicLong position = new AtomicLong();
+	private final File dumpFolder;
+	private final String dumpFileName;
+	private volatile Level triggerLevel = Level.SEVERE;
+	private volatile boolean explicitCallerInfo = false;
+	private volatile long dumpInterval = LoggingFlightRecorder.DEFAULT_DUMP_INTERVAL;
+	private volatile int maximumDumpFiles = LoggingFlightRecorder.DEFAULT_MAXIMUM_DUMP_FILES;
+	/**
+	 * Whether a dump has been triggered, but not written yet.
+	 */
+	private final AtomicBoolean dumpPending = new AtomicBoolean();
+	private volatile long lastDump = 0L;
+
+	/**
+	 * Create a flight recorder keeping at least the specified number of records.
+	 *
+	 * @param capacity - the minimum number of records to keep, rounded up to a power of two
+	 * @param dumpFolder - the folder to write dumps to
+	 * @param dumpFileName - the basic filename of all dumps
+	 * @throws IllegalArgumentException if the capacity is less than 1 or exceeds 2^30, or
+	 * the folder or filename is null or empty
+	 */
+	public LoggingFlightRecorder(int capacity, File dumpFolder, String dumpFileName) {
+		if (capacity < 1 || capacity > (1 << 30)) {
+			throw new IllegalArgumentException("The capacity " + capacity + " is not within [1, 2^30].");
+		}
+		if (dumpFolder == null) {
+			throw new IllegalArgumentException("The dump folder cannot be null.");
+		}
+		if (dumpFileName == null || dumpFileName.length() == 0) {
+			throw new IllegalArgumentException("The dump file name cannot be null or empty.");
+		}
+		int size = Integer.highestOneBit(capacity);
+		size = size < capacity ? size << 1 : size;
+		this.ring = new AtomicReferenceArray<Entry>(size);
+		this.mask = size - 1;
+		this.dumpFolder = dumpFolder;
+		this.dumpFileName = dumpFileName;
+		this.setFormatter(LoggingFormat.XML.createFormatter());
+	}
+
+	@Override
+	public void publish(LogRecord record) {
+		if (record != null) {
+			this.ring.lazySet((int) (this.position.getAndIncrement() & this.mask), 
+					new Entry(record, LoggingContext.of(record)));
+			if (record.getLevel().intValue() >= this.triggerLevel.intValue()
+					&& this.dumpPending.compareAndSet(false, true)) {
+				long delay = Math.max(0L, this.lastDump + this.dumpInterval - System.currentTimeMillis());
+				LoggingFlightRecorder.DUMPER.schedule(this::dumpWhenDue, delay, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	/**
+	 * Get the recorded records from the oldest to the most recent one. Records logged in 
+	 * a context are copied to carry it, along with their source only if it has been set 
+	 * explicitly.
+	 *
+	 * @return the recorded records
+	 * @see LoggingContext#of(LogRecord)
+	 */
+	public List<LogRecord> getRecords() {
+		long end = this.position.get();
+		long start = Math.max(0, end - this.ring.length());
+		List<LogRecord> records = new ArrayList<LogRecord>((int) (end - start));
+		for (long i = start; i < end; i++) {
+			Entry entry = this.ring.get((int) (i & this.mask));
+			if (entry == null) {
+				continue;
+			}
+			if (entry.context.isEmpty() || entry.record instanceof ContextRecord) {
+				records.add(entry.record);
+			} else {
+				records.add(ContextRecord.copy(entry.record, entry.context, this.explicitCallerInfo));
+			}
+		}
+		return records;
+	}
+
+	/**
+	 * Write all recorded records to a new dump file and delete the oldest dump files 
+	 * exceeding the maximum number.
+	 *
+	 * @return the dump file or null if it could not be written
+	 */
+	public synchronized File dump() {
+		this.lastDump = System.currentTimeMillis();
+		String dumpTime = LocalDateTime.now().format(LoggingHandler.FILE_TIME_FORMAT);
+		File dumpFile = this.dumpFolder.toPath().resolve(this.dumpFileName + "_" + dumpTime
+				+ LoggingFlightRecorder.FLIGHT_RECORD_FILE_EXTENSION).toFile();
+		Formatter formatter = this.getFormatter();
+		this.dumpFolder.mkdirs();
+		try (Writer writer = Files.newBufferedWriter(dumpFile.toPath(), StandardCharsets.UTF_8)) {
+			writer.write(formatter.getHead(this));
+			for (LogRecord record : this.getRecords()) {
+				// copies and read records never infer their caller on the dumping thread
+				writer.write(formatter.format(this.explicitCallerInfo || record instanceof ContextRecord ? record 
+						: ContextRecord.copy(record, LoggingContext.EMPTY, false)));
+			}
+			writer.write(formatter.getTail(this));
+		} catch (IOException | RuntimeException e) {
+			this.reportError("The flight record " + dumpFile + " could not be written.", e,
+					ErrorManager.WRITE_FAILURE);
+			return null;
+		}
+		File[] dumpFiles = this.getDumpFiles();
+		for (int i = 0; dumpFiles != null && i < dumpFiles.length - this.maximumDumpFiles; i++) {
+			if (!dumpFiles[i].delete()) {
+				this.reportError("The old flight record " + dumpFiles[i] + " could not be deleted.", null,
+						ErrorManager.GENERIC_FAILURE);
+			}
+		}
+		return dumpFile;
+	}
+
+	/**
+	 * Set whether the source of all recorded records is set explicitly when logging,
+	 * so it can be written without inferring the caller.
+	 *
+	 * @param explicitCallerInfo - true if the caller information is explicit
+	 */
+	void setExplicitCallerInfo(boolean explicitCallerInfo) {
+		this.explicitCallerInfo = explicitCallerInfo;
+	}
+
+	/**
+	 * Get the level of records triggering a dump.
+	 *
+	 * @return the trigger level
+	 */
+	public Level getTriggerLevel() {
+		return this.triggerLevel;
+	}
+
+	/**
+	 * Set the level of records triggering a dump.
+	 *
+	 * @param triggerLevel - the trigger level
+	 * @throws IllegalArgumentException if the trigger level is null
+	 */
+	public void setTriggerLevel(Level triggerLevel) {
+		if (triggerLevel != null) {
+			this.triggerLevel = triggerLevel;
+		} else {
+			throw new IllegalArgumentException("The trigger level cannot be null.");
+		}
+	}
+
+	/**
+	 * Get the minimum time between two dumps triggered by records.
+	 *
+	 * @return the dump interval in milliseconds
+	 */
+	public long getDumpInterval() {
+		return this.dumpInterval;
+	}
+
+	/**
+	 * Set the minimum time between two dumps triggered by records. All records of the 
+	 * trigger level published within the interval are written by a single dump.
+	 *
+	 * @param dumpInterval - the dump interval in milliseconds
+	 * @throws IllegalArgumentException if the interval is negative
+	 */
+	public void setDumpInterval(long dumpInterval) {
+		if (dumpInterval < 0L) {
+			throw new IllegalArgumentException("The dump interval cannot be negative.");
+		}
+		this.dumpInterval = dumpInterval;
+	}
+
+	/**
+	 * Get the maximum number of dump files kept.
+	 *
+	 * @return the maximum number of dump files
+	 */
+	public int getMaximumDumpFiles() {
+		return this.maximumDumpFiles;
+	}
+
+	/**
+	 * Set the maximum number of dump files kept. The oldest dump files are deleted 
+	 * whenever a new dump is written.
+	 *
+	 * @param maximumDumpFiles - the maximum number of dump files
+	 * @throws IllegalArgumentException if the number is less than 1
+	 */
+	public void setMaximumDumpFiles(int maximumDumpFiles) {
+		if (maximumDumpFiles < 1) {
+			throw new IllegalArgumentException("At least one dump file must be kept.");
+		}
+		this.maximumDumpFiles = maximumDumpFiles;
+	}
+
+	/**
+	 * Get all flight record dumps in the dump folder sorted in alphabetical order.
+	 *
+	 * @return an array of all dump files
+	 */
+	public File[] getDumpFiles() {
+		File[] dumpFiles = this.dumpFolder.listFiles(file -> {
+			String name = file.getName();
+			return name.startsWith(this.dumpFileName)
+					&& name.endsWith(LoggingFlightRecorder.FLIGHT_RECORD_FILE_EXTENSION);
+		});
+		if (dumpFiles != null) {
+			Arrays.sort(dumpFiles);
+		}
+		return dumpFiles;
+	}
+
+	/**
+	 * Dump the records of this recorder whenever an uncaught exception terminates a thread.
+	 * The previous default uncaught exception handler is still invoked.
+	 */
+	public void dumpOnUncaughtException() {
+		synchronized (LoggingFlightRecorder.RECORDERS) {
+			if (!LoggingFlightRecorder.uncaughtExceptionHandlerInstalled) {
+				Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+				Thread.setDefaultUncaughtExceptionHandler((thread, thrown) -> {
+					LoggingFlightRecorder.recordUncaughtException(thread, thrown);
+					if (previous != null) {
+						previous.uncaughtException(thread, thrown);
+					} else {
+						System.err.print("Exception in thread \"" + thread.getName() + "\" ");
+						thrown.printStackTrace();
+					}
+				});
+				LoggingFlightRecorder.uncaughtExceptionHandlerInstalled = true;
+			}
+			LoggingFlightRecorder.RECORDERS.add(this);
+		}
+	}
+
+	private static void recordUncaughtException(Thread thread, Throwable thrown) {
+		for (LoggingFlightRecorder recorder : LoggingFlightRecorder.RECORDERS) {
+			LogRecord record = new LogRecord(recorder.getTriggerLevel(),
+					"Uncaught exception in thread " + thread.getName());
+			record.setThrown(thrown);
+			record.setSourceClassName(null);
+			record.setSourceMethodName(null);
+			recorder.publish(record);
+			recorder.flush(); // the thread might be the last one, so dump right away
+		}
+	}
+
+	/**
+	 * Write the triggered dump once the dump interval has passed since the last dump. 
+	 * A dump triggered again after being written by another thread is delayed again.
+	 */
+	private synchronized void dumpWhenDue() {
+		if (this.dumpPending.get()) {
+			long delay = this.lastDump + this.dumpInterval - System.currentTimeMillis();
+			if (delay > 0L) {
+				LoggingFlightRecorder.DUMPER.schedule(this::dumpWhenDue, delay, TimeUnit.MILLISECONDS);
+			} else {
+				this.flush();
+			}
+		}
+	}
+
+	/**
+	 * Write the triggered dump right away, if it has not been written yet, or wait 
+	 * for it to be written.
+	 */
+	@Override
+	public synchronized void flush() {
+		if (this.dumpPending.compareAndSet(true, false)) {
+			this.dump();
+		}
+	}
+
+	@Override
+	public void close() throws SecurityException {
+		LoggingFlightRecorder.RECORDERS.remove(this);
+	}
+
+	/**
+	 * A recorded record along with the context it has been logged in.
+	 */
+	private static final class Entry {
+
+		private final LogRecord record;
+		private final LoggingContext context;
+
+		private Entry(LogRecord record, LoggingContext context) {
+			this.record = record;
+			this.context = context;
+		}
+
+	}
+
+}
@@ -0,0 +1,467 @@
+package central.logging.functionality;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * The LoggingFollower class follows the active XML log file of a logging folder, for example 
+ * one written by another process, and passes every newly written record to a consumer. The 
+ * folder is watched for new log files, so following seamlessly continues in the next file 
+ * once writing moves on, while the remaining records of the previous file are still read 
+ * until it is closed. Appended records are delivered within the poll interval even if the 
+ * file system does not report modifications. The stripes of log files written to several 
+ * logging folders are followed in every folder.
+ *
+ * @author Planters
+ *
+ */
+public class LoggingFollower {
+
+	/**
+	 * The default maximum time in milliseconds between writing and delivering a record.
+	 */
+	public static final long DEFAULT_POLL_INTERVAL = 100L;
+	/**
+	 * The number of polls a previous log file is read after following moved on, in case 
+	 * its writer did not close it properly.
+	 */
+	private static final int PREVIOUS_FILE_POLLS = 50;
+	private static final byte[] LOG_START = "<log>".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] LOG_END = "</log>".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] RECORD_START = "<record>".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] RECORD_END = "</record>".getBytes(StandardCharsets.UTF_8);
+	private static final Logger LOG = Logger.getLogger(LoggingFollower.class.getName());
+
+	private final File[] loggingFolders;
+	private final String logFileName;
+	private final Consumer<LogRecord> consumer;
+	private final AtomicLong followedRecords = new AtomicLong();
+	private volatile long pollInterval = LoggingFollower.DEFAULT_POLL_INTERVAL;
+	private WatchService watchService = null;
+	private Thread followThread = null;
+
+	/**
+	 * Create a follower of the log files with the specified base name.
+	 *
+	 * @param loggingFolder - the folder containing the log files
+	 * @param logFileName - the base name of the log files
+	 * @param consumer - the consumer of the followed records, called on the follower thread
+	 * @throws IllegalArgumentException if any argument is null
+	 */
+	public LoggingFollower(File loggingFolder, String logFileName, Consumer<LogRecord> consumer) {
+		this(new File[] {loggingFolder}, logFileName, consumer);
+	}
+
+	/**
+	 * Create a follower of the log files with the specified base name striped over 
+	 * several logging folders.
+	 *
+	 * @param loggingFolders - the folders containing the stripes of the log files
+	 * @param logFileName - the base name of the log files
+	 * @param consumer - the consumer of the followed records, called on the follower thread
+	 * @throws IllegalArgumentException if any argument is null or no folder is specified
+	 */
+	public LoggingFollower(File[] loggingFolders, String logFileName, Consumer<LogRecord> consumer) {
+		if (loggingFolders == null || loggingFolders.length == 0 || Arrays.asList(loggingFolders).contains(null)
+				|| logFileName == null || consumer == null) {
+			throw new IllegalArgumentException("The logging folders, log file name and consumer cannot be null.");
+		}
+		this.loggingFolders = loggingFolders.clone();
+		this.logFileName = logFileName;
+		this.consumer = consumer;
+	}
+
+	/**
+	 * Follow the records of a logging facility in all its logging folders, for example 
+	 * from another process.
+	 *
+	 * @param logging - the logging facility whose log files to follow
+	 * @param consumer - the consumer of the followed records, called on the follower thread
+	 * @throws IllegalArgumentException if any argument is null
+	 */
+	public LoggingFollower(Logging logging, Consumer<LogRecord> consumer) {
+		this(logging.getLoggingFolders(), logging.getLogFileName(), consumer);
+	}
+
+	/**
+	 * Start following the newest log file of every logging folder from its current end, so 
+	 * only records written from now on are passed on. If no log file exists yet, the first 
+	 * one created is followed from its start.
+	 *
+	 * @throws LoggingFailureException if any logging folder cannot be watched
+	 */
+	public synchronized void startFollowing() throws LoggingFailureException {
+		if (this.watchService == null) {
+			for (File loggingFolder : this.loggingFolders) {
+				if (!loggingFolder.isDirectory()) {
+					throw new LoggingFailureException("The logging folder " + loggingFolder + " does not exist.");
+				}
+			}
+			File watchedFolder = null;
+			try {
+				this.watchService = this.loggingFolders[0].toPath().getFileSystem().newWatchService();
+				for (File loggingFolder : this.loggingFolders) {
+					watchedFolder = loggingFolder;
+					loggingFolder.toPath().register(this.watchService,
+							StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+				}
+			} catch (IOException e) {
+				this.closeWatchService();
+				throw new LoggingFailureException("The logging folder " + watchedFolder 
+						+ " cannot be watched.", e);
+			}
+			Set<File> knownFiles = new HashSet<File>();
+			List<FollowedFolder> folders = new ArrayList<FollowedFolder>(this.loggingFolders.length);
+			for (File loggingFolder : this.loggingFolders) {
+				List<File> logFiles = this.listLogFiles(loggingFolder);
+				knownFiles.addAll(logFiles);
+				FollowedFolder folder = new FollowedFolder(loggingFolder);
+				if (!logFiles.isEmpty()) { // the names of log files are ordered by their creation
+					File newest = logFiles.get(logFiles.size() - 1);
+					folder.current = new FollowedFile(newest, newest.length());
+				}
+				folders.add(folder);
+			}
+			WatchService service = this.watchService;
+			this.followThread = new Thread(() -> this.follow(service, knownFiles, folders),
+					"LoggingFollower-" + this.logFileName);
+			this.followThread.setDaemon(true);
+			this.followThread.start();
+		} else {
+			LoggingFollower.LOG.warning("The log files " + this.logFileName + " are already followed.");
+		}
+	}
+
+	/**
+	 * Stop following the log files.
+	 */
+	public synchronized void stopFollowing() {
+		if (this.watchService != null) {
+			this.closeWatchService();
+			this.followThread.interrupt();
+			try {
+				this.followThread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			this.followThread = null;
+		} else {
+			LoggingFollower.LOG.warning("The log files " + this.logFileName + " are not followed.");
+		}
+	}
+
+	/**
+	 * Check whether the log files are currently followed.
+	 *
+	 * @return true if following has been started
+	 */
+	public synchronized boolean isFollowing() {
+		return this.watchService != null;
+	}
+
+	/**
+	 * Get the number of records passed to the consumer so far.
+	 *
+	 * @return the number of followed records
+	 */
+	public long getFollowedRecords() {
+		return this.followedRecords.get();
+	}
+
+	/**
+	 * Get the maximum time between writing and delivering a record.
+	 *
+	 * @return the poll interval in milliseconds
+	 */
+	public long getPollInterval() {
+		return this.pollInterval;
+	}
+
+	/**
+	 * Set the maximum time between writing and delivering a record, which applies even 
+	 * if the file system does not report modifications.
+	 *
+	 * @param pollInterval - the poll interval in milliseconds
+	 * @throws IllegalArgumentException if the poll interval is less than 1
+	 */
+	public void setPollInterval(long pollInterval) {
+		if (pollInterval < 1L) {
+			throw new IllegalArgumentException("The poll interval must be at least 1 millisecond.");
+		}
+		this.pollInterval = pollInterval;
+	}
+
+	/**
+	 * List the log files of the specified folder sorted by name, which is the order of 
+	 * their creation.
+	 */
+	private List<File> listLogFiles(File loggingFolder) {
+		File[] logFiles = loggingFolder.listFiles(file -> file.getName().startsWith(this.logFileName) 
+				&& file.getName().endsWith(LoggingHandler.LOG_FILE_EXTENSION));
+		if (logFiles == null) {
+			return Collections.<File>emptyList();
+		}
+		Arrays.sort(logFiles);
+		return Arrays.asList(logFiles);
+	}
+
+	private void follow(WatchService service, Set<File> knownFiles, List<FollowedFolder> folders) {
+		try {
+			while (true) {
+				WatchKey key = service.poll(this.pollInterval, TimeUnit.MILLISECONDS);
+				while (key != null) {
+					key.pollEvents(); // the folders are listed instead, which also covers lost events
+					key.reset();
+					key = service.poll();
+				}
+				Set<File> listedFiles = new HashSet<File>();
+				for (FollowedFolder folder : folders) {
+					for (File logFile : this.listLogFiles(folder.folder)) {
+						listedFiles.add(logFile);
+						if (knownFiles.add(logFile)) { // writing moved on to a new log file
+							folder.moveTo(logFile);
+						}
+					}
+				}
+				knownFiles.retainAll(listedFiles); // forget deleted log files
+				for (FollowedFolder folder : folders) {
+					folder.read();
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// Do nothing as following has been stopped.
+		} finally {
+			for (FollowedFolder folder : folders) {
+				folder.close();
+			}
+		}
+	}
+
+	private void closeWatchService() {
+		try {
+			this.watchService.close();
+		} catch (IOException e) {
+			LoggingFollower.LOG.log(Level.WARNING, "The watch service could not be closed.", e);
+		}
+		this.watchService = null;
+	}
+
+	/**
+	 * Find the first occurrence of the pattern at or after the start index.
+	 */
+	private static int indexOf(byte[] bytes, int length, byte[] pattern, int start) {
+		outer: for (int i = start; i <= length - pattern.length; i++) {
+			for (int j = 0; j < pattern.length; j++) {
+				if (bytes[i + j] != pattern[j]) {
+					continue outer;
+				}
+			}
+			return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Find the last occurrence of the pattern at or after the start index.
+	 */
+	private static int lastIndexOf(byte[] bytes, int length, byte[] pattern, int start) {
+		outer: for (int i = length - pattern.length; i >= start; i--) {
+			for (int j = 0; j < pattern.length; j++) {
+				if (bytes[i + j] != pattern[j]) {
+					continue outer;
+				}
+			}
+			return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * The log file currently written to a logging folder and the previous one, whose 
+	 * remaining records are read until it is closed.
+	 */
+	private final class FollowedFolder {
+
+		private final File folder;
+		private FollowedFile current = null;
+		private FollowedFile previous = null;
+
+		private FollowedFolder(File folder) {
+			this.folder = folder;
+		}
+
+		private void moveTo(File logFile) {
+			if (this.current != null) {
+				this.current.read();
+				if (this.previous != null) {
+					this.previous.close();
+				}
+				this.previous = this.current;
+			}
+			this.current = new FollowedFile(logFile, 0L);
+		}
+
+		private void read() {
+			if (this.previous != null) {
+				this.previous.read();
+				if (this.previous.isFinished()) {
+					this.previous.close();
+					this.previous = null;
+				}
+			}
+			if (this.current != null) {
+				this.current.read();
+			}
+		}
+
+		private void close() {
+			if (this.previous != null) {
+				this.previous.close();
+			}
+			if (this.current != null) {
+				this.current.close();
+			}
+		}
+
+	}
+
+	/**
+	 * A log file read from the position following its last complete record.
+	 */
+	private final class FollowedFile {
+
+		private final File file;
+		private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+		/**
+		 * The bytes read after the last complete record.
+		 */
+		private byte[] pending = new byte[64 * 1024];
+		private int pendingLength = 0;
+		/**
+		 * The number of pending bytes already searched for the end of a record.
+		 */
+		private int searched = 0;
+		private FileChannel channel = null;
+		private long position;
+		private boolean finished = false;
+		private int idlePolls = 0;
+
+		private FollowedFile(File file, long position) {
+			this.file = file;
+			this.position = position;
+		}
+
+		/**
+		 * Pass all complete records written since the last read to the consumer.
+		 */
+		private void read() {
+			if (this.finished) {
+				return;
+			}
+			try {
+				if (this.channel == null) {
+					this.channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ);
+				}
+				boolean appended = false;
+				int read;
+				while ((read = this.channel.read(this.buffer, this.position)) > 0) {
+					this.position += read;
+					if (this.pendingLength + read > this.pending.length) {
+						this.pending = Arrays.copyOf(this.pending, Math.max(2 * this.pending.length, 
+								this.pendingLength + read));
+					}
+					System.arraycopy(this.buffer.array(), 0, this.pending, this.pendingLength, read);
+					this.pendingLength += read;
+					this.buffer.clear();
+					appended = true;
+				}
+				this.idlePolls = appended ? 0 : this.idlePolls + 1;
+				if (appended) {
+					this.parse();
+				}
+			} catch (IOException | LoggingFailureException e) {
+				LoggingFollower.LOG.log(Level.WARNING, "The log file " + this.file + " could not be followed.", e);
+				this.finished = true;
+			}
+		}
+
+		/**
+		 * Pass all complete pending records to the consumer, searching only the bytes 
+		 * appended since the last call.
+		 */
+		private void parse() throws IOException, LoggingFailureException {
+			byte[] bytes = this.pending;
+			int length = this.pendingLength;
+			// a pattern may start in the bytes already searched
+			int searchStart = Math.max(0, this.searched - LoggingFollower.RECORD_END.length + 1);
+			this.searched = length;
+			if (LoggingFollower.indexOf(bytes, length, LoggingFollower.LOG_END, searchStart) >= 0) {
+				this.finished = true; // the tail is only written when the file is closed
+			}
+			int end = LoggingFollower.lastIndexOf(bytes, length, LoggingFollower.RECORD_END, searchStart);
+			if (end < 0) {
+				return;
+			}
+			int start = LoggingFollower.indexOf(bytes, end, LoggingFollower.RECORD_START, 0);
+			end += LoggingFollower.RECORD_END.length;
+			if (start >= 0) {
+				this.parse(bytes, start, end);
+			}
+			System.arraycopy(bytes, end, bytes, 0, length - end);
+			this.pendingLength = length - end;
+			this.searched = this.pendingLength;
+		}
+
+		private void parse(byte[] bytes, int start, int end) throws IOException, LoggingFailureException {
+			InputStream records = new SequenceInputStream(new SequenceInputStream(
+					new ByteArrayInputStream(LoggingFollower.LOG_START), new ByteArrayInputStream(bytes, start, end - start)),
+					new ByteArrayInputStream(LoggingFollower.LOG_END));
+			try (LoggingFileReader reader = new LoggingFileReader(records, this.file.toString())) {
+				LogRecord record;
+				while ((record = reader.next()) != null) {
+					LoggingFollower.this.consumer.accept(record);
+					LoggingFollower.this.followedRecords.incrementAndGet();
+				}
+			}
+		}
+
+		private boolean isFinished() {
+			return this.finished || this.idlePolls > LoggingFollower.PREVIOUS_FILE_POLLS;
+		}
+
+		private void close() {
+			if (this.channel != null) {
+				try {
+					this.channel.close();
+				} catch (IOException e) {
+					LoggingFollower.LOG.log(Level.WARNING, "The log file " + this.file + " could not be closed.", e);
+				}
+			}
+		}
+
+	}
+
+}
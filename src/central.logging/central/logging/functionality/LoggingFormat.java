@@ -0,0 +1,194 @@
+package central.logging.functionality;
+
+import java.io.IOException;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+import java.util.logging.XMLFormatter;
+
+/**
+ * The LoggingFormat enumeration defines the formats log files can be written in.
+ *
+ * @author Planters
+ *
+ */
+public enum LoggingFormat {
+
+	/**
+	 * The default XML format as written by {@link XMLFormatter}, extended by a context 
+	 * element for every field of the {@link LoggingContext} of the record.
+	 */
+	XML(LoggingHandler.LOG_FILE_EXTENSION),
+	/**
+	 * The human readable plain text format as written by {@link SimpleFormatter}, the 
+	 * message followed by the {@link LoggingContext} of the record. Plain text log files 
+	 * are meant for reading by humans and are skipped by all classes reading records.
+	 */
+	SIMPLE(LoggingHandler.TEXT_LOG_FILE_EXTENSION),
+	/**
+	 * The compact binary format written by {@link LoggingTemplateHandler}, which stores 
+	 * message templates once and defers formatting until the file is read by 
+	 * {@link LoggingTemplateReader}.
+	 */
+	TEMPLATE(LoggingTemplateHandler.TEMPLATE_FILE_EXTENSION);
+
+	private final String fileExtension;
+
+	private LoggingFormat(String fileExtension) {
+		this.fileExtension = fileExtension;
+	}
+
+	/**
+	 * Get the file extension of log files written in this format.
+	 *
+	 * @return the file extension including the leading dot
+	 */
+	public String getFileExtension() {
+		return this.fileExtension;
+	}
+
+	/**
+	 * Create a new formatter writing records in this format. The formatter writes the 
+	 * {@link LoggingContext} of the record, see {@link LoggingContext#of(LogRecord)}.
+	 *
+	 * @return a new formatter for this format or null if this format is not text based
+	 */
+	public Formatter createFormatter() {
+		switch (this) {
+		case SIMPLE:
+			return new ContextSimpleFormatter();
+		case TEMPLATE:
+			return null; // written without a formatter
+		case XML:
+		default:
+			return new ContextXMLFormatter();
+		}
+	}
+
+	/**
+	 * Open a new handler writing records in this format to the specified file.
+	 *
+	 * @param logFile - the path of the log file to write
+	 * @return a new handler writing to the log file
+	 * @throws IOException if the log file cannot be opened
+	 */
+	public Handler createHandler(String logFile) throws IOException {
+		if (this == LoggingFormat.TEMPLATE) {
+			return new LoggingTemplateHandler(logFile);
+		}
+		Handler fileHandler = new FileHandler(logFile);
+		fileHandler.setFormatter(this.createFormatter());
+		return fileHandler;
+	}
+
+	/**
+	 * Check whether the specified file name has the extension of any format.
+	 *
+	 * @param fileName - the file name to check
+	 * @return true if the file name is the one of a log file
+	 */
+	public static boolean isLogFileName(String fileName) {
+		return LoggingFormat.forFileName(fileName) != null;
+	}
+
+	/**
+	 * Get the format of the log file with the specified name by its extension.
+	 *
+	 * @param fileName - the file name to check
+	 * @return the format of the log file or null if the name is not the one of a log file
+	 */
+	public static LoggingFormat forFileName(String fileName) {
+		for (LoggingFormat format : LoggingFormat.values()) {
+			if (fileName.endsWith(format.getFileExtension())) {
+				return format;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get the format with the specified name ignoring case.
+	 *
+	 * @param name - the name of the format
+	 * @return the corresponding format
+	 * @throws IllegalArgumentException if there is no format with the specified name
+	 */
+	public static LoggingFormat forName(String name) {
+		if (name != null) {
+			for (LoggingFormat format : LoggingFormat.values()) {
+				if (format.name().equalsIgnoreCase(name.trim())) {
+					return format;
+				}
+			}
+		}
+		throw new IllegalArgumentException("There is no log format named \"" + name + "\".");
+	}
+
+	/**
+	 * The ContextXMLFormatter class writes the fields of the context of the record as 
+	 * context elements at the end of every record.
+	 */
+	static final class ContextXMLFormatter extends XMLFormatter {
+
+		@Override
+		public String format(LogRecord record) {
+			String formatted = super.format(record);
+			LoggingContext context = LoggingContext.of(record);
+			int end = formatted.lastIndexOf("</record>");
+			if (context.isEmpty() || end < 0) {
+				return formatted;
+			}
+			StringBuilder builder = new StringBuilder(formatted.length() + 64 * context.size());
+			builder.append(formatted, 0, end);
+			context.forEach((key, value) -> {
+				builder.append("  <context name=\"");
+				ContextXMLFormatter.escape(builder, key);
+				builder.append("\">");
+				ContextXMLFormatter.escape(builder, value);
+				builder.append("</context>\n");
+			});
+			return builder.append(formatted, end, formatted.length()).toString();
+		}
+
+		private static void escape(StringBuilder builder, String text) {
+			for (int i = 0; i < text.length(); i++) {
+				char character = text.charAt(i);
+				switch (character) {
+				case '<':
+					builder.append("&lt;");
+					break;
+				case '>':
+					builder.append("&gt;");
+					break;
+				case '&':
+					builder.append("&amp;");
+					break;
+				case '"':
+					builder.append("&quot;");
+					break;
+				default:
+					builder.append(character);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * The ContextSimpleFormatter class appends the fields of the context of the record to 
+	 * the message of every record.
+	 */
+	static final class ContextSimpleFormatter extends SimpleFormatter {
+
+		@Override
+		public String formatMessage(LogRecord record) {
+			String message = super.formatMessage(record);
+			LoggingContext context = LoggingContext.of(record);
+			return context.isEmpty() ? message : message + " " + context;
+		}
+
+	}
+
+}
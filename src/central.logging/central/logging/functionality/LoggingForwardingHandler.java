@@ -0,0 +1,379 @@
+package central.logging.functionality;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * The LoggingForwardingHandler class forwards records in batches over a local TCP or
+ * Unix domain socket to a {@link LoggingCollector}, which merges the records of many
+ * JVMs into a single log.
+ * <p>
+ * Records are encoded on the publishing thread and handed to a bounded queue, so
+ * publishing never blocks. A background thread sends them in batches over a
+ * non-blocking channel and reconnects whenever the collector becomes unavailable.
+ * Meanwhile batches are spilled to a file up to a maximum size and replayed after
+ * reconnecting. Records are dropped and counted if the queue or the spill file is full.
+ * Batches interrupted by a failing connection are spilled as a whole, so records are
+ * delivered at least once.
+ *
+ * @author Planters
+ *
+ */
+public class LoggingForwardingHandler extends Handler {
+
+	/**
+	 * The default number of records queued for sending.
+	 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 8192;
+	/**
+	 * The default maximum size of the spill file in bytes.
+	 */
+	public static final long DEFAULT_MAXIMUM_SPILL_SIZE = 64L * 1024L * 1024L;
+	private static final int BATCH_SIZE = 512;
+	private static final long TIMEOUT = 5000L;
+	private static final long MINIMUM_RECONNECT_DELAY = 100L;
+	private static final long MAXIMUM_RECONNECT_DELAY = 5000L;
+
+	private final SocketAddress collectorAddress;
+	private final File spillFile;
+	private final long maximumSpillSize;
+	private final ArrayBlockingQueue<byte[]> queue;
+	private final Thread sender;
+	private final LongAdder accepted = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final AtomicLong handled = new AtomicLong();
+	private final AtomicLong forwarded = new AtomicLong();
+	private volatile boolean closed = false;
+	// only accessed by the sending thread
+	private SocketChannel channel = null;
+	private Selector selector = null;
+	private long reconnectDelay = LoggingForwardingHandler.MINIMUM_RECONNECT_DELAY;
+	private long nextConnectionAttempt = 0L;
+	private long spillSize = 0L;
+	private long spilledRecords = 0L;
+
+	/**
+	 * Create a handler forwarding records to the specified collector with default
+	 * queue capacity and spill file size.
+	 *
+	 * @param collectorAddress - the address of the collector, either an
+	 * {@link java.net.InetSocketAddress} or a {@link UnixDomainSocketAddress}
+	 * @param spillFile - the file to spill records to while the collector is unavailable
+	 * @throws IllegalArgumentException if the address or spill file is null
+	 */
+	public LoggingForwardingHandler(SocketAddress collectorAddress, File spillFile) {
+		this(collectorAddress, spillFile, LoggingForwardingHandler.DEFAULT_QUEUE_CAPACITY,
+				LoggingForwardingHandler.DEFAULT_MAXIMUM_SPILL_SIZE);
+	}
+
+	/**
+	 * Create a handler forwarding records to the specified collector.
+	 *
+	 * @param collectorAddress - the address of the collector, either an
+	 * {@link java.net.InetSocketAddress} or a {@link UnixDomainSocketAddress}
+	 * @param spillFile - the file to spill records to while the collector is unavailable
+	 * @param queueCapacity - the maximum number of records queued for sending
+	 * @param maximumSpillSize - the maximum size of the spill file in bytes
+	 * @throws IllegalArgumentException if the address or spill file is null or the
+	 * capacity or size is less than 1
+	 */
+	public LoggingForwardingHandler(SocketAddress collectorAddress, File spillFile, int queueCapacity,
+			long maximumSpillSize) {
+		if (collectorAddress == null) {
+			throw new IllegalArgumentException("The collector address cannot be null.");
+		}
+		if (spillFile == null) {
+			throw new IllegalArgumentException("The spill file cannot be null.");
+		}
+		if (queueCapacity < 1 || maximumSpillSize < 1) {
+			throw new IllegalArgumentException("The queue capacity and spill size cannot be zero or less.");
+		}
+		this.collectorAddress = collectorAddress;
+		this.spillFile = spillFile;
+		this.maximumSpillSize = maximumSpillSize;
+		this.queue = new ArrayBlockingQueue<byte[]>(queueCapacity);
+		this.setFormatter(new SimpleFormatter());
+		// replay records spilled by a previous run
+		this.spillSize = spillFile.length();
+		this.sender = new Thread(this::send, "LoggingForwardingHandler-" + collectorAddress);
+		this.sender.setDaemon(true);
+		this.sender.start();
+	}
+
+	@Override
+	public void publish(LogRecord record) {
+		if (this.closed || !this.isLoggable(record)) {
+			return;
+		}
+		byte[] encoded;
+		try {
+			encoded = LoggingRecordCodec.encode(record, this.getFormatter());
+		} catch (RuntimeException e) {
+			this.reportError("The record could not be encoded.", e, ErrorManager.FORMAT_FAILURE);
+			return;
+		}
+		this.accepted.increment();
+		if (!this.queue.offer(encoded)) {
+			this.dropped.increment();
+			this.handled.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Wait until all records published so far have been forwarded, spilled or dropped.
+	 */
+	@Override
+	public void flush() {
+		long target = this.accepted.sum();
+		long deadline = System.currentTimeMillis() + LoggingForwardingHandler.TIMEOUT;
+		while (this.handled.get() < target && this.sender.isAlive()
+				&& System.currentTimeMillis() < deadline) {
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Stop accepting records and forward or spill all queued ones.
+	 */
+	@Override
+	public void close() throws SecurityException {
+		this.closed = true;
+		try {
+			this.sender.join(2 * LoggingForwardingHandler.TIMEOUT);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		this.sender.interrupt();
+	}
+
+	/**
+	 * Get the number of records sent to the collector.
+	 *
+	 * @return the number of forwarded records
+	 */
+	public long getForwardedRecords() {
+		return this.forwarded.get();
+	}
+
+	/**
+	 * Get the number of records dropped because the queue or the spill file was full.
+	 *
+	 * @return the number of dropped records
+	 */
+	public long getDroppedRecords() {
+		return this.dropped.sum();
+	}
+
+	/**
+	 * Get the number of records currently queued for sending.
+	 *
+	 * @return the number of queued records
+	 */
+	public int getQueuedRecords() {
+		return this.queue.size();
+	}
+
+	/**
+	 * Get the address records are forwarded to.
+	 *
+	 * @return the collector address
+	 */
+	public SocketAddress getCollectorAddress() {
+		return this.collectorAddress;
+	}
+
+	private void send() {
+		List<byte[]> batch = new ArrayList<byte[]>(LoggingForwardingHandler.BATCH_SIZE);
+		try {
+			while (!this.closed || !this.queue.isEmpty()) {
+				byte[] first = this.queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					if (this.spillSize > 0) {
+						this.connect(); // replay spilled records even without new ones
+					}
+					continue;
+				}
+				batch.add(first);
+				this.queue.drainTo(batch, LoggingForwardingHandler.BATCH_SIZE - 1);
+				ByteBuffer buffer = LoggingForwardingHandler.frame(batch);
+				if (this.connect() && this.write(buffer)) {
+					this.forwarded.addAndGet(batch.size());
+				} else {
+					buffer.rewind();
+					this.spill(buffer, batch.size());
+				}
+				this.handled.addAndGet(batch.size());
+				batch.clear();
+			}
+		} catch (InterruptedException e) {
+			// Do nothing as the handler has been closed.
+		} finally {
+			this.disconnect();
+		}
+	}
+
+	/**
+	 * Write the batch as frames prefixed by their length.
+	 */
+	private static ByteBuffer frame(List<byte[]> batch) {
+		int size = 0;
+		for (byte[] encoded : batch) {
+			size += Integer.BYTES + encoded.length;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		for (byte[] encoded : batch) {
+			buffer.putInt(encoded.length);
+			buffer.put(encoded);
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Make sure a connection is established and all spilled records are replayed.
+	 *
+	 * @return true if connected
+	 */
+	private boolean connect() {
+		if (this.channel != null) {
+			return true;
+		}
+		if (System.currentTimeMillis() < this.nextConnectionAttempt) {
+			return false;
+		}
+		try {
+			this.selector = Selector.open();
+			this.channel = this.collectorAddress instanceof UnixDomainSocketAddress
+					? SocketChannel.open(StandardProtocolFamily.UNIX) : SocketChannel.open();
+			this.channel.configureBlocking(false);
+			if (!this.channel.connect(this.collectorAddress)) {
+				SelectionKey key = this.channel.register(this.selector, SelectionKey.OP_CONNECT);
+				this.selector.select(LoggingForwardingHandler.TIMEOUT);
+				if (!this.channel.finishConnect()) {
+					throw new IOException("The connection to " + this.collectorAddress + " timed out.");
+				}
+				key.interestOps(SelectionKey.OP_WRITE);
+			} else {
+				this.channel.register(this.selector, SelectionKey.OP_WRITE);
+			}
+			this.replay();
+			this.reconnectDelay = LoggingForwardingHandler.MINIMUM_RECONNECT_DELAY;
+			return true;
+		} catch (IOException e) {
+			this.disconnect();
+			this.nextConnectionAttempt = System.currentTimeMillis() + this.reconnectDelay;
+			this.reconnectDelay = Math.min(2 * this.reconnectDelay, LoggingForwardingHandler.MAXIMUM_RECONNECT_DELAY);
+			return false;
+		}
+	}
+
+	/**
+	 * Write the buffer completely to the collector, waiting for the channel to become
+	 * writable if necessary.
+	 *
+	 * @return true if the buffer has been written
+	 */
+	private boolean write(ByteBuffer buffer) {
+		try {
+			this.writeFully(buffer);
+			return true;
+		} catch (IOException e) {
+			this.disconnect();
+			return false;
+		}
+	}
+
+	private void writeFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (this.channel.write(buffer) == 0) {
+				this.selector.selectedKeys().clear();
+				if (this.selector.select(LoggingForwardingHandler.TIMEOUT) == 0) {
+					throw new IOException("The collector " + this.collectorAddress + " is not accepting records.");
+				}
+			}
+		}
+	}
+
+	private void disconnect() {
+		try {
+			if (this.channel != null) {
+				this.channel.close();
+			}
+			if (this.selector != null) {
+				this.selector.close();
+			}
+		} catch (IOException e) {
+			this.reportError("The connection could not be closed.", e, ErrorManager.CLOSE_FAILURE);
+		}
+		this.channel = null;
+		this.selector = null;
+	}
+
+	/**
+	 * Append the framed batch to the spill file if it does not exceed its maximum size.
+	 */
+	private void spill(ByteBuffer buffer, int records) {
+		if (this.spillSize + buffer.remaining() > this.maximumSpillSize) {
+			this.dropped.add(records);
+			return;
+		}
+		try (FileChannel spillChannel = FileChannel.open(this.spillFile.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			while (buffer.hasRemaining()) {
+				this.spillSize += spillChannel.write(buffer);
+			}
+			this.spilledRecords += records;
+		} catch (IOException e) {
+			this.dropped.add(records);
+			this.reportError("The records could not be spilled to " + this.spillFile + ".", e,
+					ErrorManager.WRITE_FAILURE);
+		}
+	}
+
+	/**
+	 * Send all spilled records to the collector and empty the spill file.
+	 */
+	private void replay() throws IOException {
+		if (this.spillSize == 0 || !this.spillFile.exists()) {
+			return;
+		}
+		try (FileChannel spillChannel = FileChannel.open(this.spillFile.toPath(), StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+			while (spillChannel.read(buffer) >= 0 || buffer.position() > 0) {
+				buffer.flip();
+				this.writeFully(buffer);
+				buffer.clear();
+			}
+			spillChannel.truncate(0);
+		}
+		this.forwarded.addAndGet(this.spilledRecords);
+		this.spilledRecords = 0L;
+		this.spillSize = 0L;
+	}
+
+}
@@ -4,7 +4,8 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.logging.FileHandler;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -32,55 +33,133 @@ public class LoggingHandler {
 	 * The file extension used for log files.
 	 */
 	public static final String LOG_FILE_EXTENSION = ".xml";
-	private static Handler logHandler = null;
+	/**
+	 * The file extension used for plain text log files.
+	 */
+	public static final String TEXT_LOG_FILE_EXTENSION = ".log";
+	/**
+	 * The format of the time in the names of log files, zero padded to a fixed width 
+	 * so that the names of log files sort by the time they have been created.
+	 */
+	static final DateTimeFormatter FILE_TIME_FORMAT = DateTimeFormatter.ofPattern("uuuu_MM_dd_HH_mm_ss_SSSSSSSSS");
+	private static SwappableHandler logHandler = null;
 	private static File logFolder = new File("Logs"); // the folder containing all log files
 	private static String logFileName = "Log";
 	private static int numberLogFiles = 5;
+	private static LoggingFormat logFormat = LoggingFormat.XML;
 	
 	/**
 	 * Start the log writing procedure.
 	 */
-	public static void startLogWriting() throws LoggingFailureException {
+	public static synchronized void startLogWriting() throws LoggingFailureException {
 		if (LoggingHandler.logHandler == null) {
-			if (!LoggingHandler.getLoggingFolder().exists()) {
-				LoggingHandler.getLoggingFolder().mkdirs(); // create directory if necessary
-			} else if (!LoggingHandler.getLoggingFolder().isDirectory()) {
-				throw new LoggingFailureException("The specified logging folder exists, but is not a directory.");
+			LoggingHandler.logHandler = new SwappableHandler(LoggingHandler.openLogFile());
+			LoggingHandler.getLog().addHandler(LoggingHandler.logHandler);
+		} else {
+			LoggingHandler.getLog().warning("Logging has already been started.");
+		}
+	}
+	
+	/**
+	 * Apply the specified configuration. Settings not specified by the configuration 
+	 * are left unchanged. If logging has already been started and the folder, file name 
+	 * or format changes, writing seamlessly continues in a new log file without losing 
+	 * or blocking any records.
+	 * 
+	 * @param configuration - the configuration to apply
+	 * @throws LoggingFailureException if the new log file could not be opened, in which 
+	 * case logging continues to the old one
+	 * @throws IllegalArgumentException if the configuration is null
+	 */
+	public static synchronized void reconfigure(LoggingConfiguration configuration) throws LoggingFailureException {
+		if (configuration == null) {
+			throw new IllegalArgumentException("The logging configuration cannot be null.");
+		}
+		boolean newLogFile = false;
+		if (configuration.getLoggingFolder() != null 
+				&& !configuration.getLoggingFolder().equals(LoggingHandler.getLoggingFolder())) {
+			LoggingHandler.setLoggingFolder(configuration.getLoggingFolder());
+			newLogFile = true;
+		}
+		if (configuration.getLogFileName() != null 
+				&& !configuration.getLogFileName().equals(LoggingHandler.getLogFileName())) {
+			LoggingHandler.setLogFileName(configuration.getLogFileName());
+			newLogFile = true;
+		}
+		if (configuration.getFormat() != null && configuration.getFormat() != LoggingHandler.getLogFormat()) {
+			LoggingHandler.setLogFormat(configuration.getFormat());
+			newLogFile = true;
+		}
+		if (configuration.getNumberLogFiles() != null) {
+			LoggingHandler.setNumberLogFiles(configuration.getNumberLogFiles());
+		}
+		if (configuration.getLevel() != null) {
+			LoggingHandler.getLog().setLevel(configuration.getLevel());
+		}
+		if (LoggingHandler.logHandler != null) {
+			if (newLogFile) {
+				// open the new file first, so records can be written at any time
+				LoggingHandler.logHandler.swap(LoggingHandler.openLogFile()).close();
+			} else {
+				LoggingHandler.deleteOldLogFiles(LoggingHandler.getNumberLogFiles());
 			}
-			// delete the oldest files
-			File[] currentLogFiles = LoggingHandler.getLogFiles();
-			for (int i = 0; i <= currentLogFiles.length - LoggingHandler.getNumberLogFiles(); i++) {
+		}
+	}
+	
+	/**
+	 * Prepare the logging folder and open a new log file for the current settings.
+	 * 
+	 * @return the handler writing to the new log file
+	 * @throws LoggingFailureException if the log file could not be opened
+	 */
+	private static Handler openLogFile() throws LoggingFailureException {
+		if (!LoggingHandler.getLoggingFolder().exists()) {
+			LoggingHandler.getLoggingFolder().mkdirs(); // create directory if necessary
+		} else if (!LoggingHandler.getLoggingFolder().isDirectory()) {
+			throw new LoggingFailureException("The specified logging folder exists, but is not a directory.");
+		}
+		// delete the oldest files, leaving space for the new one
+		LoggingHandler.deleteOldLogFiles(LoggingHandler.getNumberLogFiles() - 1);
+		try {
+			String startingTime = LocalDateTime.now().format(LoggingHandler.FILE_TIME_FORMAT);
+			String logFile = (LoggingHandler.logFolder.toPath().resolve(LoggingHandler.logFileName + "_" + startingTime 
+					+ LoggingHandler.getLogFormat().getFileExtension())).toString(); // always write to first log file
+			return LoggingDiskQuota.track(LoggingHandler.getLogFormat().createHandler(logFile), new File(logFile));
+		} catch (SecurityException e) {
+			LoggingHandler.getLog().log(Level.SEVERE, "Security problem accessing log file.", e);
+			e.printStackTrace();
+			throw new LoggingFailureException("Security problem accessing log file.", e);
+		} catch (IOException e) {
+			LoggingHandler.getLog().log(Level.SEVERE, "The log file could not be written to.", e);
+			e.printStackTrace();
+			throw new LoggingFailureException("The log file could not be written to.", e);
+		}
+	}
+	
+	/**
+	 * Delete the oldest log files until only the specified number is left.
+	 * 
+	 * @param numberKept - the number of log files to keep
+	 */
+	private static void deleteOldLogFiles(int numberKept) {
+		File[] currentLogFiles = LoggingHandler.getLogFiles();
+		if (currentLogFiles != null) {
+			for (int i = 0; i < currentLogFiles.length - numberKept; i++) {
 				if (!currentLogFiles[i].delete()) {
 					LoggingHandler.getLog().warning("The old  log file " + currentLogFiles[i] + " could not be deleted.");
 				}
+				LoggingDiskQuota.deleted(currentLogFiles[i]);
 			}
-			try {
-				LocalDateTime dateTimeNow = LocalDateTime.now();
-				String startingTime = String.format("%d_%d_%d_%d_%d_%d_%d", dateTimeNow.getYear(), 
-						dateTimeNow.getMonthValue(), dateTimeNow.getDayOfMonth(), dateTimeNow.getHour(), 
-						dateTimeNow.getMinute(), dateTimeNow.getSecond(), dateTimeNow.getNano());
-				LoggingHandler.logHandler = new FileHandler((LoggingHandler.logFolder.toPath().resolve(
-						LoggingHandler.logFileName + "_" + startingTime 
-						+ LoggingHandler.LOG_FILE_EXTENSION)).toString()); // always write to first log file
-				LoggingHandler.getLog().addHandler(LoggingHandler.logHandler);
-			} catch (SecurityException e) {
-				LoggingHandler.getLog().log(Level.SEVERE, "Security problem accessing log file.", e);
-				e.printStackTrace();
-				throw new LoggingFailureException("Security problem accessing log file.", e);
-			} catch (IOException e) {
-				LoggingHandler.getLog().log(Level.SEVERE, "The log file could not be written to.", e);
-				e.printStackTrace();
-				throw new LoggingFailureException("The log file could not be written to.", e);
+			for (int i = Math.max(0, currentLogFiles.length - numberKept); i < currentLogFiles.length; i++) {
+				LoggingDiskQuota.found(currentLogFiles[i]);
 			}
-		} else {
-			LoggingHandler.getLog().warning("Logging has already been started.");
 		}
 	}
 	
 	/**
 	 * Stop the log writing procedure.
 	 */
-	public static void stopLogWriting() throws LoggingFailureException {
+	public static synchronized void stopLogWriting() throws LoggingFailureException {
 		if(LoggingHandler.logHandler != null) {
 			try {
 				LoggingHandler.logHandler.close();
@@ -98,20 +177,24 @@ public class LoggingHandler {
 	}
 
 	/**
-	 * Get all logging files for the current settings.
+	 * Get all logging files for the current settings sorted in alphabetical order.
 	 * 
 	 * @return an array of all log files
 	 */
 	public static File[] getLogFiles() {
 		// list all log files created with the current settings
-		return LoggingHandler.getLoggingFolder().listFiles(new FileFilter() {
+		File[] logFiles = LoggingHandler.getLoggingFolder().listFiles(new FileFilter() {
 			@Override
 			public boolean accept(File arg0) {
 				String name = arg0.getName();
 				return name.startsWith(LoggingHandler.logFileName) 
-						&& name.endsWith(LoggingHandler.LOG_FILE_EXTENSION);
+						&& LoggingFormat.isLogFileName(name);
 			}
 		});
+		if (logFiles != null) {
+			Arrays.sort(logFiles); // the file system does not guarantee any order
+		}
+		return logFiles;
 	}
 
 	/**
@@ -211,6 +294,30 @@ public class LoggingHandler {
 		}
 	}
 	
+	/**
+	 * Get the format new log files are written in.
+	 * 
+	 * @return the log format
+	 */
+	public static LoggingFormat getLogFormat() {
+		return LoggingHandler.logFormat;
+	}
+
+	/**
+	 * Set the format new log files are written in.
+	 * It must be set before logging is started.
+	 * 
+	 * @param logFormat - the log format
+	 * @throws IllegalArgumentException if the log format is null
+	 */
+	public static void setLogFormat(LoggingFormat logFormat) {
+		if (logFormat != null) {
+			LoggingHandler.logFormat = logFormat;
+		} else {
+			throw new IllegalArgumentException("The log format cannot be null.");
+		}
+	}
+	
 	/**
 	 * Log the specified message and print it to the console. Depending on the log level the 
 	 * message will be printed to err or out.
@@ -0,0 +1,276 @@
+package central.logging.functionality;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+
+/**
+ * The LoggingIndex class describes which tokens the records of a log file contain. The 
+ * file is split into blocks of consecutive records, each with its position in the file 
+ * and a {@link LoggingBloomFilter} of its tokens, so searches read only the blocks 
+ * possibly containing the searched tokens. Blocks are appended to the index file as 
+ * they are finished, so the index of a log file still being written covers all 
+ * records but the ones written since the last block.
+ *
+ * @author Planters
+ *
+ */
+final class LoggingIndex {
+
+	/**
+	 * The file extension appended to the name of an indexed log file.
+	 */
+	static final String INDEX_FILE_EXTENSION = ".idx";
+	/**
+	 * The number of records per block.
+	 */
+	static final int BLOCK_SIZE = 256;
+	private static final int MAGIC = 0x434C4958;
+	private static final byte VERSION = 1;
+
+	/**
+	 * The blocks read from an index file or finished, but not written yet.
+	 */
+	private final List<Block> blocks = new ArrayList<Block>();
+	/**
+	 * The tokens of the block being written, which is not part of the blocks yet.
+	 */
+	private final Set<String> currentTokens = new HashSet<String>();
+	private long currentOffset = 0L;
+	private long currentEnd = 0L;
+	private int currentRecords = 0;
+
+	/**
+	 * Add the text of a record written at the specified position of the log file.
+	 *
+	 * @param text - the searchable text of the record
+	 * @param offset - the position of the first byte of the record in the log file
+	 * @param end - the position after the last byte of the record in the log file
+	 */
+	void add(String text, long offset, long end) {
+		if (this.currentRecords == 0) {
+			this.currentOffset = offset;
+		}
+		this.currentEnd = end;
+		LoggingIndex.tokenize(text, this.currentTokens);
+		if (++this.currentRecords == LoggingIndex.BLOCK_SIZE) {
+			this.finishBlock();
+		}
+	}
+
+	/**
+	 * Finish the block being written even if it is not full, so it is written by the 
+	 * next call of {@link #writeBlocks(DataOutput)}.
+	 */
+	void finishBlock() {
+		if (this.currentRecords > 0) {
+			this.blocks.add(new Block(this.currentOffset, this.currentEnd, this.currentRecords, 
+					LoggingBloomFilter.of(this.currentTokens)));
+			this.currentTokens.clear();
+			this.currentRecords = 0;
+		}
+	}
+
+	/**
+	 * Get all blocks of the log file.
+	 *
+	 * @return the blocks in file order
+	 */
+	List<Block> getBlocks() {
+		return this.blocks;
+	}
+
+	/**
+	 * Get the text of a record that is split into tokens, which is its logger name, its 
+	 * formatted message, the fields of its context and the exception thrown.
+	 *
+	 * @param record - the record to get the text of
+	 * @param formatter - the formatter used to format the message
+	 * @return the searchable text
+	 */
+	static String searchableText(LogRecord record, Formatter formatter) {
+		StringBuilder text = new StringBuilder();
+		if (record.getLoggerName() != null) {
+			text.append(record.getLoggerName()).append(' ');
+		}
+		text.append(formatter.formatMessage(record));
+		LoggingContext.of(record).forEach((key, value) -> text.append(' ').append(key).append('=').append(value));
+		if (record.getThrown() != null) {
+			text.append(' ').append(record.getThrown());
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Split the text into lower case tokens of letters, digits, '-' and '_', so that 
+	 * identifiers like request ids and error codes form a single token.
+	 *
+	 * @param text - the text to split
+	 * @param tokens - the set to add the tokens to
+	 * @return the set of tokens
+	 */
+	static Set<String> tokenize(String text, Set<String> tokens) {
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean tokenCharacter = i < text.length() && LoggingIndex.isTokenCharacter(text.charAt(i));
+			if (tokenCharacter && start < 0) {
+				start = i;
+			} else if (!tokenCharacter && start >= 0) {
+				tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+				start = -1;
+			}
+		}
+		return tokens;
+	}
+
+	private static boolean isTokenCharacter(char character) {
+		return Character.isLetterOrDigit(character) || character == '-' || character == '_';
+	}
+
+	/**
+	 * Get the index file belonging to the specified log file.
+	 *
+	 * @param logFile - the log file
+	 * @return the index file next to the log file
+	 */
+	static File indexFile(File logFile) {
+		return new File(logFile.getPath() + LoggingIndex.INDEX_FILE_EXTENSION);
+	}
+
+	/**
+	 * Write the header of a new index file.
+	 *
+	 * @param output - the index file to write to
+	 * @throws IOException if the file cannot be written
+	 */
+	static void writeHeader(DataOutput output) throws IOException {
+		output.writeInt(LoggingIndex.MAGIC);
+		output.writeByte(LoggingIndex.VERSION);
+	}
+
+	/**
+	 * Append all finished blocks not written yet to the index file.
+	 *
+	 * @param output - the index file to write to
+	 * @return true if any blocks have been written
+	 * @throws IOException if the file cannot be written
+	 */
+	boolean writeBlocks(DataOutput output) throws IOException {
+		if (this.blocks.isEmpty()) {
+			return false;
+		}
+		for (Block block : this.blocks) {
+			LoggingRecordCodec.writeVarLong(output, block.offset);
+			LoggingRecordCodec.writeVarLong(output, block.end);
+			LoggingRecordCodec.writeVarLong(output, block.records);
+			block.filter.write(output);
+		}
+		this.blocks.clear();
+		return true;
+	}
+
+	/**
+	 * Read the index of the specified log file. A block only partially written to the 
+	 * index file of a log file still being written is ignored.
+	 *
+	 * @param logFile - the indexed log file
+	 * @return the index or null if the log file has no index
+	 * @throws IOException if the index exists, but cannot be read
+	 */
+	static LoggingIndex read(File logFile) throws IOException {
+		File indexFile = LoggingIndex.indexFile(logFile);
+		if (!indexFile.isFile()) {
+			return null;
+		}
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+				Files.newInputStream(indexFile.toPath())))) {
+			if (input.readInt() != LoggingIndex.MAGIC || input.readByte() != LoggingIndex.VERSION) {
+				throw new IOException("The index file " + indexFile + " has an unknown header.");
+			}
+			LoggingIndex index = new LoggingIndex();
+			while (true) {
+				try {
+					long offset = LoggingRecordCodec.readVarLong(input);
+					long end = LoggingRecordCodec.readVarLong(input);
+					int records = (int) LoggingRecordCodec.readVarLong(input);
+					index.blocks.add(new Block(offset, end, records, LoggingBloomFilter.read(input)));
+				} catch (EOFException e) {
+					return index;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Consecutive records of a log file.
+	 */
+	static final class Block {
+
+		private final long offset;
+		private final long end;
+		private final int records;
+		private final LoggingBloomFilter filter;
+
+		private Block(long offset, long end, int records, LoggingBloomFilter filter) {
+			this.offset = offset;
+			this.end = end;
+			this.records = records;
+			this.filter = filter;
+		}
+
+		/**
+		 * Get the position of the first record in the log file.
+		 *
+		 * @return the offset in bytes
+		 */
+		long getOffset() {
+			return this.offset;
+		}
+
+		/**
+		 * Get the position after the last record in the log file.
+		 *
+		 * @return the end in bytes
+		 */
+		long getEnd() {
+			return this.end;
+		}
+
+		/**
+		 * Get the number of records in this block.
+		 *
+		 * @return the number of records
+		 */
+		int getRecords() {
+			return this.records;
+		}
+
+		/**
+		 * Check whether this block might contain records with all of the specified tokens.
+		 *
+		 * @param tokens - the tokens to check
+		 * @return false if no record contains all tokens
+		 */
+		boolean mightContain(Set<String> tokens) {
+			for (String token : tokens) {
+				if (!this.filter.mightContain(token)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+	}
+
+}
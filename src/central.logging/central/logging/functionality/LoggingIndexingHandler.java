@@ -0,0 +1,164 @@
+package central.logging.functionality;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * The LoggingIndexingHandler class writes records to a log file like a 
+ * {@link java.util.logging.FileHandler} without size limit, while building a 
+ * {@link LoggingIndex} of the written records. The index is written to a file next to 
+ * the log file whenever a block of records is complete and when the handler is flushed 
+ * or closed, so log files still being written can be searched by their index.
+ *
+ * @author Planters
+ *
+ */
+final class LoggingIndexingHandler extends Handler {
+
+	private final File logFile;
+	private final CountingOutputStream counter;
+	private final Writer writer;
+	private final DataOutputStream indexOutput;
+	private final LoggingIndex index = new LoggingIndex();
+	private boolean closed = false;
+
+	/**
+	 * Create a handler writing to the specified file in UTF-8, which is replaced if it exists.
+	 *
+	 * @param logFile - the path of the log file to write
+	 * @param formatter - the formatter of the records
+	 * @throws IOException if the file cannot be opened
+	 */
+	LoggingIndexingHandler(String logFile, Formatter formatter) throws IOException {
+		this.logFile = new File(logFile);
+		this.setEncoding(StandardCharsets.UTF_8.name()); // declared in the head of XML files
+		this.setFormatter(formatter);
+		this.counter = new CountingOutputStream(new FileOutputStream(this.logFile));
+		this.writer = new BufferedWriter(new OutputStreamWriter(this.counter, StandardCharsets.UTF_8));
+		try {
+			this.writer.write(formatter.getHead(this));
+			this.writer.flush();
+		} catch (IOException e) {
+			this.writer.close();
+			throw e;
+		}
+		try {
+			this.indexOutput = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(LoggingIndex.indexFile(this.logFile))));
+			LoggingIndex.writeHeader(this.indexOutput);
+			this.indexOutput.flush();
+		} catch (IOException e) {
+			this.writer.close();
+			throw e;
+		}
+	}
+
+	@Override
+	public void publish(LogRecord record) {
+		if (!this.isLoggable(record)) {
+			return;
+		}
+		String formatted;
+		try {
+			formatted = this.getFormatter().format(record);
+		} catch (RuntimeException e) {
+			this.reportError("The record could not be formatted.", e, ErrorManager.FORMAT_FAILURE);
+			return;
+		}
+		synchronized (this) {
+			if (this.closed) {
+				return;
+			}
+			try {
+				long offset = this.counter.count;
+				this.writer.write(formatted);
+				this.writer.flush(); // write each record at once like a file handler
+				this.index.add(LoggingIndex.searchableText(record, this.getFormatter()), offset, 
+						this.counter.count);
+			} catch (IOException e) {
+				this.reportError("The record could not be written.", e, ErrorManager.WRITE_FAILURE);
+				return;
+			}
+			try {
+				if (this.index.writeBlocks(this.indexOutput)) {
+					this.indexOutput.flush();
+				}
+			} catch (IOException e) {
+				this.reportError("The index of the log file could not be written.", e, ErrorManager.WRITE_FAILURE);
+			}
+		}
+	}
+
+	@Override
+	public synchronized void flush() {
+		if (!this.closed) {
+			try {
+				this.writer.flush();
+				this.index.finishBlock();
+				this.index.writeBlocks(this.indexOutput);
+				this.indexOutput.flush();
+			} catch (IOException e) {
+				this.reportError("The log file could not be flushed.", e, ErrorManager.FLUSH_FAILURE);
+			}
+		}
+	}
+
+	@Override
+	public synchronized void close() throws SecurityException {
+		if (!this.closed) {
+			this.closed = true;
+			try {
+				this.writer.write(this.getFormatter().getTail(this));
+				this.writer.close();
+			} catch (IOException e) {
+				this.reportError("The log file could not be closed.", e, ErrorManager.CLOSE_FAILURE);
+			}
+			try {
+				this.index.finishBlock();
+				this.index.writeBlocks(this.indexOutput);
+				this.indexOutput.close();
+			} catch (IOException e) {
+				this.reportError("The index of the log file could not be written.", e, ErrorManager.CLOSE_FAILURE);
+			}
+		}
+	}
+
+	/**
+	 * An output stream counting the bytes written to the file.
+	 */
+	private static final class CountingOutputStream extends FilterOutputStream {
+
+		private long count = 0L;
+
+		private CountingOutputStream(OutputStream output) {
+			super(output);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			this.out.write(b);
+			this.count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			this.out.write(b, off, len);
+			this.count += len;
+		}
+
+	}
+
+}
@@ -0,0 +1,223 @@
+package central.logging.functionality;
+
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * The LoggingLoggerFinder class provides the {@link System.Logger} instances of the JVM, 
+ * so libraries logging through {@link System#getLogger(String)} write to the log files of 
+ * a {@link Logging} facility or the {@link LoggingHandler}. Unlike the default bridge to 
+ * java.util.logging, the level is checked before any message is formatted or supplied, 
+ * a single record is created only for messages being logged and the caller is found by 
+ * walking only the top frames of the stack.
+ *
+ * @author Planters
+ *
+ */
+public class LoggingLoggerFinder extends System.LoggerFinder {
+
+	/**
+	 * The system loggers by name, which are shared by all modules.
+	 */
+	private static final ConcurrentMap<String, SystemLogger> LOGGERS = new ConcurrentHashMap<String, SystemLogger>();
+	/**
+	 * The logging facility receiving the records, null for the {@link LoggingHandler}.
+	 */
+	private static volatile Logging logging = null;
+
+	/**
+	 * Create the finder, which is done by the JVM when the first system logger is requested.
+	 */
+	public LoggingLoggerFinder() {
+		// Do nothing as all loggers are shared.
+	}
+
+	@Override
+	public System.Logger getLogger(String name, Module module) {
+		if (name == null) {
+			throw new NullPointerException("The name of a system logger cannot be null.");
+		}
+		return LoggingLoggerFinder.LOGGERS.computeIfAbsent(name, SystemLogger::new);
+	}
+
+	/**
+	 * Get the logging facility receiving the records of all system loggers.
+	 *
+	 * @return the logging facility or null if the records are passed to the {@link LoggingHandler}
+	 */
+	public static Logging getLogging() {
+		return LoggingLoggerFinder.logging;
+	}
+
+	/**
+	 * Set the logging facility receiving the records of all system loggers, including the 
+	 * ones already created.
+	 *
+	 * @param logging - the logging facility or null to pass the records to the {@link LoggingHandler}
+	 */
+	public static void setLogging(Logging logging) {
+		LoggingLoggerFinder.logging = logging;
+	}
+
+	/**
+	 * Get the level of java.util.logging corresponding to the specified system logger level.
+	 *
+	 * @param level - the system logger level
+	 * @return the corresponding level
+	 */
+	static Level toLevel(System.Logger.Level level) {
+		switch (level) {
+		case ALL:
+			return Level.ALL;
+		case TRACE:
+			return Level.FINER;
+		case DEBUG:
+			return Level.FINE;
+		case INFO:
+			return Level.INFO;
+		case WARNING:
+			return Level.WARNING;
+		case ERROR:
+			return Level.SEVERE;
+		default:
+			return Level.OFF;
+		}
+	}
+
+	/**
+	 * A system logger passing its records to the current logging facility. All methods of 
+	 * the interface are implemented, so no frame of it hides the caller. Levels of 
+	 * java.util.logging are qualified, as the interface declares its own Level. Records 
+	 * at level OFF are never logged, as java.util.logging would log them at any logger level but OFF.
+	 */
+	private static final class SystemLogger implements System.Logger {
+
+		private final String name;
+
+		private SystemLogger(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public boolean isLoggable(System.Logger.Level level) {
+			return level != System.Logger.Level.OFF && SystemLogger.target().isLoggable(LoggingLoggerFinder.toLevel(level));
+		}
+
+		@Override
+		public void log(System.Logger.Level level, String msg) {
+			Logger target = SystemLogger.target();
+			java.util.logging.Level julLevel = LoggingLoggerFinder.toLevel(level);
+			if (level != System.Logger.Level.OFF && target.isLoggable(julLevel)) {
+				target.log(this.createRecord(julLevel, msg, null));
+			}
+		}
+
+		@Override
+		public void log(System.Logger.Level level, Supplier<String> msgSupplier) {
+			Logger target = SystemLogger.target();
+			java.util.logging.Level julLevel = LoggingLoggerFinder.toLevel(level);
+			if (level != System.Logger.Level.OFF && target.isLoggable(julLevel)) {
+				target.log(this.createRecord(julLevel, msgSupplier.get(), null));
+			}
+		}
+
+		@Override
+		public void log(System.Logger.Level level, Object obj) {
+			Logger target = SystemLogger.target();
+			java.util.logging.Level julLevel = LoggingLoggerFinder.toLevel(level);
+			if (level != System.Logger.Level.OFF && target.isLoggable(julLevel)) {
+				target.log(this.createRecord(julLevel, obj.toString(), null));
+			}
+		}
+
+		@Override
+		public void log(System.Logger.Level level, String msg, Throwable thrown) {
+			Logger target = SystemLogger.target();
+			java.util.logging.Level julLevel = LoggingLoggerFinder.toLevel(level);
+			if (level != System.Logger.Level.OFF && target.isLoggable(julLevel)) {
+				target.log(this.createRecord(julLevel, msg, thrown));
+			}
+		}
+
+		@Override
+		public void log(System.Logger.Level level, Supplier<String> msgSupplier, Throwable thrown) {
+			Logger target = SystemLogger.target();
+			java.util.logging.Level julLevel = LoggingLoggerFinder.toLevel(level);
+			if (level != System.Logger.Level.OFF && target.isLoggable(julLevel)) {
+				target.log(this.createRecord(julLevel, msgSupplier.get(), thrown));
+			}
+		}
+
+		@Override
+		public void log(System.Logger.Level level, String format, Object... params) {
+			Logger target = SystemLogger.target();
+			java.util.logging.Level julLevel = LoggingLoggerFinder.toLevel(level);
+			if (level != System.Logger.Level.OFF && target.isLoggable(julLevel)) {
+				LogRecord record = this.createRecord(julLevel, format, null);
+				record.setParameters(params); // formatted when written, if at all
+				target.log(record);
+			}
+		}
+
+		@Override
+		public void log(System.Logger.Level level, ResourceBundle bundle, String msg, Throwable thrown) {
+			Logger target = SystemLogger.target();
+			java.util.logging.Level julLevel = LoggingLoggerFinder.toLevel(level);
+			if (level != System.Logger.Level.OFF && target.isLoggable(julLevel)) {
+				LogRecord record = this.createRecord(julLevel, msg, thrown);
+				record.setResourceBundle(bundle);
+				target.log(record);
+			}
+		}
+
+		@Override
+		public void log(System.Logger.Level level, ResourceBundle bundle, String format, Object... params) {
+			Logger target = SystemLogger.target();
+			java.util.logging.Level julLevel = LoggingLoggerFinder.toLevel(level);
+			if (level != System.Logger.Level.OFF && target.isLoggable(julLevel)) {
+				LogRecord record = this.createRecord(julLevel, format, null);
+				record.setResourceBundle(bundle);
+				record.setParameters(params);
+				target.log(record);
+			}
+		}
+
+		private static Logger target() {
+			Logging current = LoggingLoggerFinder.logging;
+			return current != null ? current.getLog() : LoggingHandler.getLog();
+		}
+
+		/**
+		 * Create a record named after this logger with the caller as its source, unless 
+		 * the logging facility records no caller information anyway.
+		 */
+		private LogRecord createRecord(java.util.logging.Level level, String msg, Throwable thrown) {
+			Logging current = LoggingLoggerFinder.logging;
+			CallerInfoMode mode = current != null ? current.getCallerInfoMode() : CallerInfoMode.INFERRED;
+			LoggingCallSite callSite = mode == CallerInfoMode.INFERRED || mode == CallerInfoMode.STACK_WALKER 
+					? LoggingCallSite.capture(LoggingCallSite.DEFAULT_MAXIMUM_DEPTH) : null;
+			LogRecord record;
+			if (callSite != null) {
+				record = new ExplicitCallerRecord(level, callSite.getClassName(), callSite.getMethodName(), msg);
+			} else {
+				record = new LogRecord(level, msg);
+				record.setSourceClassName(null); // never infer this class as the caller
+			}
+			record.setLoggerName(this.name);
+			record.setThrown(thrown);
+			return record;
+		}
+
+	}
+
+}
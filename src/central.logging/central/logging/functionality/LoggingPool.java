@@ -0,0 +1,113 @@
+package central.logging.functionality;
+
+import java.io.File;
+import java.util.ArrayDeque;
+
+/**
+ * The LoggingPool class keeps a bounded number of idle {@link Logging} instances for
+ * reuse, so that short-lived logging facilities, for example per request or tenant,
+ * reuse their logger instead of creating and configuring a new one every time.
+ *
+ * @author Planters
+ *
+ */
+public class LoggingPool implements AutoCloseable {
+
+	private final int capacity;
+	private final ArrayDeque<Logging> idle;
+
+	/**
+	 * Create a pool keeping at most the specified number of idle instances.
+	 *
+	 * @param capacity - the maximum number of idle instances
+	 * @throws IllegalArgumentException if the capacity is less than 1
+	 */
+	public LoggingPool(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The pool capacity cannot be zero or less.");
+		}
+		this.capacity = capacity;
+		this.idle = new ArrayDeque<Logging>(capacity);
+	}
+
+	/**
+	 * Get an idle logging facility with default settings or create a new one.
+	 *
+	 * @return a logging facility with default settings
+	 */
+	public Logging acquire() {
+		Logging logging;
+		synchronized (this.idle) {
+			logging = this.idle.pollFirst();
+		}
+		return logging != null ? logging : new Logging();
+	}
+
+	/**
+	 * Get an idle logging facility or create a new one and set its logging folder and
+	 * log file name.
+	 *
+	 * @param loggingFolder - the folder to write the log files to
+	 * @param logFileName - the basic filename for all the log files
+	 * @return a logging facility with the specified settings
+	 */
+	public Logging acquire(File loggingFolder, String logFileName) {
+		Logging logging = this.acquire();
+		logging.setLoggingFolder(loggingFolder);
+		logging.setLogFileName(logFileName);
+		return logging;
+	}
+
+	/**
+	 * Stop all logging activity of the specified logging facility and return it to the
+	 * pool. If the pool is full, the logging facility is closed instead.
+	 *
+	 * @param logging - the logging facility to return
+	 * @throws LoggingFailureException if logging could not be stopped
+	 * @throws IllegalArgumentException if the logging facility is null
+	 */
+	public void release(Logging logging) throws LoggingFailureException {
+		if (logging == null) {
+			throw new IllegalArgumentException("The logging facility cannot be null.");
+		}
+		logging.reset();
+		synchronized (this.idle) {
+			if (this.idle.size() < this.capacity) {
+				this.idle.offerFirst(logging);
+				return;
+			}
+		}
+		logging.close();
+	}
+
+	/**
+	 * Get the number of idle logging facilities.
+	 *
+	 * @return the number of idle instances
+	 */
+	public int getIdle() {
+		synchronized (this.idle) {
+			return this.idle.size();
+		}
+	}
+
+	/**
+	 * Close all idle logging facilities.
+	 *
+	 * @throws LoggingFailureException if any logging facility could not be closed
+	 */
+	@Override
+	public void close() throws LoggingFailureException {
+		while (true) {
+			Logging logging;
+			synchronized (this.idle) {
+				logging = this.idle.pollFirst();
+			}
+			if (logging == null) {
+				return;
+			}
+			logging.close();
+		}
+	}
+
+}
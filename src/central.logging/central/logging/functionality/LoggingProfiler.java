@@ -0,0 +1,438 @@
+package central.logging.functionality;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The LoggingProfiler class attributes the cost of logging to the statements logging the 
+ * records, in order to find the statements dominating it when the log volume spikes. For 
+ * every call site it counts the records written, the bytes they take in the log file, the 
+ * time taken to format them and the total time taken to hand them to the log file, which 
+ * includes formatting and, when writing asynchronously, is measured on the writer thread.
+ * <p>
+ * Call sites are captured by walking the top frames of the stack for every record and are 
+ * cached, so the statistics of a statement are found without locking and updated by 
+ * counters that do not block concurrent loggers. Records of the {@link LoggingFormat#TEMPLATE} 
+ * format are written without a formatter, so no bytes are counted for them.
+ *
+ * @author Planters
+ *
+ */
+public class LoggingProfiler implements LoggingProfilerMXBean {
+
+	/**
+	 * The default number of call sites reported.
+	 */
+	public static final int DEFAULT_TOP_COUNT = 10;
+	/**
+	 * The call site of the record currently being written by a thread.
+	 */
+	private static final ThreadLocal<LoggingCallSite> CURRENT_SITE = new ThreadLocal<LoggingCallSite>();
+	private static final Comparator<CallSiteStatistics> COST = Comparator
+			.comparingLong(CallSiteStatistics::getWritingNanos).reversed()
+			.thenComparing(Comparator.comparingLong(CallSiteStatistics::getBytes).reversed());
+
+	private final Map<LoggingCallSite, Counters> sites = new ConcurrentHashMap<LoggingCallSite, Counters>();
+	/**
+	 * The records of statements that could not be found within the walked frames.
+	 */
+	private volatile Counters unknown = new Counters();
+	private ObjectName objectName = null;
+
+	/**
+	 * Create a profiler without any measurements.
+	 */
+	public LoggingProfiler() {
+		// Do nothing as call sites are added when their first record is written.
+	}
+
+	/**
+	 * Get the call site of the record currently being written by this thread.
+	 *
+	 * @return the call site or null if unknown
+	 */
+	static LoggingCallSite currentSite() {
+		return LoggingProfiler.CURRENT_SITE.get();
+	}
+
+	/**
+	 * Get the call site of the record currently being written by this thread and forget it, 
+	 * so it is not attributed to records bypassing the filter of the logger later on.
+	 *
+	 * @return the call site or null if unknown
+	 */
+	static LoggingCallSite takeCurrentSite() {
+		LoggingCallSite site = LoggingProfiler.CURRENT_SITE.get();
+		if (site != null) {
+			LoggingProfiler.CURRENT_SITE.remove();
+		}
+		return site;
+	}
+
+	/**
+	 * Set the call site of the record written next by this thread.
+	 *
+	 * @param site - the call site or null if unknown
+	 */
+	static void setCurrentSite(LoggingCallSite site) {
+		LoggingProfiler.CURRENT_SITE.set(site);
+	}
+
+	private Counters counters(LoggingCallSite site) {
+		if (site == null) {
+			return this.unknown;
+		}
+		Counters counters = this.sites.get(site); // lock free for every known call site
+		return counters != null ? counters : this.sites.computeIfAbsent(site, key -> new Counters());
+	}
+
+	/**
+	 * Get a handler measuring the records written by the specified handler with the 
+	 * profiler currently supplied, so profiling can be started and stopped while writing.
+	 *
+	 * @param handler - the handler writing the records
+	 * @param profiler - the supplier of the current profiler, which may supply null
+	 * @return the profiling handler
+	 */
+	static Handler profile(Handler handler, Supplier<LoggingProfiler> profiler) {
+		return new ProfilingHandler(handler, profiler);
+	}
+
+	/**
+	 * Get a formatter measuring the records formatted by the specified formatter with the 
+	 * profiler currently supplied, so profiling can be started and stopped while writing.
+	 *
+	 * @param formatter - the formatter of the log file
+	 * @param profiler - the supplier of the current profiler, which may supply null
+	 * @return the profiling formatter
+	 */
+	static Formatter profile(Formatter formatter, Supplier<LoggingProfiler> profiler) {
+		return new ProfilingFormatter(formatter, profiler);
+	}
+
+	@Override
+	public long getProfiledRecords() {
+		long records = this.unknown.records.sum();
+		for (Counters counters : this.sites.values()) {
+			records += counters.records.sum();
+		}
+		return records;
+	}
+
+	@Override
+	public int getNumberCallSites() {
+		return this.sites.size();
+	}
+
+	/**
+	 * Get the statistics of the call sites taking the most time to write their records.
+	 *
+	 * @param count - the maximum number of call sites
+	 * @return the statistics, the most expensive call site first
+	 * @throws IllegalArgumentException if the count is less than 1
+	 */
+	public List<CallSiteStatistics> getTopCallSites(int count) {
+		if (count < 1) {
+			throw new IllegalArgumentException("The number of call sites must be at least 1.");
+		}
+		List<CallSiteStatistics> statistics = new ArrayList<CallSiteStatistics>(this.sites.size() + 1);
+		for (Map.Entry<LoggingCallSite, Counters> entry : this.sites.entrySet()) {
+			statistics.add(new CallSiteStatistics(entry.getKey().toString(), entry.getValue()));
+		}
+		if (this.unknown.records.sum() > 0L) {
+			statistics.add(new CallSiteStatistics("<unknown>", this.unknown));
+		}
+		statistics.sort(LoggingProfiler.COST);
+		return statistics.subList(0, Math.min(count, statistics.size()));
+	}
+
+	@Override
+	public String[] getTopCallSites() {
+		return this.topCallSites(LoggingProfiler.DEFAULT_TOP_COUNT);
+	}
+
+	@Override
+	public String[] topCallSites(int count) {
+		List<CallSiteStatistics> statistics = this.getTopCallSites(count);
+		String[] lines = new String[statistics.size()];
+		for (int i = 0; i < lines.length; i++) {
+			lines[i] = statistics.get(i).toString();
+		}
+		return lines;
+	}
+
+	/**
+	 * Print the specified number of call sites taking the most time to write their records.
+	 *
+	 * @param output - the stream to print to
+	 * @param count - the maximum number of call sites
+	 * @throws IllegalArgumentException if the count is less than 1
+	 */
+	public void dump(PrintStream output, int count) {
+		output.println(String.format("%10s %12s %12s %12s  %s", "Records", "Bytes", "Write ms", "Format ms", 
+				"Call site"));
+		for (CallSiteStatistics statistics : this.getTopCallSites(count)) {
+			output.println(statistics);
+		}
+	}
+
+	@Override
+	public void reset() {
+		this.sites.clear();
+		this.unknown = new Counters();
+	}
+
+	/**
+	 * Register this profiler with the platform MBean server under the specified name, 
+	 * replacing any profiler registered under the same name.
+	 *
+	 * @param name - the name of the profiler, usually the name of the logger
+	 * @throws LoggingFailureException if the profiler cannot be registered
+	 */
+	public synchronized void register(String name) throws LoggingFailureException {
+		this.unregister();
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			ObjectName newName = new ObjectName("central.logging:type=LoggingProfiler,name=" + ObjectName.quote(name));
+			if (server.isRegistered(newName)) {
+				server.unregisterMBean(newName);
+			}
+			server.registerMBean(this, newName);
+			this.objectName = newName;
+		} catch (JMException e) {
+			throw new LoggingFailureException("The profiler " + name + " could not be registered.", e);
+		}
+	}
+
+	/**
+	 * Remove this profiler from the platform MBean server if it has been registered.
+	 */
+	public synchronized void unregister() {
+		if (this.objectName != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.objectName);
+			} catch (JMException e) {
+				// Do nothing as the profiler has already been replaced.
+			}
+			this.objectName = null;
+		}
+	}
+
+	/**
+	 * Get the name this profiler is registered under.
+	 *
+	 * @return the object name or null if it is not registered
+	 */
+	public synchronized String getObjectName() {
+		return this.objectName != null ? this.objectName.getCanonicalName() : null;
+	}
+
+	/**
+	 * Get the number of bytes the specified text takes in UTF-8.
+	 */
+	private static long encodedLength(String text) {
+		long length = text.length();
+		for (int i = 0; i < text.length(); i++) {
+			char character = text.charAt(i);
+			if (character >= 0x80) { // surrogates take 4 bytes per pair
+				length += character < 0x800 || Character.isSurrogate(character) ? 1 : 2;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * The counters of a single call site.
+	 */
+	private static final class Counters {
+
+		private final LongAdder records = new LongAdder();
+		private final LongAdder bytes = new LongAdder();
+		private final LongAdder formattingNanos = new LongAdder();
+		private final LongAdder writingNanos = new LongAdder();
+
+	}
+
+	/**
+	 * The CallSiteStatistics class holds the measurements of a single call site when 
+	 * they have been requested.
+	 */
+	public static final class CallSiteStatistics {
+
+		private final String callSite;
+		private final long records;
+		private final long bytes;
+		private final long formattingNanos;
+		private final long writingNanos;
+
+		private CallSiteStatistics(String callSite, Counters counters) {
+			this.callSite = callSite;
+			this.records = counters.records.sum();
+			this.bytes = counters.bytes.sum();
+			this.formattingNanos = counters.formattingNanos.sum();
+			this.writingNanos = counters.writingNanos.sum();
+		}
+
+		/**
+		 * Get the statement as class, method and line.
+		 *
+		 * @return the call site
+		 */
+		public String getCallSite() {
+			return this.callSite;
+		}
+
+		/**
+		 * Get the number of records written.
+		 *
+		 * @return the number of records
+		 */
+		public long getRecords() {
+			return this.records;
+		}
+
+		/**
+		 * Get the number of bytes the formatted records take.
+		 *
+		 * @return the number of bytes
+		 */
+		public long getBytes() {
+			return this.bytes;
+		}
+
+		/**
+		 * Get the time taken to format the records.
+		 *
+		 * @return the formatting time in nanoseconds
+		 */
+		public long getFormattingNanos() {
+			return this.formattingNanos;
+		}
+
+		/**
+		 * Get the total time taken to hand the records to the log file.
+		 *
+		 * @return the writing time in nanoseconds
+		 */
+		public long getWritingNanos() {
+			return this.writingNanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%10d %12d %12.3f %12.3f  %s", this.records, this.bytes, 
+					this.writingNanos / 1e6, this.formattingNanos / 1e6, this.callSite);
+		}
+
+	}
+
+	/**
+	 * A handler measuring the time taken to write every record. Records not written by 
+	 * the delegate, for example below the file level, are neither written nor measured.
+	 */
+	private static final class ProfilingHandler extends Handler {
+
+		private final Handler delegate;
+		private final Supplier<LoggingProfiler> profiler;
+
+		private ProfilingHandler(Handler delegate, Supplier<LoggingProfiler> profiler) {
+			this.delegate = delegate;
+			this.profiler = profiler;
+		}
+
+		@Override
+		public boolean isLoggable(LogRecord record) {
+			return this.delegate.isLoggable(record);
+		}
+
+		@Override
+		public void publish(LogRecord record) {
+			LoggingProfiler current = this.profiler.get();
+			if (current == null || !this.delegate.isLoggable(record)) {
+				LoggingProfiler.takeCurrentSite();
+				this.delegate.publish(record);
+				return;
+			}
+			LoggingCallSite site = LoggingProfiler.currentSite();
+			long start = System.nanoTime();
+			try {
+				this.delegate.publish(record); // the formatter attributes the record to the same site
+			} finally {
+				LoggingProfiler.takeCurrentSite();
+			}
+			Counters counters = current.counters(site);
+			counters.writingNanos.add(System.nanoTime() - start);
+			counters.records.increment();
+		}
+
+		@Override
+		public void flush() {
+			this.delegate.flush();
+		}
+
+		@Override
+		public void close() throws SecurityException {
+			this.delegate.close();
+		}
+
+	}
+
+	/**
+	 * A formatter measuring the time taken to format every record and its size.
+	 */
+	private static final class ProfilingFormatter extends Formatter {
+
+		private final Formatter delegate;
+		private final Supplier<LoggingProfiler> profiler;
+
+		private ProfilingFormatter(Formatter delegate, Supplier<LoggingProfiler> profiler) {
+			this.delegate = delegate;
+			this.profiler = profiler;
+		}
+
+		@Override
+		public String format(LogRecord record) {
+			LoggingProfiler current = this.profiler.get();
+			if (current == null) {
+				return this.delegate.format(record);
+			}
+			long start = System.nanoTime();
+			String formatted = this.delegate.format(record);
+			Counters counters = current.counters(LoggingProfiler.currentSite());
+			counters.formattingNanos.add(System.nanoTime() - start);
+			counters.bytes.add(LoggingProfiler.encodedLength(formatted));
+			return formatted;
+		}
+
+		@Override
+		public String formatMessage(LogRecord record) {
+			return this.delegate.formatMessage(record);
+		}
+
+		@Override
+		public String getHead(Handler handler) {
+			return this.delegate.getHead(handler);
+		}
+
+		@Override
+		public String getTail(Handler handler) {
+			return this.delegate.getTail(handler);
+		}
+
+	}
+
+}
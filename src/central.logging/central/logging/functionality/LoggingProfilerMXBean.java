@@ -0,0 +1,46 @@
+package central.logging.functionality;
+
+/**
+ * The LoggingProfilerMXBean interface exposes the statements dominating the cost of 
+ * logging, as measured by a {@link LoggingProfiler}, via JMX.
+ *
+ * @author Planters
+ *
+ */
+public interface LoggingProfilerMXBean {
+
+	/**
+	 * Get the number of records written since the profiler has been created or reset.
+	 *
+	 * @return the number of profiled records
+	 */
+	long getProfiledRecords();
+
+	/**
+	 * Get the number of statements that have written records.
+	 *
+	 * @return the number of call sites
+	 */
+	int getNumberCallSites();
+
+	/**
+	 * Get the statements taking the most time to write their records.
+	 *
+	 * @return one line per call site, the most expensive first
+	 */
+	String[] getTopCallSites();
+
+	/**
+	 * Get the specified number of statements taking the most time to write their records.
+	 *
+	 * @param count - the maximum number of call sites
+	 * @return one line per call site, the most expensive first
+	 */
+	String[] topCallSites(int count);
+
+	/**
+	 * Discard all measurements.
+	 */
+	void reset();
+
+}
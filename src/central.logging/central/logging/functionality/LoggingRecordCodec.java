@@ -0,0 +1,282 @@
+package central.logging.functionality;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * The LoggingRecordCodec class encodes log records into a compact binary form and
+ * decodes them again. The message is encoded fully formatted, so that a decoded
+ * record can be written without access to the resource bundles or parameters of
+ * the original one. The {@link LoggingContext} of the record is encoded along with 
+ * it and carried by the decoded record.
+ *
+ * @author Planters
+ *
+ */
+final class LoggingRecordCodec {
+
+	private static final byte NO_THROWN = 0;
+	private static final byte THROWN = 1;
+
+	private LoggingRecordCodec() {
+		// Do nothing as this class only provides static methods.
+	}
+
+	/**
+	 * Encode the specified record, caller information is resolved in the process.
+	 *
+	 * @param record - the record to encode
+	 * @param formatter - the formatter used to format the message
+	 * @return the encoded record
+	 */
+	static byte[] encode(LogRecord record, Formatter formatter) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+		try (DataOutputStream output = new DataOutputStream(bytes)) {
+			LoggingRecordCodec.encode(record, formatter, output);
+		} catch (IOException e) {
+			throw new IllegalStateException("Writing to memory failed.", e); // cannot happen
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Encode the specified record to the output, caller information is resolved
+	 * in the process.
+	 *
+	 * @param record - the record to encode
+	 * @param formatter - the formatter used to format the message
+	 * @param output - the output to write to
+	 * @throws IOException if the output cannot be written to
+	 */
+	static void encode(LogRecord record, Formatter formatter, DataOutput output) throws IOException {
+		Instant instant = record.getInstant();
+		output.writeLong(instant.getEpochSecond());
+		output.writeInt(instant.getNano());
+		output.writeLong(record.getSequenceNumber());
+		output.writeUTF(record.getLevel().getName());
+		output.writeInt(record.getLevel().intValue());
+		output.writeLong(record.getLongThreadID());
+		LoggingRecordCodec.writeString(output, record.getLoggerName());
+		LoggingRecordCodec.writeString(output, record.getSourceClassName());
+		LoggingRecordCodec.writeString(output, record.getSourceMethodName());
+		LoggingRecordCodec.writeString(output, formatter.formatMessage(record));
+		Throwable thrown = record.getThrown();
+		if (thrown != null) {
+			output.writeByte(LoggingRecordCodec.THROWN);
+			output.writeUTF(LoggingRecordCodec.truncate(thrown.toString()));
+			StackTraceElement[] stackTrace = thrown.getStackTrace();
+			output.writeInt(stackTrace.length);
+			for (StackTraceElement element : stackTrace) {
+				output.writeUTF(element.getClassName());
+				output.writeUTF(element.getMethodName());
+				LoggingRecordCodec.writeString(output, element.getFileName());
+				output.writeInt(element.getLineNumber());
+			}
+		} else {
+			output.writeByte(LoggingRecordCodec.NO_THROWN);
+		}
+		LoggingContext context = LoggingContext.of(record);
+		output.writeInt(context.size());
+		IOException[] failure = new IOException[1];
+		context.forEach((key, value) -> {
+			try {
+				output.writeUTF(LoggingRecordCodec.truncate(key));
+				output.writeUTF(LoggingRecordCodec.truncate(value));
+			} catch (IOException e) {
+				failure[0] = e;
+			}
+		});
+		if (failure[0] != null) {
+			throw failure[0];
+		}
+	}
+
+	/**
+	 * Decode a record encoded by {@link #encode(LogRecord, Formatter)}.
+	 *
+	 * @param encoded - the encoded record
+	 * @return the decoded record
+	 * @throws IOException if the record is malformed
+	 */
+	static LogRecord decode(byte[] encoded) throws IOException {
+		try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(encoded))) {
+			return LoggingRecordCodec.decode(input);
+		}
+	}
+
+	/**
+	 * Decode a record encoded by {@link #encode(LogRecord, Formatter, DataOutput)}.
+	 *
+	 * @param input - the input to read from
+	 * @return the decoded record
+	 * @throws IOException if the input cannot be read or the record is malformed
+	 */
+	static LogRecord decode(DataInput input) throws IOException {
+		Instant instant = Instant.ofEpochSecond(input.readLong(), input.readInt());
+		long sequenceNumber = input.readLong();
+		String levelName = input.readUTF();
+		int levelValue = input.readInt();
+		long threadID = input.readLong();
+		String loggerName = LoggingRecordCodec.readString(input);
+		String sourceClass = LoggingRecordCodec.readString(input);
+		String sourceMethod = LoggingRecordCodec.readString(input);
+		String message = LoggingRecordCodec.readString(input);
+		Throwable thrown = null;
+		if (input.readByte() == LoggingRecordCodec.THROWN) {
+			String representation = input.readUTF();
+			StackTraceElement[] stackTrace = new StackTraceElement[input.readInt()];
+			for (int i = 0; i < stackTrace.length; i++) {
+				String className = input.readUTF();
+				String methodName = input.readUTF();
+				String fileName = LoggingRecordCodec.readString(input);
+				stackTrace[i] = new StackTraceElement(className, methodName, fileName, input.readInt());
+			}
+			thrown = LoggingRecordCodec.decodeThrown(representation, stackTrace);
+		}
+		LoggingContext context = LoggingContext.EMPTY;
+		int contextSize = input.readInt();
+		for (int i = 0; i < contextSize; i++) {
+			context = context.with(input.readUTF(), input.readUTF());
+		}
+		LogRecord record = new ContextRecord(LoggingRecordCodec.parseLevel(levelName, levelValue), message, context);
+		record.setInstant(instant);
+		record.setSequenceNumber(sequenceNumber);
+		record.setLongThreadID(threadID);
+		record.setLoggerName(loggerName);
+		record.setSourceClassName(sourceClass);
+		record.setSourceMethodName(sourceMethod);
+		record.setThrown(thrown);
+		return record;
+	}
+
+	/**
+	 * Get the level with the specified name, falling back to its value for custom levels
+	 * unknown to this JVM.
+	 */
+	static Level parseLevel(String name, int value) {
+		try {
+			return Level.parse(name);
+		} catch (IllegalArgumentException e) {
+			return Level.parse(Integer.toString(value));
+		}
+	}
+
+	/**
+	 * Restore a throwable from its string representation and stack trace.
+	 * 
+	 * @param representation - the string representation of the original throwable
+	 * @param stackTrace - the stack trace of the original throwable
+	 * @return a throwable printing like the original one
+	 */
+	static Throwable decodeThrown(String representation, StackTraceElement[] stackTrace) {
+		Throwable thrown = new DecodedThrowable(representation);
+		thrown.setStackTrace(stackTrace);
+		return thrown;
+	}
+
+	static void writeString(DataOutput output, String string) throws IOException {
+		output.writeBoolean(string != null);
+		if (string != null) {
+			output.writeUTF(LoggingRecordCodec.truncate(string));
+		}
+	}
+
+	static String readString(DataInput input) throws IOException {
+		return input.readBoolean() ? input.readUTF() : null;
+	}
+
+	/**
+	 * Write a number using one byte per seven bits, so small numbers take a single byte.
+	 * 
+	 * @param output - the output to write to
+	 * @param value - the number to write, negative numbers take ten bytes
+	 * @throws IOException if the output cannot be written to
+	 */
+	static void writeVarLong(DataOutput output, long value) throws IOException {
+		while ((value & ~0x7FL) != 0L) {
+			output.writeByte((int) ((value & 0x7FL) | 0x80L));
+			value >>>= 7;
+		}
+		output.writeByte((int) value);
+	}
+
+	/**
+	 * Read a number written by {@link #writeVarLong(DataOutput, long)}.
+	 * 
+	 * @param input - the input to read from
+	 * @return the number read
+	 * @throws IOException if the input cannot be read or the number is malformed
+	 */
+	static long readVarLong(DataInput input) throws IOException {
+		long value = 0L;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = input.readByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("The variable length number is malformed.");
+	}
+
+	/**
+	 * Write a signed number, so that numbers close to zero take a single byte.
+	 * 
+	 * @param output - the output to write to
+	 * @param value - the number to write
+	 * @throws IOException if the output cannot be written to
+	 */
+	static void writeZigZagLong(DataOutput output, long value) throws IOException {
+		LoggingRecordCodec.writeVarLong(output, (value << 1) ^ (value >> 63));
+	}
+
+	/**
+	 * Read a number written by {@link #writeZigZagLong(DataOutput, long)}.
+	 * 
+	 * @param input - the input to read from
+	 * @return the number read
+	 * @throws IOException if the input cannot be read or the number is malformed
+	 */
+	static long readZigZagLong(DataInput input) throws IOException {
+		long value = LoggingRecordCodec.readVarLong(input);
+		return (value >>> 1) ^ -(value & 1L);
+	}
+
+	/**
+	 * Truncate strings exceeding the 65535 bytes a modified UTF-8 string can hold.
+	 */
+	private static String truncate(String string) {
+		return string.length() > 16383 ? string.substring(0, 16383) : string;
+	}
+
+	/**
+	 * A throwable restored from its string representation and stack trace.
+	 */
+	private static final class DecodedThrowable extends Throwable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String representation;
+
+		private DecodedThrowable(String representation) {
+			super(representation, null, false, true);
+			this.representation = representation;
+		}
+
+		@Override
+		public String toString() {
+			return this.representation;
+		}
+
+	}
+
+}
@@ -0,0 +1,60 @@
+package central.logging.functionality;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.logging.LogRecord;
+
+/**
+ * The LoggingRecordReader interface reads the records of a log file one after another, 
+ * regardless of the format the file has been written in.
+ *
+ * @author Planters
+ *
+ */
+interface LoggingRecordReader extends Closeable {
+
+	/**
+	 * Read the next record.
+	 *
+	 * @return the next record or null if there are no more complete records
+	 * @throws LoggingFailureException if the file cannot be read or is malformed
+	 */
+	LogRecord next() throws LoggingFailureException;
+
+	/**
+	 * Get the context the record read last has been logged in.
+	 *
+	 * @return the context of the last record
+	 */
+	LoggingContext getContext();
+
+	/**
+	 * Check whether records can be read from the log file with the specified name.
+	 *
+	 * @param fileName - the name of the log file
+	 * @return true if the file is written in a format records can be read from
+	 */
+	static boolean isReadable(String fileName) {
+		LoggingFormat format = LoggingFormat.forFileName(fileName);
+		return format == LoggingFormat.XML || format == LoggingFormat.TEMPLATE;
+	}
+
+	/**
+	 * Open a reader for the specified log file depending on its extension.
+	 *
+	 * @param logFile - the log file to read
+	 * @return a reader for the log file
+	 * @throws LoggingFailureException if the file cannot be opened or records cannot 
+	 * be read from its format
+	 */
+	static LoggingRecordReader open(File logFile) throws LoggingFailureException {
+		LoggingFormat format = LoggingFormat.forFileName(logFile.getName());
+		if (format == LoggingFormat.TEMPLATE) {
+			return new LoggingTemplateReader(logFile);
+		} else if (format == LoggingFormat.XML) {
+			return new LoggingFileReader(logFile);
+		}
+		throw new LoggingFailureException("Records cannot be read from the log file " + logFile + ".");
+	}
+
+}
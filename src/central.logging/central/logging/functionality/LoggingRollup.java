@@ -0,0 +1,442 @@
+package central.logging.functionality;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * The LoggingRollup class counts records per level, logger and message template in 
+ * intervals of fixed length while they are written, see {@link Logging#startRollup(long)}. 
+ * Finished intervals are appended to a compact side file, one tab separated line per 
+ * level, logger and template, and the most recent ones are kept in memory, so summaries 
+ * never require reading the log files themselves. As the rollup counts the records written, 
+ * records less severe than the file level of the {@link Logging} are not counted.
+ *
+ * @author Planters
+ *
+ */
+public class LoggingRollup implements Consumer<LogRecord>, AutoCloseable {
+
+	/**
+	 * The file extension used for rollup files.
+	 */
+	public static final String ROLLUP_FILE_EXTENSION = ".rollup";
+	/**
+	 * The number of finished intervals kept in memory.
+	 */
+	public static final int RETAINED_INTERVALS = 60;
+	/**
+	 * The maximum number of distinct counters per interval. Records of further templates 
+	 * are counted under {@link #OTHER_TEMPLATE}.
+	 */
+	public static final int MAXIMUM_COUNTERS = 10000;
+	/**
+	 * The template standing for all templates exceeding the maximum number of counters.
+	 */
+	public static final String OTHER_TEMPLATE = "<other>";
+	private static final Logger LOG = Logger.getLogger(LoggingRollup.class.getName());
+
+	private final File rollupFile;
+	private final long intervalLength;
+	private final Writer writer;
+	private final ArrayDeque<Interval> finishedIntervals = new ArrayDeque<Interval>();
+	private final Thread tickThread;
+	private volatile Interval current;
+	private boolean closed = false;
+
+	/**
+	 * Create a rollup appending its intervals to the specified file.
+	 *
+	 * @param rollupFile - the side file to append finished intervals to
+	 * @param intervalLength - the length of an interval in milliseconds
+	 * @throws LoggingFailureException if the side file cannot be opened
+	 * @throws IllegalArgumentException if the file is null or the length is less than 1
+	 */
+	public LoggingRollup(File rollupFile, long intervalLength) throws LoggingFailureException {
+		if (rollupFile == null || intervalLength < 1L) {
+			throw new IllegalArgumentException("The rollup file cannot be null and the interval length "
+					+ "must be at least 1 millisecond.");
+		}
+		this.rollupFile = rollupFile;
+		this.intervalLength = intervalLength;
+		try {
+			this.writer = Files.newBufferedWriter(rollupFile.toPath(), StandardCharsets.UTF_8, 
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		} catch (IOException e) {
+			throw new LoggingFailureException("The rollup file " + rollupFile + " could not be opened.", e);
+		}
+		this.current = new Interval(this.intervalStart(System.currentTimeMillis()));
+		// finish intervals in time even if no records are written
+		this.tickThread = new Thread(this::tick, "LoggingRollup-" + rollupFile.getName());
+		this.tickThread.setDaemon(true);
+		this.tickThread.start();
+	}
+
+	private long intervalStart(long millis) {
+		return millis - Math.floorMod(millis, this.intervalLength);
+	}
+
+	/**
+	 * Count the specified record in the current interval. Records of earlier intervals 
+	 * arriving late are counted in the current one.
+	 *
+	 * @param record - the record to count
+	 */
+	@Override
+	public void accept(LogRecord record) {
+		long start = this.intervalStart(record.getMillis());
+		while (true) {
+			Interval interval = this.current;
+			if (start > interval.start) {
+				this.finishIntervals(start);
+				continue;
+			}
+			interval.inFlight.incrementAndGet();
+			try {
+				// only count if the interval has not been finished in the meantime
+				if (interval == this.current) {
+					interval.count(record);
+					return;
+				}
+			} finally {
+				interval.inFlight.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Finish the current interval if the specified interval has started.
+	 */
+	private synchronized void finishIntervals(long start) {
+		Interval finished = this.current;
+		if (this.closed || start <= finished.start) {
+			return;
+		}
+		this.current = new Interval(start);
+		while (finished.inFlight.get() > 0) {
+			Thread.onSpinWait();
+		}
+		this.finishedIntervals.addLast(finished);
+		if (this.finishedIntervals.size() > LoggingRollup.RETAINED_INTERVALS) {
+			this.finishedIntervals.removeFirst();
+		}
+		this.write(finished);
+	}
+
+	private void write(Interval interval) {
+		try {
+			for (Map.Entry<Key, LongAdder> counter : interval.counters.entrySet()) {
+				Key key = counter.getKey();
+				this.writer.write(interval.start + "\t" + key.level + "\t" + LoggingRollup.escape(key.loggerName) 
+						+ "\t" + counter.getValue().sum() + "\t" + LoggingRollup.escape(key.template) + "\n");
+			}
+			this.writer.flush();
+		} catch (IOException e) {
+			LoggingRollup.LOG.log(Level.WARNING, "The interval starting at " + interval.start 
+					+ " could not be appended to the rollup file " + this.rollupFile + ".", e);
+		}
+	}
+
+	private void tick() {
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				long now = System.currentTimeMillis();
+				Thread.sleep(this.intervalStart(now) + this.intervalLength - now);
+				this.finishIntervals(this.intervalStart(System.currentTimeMillis()));
+			}
+		} catch (InterruptedException e) {
+			// Do nothing as the rollup has been closed.
+		}
+	}
+
+	/**
+	 * Keep each counter on a single line.
+	 */
+	private static String escape(String string) {
+		if (string == null) {
+			return "";
+		}
+		return string.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+	}
+
+	private static String unescape(String string) {
+		if (string.isEmpty()) {
+			return null;
+		}
+		StringBuilder builder = new StringBuilder(string.length());
+		for (int i = 0; i < string.length(); i++) {
+			char character = string.charAt(i);
+			if (character == '\\' && i + 1 < string.length()) {
+				char escaped = string.charAt(++i);
+				builder.append(escaped == 't' ? '\t' : escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+			} else {
+				builder.append(character);
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Get the finished intervals kept in memory.
+	 *
+	 * @return the most recent finished intervals, the oldest first
+	 */
+	public synchronized List<Interval> getIntervals() {
+		return new ArrayList<Interval>(this.finishedIntervals);
+	}
+
+	/**
+	 * Get the interval records are currently counted in.
+	 *
+	 * @return the current interval
+	 */
+	public Interval getCurrentInterval() {
+		return this.current;
+	}
+
+	/**
+	 * Get the side file finished intervals are appended to.
+	 *
+	 * @return the rollup file
+	 */
+	public File getRollupFile() {
+		return this.rollupFile;
+	}
+
+	/**
+	 * Get the length of the intervals.
+	 *
+	 * @return the interval length in milliseconds
+	 */
+	public long getIntervalLength() {
+		return this.intervalLength;
+	}
+
+	/**
+	 * Finish the current interval, append it to the side file and stop counting.
+	 */
+	@Override
+	public synchronized void close() {
+		if (!this.closed) {
+			this.tickThread.interrupt();
+			this.finishIntervals(Long.MAX_VALUE);
+			this.closed = true;
+			try {
+				this.writer.close();
+			} catch (IOException e) {
+				LoggingRollup.LOG.log(Level.WARNING, "The rollup file " + this.rollupFile + " could not be closed.", e);
+			}
+		}
+	}
+
+	/**
+	 * Read all intervals of the specified rollup file.
+	 *
+	 * @param rollupFile - the rollup file to read
+	 * @return the intervals in the order they have been written
+	 * @throws LoggingFailureException if the file cannot be read or is malformed
+	 */
+	public static List<Interval> read(File rollupFile) throws LoggingFailureException {
+		Map<Long, Interval> intervals = new LinkedHashMap<Long, Interval>();
+		try (BufferedReader reader = Files.newBufferedReader(rollupFile.toPath(), StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split("\t", 5);
+				if (fields.length != 5) { // the last line of a file still being written
+					continue;
+				}
+				Interval interval = intervals.computeIfAbsent(Long.parseLong(fields[0]), Interval::new);
+				interval.counters.computeIfAbsent(new Key(fields[1], LoggingRollup.unescape(fields[2]), 
+						LoggingRollup.unescape(fields[4])), key -> new LongAdder()).add(Long.parseLong(fields[3]));
+			}
+		} catch (IOException | NumberFormatException e) {
+			throw new LoggingFailureException("The rollup file " + rollupFile + " could not be read.", e);
+		}
+		return new ArrayList<Interval>(intervals.values());
+	}
+
+	/**
+	 * The level, logger and message template records are counted by.
+	 */
+	public static final class Key {
+
+		private final String level;
+		private final String loggerName;
+		private final String template;
+
+		private Key(String level, String loggerName, String template) {
+			this.level = level;
+			this.loggerName = loggerName;
+			this.template = template;
+		}
+
+		/**
+		 * Get the name of the level.
+		 *
+		 * @return the level name
+		 */
+		public String getLevel() {
+			return this.level;
+		}
+
+		/**
+		 * Get the name of the logger.
+		 *
+		 * @return the logger name, which may be null
+		 */
+		public String getLoggerName() {
+			return this.loggerName;
+		}
+
+		/**
+		 * Get the message before parameters have been inserted.
+		 *
+		 * @return the message template, which may be null
+		 */
+		public String getTemplate() {
+			return this.template;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.level, this.loggerName, this.template);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return this.level.equals(other.level) && Objects.equals(this.loggerName, other.loggerName) 
+					&& Objects.equals(this.template, other.template);
+		}
+
+		@Override
+		public String toString() {
+			return this.level + " " + this.loggerName + " " + this.template;
+		}
+
+	}
+
+	/**
+	 * The counts of records of a single interval.
+	 */
+	public static final class Interval {
+
+		private final long start;
+		private final Map<Key, LongAdder> counters = new ConcurrentHashMap<Key, LongAdder>();
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		private Interval(long start) {
+			this.start = start;
+		}
+
+		private void count(LogRecord record) {
+			Key key = new Key(record.getLevel().getName(), record.getLoggerName(), record.getMessage());
+			LongAdder counter = this.counters.get(key);
+			if (counter == null) {
+				if (this.counters.size() >= LoggingRollup.MAXIMUM_COUNTERS) {
+					key = new Key(key.level, key.loggerName, LoggingRollup.OTHER_TEMPLATE);
+				}
+				counter = this.counters.computeIfAbsent(key, newKey -> new LongAdder());
+			}
+			counter.increment();
+		}
+
+		/**
+		 * Get the start of this interval.
+		 *
+		 * @return the start time
+		 */
+		public Instant getStart() {
+			return Instant.ofEpochMilli(this.start);
+		}
+
+		/**
+		 * Get the number of records per level, logger and template.
+		 *
+		 * @return the counts by key
+		 */
+		public Map<Key, Long> getCounts() {
+			return this.sum(key -> key);
+		}
+
+		/**
+		 * Get the number of records per level.
+		 *
+		 * @return the counts by level name
+		 */
+		public Map<String, Long> getCountsByLevel() {
+			return this.sum(Key::getLevel);
+		}
+
+		/**
+		 * Get the number of records per logger.
+		 *
+		 * @return the counts by logger name
+		 */
+		public Map<String, Long> getCountsByLogger() {
+			return this.sum(Key::getLoggerName);
+		}
+
+		/**
+		 * Get the number of records per message template.
+		 *
+		 * @return the counts by template
+		 */
+		public Map<String, Long> getCountsByTemplate() {
+			return this.sum(Key::getTemplate);
+		}
+
+		/**
+		 * Get the number of all records.
+		 *
+		 * @return the total count
+		 */
+		public long getTotal() {
+			long total = 0L;
+			for (LongAdder counter : this.counters.values()) {
+				total += counter.sum();
+			}
+			return total;
+		}
+
+		private <T> Map<T, Long> sum(Function<Key, T> grouping) {
+			Map<T, Long> counts = new HashMap<T, Long>();
+			for (Map.Entry<Key, LongAdder> counter : this.counters.entrySet()) {
+				counts.merge(grouping.apply(counter.getKey()), counter.getValue().sum(), Long::sum);
+			}
+			return Collections.unmodifiableMap(counts);
+		}
+
+		@Override
+		public String toString() {
+			return "Interval [" + this.getStart() + "; " + this.getTotal() + "]";
+		}
+
+	}
+
+}
@@ -0,0 +1,358 @@
+package central.logging.functionality;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.logging.Filter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * The LoggingSampler class is a filter that only passes a sample of the records of
+ * the configured levels. Records can be sampled probabilistically, deterministically
+ * keeping every n-th record or deterministically keeping every n-th record per key.
+ * Records of levels without a sampling rule always pass.
+ * <p>
+ * Sampling decisions only use thread confined state, so no lock or shared counter is
+ * involved in passing or dropping a record. The number of dropped records is counted
+ * per level and can be written to the log with {@link #report(Logger)}, so that
+ * aggregate numbers can be reconstructed from the log files. {@link Logging} writes the 
+ * report whenever log writing is stopped or continues in a new log file and forgets the 
+ * counters of all threads once the sampler is replaced, so pooled threads outliving the 
+ * sampler do not keep them.
+ *
+ * @author Planters
+ *
+ */
+public class LoggingSampler implements Filter {
+
+	/**
+	 * The message template of the records reporting the number of sampled out records.
+	 * Parameters are the level, the number of dropped records and the number of
+	 * passed records since the last report.
+	 */
+	public static final String REPORT_MESSAGE = "Sampled out {1} records of level {0} ({2} records kept).";
+	/**
+	 * The maximum number of keys a thread tracks per rule before its counters are reset.
+	 */
+	private static final int MAXIMUM_KEYS = 4096;
+
+	/**
+	 * The rules of all sampled levels, replaced as a whole on every change.
+	 */
+	private volatile Rule[] rules = new Rule[0];
+	private final ThreadLocal<ThreadState> threadState = ThreadLocal.withInitial(this::createThreadState);
+	/**
+	 * The states of all living threads that have used this sampler, so they can be released.
+	 */
+	private final Set<ThreadState> threadStates = Collections.synchronizedSet(
+			Collections.newSetFromMap(new WeakHashMap<ThreadState, Boolean>()));
+
+	/**
+	 * Create a sampler passing all records until levels to sample are set.
+	 */
+	public LoggingSampler() {
+		// Do nothing as the rules are added one after another.
+	}
+
+	/**
+	 * Pass records of the specified level with the given probability.
+	 *
+	 * @param level - the level to sample
+	 * @param probability - the probability of a record to pass
+	 * @throws IllegalArgumentException if the level is null or the probability
+	 * is not within [0, 1]
+	 */
+	public void setProbability(Level level, double probability) {
+		if (!(probability >= 0.0d && probability <= 1.0d)) {
+			throw new IllegalArgumentException("The sampling probability " + probability
+					+ " is not within [0, 1].");
+		}
+		this.putRule(new Rule(level, probability, 0, null));
+	}
+
+	/**
+	 * Pass every n-th record of the specified level per thread.
+	 *
+	 * @param level - the level to sample
+	 * @param n - the sampling rate, 1 passes all records
+	 * @throws IllegalArgumentException if the level is null or the rate is less than 1
+	 */
+	public void setRate(Level level, int n) {
+		this.setRate(level, n, null);
+	}
+
+	/**
+	 * Pass every n-th record of the specified level per thread and key. This keeps
+	 * rare records while frequent ones are thinned out.
+	 *
+	 * @param level - the level to sample
+	 * @param n - the sampling rate, 1 passes all records
+	 * @param key - the function extracting the key from a record, for example
+	 * {@link LogRecord#getMessage()} to sample by message template
+	 * @throws IllegalArgumentException if the level is null or the rate is less than 1
+	 */
+	public void setRate(Level level, int n, Function<LogRecord, ?> key) {
+		if (n < 1) {
+			throw new IllegalArgumentException("The sampling rate cannot be zero or less.");
+		}
+		this.putRule(new Rule(level, 1.0d, n, key));
+	}
+
+	/**
+	 * Remove sampling for the specified level, so that all its records pass.
+	 *
+	 * @param level - the level to stop sampling
+	 */
+	public synchronized void removeSampling(Level level) {
+		if (level != null) {
+			this.rules = Arrays.stream(this.rules)
+					.filter(rule -> rule.level != level.intValue())
+					.toArray(Rule[]::new);
+		}
+	}
+
+	private synchronized void putRule(Rule newRule) {
+		Rule[] newRules = this.rules.clone();
+		for (int i = 0; i < newRules.length; i++) {
+			if (newRules[i].level == newRule.level) {
+				// keep the counts of the replaced rule
+				newRule.sampledOut.add(newRules[i].sampledOut.sum());
+				newRule.kept.add(newRules[i].kept.sum());
+				newRules[i] = newRule;
+				this.rules = newRules;
+				return;
+			}
+		}
+		newRules = Arrays.copyOf(newRules, newRules.length + 1);
+		newRules[newRules.length - 1] = newRule;
+		this.rules = newRules;
+	}
+
+	private ThreadState createThreadState() {
+		ThreadState state = new ThreadState();
+		this.threadStates.add(state);
+		return state;
+	}
+
+	/**
+	 * Forget the sampling counters of all threads, so every thread starts counting anew. 
+	 * This is done when the sampler is detached from a logging facility, as the counters 
+	 * would otherwise be kept by every thread that has ever used the sampler.
+	 */
+	void release() {
+		synchronized (this.threadStates) {
+			for (ThreadState state : this.threadStates) {
+				state.release();
+			}
+		}
+	}
+
+	@Override
+	public boolean isLoggable(LogRecord record) {
+		Rule rule = this.getRule(record.getLevel());
+		if (rule == null || record instanceof ReportRecord) {
+			return true;
+		}
+		boolean loggable;
+		if (rule.n == 0) {
+			loggable = ThreadLocalRandom.current().nextDouble() < rule.probability;
+		} else {
+			loggable = this.threadState.get().next(rule, record) % rule.n == 0;
+		}
+		if (loggable) {
+			rule.kept.increment();
+		} else {
+			rule.sampledOut.increment();
+		}
+		return loggable;
+	}
+
+	private Rule getRule(Level level) {
+		int value = level.intValue();
+		for (Rule rule : this.rules) {
+			if (rule.level == value) {
+				return rule;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get the number of records of the specified level dropped since the last report.
+	 *
+	 * @param level - the sampled level
+	 * @return the number of dropped records
+	 */
+	public long getSampledOut(Level level) {
+		Rule rule = this.getRule(level);
+		return rule != null ? rule.sampledOut.sum() : 0;
+	}
+
+	/**
+	 * Get the number of records of the specified level passed since the last report.
+	 *
+	 * @param level - the sampled level
+	 * @return the number of passed records
+	 */
+	public long getKept(Level level) {
+		Rule rule = this.getRule(level);
+		return rule != null ? rule.kept.sum() : 0;
+	}
+
+	/**
+	 * Log the number of records dropped and passed per sampled level since the last
+	 * report and reset the counts. The report records are handed to the handlers of the 
+	 * logger directly, so neither the level nor the filter of the logger drops them. Each 
+	 * report record has the sampled level, raised to the level of a handler that would 
+	 * discard records of the sampled level.
+	 *
+	 * @param log - the logger to write the report to
+	 */
+	public void report(Logger log) {
+		for (LogRecord record : this.report(log.getName(), Level.ALL)) {
+			for (Handler handler : log.getHandlers()) {
+				Level level = handler.getLevel();
+				if (level.intValue() > record.getLevel().intValue() && level != Level.OFF) {
+					handler.publish(LoggingSampler.copy(record, level));
+				} else {
+					handler.publish(record);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the records reporting the number of records dropped and passed per sampled level 
+	 * since the last report and reset the counts.
+	 *
+	 * @param loggerName - the name of the logger the records are written to
+	 * @param minimumLevel - the minimum level of the records, so they are not discarded
+	 * @return the report records
+	 */
+	List<LogRecord> report(String loggerName, Level minimumLevel) {
+		List<LogRecord> records = new ArrayList<LogRecord>();
+		for (Rule rule : this.rules) {
+			long sampledOut = rule.sampledOut.sumThenReset();
+			long kept = rule.kept.sumThenReset();
+			if (sampledOut > 0) {
+				Level level = minimumLevel.intValue() > rule.sampledLevel.intValue() ? minimumLevel 
+						: rule.sampledLevel;
+				LogRecord record = new ReportRecord(level);
+				record.setParameters(new Object[] {rule.sampledLevel, sampledOut, kept});
+				record.setLoggerName(loggerName);
+				record.setSourceClassName(LoggingSampler.class.getName());
+				record.setSourceMethodName("report");
+				records.add(record);
+			}
+		}
+		return records;
+	}
+
+	private static LogRecord copy(LogRecord record, Level level) {
+		LogRecord copy = new ReportRecord(level);
+		copy.setParameters(record.getParameters());
+		copy.setInstant(record.getInstant());
+		copy.setLoggerName(record.getLoggerName());
+		copy.setSourceClassName(record.getSourceClassName());
+		copy.setSourceMethodName(record.getSourceMethodName());
+		return copy;
+	}
+
+	/**
+	 * A sampling rule for a single level.
+	 */
+	private static final class Rule {
+
+		private final Level sampledLevel;
+		private final int level;
+		private final double probability;
+		private final int n;
+		private final Function<LogRecord, ?> key;
+		private final LongAdder sampledOut = new LongAdder();
+		private final LongAdder kept = new LongAdder();
+
+		private Rule(Level level, double probability, int n, Function<LogRecord, ?> key) {
+			if (level == null) {
+				throw new IllegalArgumentException("The sampled level cannot be null.");
+			}
+			this.sampledLevel = level;
+			this.level = level.intValue();
+			this.probability = probability;
+			this.n = n;
+			this.key = key;
+		}
+
+	}
+
+	/**
+	 * A record reporting the number of sampled out records, which is never sampled itself.
+	 */
+	private static final class ReportRecord extends LogRecord {
+
+		private static final long serialVersionUID = 1L;
+
+		private ReportRecord(Level level) {
+			super(level, LoggingSampler.REPORT_MESSAGE);
+		}
+
+	}
+
+	/**
+	 * The sampling counters of a single thread. They are only replaced by other threads 
+	 * when released, so counting itself needs no lock.
+	 */
+	private static final class ThreadState {
+
+		private volatile Counters counters = new Counters();
+
+		/**
+		 * Get the number of records counted for the rule and the record's key
+		 * before the specified one.
+		 */
+		private long next(Rule rule, LogRecord record) {
+			Counters current = this.counters;
+			if (current == null) { // the sampler is still used after being released
+				current = new Counters();
+				this.counters = current;
+			}
+			long[] counter;
+			if (rule.key == null) {
+				counter = current.counters.computeIfAbsent(rule, r -> new long[1]);
+			} else {
+				HashMap<Object, long[]> keys = current.keyCounters.computeIfAbsent(rule,
+						r -> new HashMap<Object, long[]>());
+				if (keys.size() >= LoggingSampler.MAXIMUM_KEYS) {
+					keys.clear(); // bound the memory of threads logging many distinct keys
+				}
+				counter = keys.computeIfAbsent(rule.key.apply(record), k -> new long[1]);
+			}
+			return counter[0]++;
+		}
+
+		private void release() {
+			this.counters = null;
+		}
+
+	}
+
+	/**
+	 * The counters of all rules of a single thread.
+	 */
+	private static final class Counters {
+
+		private final HashMap<Rule, long[]> counters = new HashMap<Rule, long[]>();
+		private final HashMap<Rule, HashMap<Object, long[]>> keyCounters = new HashMap<Rule, HashMap<Object, long[]>>();
+
+	}
+
+}
@@ -0,0 +1,232 @@
+package central.logging.functionality;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * The LoggingSearch class finds the records of log files containing all tokens of a query. 
+ * A token is a sequence of letters, digits, '-' and '_' compared ignoring case, so request 
+ * ids or error codes are found as a whole, including those of the {@link LoggingContext} 
+ * of the records. Log files written with 
+ * {@link Logging#setLogIndexing(boolean)} enabled are not scanned: files and blocks of 
+ * records whose index rules out the query are skipped entirely and only the remaining blocks 
+ * are read, followed by the records written since the last indexed block. XML log files 
+ * without index and template log files are read completely, while plain text log files 
+ * are skipped.
+ *
+ * @author Planters
+ *
+ */
+public class LoggingSearch {
+
+	/**
+	 * The start of the log element enclosing records read from the middle of an XML log file.
+	 */
+	private static final byte[] LOG_START = "<log>".getBytes(StandardCharsets.UTF_8);
+
+	private final String query;
+	private final Set<String> tokens;
+	private final Formatter formatter = new SimpleFormatter();
+	private long skippedFiles = 0L;
+	private long skippedBlocks = 0L;
+	private long readBlocks = 0L;
+
+	/**
+	 * Create a search for records containing all tokens of the specified query.
+	 *
+	 * @param query - the text to search for
+	 * @throws IllegalArgumentException if the query contains no tokens
+	 */
+	public LoggingSearch(String query) {
+		if (query == null) {
+			throw new IllegalArgumentException("The search query cannot be null.");
+		}
+		this.query = query;
+		this.tokens = LoggingIndex.tokenize(query, new HashSet<String>());
+		if (this.tokens.isEmpty()) {
+			throw new IllegalArgumentException("The search query must contain letters or digits.");
+		}
+	}
+
+	/**
+	 * Get all matching records of the specified log files.
+	 *
+	 * @param logFiles - the log files to search
+	 * @return the matching records in file order
+	 * @throws LoggingFailureException if any of the files cannot be read
+	 */
+	public List<LogRecord> search(File... logFiles) throws LoggingFailureException {
+		List<LogRecord> records = new ArrayList<LogRecord>();
+		this.search(Arrays.asList(logFiles), records::add);
+		return records;
+	}
+
+	/**
+	 * Pass all matching records of the specified log files to the consumer.
+	 *
+	 * @param logFiles - the log files to search
+	 * @param consumer - the consumer of the matching records
+	 * @return the number of matching records
+	 * @throws LoggingFailureException if any of the files cannot be read
+	 */
+	public long search(List<File> logFiles, Consumer<LogRecord> consumer) throws LoggingFailureException {
+		long found = 0L;
+		for (File logFile : logFiles) {
+			LoggingFormat format = LoggingFormat.forFileName(logFile.getName());
+			if (format == LoggingFormat.TEMPLATE) {
+				found += this.searchTemplateFile(logFile, consumer);
+			} else if (format == LoggingFormat.XML) {
+				found += this.searchXmlFile(logFile, consumer);
+			}
+		}
+		return found;
+	}
+
+	private long searchXmlFile(File logFile, Consumer<LogRecord> consumer) throws LoggingFailureException {
+		LoggingIndex index;
+		try {
+			index = LoggingIndex.read(logFile);
+		} catch (IOException e) { // a damaged index only slows down the search
+			index = null;
+		}
+		if (index == null) {
+			try (LoggingFileReader reader = new LoggingFileReader(logFile)) {
+				return this.searchRecords(reader::next, Integer.MAX_VALUE, consumer);
+			} catch (IOException e) {
+				throw new LoggingFailureException("The log file " + logFile + " could not be closed.", e);
+			}
+		}
+		long found = 0L;
+		boolean skipped = true;
+		long tail = 0L;
+		try (FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ)) {
+			for (LoggingIndex.Block block : index.getBlocks()) {
+				tail = block.getEnd();
+				if (!block.mightContain(this.tokens)) {
+					this.skippedBlocks++;
+					continue;
+				}
+				skipped = false;
+				this.readBlocks++;
+				channel.position(block.getOffset());
+				InputStream blockInput = new SequenceInputStream(new ByteArrayInputStream(LoggingSearch.LOG_START), 
+						Channels.newInputStream(channel));
+				// the reader is not closed, as that would close the channel needed for further blocks
+				LoggingFileReader reader = new LoggingFileReader(blockInput, logFile.toString());
+				found += this.searchRecords(reader::next, block.getRecords(), consumer);
+			}
+			if (tail == 0L) { // no block has been indexed yet
+				try (LoggingFileReader reader = new LoggingFileReader(logFile)) {
+					return this.searchRecords(reader::next, Integer.MAX_VALUE, consumer);
+				}
+			}
+			// the records written since the last indexed block of a file still being written
+			channel.position(tail);
+			InputStream tailInput = new SequenceInputStream(new ByteArrayInputStream(LoggingSearch.LOG_START), 
+					Channels.newInputStream(channel));
+			LoggingFileReader reader = new LoggingFileReader(tailInput, logFile.toString());
+			found += this.searchRecords(reader::next, Integer.MAX_VALUE, consumer);
+		} catch (IOException e) {
+			throw new LoggingFailureException("The log file " + logFile + " could not be read.", e);
+		}
+		if (skipped) {
+			this.skippedFiles++;
+		}
+		return found;
+	}
+
+	private long searchTemplateFile(File logFile, Consumer<LogRecord> consumer) throws LoggingFailureException {
+		try (LoggingTemplateReader reader = new LoggingTemplateReader(logFile)) {
+			return this.searchRecords(reader::next, Integer.MAX_VALUE, consumer);
+		} catch (IOException e) {
+			throw new LoggingFailureException("The log file " + logFile + " could not be closed.", e);
+		}
+	}
+
+	private long searchRecords(RecordSource source, int numberRecords, Consumer<LogRecord> consumer) 
+			throws LoggingFailureException {
+		long found = 0L;
+		LogRecord record;
+		for (int i = 0; i < numberRecords && (record = source.next()) != null; i++) {
+			if (this.matches(record)) {
+				consumer.accept(record);
+				found++;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Check whether the specified record contains all tokens of the query.
+	 *
+	 * @param record - the record to check
+	 * @return true if the record matches the query
+	 */
+	public boolean matches(LogRecord record) {
+		return LoggingIndex.tokenize(LoggingIndex.searchableText(record, this.formatter), 
+				new HashSet<String>()).containsAll(this.tokens);
+	}
+
+	/**
+	 * Get the text searched for.
+	 *
+	 * @return the query
+	 */
+	public String getQuery() {
+		return this.query;
+	}
+
+	/**
+	 * Get the number of indexed log files that have not been read at all.
+	 *
+	 * @return the number of skipped files
+	 */
+	public long getSkippedFiles() {
+		return this.skippedFiles;
+	}
+
+	/**
+	 * Get the number of blocks of indexed log files that have not been read.
+	 *
+	 * @return the number of skipped blocks
+	 */
+	public long getSkippedBlocks() {
+		return this.skippedBlocks;
+	}
+
+	/**
+	 * Get the number of blocks of indexed log files that have been read.
+	 *
+	 * @return the number of read blocks
+	 */
+	public long getReadBlocks() {
+		return this.readBlocks;
+	}
+
+	/**
+	 * The reader of the records searched.
+	 */
+	@FunctionalInterface
+	private interface RecordSource {
+
+		LogRecord next() throws LoggingFailureException;
+
+	}
+
+}
@@ -0,0 +1,309 @@
+package central.logging.functionality;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * The LoggingTemplateHandler class writes records in the binary {@link LoggingFormat#TEMPLATE} 
+ * format. Every distinct string, such as a message template, logger name or source method, 
+ * is written once into the dictionary of the file and afterwards referenced by its number. 
+ * Records consist of these numbers, time differences and the binary encoded message 
+ * parameters, while formatting the message is deferred until the file is read by 
+ * {@link LoggingTemplateReader}. The {@link LoggingContext} of the records is written 
+ * only whenever it differs from the one of the previous record.
+ * <p>
+ * Records are buffered and written to disk whenever a record of at least the flush level 
+ * is published, the handler is flushed or closed. Handlers still open when the JVM shuts 
+ * down are closed by the {@link LoggingWriterPool}, so no buffered record is lost on exit.
+ *
+ * @author Planters
+ *
+ */
+public class LoggingTemplateHandler extends Handler {
+
+	/**
+	 * The file extension used for template log files.
+	 */
+	public static final String TEMPLATE_FILE_EXTENSION = ".tlog";
+	/**
+	 * The maximum number of strings in the dictionary, which is cleared before a record 
+	 * that might not fit anymore.
+	 */
+	public static final int DICTIONARY_CAPACITY = 1 << 16;
+	static final int MAGIC = 0x434C5446;
+	static final byte VERSION = 1;
+	static final byte STRING_ENTRY = 1;
+	static final byte RECORD_ENTRY = 2;
+	static final byte CLEAR_ENTRY = 3;
+	static final byte CONTEXT_ENTRY = 4;
+	static final byte NULL_PARAMETER = 0;
+	static final byte STRING_PARAMETER = 1;
+	static final byte INTEGER_PARAMETER = 2;
+	static final byte LONG_PARAMETER = 3;
+	static final byte DOUBLE_PARAMETER = 4;
+	static final byte FLOAT_PARAMETER = 5;
+	static final byte BOOLEAN_PARAMETER = 6;
+	static final byte DATE_PARAMETER = 7;
+	static final byte DECIMAL_PARAMETER = 8;
+
+	private final DataOutputStream output;
+	/**
+	 * The record currently being encoded, as new strings have to be written before it.
+	 */
+	private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(256);
+	private final DataOutputStream recordOutput = new DataOutputStream(this.recordBytes);
+	private final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+	private long previousMillis = 0L;
+	private long previousSequenceNumber = 0L;
+	/**
+	 * The context of the previous record, compared by reference as contexts are immutable.
+	 */
+	private LoggingContext previousContext = LoggingContext.EMPTY;
+	private volatile Level flushLevel = Level.WARNING;
+	private boolean closed = false;
+
+	/**
+	 * Create a handler writing to the specified file, which is replaced if it exists.
+	 *
+	 * @param logFile - the path of the log file to write
+	 * @throws IOException if the file cannot be opened
+	 */
+	public LoggingTemplateHandler(String logFile) throws IOException {
+		this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile), 64 * 1024));
+		try {
+			this.output.writeInt(LoggingTemplateHandler.MAGIC);
+			this.output.writeByte(LoggingTemplateHandler.VERSION);
+		} catch (IOException e) {
+			this.output.close();
+			throw e;
+		}
+		LoggingWriterPool.attach(this);
+	}
+
+	@Override
+	public synchronized void publish(LogRecord record) {
+		if (this.closed || !this.isLoggable(record)) {
+			return;
+		}
+		try {
+			// the dictionary is only cleared between records, so that all references stay valid
+			Throwable thrown = record.getThrown();
+			LoggingContext context = LoggingContext.of(record);
+			int newStrings = 6 + (thrown != null ? 3 * thrown.getStackTrace().length : 0) + 2 * context.size();
+			if (this.dictionary.size() + newStrings > LoggingTemplateHandler.DICTIONARY_CAPACITY) {
+				this.output.writeByte(LoggingTemplateHandler.CLEAR_ENTRY);
+				this.dictionary.clear();
+				this.previousContext = null; // the references of the context are no longer valid
+			}
+			if (context != this.previousContext) {
+				this.recordBytes.reset();
+				this.encode(context);
+				this.output.writeByte(LoggingTemplateHandler.CONTEXT_ENTRY);
+				this.recordBytes.writeTo(this.output);
+				this.previousContext = context;
+			}
+			this.recordBytes.reset();
+			this.encode(record);
+			this.output.writeByte(LoggingTemplateHandler.RECORD_ENTRY);
+			this.recordBytes.writeTo(this.output);
+			if (record.getLevel().intValue() >= this.flushLevel.intValue()) {
+				this.output.flush();
+			}
+		} catch (IOException e) {
+			this.reportError("The record could not be written.", e, ErrorManager.WRITE_FAILURE);
+		}
+	}
+
+	private void encode(LogRecord record) throws IOException {
+		Instant instant = record.getInstant();
+		long millis = instant.toEpochMilli();
+		LoggingRecordCodec.writeZigZagLong(this.recordOutput, millis - this.previousMillis);
+		LoggingRecordCodec.writeVarLong(this.recordOutput, instant.getNano() % 1000000);
+		LoggingRecordCodec.writeZigZagLong(this.recordOutput, record.getSequenceNumber() - this.previousSequenceNumber);
+		this.previousMillis = millis;
+		this.previousSequenceNumber = record.getSequenceNumber();
+		this.writeReference(record.getLevel().getName());
+		LoggingRecordCodec.writeZigZagLong(this.recordOutput, record.getLevel().intValue());
+		LoggingRecordCodec.writeVarLong(this.recordOutput, record.getLongThreadID());
+		this.writeReference(record.getLoggerName());
+		this.writeReference(record.getSourceClassName());
+		this.writeReference(record.getSourceMethodName());
+		this.writeReference(LoggingTemplateHandler.localize(record));
+		Object[] parameters = record.getParameters();
+		LoggingRecordCodec.writeVarLong(this.recordOutput, parameters != null ? parameters.length : 0);
+		if (parameters != null) {
+			for (Object parameter : parameters) {
+				this.writeParameter(parameter);
+			}
+		}
+		Throwable thrown = record.getThrown();
+		this.recordOutput.writeBoolean(thrown != null);
+		if (thrown != null) {
+			LoggingRecordCodec.writeString(this.recordOutput, thrown.toString());
+			StackTraceElement[] stackTrace = thrown.getStackTrace();
+			LoggingRecordCodec.writeVarLong(this.recordOutput, stackTrace.length);
+			for (StackTraceElement element : stackTrace) {
+				this.writeReference(element.getClassName());
+				this.writeReference(element.getMethodName());
+				this.writeReference(element.getFileName());
+				LoggingRecordCodec.writeZigZagLong(this.recordOutput, element.getLineNumber());
+			}
+		}
+	}
+
+	private void encode(LoggingContext context) throws IOException {
+		LoggingRecordCodec.writeVarLong(this.recordOutput, context.size());
+		IOException[] failure = new IOException[1];
+		context.forEach((key, value) -> {
+			try {
+				this.writeReference(key);
+				this.writeReference(value);
+			} catch (IOException e) {
+				failure[0] = e;
+			}
+		});
+		if (failure[0] != null) {
+			throw failure[0];
+		}
+	}
+
+	/**
+	 * Get the message template in the language of the record, as done when formatting it.
+	 */
+	private static String localize(LogRecord record) {
+		String template = record.getMessage();
+		ResourceBundle bundle = record.getResourceBundle();
+		if (bundle != null && template != null) {
+			try {
+				return bundle.getString(template);
+			} catch (MissingResourceException e) {
+				// Do nothing as the message itself is used like by any formatter.
+			}
+		}
+		return template;
+	}
+
+	/**
+	 * Write the number of the specified string to the record, adding it to the dictionary 
+	 * if it is new. The number 0 stands for null.
+	 */
+	private void writeReference(String string) throws IOException {
+		if (string == null) {
+			this.recordOutput.writeByte(0);
+			return;
+		}
+		Integer reference = this.dictionary.get(string);
+		if (reference == null) {
+			reference = this.dictionary.size() + 1;
+			this.dictionary.put(string, reference);
+			this.output.writeByte(LoggingTemplateHandler.STRING_ENTRY);
+			LoggingRecordCodec.writeString(this.output, string);
+		}
+		LoggingRecordCodec.writeVarLong(this.recordOutput, reference);
+	}
+
+	private void writeParameter(Object parameter) throws IOException {
+		if (parameter == null) {
+			this.recordOutput.writeByte(LoggingTemplateHandler.NULL_PARAMETER);
+		} else if (parameter instanceof Integer || parameter instanceof Short || parameter instanceof Byte) {
+			this.recordOutput.writeByte(LoggingTemplateHandler.INTEGER_PARAMETER);
+			LoggingRecordCodec.writeZigZagLong(this.recordOutput, ((Number) parameter).intValue());
+		} else if (parameter instanceof Long) {
+			this.recordOutput.writeByte(LoggingTemplateHandler.LONG_PARAMETER);
+			LoggingRecordCodec.writeZigZagLong(this.recordOutput, (Long) parameter);
+		} else if (parameter instanceof Double) {
+			this.recordOutput.writeByte(LoggingTemplateHandler.DOUBLE_PARAMETER);
+			this.recordOutput.writeDouble((Double) parameter);
+		} else if (parameter instanceof Float) {
+			this.recordOutput.writeByte(LoggingTemplateHandler.FLOAT_PARAMETER);
+			this.recordOutput.writeFloat((Float) parameter);
+		} else if (parameter instanceof Boolean) {
+			this.recordOutput.writeByte(LoggingTemplateHandler.BOOLEAN_PARAMETER);
+			this.recordOutput.writeBoolean((Boolean) parameter);
+		} else if (parameter instanceof Date) {
+			this.recordOutput.writeByte(LoggingTemplateHandler.DATE_PARAMETER);
+			LoggingRecordCodec.writeZigZagLong(this.recordOutput, ((Date) parameter).getTime());
+		} else if (parameter instanceof Number) { // like BigDecimal, kept exactly for number formats
+			this.recordOutput.writeByte(LoggingTemplateHandler.DECIMAL_PARAMETER);
+			LoggingRecordCodec.writeString(this.recordOutput, LoggingTemplateHandler.toDecimal((Number) parameter));
+		} else { // any other object is only ever formatted as its string representation
+			this.recordOutput.writeByte(LoggingTemplateHandler.STRING_PARAMETER);
+			LoggingRecordCodec.writeString(this.recordOutput, parameter.toString());
+		}
+	}
+
+	/**
+	 * Get the exact decimal representation of the number, falling back to its double value.
+	 */
+	private static String toDecimal(Number number) {
+		String decimal = number.toString();
+		try {
+			new BigDecimal(decimal);
+			return decimal;
+		} catch (NumberFormatException e) {
+			return Double.toString(number.doubleValue());
+		}
+	}
+
+	/**
+	 * Get the minimum level of records written to disk immediately.
+	 *
+	 * @return the flush level
+	 */
+	public Level getFlushLevel() {
+		return this.flushLevel;
+	}
+
+	/**
+	 * Set the minimum level of records written to disk immediately. Less severe records 
+	 * are buffered in memory.
+	 *
+	 * @param flushLevel - the flush level
+	 * @throws IllegalArgumentException if the level is null
+	 */
+	public void setFlushLevel(Level flushLevel) {
+		if (flushLevel == null) {
+			throw new IllegalArgumentException("The flush level cannot be null.");
+		}
+		this.flushLevel = flushLevel;
+	}
+
+	@Override
+	public synchronized void flush() {
+		if (!this.closed) {
+			try {
+				this.output.flush();
+			} catch (IOException e) {
+				this.reportError("The log file could not be flushed.", e, ErrorManager.FLUSH_FAILURE);
+			}
+		}
+	}
+
+	@Override
+	public synchronized void close() throws SecurityException {
+		if (!this.closed) {
+			this.closed = true;
+			LoggingWriterPool.detach(this);
+			try {
+				this.output.close();
+			} catch (IOException e) {
+				this.reportError("The log file could not be closed.", e, ErrorManager.CLOSE_FAILURE);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,274 @@
+package central.logging.functionality;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+
+/**
+ * The LoggingTemplateReader class reads the records of a log file written in the 
+ * {@link LoggingFormat#TEMPLATE} format one after another. The records carry their 
+ * message template and parameters, so they are formatted only when needed by any 
+ * {@link Formatter}. Files still being written to are read up to their last complete record.
+ * The records carry the {@link LoggingContext} they have been logged in, see 
+ * {@link LoggingContext#of(LogRecord)}, which is also available from {@link #getContext()}.
+ *
+ * @author Planters
+ *
+ */
+public class LoggingTemplateReader implements LoggingRecordReader {
+
+	private final DataInputStream input;
+	private final String name;
+	/**
+	 * The strings of the dictionary by their number, 0 standing for null.
+	 */
+	private final List<String> dictionary = new ArrayList<String>();
+	private long previousMillis = 0L;
+	private long previousSequenceNumber = 0L;
+	private LoggingContext context = LoggingContext.EMPTY;
+	private boolean finished = false;
+
+	/**
+	 * Open the specified template log file for reading.
+	 *
+	 * @param logFile - the log file to read
+	 * @throws LoggingFailureException if the file cannot be opened or is no template log file
+	 */
+	public LoggingTemplateReader(File logFile) throws LoggingFailureException {
+		this.name = logFile.toString();
+		try {
+			this.input = new DataInputStream(new BufferedInputStream(Files.newInputStream(logFile.toPath()), 
+					LoggingFileReader.BUFFER_SIZE));
+		} catch (IOException e) {
+			throw new LoggingFailureException("The log file " + logFile + " could not be opened.", e);
+		}
+		try {
+			if (this.input.readInt() != LoggingTemplateHandler.MAGIC 
+					|| this.input.readByte() != LoggingTemplateHandler.VERSION) {
+				throw new IOException("Unknown file header.");
+			}
+		} catch (IOException e) {
+			try {
+				this.input.close();
+			} catch (IOException closeException) {
+				e.addSuppressed(closeException);
+			}
+			throw new LoggingFailureException("The file " + logFile + " is no template log file.", e);
+		}
+		this.dictionary.add(null);
+	}
+
+	/**
+	 * Read the next record.
+	 *
+	 * @return the next record or null if there are no more complete records
+	 * @throws LoggingFailureException if the file cannot be read or is malformed
+	 */
+	public LogRecord next() throws LoggingFailureException {
+		try {
+			while (!this.finished) {
+				byte entry = this.input.readByte();
+				switch (entry) {
+				case LoggingTemplateHandler.STRING_ENTRY:
+					this.dictionary.add(LoggingRecordCodec.readString(this.input));
+					break;
+				case LoggingTemplateHandler.CLEAR_ENTRY:
+					this.dictionary.subList(1, this.dictionary.size()).clear();
+					break;
+				case LoggingTemplateHandler.CONTEXT_ENTRY:
+					this.context = this.readContext();
+					break;
+				case LoggingTemplateHandler.RECORD_ENTRY:
+					return this.readRecord();
+				default:
+					throw new LoggingFailureException("The log file " + this.name 
+							+ " contains the unknown entry " + entry + ".");
+				}
+			}
+		} catch (EOFException e) { // the end of the file or of a file still being written
+			this.finished = true;
+		} catch (IOException | IndexOutOfBoundsException e) {
+			throw new LoggingFailureException("The log file " + this.name + " is malformed.", e);
+		}
+		return null;
+	}
+
+	private LogRecord readRecord() throws IOException {
+		long millis = this.previousMillis + LoggingRecordCodec.readZigZagLong(this.input);
+		long nanos = LoggingRecordCodec.readVarLong(this.input);
+		long sequenceNumber = this.previousSequenceNumber + LoggingRecordCodec.readZigZagLong(this.input);
+		this.previousMillis = millis;
+		this.previousSequenceNumber = sequenceNumber;
+		String levelName = this.readReference();
+		int levelValue = (int) LoggingRecordCodec.readZigZagLong(this.input);
+		LogRecord record = new ContextRecord(LoggingRecordCodec.parseLevel(levelName, levelValue), null, 
+				this.context);
+		record.setInstant(Instant.ofEpochMilli(millis).plusNanos(nanos));
+		record.setSequenceNumber(sequenceNumber);
+		record.setLongThreadID(LoggingRecordCodec.readVarLong(this.input));
+		record.setLoggerName(this.readReference());
+		record.setSourceClassName(this.readReference());
+		record.setSourceMethodName(this.readReference());
+		record.setMessage(this.readReference());
+		int numberParameters = (int) LoggingRecordCodec.readVarLong(this.input);
+		if (numberParameters > 0) {
+			Object[] parameters = new Object[numberParameters];
+			for (int i = 0; i < numberParameters; i++) {
+				parameters[i] = this.readParameter();
+			}
+			record.setParameters(parameters);
+		}
+		if (this.input.readBoolean()) {
+			String representation = LoggingRecordCodec.readString(this.input);
+			StackTraceElement[] stackTrace = new StackTraceElement[(int) LoggingRecordCodec.readVarLong(this.input)];
+			for (int i = 0; i < stackTrace.length; i++) {
+				String className = this.readReference();
+				String methodName = this.readReference();
+				String fileName = this.readReference();
+				stackTrace[i] = new StackTraceElement(className, methodName, fileName, 
+						(int) LoggingRecordCodec.readZigZagLong(this.input));
+			}
+			record.setThrown(LoggingRecordCodec.decodeThrown(String.valueOf(representation), stackTrace));
+		}
+		return record;
+	}
+
+	private LoggingContext readContext() throws IOException {
+		LoggingContext newContext = LoggingContext.EMPTY;
+		int size = (int) LoggingRecordCodec.readVarLong(this.input);
+		for (int i = 0; i < size; i++) {
+			newContext = newContext.with(String.valueOf(this.readReference()), String.valueOf(this.readReference()));
+		}
+		return newContext;
+	}
+
+	/**
+	 * Get the context the record read last has been logged in.
+	 *
+	 * @return the context of the last record
+	 */
+	public LoggingContext getContext() {
+		return this.context;
+	}
+
+	private String readReference() throws IOException {
+		return this.dictionary.get((int) LoggingRecordCodec.readVarLong(this.input));
+	}
+
+	private Object readParameter() throws IOException {
+		byte type = this.input.readByte();
+		switch (type) {
+		case LoggingTemplateHandler.NULL_PARAMETER:
+			return null;
+		case LoggingTemplateHandler.STRING_PARAMETER:
+			return LoggingRecordCodec.readString(this.input);
+		case LoggingTemplateHandler.INTEGER_PARAMETER:
+			return (int) LoggingRecordCodec.readZigZagLong(this.input);
+		case LoggingTemplateHandler.LONG_PARAMETER:
+			return LoggingRecordCodec.readZigZagLong(this.input);
+		case LoggingTemplateHandler.DOUBLE_PARAMETER:
+			return this.input.readDouble();
+		case LoggingTemplateHandler.FLOAT_PARAMETER:
+			return this.input.readFloat();
+		case LoggingTemplateHandler.BOOLEAN_PARAMETER:
+			return this.input.readBoolean();
+		case LoggingTemplateHandler.DATE_PARAMETER:
+			return new Date(LoggingRecordCodec.readZigZagLong(this.input));
+		case LoggingTemplateHandler.DECIMAL_PARAMETER:
+			String decimal = LoggingRecordCodec.readString(this.input);
+			try {
+				return new BigDecimal(decimal);
+			} catch (NumberFormatException e) { // not a number like infinity
+				return Double.valueOf(decimal);
+			}
+		default:
+			throw new IOException("Unknown parameter type " + type + ".");
+		}
+	}
+
+	/**
+	 * Read all complete records of the specified template log file.
+	 *
+	 * @param logFile - the log file to read
+	 * @return all records in the order they have been written
+	 * @throws LoggingFailureException if the file cannot be read or is malformed
+	 */
+	public static List<LogRecord> readAll(File logFile) throws LoggingFailureException {
+		List<LogRecord> records = new ArrayList<LogRecord>();
+		try (LoggingTemplateReader reader = new LoggingTemplateReader(logFile)) {
+			LogRecord record;
+			while ((record = reader.next()) != null) {
+				records.add(record);
+			}
+		} catch (IOException e) {
+			throw new LoggingFailureException("The log file " + logFile + " could not be closed.", e);
+		}
+		return records;
+	}
+
+	/**
+	 * Format all records of the specified template log file along with their context.
+	 *
+	 * @param logFile - the log file to read
+	 * @param format - the text format to write the records in
+	 * @param output - the stream to write the formatted records to
+	 * @return the number of records written
+	 * @throws LoggingFailureException if the file cannot be read or is malformed
+	 * @throws IllegalArgumentException if the format is not text based
+	 */
+	public static long decode(File logFile, LoggingFormat format, PrintStream output) throws LoggingFailureException {
+		Formatter formatter = format.createFormatter();
+		if (formatter == null) {
+			throw new IllegalArgumentException("Records cannot be printed in the " + format + " format.");
+		}
+		long decoded = 0L;
+		output.print(formatter.getHead(null));
+		try (LoggingTemplateReader reader = new LoggingTemplateReader(logFile)) {
+			LogRecord record;
+			while ((record = reader.next()) != null) {
+				output.print(formatter.format(record));
+				decoded++;
+			}
+		} catch (IOException e) {
+			throw new LoggingFailureException("The log file " + logFile + " could not be closed.", e);
+		}
+		output.print(formatter.getTail(null));
+		return decoded;
+	}
+
+	/**
+	 * Print the records of a template log file.
+	 *
+	 * @param args - the log file followed by the optional output format, simple by default
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: LoggingTemplateReader <log file> [simple|xml]");
+			System.exit(1);
+		}
+		try {
+			LoggingFormat format = args.length > 1 ? LoggingFormat.forName(args[1]) : LoggingFormat.SIMPLE;
+			LoggingTemplateReader.decode(new File(args[0]), format, System.out);
+		} catch (LoggingFailureException | IllegalArgumentException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.input.close();
+	}
+
+}
@@ -0,0 +1,401 @@
+package central.logging.functionality;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+
+/**
+ * The LoggingWriterPool class writes the log files of all {@link Logging} instances using 
+ * pooled writing with a bounded number of threads shared by the whole JVM. Records are 
+ * formatted by the logging thread and appended to a buffer of their log file, which is 
+ * queued for writing once. The writer threads take the log files in the order they became 
+ * ready, so every log file gets its turn, and write all records buffered in the meantime 
+ * at once. Only a limited number of log files is kept open, the least recently written 
+ * ones are closed and reopened for appending when needed again. Thereby threads, file 
+ * descriptors and system calls scale with the number of writer threads instead of the 
+ * number of logging facilities. The same threads write the records queued by logging 
+ * facilities with a {@link LoggingBackpressure}, one batch per turn.
+ * <p>
+ * Records of at least the {@link #PRIORITY_LEVEL} are written at once by the logging 
+ * thread, along with the records buffered before them. When the JVM shuts down, all log 
+ * files of the pool and all asynchronously written log files are drained within the 
+ * shutdown timeout. Then the log files of all logging facilities still writing are closed, 
+ * whether written by the pool, asynchronously or directly, so every log file is complete 
+ * and unlocked. Their loggers are not known to the log manager, which closes the handlers 
+ * of its loggers.
+ * 
+ * @author Planters
+ *
+ */
+public final class LoggingWriterPool {
+
+	/**
+	 * The default maximum number of log files kept open.
+	 */
+	public static final int DEFAULT_MAXIMUM_OPEN_FILES = 64;
+	/**
+	 * The number of buffered bytes above which a logging thread writes its log file itself 
+	 * instead of waiting for a writer thread.
+	 */
+	public static final int MAXIMUM_BUFFERED_BYTES = 256 * 1024;
+	/**
+	 * The minimum level of records written ahead of bulk records and flushed immediately.
+	 */
+	public static final Level PRIORITY_LEVEL = Level.WARNING;
+	/**
+	 * The default maximum time in milliseconds to drain all log files when the JVM shuts down.
+	 */
+	public static final long DEFAULT_SHUTDOWN_TIMEOUT = 5000L;
+
+	/**
+	 * The writes of log files with buffered or queued records in the order they became ready.
+	 */
+	private static final LinkedBlockingQueue<Runnable> READY = new LinkedBlockingQueue<Runnable>();
+	/**
+	 * The thread queueing writes that are due later, started on first use.
+	 */
+	private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(task -> {
+		Thread timer = new Thread(task, "LoggingWriterTimer");
+		timer.setDaemon(true);
+		return timer;
+	});
+	/**
+	 * The open log files, the least recently written first.
+	 */
+	private static final Map<PooledFileHandler, Boolean> OPEN_FILES = new LinkedHashMap<PooledFileHandler, Boolean>(
+			16, 0.75f, true);
+	private static final List<Thread> WRITERS = new ArrayList<Thread>();
+	/**
+	 * The handlers writing log files asynchronously, which are drained on shutdown.
+	 */
+	private static final Set<AsynchronousHandler> ASYNCHRONOUS_HANDLERS = ConcurrentHashMap.newKeySet();
+	/**
+	 * The handlers attached by logging facilities and the handlers buffering records of 
+	 * their own, which are closed on shutdown. They are weakly referenced, so forgotten 
+	 * logging facilities are still collected.
+	 */
+	private static final Set<Handler> ATTACHED_HANDLERS = Collections.synchronizedSet(
+			Collections.newSetFromMap(new WeakHashMap<Handler, Boolean>()));
+	private static final AtomicLong WRITES = new AtomicLong();
+	private static final AtomicLong WRITTEN_RECORDS = new AtomicLong();
+	private static volatile int writerThreads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+	private static volatile int maximumOpenFiles = LoggingWriterPool.DEFAULT_MAXIMUM_OPEN_FILES;
+	private static volatile long shutdownTimeout = LoggingWriterPool.DEFAULT_SHUTDOWN_TIMEOUT;
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(LoggingWriterPool::shutdown, "LoggingShutdown"));
+	}
+
+	private LoggingWriterPool() {
+		// Do nothing as this class only provides static methods.
+	}
+
+	/**
+	 * Get the number of threads writing log files.
+	 * 
+	 * @return the number of writer threads
+	 */
+	public static int getWriterThreads() {
+		return LoggingWriterPool.writerThreads;
+	}
+
+	/**
+	 * Set the number of threads writing log files. Surplus threads finish once they are idle.
+	 * 
+	 * @param writerThreads - the number of writer threads
+	 * @throws IllegalArgumentException if the number is less than 1
+	 */
+	public static void setWriterThreads(int writerThreads) {
+		if (writerThreads < 1) {
+			throw new IllegalArgumentException("There must be at least 1 writer thread.");
+		}
+		LoggingWriterPool.writerThreads = writerThreads;
+		if (!LoggingWriterPool.READY.isEmpty()) {
+			LoggingWriterPool.startWriters();
+		}
+	}
+
+	/**
+	 * Get the maximum number of log files kept open.
+	 * 
+	 * @return the maximum number of open files
+	 */
+	public static int getMaximumOpenFiles() {
+		return LoggingWriterPool.maximumOpenFiles;
+	}
+
+	/**
+	 * Set the maximum number of log files kept open. Log files exceeding it are closed 
+	 * when the next log file is opened.
+	 * 
+	 * @param maximumOpenFiles - the maximum number of open files
+	 * @throws IllegalArgumentException if the number is less than 1
+	 */
+	public static void setMaximumOpenFiles(int maximumOpenFiles) {
+		if (maximumOpenFiles < 1) {
+			throw new IllegalArgumentException("At least 1 log file must be kept open.");
+		}
+		LoggingWriterPool.maximumOpenFiles = maximumOpenFiles;
+	}
+
+	/**
+	 * Get the maximum time to drain all log files when the JVM shuts down.
+	 * 
+	 * @return the shutdown timeout in milliseconds
+	 */
+	public static long getShutdownTimeout() {
+		return LoggingWriterPool.shutdownTimeout;
+	}
+
+	/**
+	 * Set the maximum time to drain all log files when the JVM shuts down. Records not 
+	 * written by then may be lost.
+	 * 
+	 * @param shutdownTimeout - the shutdown timeout in milliseconds
+	 * @throws IllegalArgumentException if the timeout is negative
+	 */
+	public static void setShutdownTimeout(long shutdownTimeout) {
+		if (shutdownTimeout < 0L) {
+			throw new IllegalArgumentException("The shutdown timeout cannot be negative.");
+		}
+		LoggingWriterPool.shutdownTimeout = shutdownTimeout;
+	}
+
+	/**
+	 * Write all records buffered by the pool and queued for asynchronous writing, as done
+	 * when the JVM shuts down.
+	 * 
+	 * @param timeout - the maximum time to wait in milliseconds
+	 * @return true if all records have been written within the timeout
+	 */
+	public static boolean drain(long timeout) {
+		long deadline = System.currentTimeMillis() + timeout;
+		Runnable task;
+		while (System.currentTimeMillis() < deadline && (task = LoggingWriterPool.READY.poll()) != null) {
+			task.run();
+		}
+		boolean drained = LoggingWriterPool.READY.isEmpty();
+		for (AsynchronousHandler asynchronousHandler : LoggingWriterPool.ASYNCHRONOUS_HANDLERS) {
+			drained &= asynchronousHandler.drain(deadline);
+		}
+		return drained;
+	}
+
+	/**
+	 * Drain all log files and close the handlers of all logging facilities still writing, 
+	 * so their log files are complete and unlocked once the JVM has exited.
+	 */
+	private static void shutdown() {
+		long deadline = System.currentTimeMillis() + LoggingWriterPool.shutdownTimeout;
+		LoggingWriterPool.drain(LoggingWriterPool.shutdownTimeout);
+		List<Handler> handlers;
+		synchronized (LoggingWriterPool.ATTACHED_HANDLERS) {
+			handlers = new ArrayList<Handler>(LoggingWriterPool.ATTACHED_HANDLERS);
+		}
+		for (Handler handler : handlers) { // records queued late are only waited for until the deadline
+			if (handler instanceof AsynchronousHandler) {
+				((AsynchronousHandler) handler).close(deadline);
+			} else {
+				handler.close();
+			}
+		}
+	}
+
+	/**
+	 * Get the number of log files currently open for writing.
+	 * 
+	 * @return the number of open files
+	 */
+	public static int getOpenFiles() {
+		synchronized (LoggingWriterPool.OPEN_FILES) {
+			return LoggingWriterPool.OPEN_FILES.size();
+		}
+	}
+
+	/**
+	 * Get the number of writes to log files so far, each of which may contain many records.
+	 * 
+	 * @return the number of writes
+	 */
+	public static long getWrites() {
+		return LoggingWriterPool.WRITES.get();
+	}
+
+	/**
+	 * Get the number of records written to log files so far.
+	 * 
+	 * @return the number of written records
+	 */
+	public static long getWrittenRecords() {
+		return LoggingWriterPool.WRITTEN_RECORDS.get();
+	}
+
+	/**
+	 * Drain the specified handler when the JVM shuts down.
+	 * 
+	 * @param handler - the handler writing asynchronously
+	 */
+	static void register(AsynchronousHandler handler) {
+		LoggingWriterPool.ASYNCHRONOUS_HANDLERS.add(handler);
+	}
+
+	/**
+	 * Stop draining the specified handler when the JVM shuts down.
+	 * 
+	 * @param handler - the closed handler
+	 */
+	static void unregister(AsynchronousHandler handler) {
+		LoggingWriterPool.ASYNCHRONOUS_HANDLERS.remove(handler);
+	}
+
+	/**
+	 * Close the specified handler when the JVM shuts down.
+	 * 
+	 * @param handler - the handler attached by a logging facility or buffering records
+	 */
+	static void attach(Handler handler) {
+		LoggingWriterPool.ATTACHED_HANDLERS.add(handler);
+	}
+
+	/**
+	 * Stop closing the specified handler when the JVM shuts down.
+	 * 
+	 * @param handler - the handler detached by a logging facility or closed
+	 */
+	static void detach(Handler handler) {
+		LoggingWriterPool.ATTACHED_HANDLERS.remove(handler);
+	}
+
+	/**
+	 * Queue the write of a log file for the next idle writer thread.
+	 * 
+	 * @param task - the write of the buffered or queued records
+	 */
+	static void schedule(Runnable task) {
+		LoggingWriterPool.READY.add(task);
+		synchronized (LoggingWriterPool.WRITERS) {
+			if (LoggingWriterPool.WRITERS.size() < LoggingWriterPool.writerThreads) {
+				LoggingWriterPool.startWriters();
+			}
+		}
+	}
+
+	/**
+	 * Queue the write of a log file once the specified time has passed.
+	 * 
+	 * @param task - the task queueing the write
+	 * @param delay - the delay in milliseconds
+	 */
+	static void scheduleLater(Runnable task, long delay) {
+		LoggingWriterPool.TIMER.schedule(task, delay, TimeUnit.MILLISECONDS);
+	}
+
+	private static void startWriters() {
+		synchronized (LoggingWriterPool.WRITERS) {
+			while (LoggingWriterPool.WRITERS.size() < LoggingWriterPool.writerThreads) {
+				Thread writer = new Thread(LoggingWriterPool::write, 
+						"LoggingWriterPool-" + LoggingWriterPool.WRITERS.size());
+				writer.setDaemon(true);
+				LoggingWriterPool.WRITERS.add(writer);
+				writer.start();
+			}
+		}
+	}
+
+	private static void write() {
+		try {
+			while (true) {
+				Runnable task = LoggingWriterPool.READY.poll(1, TimeUnit.SECONDS);
+				if (task != null) {
+					task.run();
+				} else {
+					synchronized (LoggingWriterPool.WRITERS) { // finish surplus threads when idle
+						if (LoggingWriterPool.WRITERS.size() > LoggingWriterPool.writerThreads 
+								|| LoggingWriterPool.READY.isEmpty()) {
+							LoggingWriterPool.WRITERS.remove(Thread.currentThread());
+							return;
+						}
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			synchronized (LoggingWriterPool.WRITERS) {
+				LoggingWriterPool.WRITERS.remove(Thread.currentThread());
+			}
+		}
+	}
+
+	/**
+	 * Count a write of the specified number of records.
+	 * 
+	 * @param records - the number of records written at once
+	 */
+	static void written(int records) {
+		LoggingWriterPool.WRITES.incrementAndGet();
+		LoggingWriterPool.WRITTEN_RECORDS.addAndGet(records);
+	}
+
+	/**
+	 * Get the open channel of the log file, opening it for appending if necessary and 
+	 * closing the least recently written log files exceeding the maximum. Log files 
+	 * currently being written by another thread are skipped.
+	 * 
+	 * @param handler - the handler writing the log file, whose write lock is held
+	 * @return the channel to write to
+	 * @throws IOException if the log file cannot be opened
+	 */
+	static FileChannel open(PooledFileHandler handler) throws IOException {
+		List<PooledFileHandler> evicted = new ArrayList<PooledFileHandler>();
+		FileChannel channel;
+		synchronized (LoggingWriterPool.OPEN_FILES) {
+			channel = handler.getChannel();
+			if (channel == null) {
+				channel = FileChannel.open(handler.getLogFile().toPath(), 
+						StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+				handler.setChannel(channel);
+			}
+			LoggingWriterPool.OPEN_FILES.put(handler, Boolean.TRUE);
+			Iterator<PooledFileHandler> leastRecent = LoggingWriterPool.OPEN_FILES.keySet().iterator();
+			int excess = LoggingWriterPool.OPEN_FILES.size() - LoggingWriterPool.maximumOpenFiles;
+			while (excess > 0 && leastRecent.hasNext()) {
+				PooledFileHandler candidate = leastRecent.next();
+				if (candidate != handler && candidate.tryLockWriting()) {
+					leastRecent.remove();
+					evicted.add(candidate);
+					excess--;
+				}
+			}
+		}
+		for (PooledFileHandler candidate : evicted) {
+			candidate.closeChannel();
+		}
+		return channel;
+	}
+
+	/**
+	 * Forget the open channel of the log file, which the caller closes.
+	 * 
+	 * @param handler - the handler writing the log file
+	 */
+	static void closed(PooledFileHandler handler) {
+		synchronized (LoggingWriterPool.OPEN_FILES) {
+			LoggingWriterPool.OPEN_FILES.remove(handler);
+		}
+	}
+
+}
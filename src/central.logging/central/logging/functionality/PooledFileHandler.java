@@ -0,0 +1,197 @@
+package central.logging.functionality;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * The PooledFileHandler class writes records to a log file like a 
+ * {@link java.util.logging.FileHandler} without size limit, but leaves writing to the 
+ * {@link LoggingWriterPool}. Publishing only formats the record and appends it to a 
+ * buffer, all records buffered until a writer thread takes the log file are written at once. 
+ * Records of at least {@link LoggingWriterPool#PRIORITY_LEVEL} are written by the logging 
+ * thread right away instead.
+ *
+ * @author Planters
+ *
+ */
+final class PooledFileHandler extends Handler {
+
+	private final File logFile;
+	/**
+	 * The records formatted but not yet written, guarded by this handler.
+	 */
+	private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+	private int bufferedRecords = 0;
+	private boolean scheduled = false;
+	private boolean closed = false;
+	/**
+	 * Held while writing to the channel, so buffers are written in order.
+	 */
+	private final ReentrantLock writing = new ReentrantLock();
+	private FileChannel channel = null;
+
+	/**
+	 * Create a handler writing to the specified file in UTF-8, which is replaced if it exists.
+	 *
+	 * @param logFile - the path of the log file to write
+	 * @param formatter - the formatter of the records
+	 * @throws IOException if the file cannot be created
+	 */
+	PooledFileHandler(String logFile, Formatter formatter) throws IOException {
+		this.logFile = new File(logFile);
+		this.setEncoding(StandardCharsets.UTF_8.name()); // declared in the head of XML files
+		this.setFormatter(formatter);
+		Files.write(this.logFile.toPath(), formatter.getHead(this).getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public void publish(LogRecord record) {
+		if (!this.isLoggable(record)) {
+			return;
+		}
+		byte[] formatted;
+		try {
+			formatted = this.getFormatter().format(record).getBytes(StandardCharsets.UTF_8);
+		} catch (RuntimeException e) {
+			this.reportError("The record could not be formatted.", e, ErrorManager.FORMAT_FAILURE);
+			return;
+		}
+		boolean schedule;
+		boolean writeNow;
+		synchronized (this) {
+			if (this.closed) {
+				return;
+			}
+			this.buffer.write(formatted, 0, formatted.length);
+			this.bufferedRecords++;
+			schedule = !this.scheduled;
+			this.scheduled = true;
+			writeNow = this.buffer.size() > LoggingWriterPool.MAXIMUM_BUFFERED_BYTES 
+					|| record.getLevel().intValue() >= LoggingWriterPool.PRIORITY_LEVEL.intValue();
+		}
+		if (schedule) {
+			LoggingWriterPool.schedule(this::writeBuffered);
+		}
+		// slow down logging threads outpacing the writer threads and never delay severe records
+		if (writeNow) {
+			this.writeBuffered();
+		}
+	}
+
+	/**
+	 * Write all buffered records at once.
+	 */
+	void writeBuffered() {
+		this.writing.lock();
+		try {
+			byte[] records;
+			int recordCount;
+			synchronized (this) {
+				records = this.buffer.toByteArray();
+				recordCount = this.bufferedRecords;
+				this.buffer.reset();
+				this.bufferedRecords = 0;
+				this.scheduled = false;
+			}
+			if (records.length > 0) {
+				ByteBuffer remaining = ByteBuffer.wrap(records);
+				FileChannel target = LoggingWriterPool.open(this);
+				while (remaining.hasRemaining()) {
+					target.write(remaining);
+				}
+				LoggingWriterPool.written(recordCount);
+			}
+		} catch (IOException e) {
+			this.reportError("The records could not be written.", e, ErrorManager.WRITE_FAILURE);
+		} finally {
+			this.writing.unlock();
+		}
+	}
+
+	/**
+	 * Write all buffered records without waiting for a writer thread.
+	 */
+	@Override
+	public void flush() {
+		this.writeBuffered();
+	}
+
+	@Override
+	public void close() throws SecurityException {
+		synchronized (this) {
+			if (this.closed) {
+				return;
+			}
+			this.closed = true;
+			byte[] tail = this.getFormatter().getTail(this).getBytes(StandardCharsets.UTF_8);
+			this.buffer.write(tail, 0, tail.length);
+		}
+		this.writeBuffered();
+		this.writing.lock();
+		LoggingWriterPool.closed(this);
+		this.closeChannel();
+	}
+
+	/**
+	 * Get the log file written by this handler.
+	 *
+	 * @return the log file
+	 */
+	File getLogFile() {
+		return this.logFile;
+	}
+
+	/**
+	 * Get the channel of the log file while the write lock is held.
+	 *
+	 * @return the channel or null if the log file is not open
+	 */
+	FileChannel getChannel() {
+		return this.channel;
+	}
+
+	/**
+	 * Set the channel of the log file while the write lock is held.
+	 *
+	 * @param channel - the open channel
+	 */
+	void setChannel(FileChannel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * Acquire the write lock unless another thread is writing.
+	 *
+	 * @return true if the lock has been acquired
+	 */
+	boolean tryLockWriting() {
+		return this.writing.tryLock();
+	}
+
+	/**
+	 * Close the channel of the log file and release the write lock.
+	 */
+	void closeChannel() {
+		try {
+			if (this.channel != null) {
+				this.channel.close();
+				this.channel = null;
+			}
+		} catch (IOException e) {
+			this.reportError("The log file could not be closed.", e, ErrorManager.CLOSE_FAILURE);
+		} finally {
+			this.writing.unlock();
+		}
+	}
+
+}
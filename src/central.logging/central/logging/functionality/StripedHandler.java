@@ -0,0 +1,56 @@
+package central.logging.functionality;
+
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * The StripedHandler class spreads records over several handlers, each writing a stripe 
+ * of the same log file to another logging folder, so the write bandwidth of several 
+ * devices adds up. Records are assigned to stripes by the thread that logged them, so 
+ * the records of a thread stay in order within a single stripe.
+ *
+ * @author Planters
+ *
+ */
+final class StripedHandler extends Handler {
+
+	private final Handler[] stripes;
+
+	/**
+	 * Create a handler spreading records over the specified handlers.
+	 *
+	 * @param stripes - the handlers writing the stripes
+	 * @throws IllegalArgumentException if there are no handlers
+	 */
+	StripedHandler(Handler[] stripes) {
+		if (stripes.length == 0) {
+			throw new IllegalArgumentException("There must be at least one stripe.");
+		}
+		this.stripes = stripes.clone();
+	}
+
+	@Override
+	public void publish(LogRecord record) {
+		if (this.isLoggable(record)) {
+			long thread = record.getLongThreadID();
+			// spread the bits of consecutive thread identifiers over all stripes
+			int hash = Long.hashCode(thread * 0x9E3779B97F4A7C15L);
+			this.stripes[Math.floorMod(hash, this.stripes.length)].publish(record);
+		}
+	}
+
+	@Override
+	public void flush() {
+		for (Handler stripe : this.stripes) {
+			stripe.flush();
+		}
+	}
+
+	@Override
+	public void close() throws SecurityException {
+		for (Handler stripe : this.stripes) {
+			stripe.close();
+		}
+	}
+
+}
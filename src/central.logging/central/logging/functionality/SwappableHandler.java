@@ -0,0 +1,126 @@
+package central.logging.functionality;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * The SwappableHandler class forwards all records to a delegate handler, which can
+ * be replaced while records are published. Publishing threads are never blocked
+ * by a swap and a record is never handed to a delegate that has already been
+ * swapped out and closed. Subscribers receive every record right after it has been
+ * handed to the delegate.
+ *
+ * @author Planters
+ *
+ */
+final class SwappableHandler extends Handler {
+
+	/**
+	 * The delegate currently receiving records.
+	 */
+	private volatile Delegate current;
+	private final List<Consumer<LogRecord>> subscribers;
+
+	/**
+	 * Create a handler forwarding all records to the specified handler.
+	 *
+	 * @param handler - the initial delegate
+	 */
+	SwappableHandler(Handler handler) {
+		this(handler, Collections.<Consumer<LogRecord>>emptyList());
+	}
+
+	/**
+	 * Create a handler forwarding all records to the specified handler and subscribers.
+	 *
+	 * @param handler - the initial delegate
+	 * @param subscribers - the subscribers, which may be changed concurrently later on
+	 */
+	SwappableHandler(Handler handler, List<Consumer<LogRecord>> subscribers) {
+		this.current = new Delegate(handler);
+		this.subscribers = subscribers;
+	}
+
+	@Override
+	public void publish(LogRecord record) {
+		if (!this.isLoggable(record)) {
+			return;
+		}
+		while (true) {
+			Delegate delegate = this.current;
+			delegate.inFlight.incrementAndGet();
+			try {
+				// only publish if the delegate has not been swapped out in the meantime
+				if (delegate == this.current) {
+					delegate.handler.publish(record);
+					break;
+				}
+			} finally {
+				delegate.inFlight.decrementAndGet();
+			}
+		}
+		for (Consumer<LogRecord> subscriber : this.subscribers) {
+			try {
+				subscriber.accept(record);
+			} catch (RuntimeException e) {
+				this.reportError("A subscriber failed to receive the record.", e, ErrorManager.GENERIC_FAILURE);
+			}
+		}
+	}
+
+	/**
+	 * Replace the current delegate. This method returns as soon as all records
+	 * in flight have been published to the old delegate, so that it can be
+	 * closed safely.
+	 *
+	 * @param handler - the new delegate
+	 * @return the old delegate
+	 */
+	Handler swap(Handler handler) {
+		Delegate old = this.current;
+		this.current = new Delegate(handler);
+		while (old.inFlight.get() > 0) {
+			Thread.onSpinWait();
+		}
+		return old.handler;
+	}
+
+	/**
+	 * Get the handler currently receiving records.
+	 *
+	 * @return the current delegate
+	 */
+	Handler getDelegate() {
+		return this.current.handler;
+	}
+
+	@Override
+	public void flush() {
+		this.current.handler.flush();
+	}
+
+	@Override
+	public void close() throws SecurityException {
+		this.current.handler.close();
+	}
+
+	/**
+	 * A handler together with the number of records currently published to it.
+	 */
+	private static final class Delegate {
+
+		private final Handler handler;
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		private Delegate(Handler handler) {
+			this.handler = handler;
+		}
+
+	}
+
+}
@@ -0,0 +1,110 @@
+package central.logging.testing;
+
+import java.io.File;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import central.logging.functionality.CallerInfoMode;
+import central.logging.functionality.Logging;
+import central.logging.functionality.LoggingFailureException;
+import central.logging.functionality.LoggingFormat;
+
+/**
+ * The LoggingBenchmark class measures the cost of logging calls for the 
+ * different ways of determining the caller of a record and the different 
+ * log file formats.
+ * 
+ * @author Planters
+ *
+ */
+public class LoggingBenchmark {
+
+	private static final int WARMUP = 200000;
+	private static final int ITERATIONS = 1000000;
+	
+	/**
+	 * Sink preventing the JIT from removing unused results.
+	 */
+	private static long sink = 0L;
+	
+	public static void main(String[] args) {
+		System.out.println("Start running benchmarks");
+		for (CallerInfoMode mode : CallerInfoMode.values()) {
+			LoggingBenchmark.benchmarkCallerInfoMode(mode);
+		}
+		for (LoggingFormat format : LoggingFormat.values()) {
+			LoggingBenchmark.benchmarkLogFormat(format);
+		}
+		System.out.println("All benchmarks finished (" + LoggingBenchmark.sink + ")");
+	}
+	
+	private static void benchmarkCallerInfoMode(CallerInfoMode mode) {
+		Logging testLogger = new Logging();
+		testLogger.setCallerInfoMode(mode);
+		testLogger.getLog().addHandler(new Handler() {
+			@Override
+			public void publish(LogRecord record) {
+				// request the source like any formatter writing it does
+				String sourceClass = record.getSourceClassName();
+				String sourceMethod = record.getSourceMethodName();
+				LoggingBenchmark.sink += (sourceClass != null ? sourceClass.length() : 0) 
+						+ (sourceMethod != null ? sourceMethod.length() : 0);
+			}
+
+			@Override
+			public void flush() {
+				// Do nothing as no records are stored.
+			}
+
+			@Override
+			public void close() throws SecurityException {
+				// Do nothing as no records are stored.
+			}
+		});
+		LoggingBenchmark.logRepeatedly(testLogger, mode, LoggingBenchmark.WARMUP);
+		long start = System.nanoTime();
+		LoggingBenchmark.logRepeatedly(testLogger, mode, LoggingBenchmark.ITERATIONS);
+		long duration = System.nanoTime() - start;
+		System.out.println(String.format("Caller info mode %-12s %8.1f ns/record", mode, 
+				(double) duration / LoggingBenchmark.ITERATIONS));
+	}
+	
+	private static void benchmarkLogFormat(LoggingFormat format) {
+		Logging testLogger = new Logging(new File("BenchmarkLog"), "BenchmarkLog");
+		testLogger.setLogFormat(format);
+		testLogger.setCallerInfoMode(CallerInfoMode.OFF); // measure the formats only
+		try {
+			testLogger.startLogWriting();
+			int iterations = LoggingBenchmark.ITERATIONS / 10;
+			long start = System.nanoTime();
+			for (int i = 0; i < iterations; i++) {
+				testLogger.getLog().log(Level.INFO, "Request {0} of {1} took {2} ms", 
+						new Object[] {i, "client" + (i % 7), i * 0.5});
+			}
+			testLogger.stopLogWriting();
+			long duration = System.nanoTime() - start;
+			File logFile = testLogger.getLogFiles()[0];
+			System.out.println(String.format("Log format %-12s %8.1f ns/record %8.1f bytes/record", format, 
+					(double) duration / iterations, (double) logFile.length() / iterations));
+		} catch (LoggingFailureException e) {
+			e.printStackTrace();
+		} finally {
+			for (File logFile : testLogger.getLogFiles()) {
+				logFile.delete();
+			}
+			testLogger.getLoggingFolder().delete();
+		}
+	}
+	
+	private static void logRepeatedly(Logging testLogger, CallerInfoMode mode, int iterations) {
+		for (int i = 0; i < iterations; i++) {
+			if (mode == CallerInfoMode.EXPLICIT) {
+				testLogger.logp(Level.INFO, "LoggingBenchmark", "logRepeatedly", "Benchmark record");
+			} else {
+				testLogger.getLog().info("Benchmark record");
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,426 @@
+package central.logging.testing;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.LogRecord;
+
+import central.logging.functionality.Logging;
+import central.logging.functionality.LoggingBackpressure;
+import central.logging.functionality.LoggingConfiguration;
+import central.logging.functionality.LoggingFailureException;
+import central.logging.functionality.LoggingFileReader;
+
+/**
+ * The LoggingStressTest class logs from many threads to many logging facilities at 
+ * once, while their log files are rotated, pruned and log writing is stopped and started 
+ * again. Every log file is read as soon as it has been closed to verify that no record 
+ * has been lost, duplicated, reordered or garbled. Finally the throughput and the 
+ * distribution of the time taken by the logging calls are reported.
+ * 
+ * @author Planters
+ *
+ */
+public class LoggingStressTest {
+
+	private static final File STRESS_FOLDER = new File("StressLog");
+	/**
+	 * The time in milliseconds between two rotations or restarts.
+	 */
+	private static final long CYCLE_INTERVAL = 50L;
+	
+	/**
+	 * Run the stress test.
+	 * 
+	 * @param args - the duration in seconds, the number of threads and the number of 
+	 * logging facilities, all optional
+	 */
+	public static void main(String[] args) {
+		long seconds = args.length > 0 ? Long.parseLong(args[0]) : 10L;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		int instances = args.length > 2 ? Integer.parseInt(args[2]) : 6;
+		if (!LoggingStressTest.run(seconds * 1000L, threads, instances, System.out)) {
+			System.exit(1);
+		}
+	}
+	
+	/**
+	 * Log concurrently for the specified time and verify all written records.
+	 * 
+	 * @param duration - the duration in milliseconds
+	 * @param threads - the number of logging threads
+	 * @param instances - the number of logging facilities, written synchronously, 
+	 * by the writer pool and asynchronously in turn
+	 * @param out - the stream to report to
+	 * @return true if all records have been written exactly once and in order
+	 */
+	static boolean run(long duration, int threads, int instances, PrintStream out) {
+		Target[] targets = new Target[instances];
+		Worker[] workers = new Worker[threads];
+		int rotations = 0;
+		int restarts = 0;
+		try {
+			for (int i = 0; i < instances; i++) {
+				targets[i] = new Target(i, threads);
+			}
+			for (int t = 0; t < threads; t++) {
+				workers[t] = new Worker(t, targets);
+				workers[t].start();
+			}
+			long start = System.currentTimeMillis();
+			long end = start + duration;
+			while (System.currentTimeMillis() < end) {
+				Thread.sleep(LoggingStressTest.CYCLE_INTERVAL);
+				Target target = targets[ThreadLocalRandom.current().nextInt(instances)];
+				if (ThreadLocalRandom.current().nextBoolean()) {
+					target.rotate();
+					rotations++;
+				} else {
+					target.restart();
+					restarts++;
+				}
+			}
+			for (Worker worker : workers) {
+				worker.running = false;
+			}
+			for (Worker worker : workers) {
+				worker.join();
+			}
+			long elapsed = System.currentTimeMillis() - start;
+			for (Target target : targets) {
+				target.stop();
+			}
+			return LoggingStressTest.report(targets, workers, elapsed, rotations, restarts, out);
+		} catch (LoggingFailureException | InterruptedException e) {
+			e.printStackTrace();
+			return false;
+		} finally {
+			for (Worker worker : workers) {
+				if (worker != null) {
+					worker.running = false;
+				}
+			}
+			for (Target target : targets) {
+				if (target != null) {
+					target.delete();
+				}
+			}
+			LoggingStressTest.STRESS_FOLDER.delete();
+		}
+	}
+	
+	private static boolean report(Target[] targets, Worker[] workers, long elapsed, int rotations, 
+			int restarts, PrintStream out) {
+		LatencyHistogram latencies = new LatencyHistogram();
+		long logged = 0L;
+		long lost = 0L;
+		long duplicated = 0L;
+		long reordered = 0L;
+		long garbled = 0L;
+		long dropped = 0L;
+		int files = 0;
+		for (Worker worker : workers) {
+			latencies.add(worker.latencies);
+		}
+		for (Target target : targets) {
+			for (int t = 0; t < workers.length; t++) {
+				long expected = workers[t].sequences[target.index];
+				logged += expected;
+				lost += expected - target.found[t].cardinality();
+			}
+			duplicated += target.duplicated;
+			reordered += target.reordered;
+			garbled += target.garbled;
+			files += target.verifiedFiles.size();
+			if (target.logging.getBackpressure() != null) {
+				dropped += target.logging.getBackpressure().getDroppedRecords();
+			}
+		}
+		out.println(String.format("Logged %d records to %d logging facilities from %d threads in %d ms", 
+				logged, targets.length, workers.length, elapsed));
+		out.println(String.format("Verified %d log files after %d rotations and %d restarts", 
+				files, rotations, restarts));
+		out.println(String.format("Throughput %.0f records/s", logged * 1000.0 / elapsed));
+		out.println(String.format("Call latency p50 %d ns, p99 %d ns, p999 %d ns, max %d ns", 
+				latencies.getPercentile(0.5), latencies.getPercentile(0.99), 
+				latencies.getPercentile(0.999), latencies.getMaximum()));
+		out.println(String.format("Lost %d (dropped by backpressure %d), duplicated %d, reordered %d, garbled %d", 
+				lost, dropped, duplicated, reordered, garbled));
+		return lost == dropped && duplicated == 0L && reordered == 0L && garbled == 0L;
+	}
+	
+	/**
+	 * A logging facility and the records found in its log files so far.
+	 */
+	private static final class Target {
+		
+		private final int index;
+		private final Logging logging;
+		/**
+		 * Held by logging threads to log and by the controller to stop and start log writing.
+		 */
+		private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+		private volatile boolean writing = false;
+		private final BitSet[] found;
+		private final Set<File> verifiedFiles = new HashSet<File>();
+		private long duplicated = 0L;
+		private long reordered = 0L;
+		private long garbled = 0L;
+		
+		private Target(int index, int threads) throws LoggingFailureException {
+			this.index = index;
+			this.logging = new Logging(new File(LoggingStressTest.STRESS_FOLDER, "Facility" + index), "StressA");
+			this.logging.setNumberLogFiles(2); // prune on every rotation
+			if (index % 3 == 1) {
+				this.logging.setPooledWriting(true);
+			} else if (index % 3 == 2) {
+				LoggingBackpressure backpressure = new LoggingBackpressure();
+				backpressure.setQueueCapacity(1 << 16);
+				backpressure.setQueueDepthThresholds(1.0, 1.0); // only drop records when the queue is full
+				backpressure.setLatencyThresholds(Long.MAX_VALUE, Long.MAX_VALUE);
+				this.logging.setBackpressure(backpressure);
+			}
+			this.found = new BitSet[threads];
+			for (int t = 0; t < threads; t++) {
+				this.found[t] = new BitSet();
+			}
+			this.logging.startLogWriting();
+			this.writing = true;
+		}
+		
+		/**
+		 * Continue with a new log file without stopping log writing.
+		 */
+		private void rotate() throws LoggingFailureException {
+			String logFileName = "StressA".equals(this.logging.getLogFileName()) ? "StressB" : "StressA";
+			Set<File> before = new HashSet<File>(Arrays.asList(this.listLogFiles()));
+			this.logging.reconfigure(new LoggingConfiguration(null, logFileName, null, null, null));
+			for (File logFile : this.listLogFiles()) {
+				if (!before.contains(logFile)) { // file names do not sort by time
+					this.verify(logFile);
+				}
+			}
+		}
+		
+		private void restart() throws LoggingFailureException {
+			this.lock.writeLock().lock();
+			try {
+				this.stop();
+				this.logging.startLogWriting();
+				this.writing = true;
+			} finally {
+				this.lock.writeLock().unlock();
+			}
+		}
+		
+		private void stop() throws LoggingFailureException {
+			this.lock.writeLock().lock();
+			try {
+				this.writing = false;
+				this.logging.stopLogWriting();
+				this.verify(null);
+			} finally {
+				this.lock.writeLock().unlock();
+			}
+		}
+		
+		/**
+		 * Read all closed log files not verified yet, before they are pruned.
+		 * 
+		 * @param current - the log file still being written or null if none is
+		 */
+		private void verify(File current) throws LoggingFailureException {
+			for (File logFile : this.listLogFiles()) {
+				if (!logFile.equals(current) && this.verifiedFiles.add(logFile)) {
+					this.verifyFile(logFile);
+				}
+			}
+		}
+		
+		private File[] listLogFiles() {
+			return this.logging.getLoggingFolder().listFiles(file -> file.getName().endsWith(".xml"));
+		}
+		
+		private void verifyFile(File logFile) throws LoggingFailureException {
+			List<LogRecord> records = LoggingFileReader.readAll(logFile);
+			long[] lastSequences = new long[this.found.length];
+			Arrays.fill(lastSequences, -1L);
+			for (LogRecord record : records) {
+				String[] parts = String.valueOf(record.getMessage()).split(" ");
+				if (parts.length != 3 || !"Stress".equals(parts[0]) 
+						|| !this.logging.getLog().getName().equals(record.getLoggerName())) {
+					if (!String.valueOf(record.getMessage()).startsWith("Logging")) { // own notices
+						this.garbled++;
+					}
+					continue;
+				}
+				int thread = Integer.parseInt(parts[1]);
+				int sequence = Integer.parseInt(parts[2]);
+				if (this.found[thread].get(sequence)) {
+					this.duplicated++;
+				}
+				this.found[thread].set(sequence);
+				if (sequence <= lastSequences[thread]) {
+					this.reordered++;
+				}
+				lastSequences[thread] = sequence;
+			}
+		}
+		
+		private void delete() {
+			File folder = this.logging.getLoggingFolder(); // reset by closing
+			try {
+				this.logging.close();
+			} catch (LoggingFailureException e) {
+				e.printStackTrace();
+			}
+			File[] files = folder.listFiles();
+			if (files != null) {
+				for (File file : files) {
+					file.delete();
+				}
+			}
+			folder.delete();
+		}
+		
+	}
+	
+	/**
+	 * A thread logging numbered records to random logging facilities.
+	 */
+	private static final class Worker extends Thread {
+		
+		private final int index;
+		private final Target[] targets;
+		/**
+		 * The number of records logged to every logging facility.
+		 */
+		private final long[] sequences;
+		private final LatencyHistogram latencies = new LatencyHistogram();
+		private volatile boolean running = true;
+		
+		private Worker(int index, Target[] targets) {
+			super("LoggingStressTest-" + index);
+			this.index = index;
+			this.targets = targets;
+			this.sequences = new long[targets.length];
+		}
+		
+		@Override
+		public void run() {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			while (this.running) {
+				Target target = this.targets[random.nextInt(this.targets.length)];
+				target.lock.readLock().lock();
+				try {
+					if (target.writing) {
+						String message = "Stress " + this.index + " " + this.sequences[target.index]++;
+						long start = System.nanoTime();
+						target.logging.getLog().info(message);
+						this.latencies.record(System.nanoTime() - start);
+					}
+				} finally {
+					target.lock.readLock().unlock();
+				}
+			}
+		}
+		
+	}
+	
+	/**
+	 * A histogram of latencies in nanoseconds with logarithmic buckets, each divided into 
+	 * 64 linear sub-buckets, so every recorded value is kept with a precision of about 
+	 * 1.5 % in constant memory, like an HdrHistogram.
+	 */
+	static final class LatencyHistogram {
+		
+		private static final int SUB_BUCKETS = 64;
+		/**
+		 * Values below twice the number of sub-buckets are recorded exactly.
+		 */
+		private static final int EXACT = 2 * LatencyHistogram.SUB_BUCKETS;
+		private final long[] counts = new long[LatencyHistogram.EXACT 
+				+ (Long.SIZE - Integer.numberOfTrailingZeros(LatencyHistogram.SUB_BUCKETS)) * LatencyHistogram.SUB_BUCKETS];
+		private long total = 0L;
+		private long maximum = 0L;
+		
+		/**
+		 * Record a single latency.
+		 * 
+		 * @param value - the latency in nanoseconds
+		 */
+		void record(long value) {
+			this.counts[LatencyHistogram.index(Math.max(0L, value))]++;
+			this.total++;
+			this.maximum = Math.max(this.maximum, value);
+		}
+		
+		/**
+		 * Add all latencies recorded by the specified histogram.
+		 * 
+		 * @param other - the histogram to add
+		 */
+		void add(LatencyHistogram other) {
+			for (int i = 0; i < this.counts.length; i++) {
+				this.counts[i] += other.counts[i];
+			}
+			this.total += other.total;
+			this.maximum = Math.max(this.maximum, other.maximum);
+		}
+		
+		/**
+		 * Get the latency the specified share of all recorded latencies does not exceed.
+		 * 
+		 * @param share - the share between 0 and 1
+		 * @return the latency in nanoseconds
+		 */
+		long getPercentile(double share) {
+			long rank = (long) Math.ceil(share * this.total);
+			long counted = 0L;
+			for (int i = 0; i < this.counts.length; i++) {
+				counted += this.counts[i];
+				if (counted >= rank && counted > 0L) {
+					return Math.min(LatencyHistogram.highestValue(i), this.maximum);
+				}
+			}
+			return 0L;
+		}
+		
+		/**
+		 * Get the highest latency recorded.
+		 * 
+		 * @return the maximum latency in nanoseconds
+		 */
+		long getMaximum() {
+			return this.maximum;
+		}
+		
+		private static int index(long value) {
+			if (value < LatencyHistogram.EXACT) {
+				return (int) value;
+			}
+			// shift the value until it falls into the upper half of the sub-buckets
+			int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - Integer.numberOfTrailingZeros(LatencyHistogram.EXACT);
+			return LatencyHistogram.EXACT + (shift - 1) * LatencyHistogram.SUB_BUCKETS 
+					+ (int) (value >>> shift) - LatencyHistogram.SUB_BUCKETS;
+		}
+		
+		private static long highestValue(int index) {
+			if (index < LatencyHistogram.EXACT) {
+				return index;
+			}
+			int shift = (index - LatencyHistogram.EXACT) / LatencyHistogram.SUB_BUCKETS + 1;
+			long lowest = (long) ((index - LatencyHistogram.EXACT) % LatencyHistogram.SUB_BUCKETS 
+					+ LatencyHistogram.SUB_BUCKETS) << shift;
+			return lowest + (1L << shift) - 1L;
+		}
+		
+	}
+	
+}
@@ -1,15 +1,70 @@
 package central.logging.testing;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.Properties;
 import java.util.Random;
-
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import central.logging.functionality.CallerInfoMode;
+import central.logging.functionality.LogWritingState;
 import central.logging.functionality.Logging;
+import central.logging.functionality.LoggingAggregator;
+import central.logging.functionality.LoggingArchive;
+import central.logging.functionality.LoggingArchiveColumn;
+import central.logging.functionality.LoggingArchiveScan;
+import central.logging.functionality.LoggingBackpressure;
+import central.logging.functionality.LoggingCollector;
+import central.logging.functionality.LoggingConfiguration;
+import central.logging.functionality.LoggingConfigurationWatcher;
+import central.logging.functionality.LoggingContext;
+import central.logging.functionality.LoggingDiskQuota;
 import central.logging.functionality.LoggingFailureException;
+import central.logging.functionality.LoggingFileReader;
+import central.logging.functionality.LoggingFollower;
+import central.logging.functionality.LoggingFormat;
+import central.logging.functionality.LoggingForwardingHandler;
 import central.logging.functionality.LoggingHandler;
+import central.logging.functionality.LoggingLoggerFinder;
+import central.logging.functionality.LoggingPool;
+import central.logging.functionality.LoggingProfiler;
+import central.logging.functionality.LoggingRollup;
+import central.logging.functionality.LoggingSampler;
+import central.logging.functionality.LoggingWriterPool;
+import central.logging.functionality.LoggingSearch;
+import central.logging.functionality.LoggingTemplateReader;
 
 /**
  * The LoggingTestRunner class can perform some basic tests to check 
@@ -21,6 +76,15 @@ import central.logging.functionality.LoggingHandler;
 public class LoggingTestRunner {
 
 	public static void main(String[] args) {
+		if (args.length > 0) { // run as a process exiting while writing a log file
+			try {
+				LoggingTestRunner.writeAndExit(args);
+			} catch (LoggingFailureException e) {
+				e.printStackTrace();
+				System.exit(1);
+			}
+			return;
+		}
 		System.out.println("Start running tests");
 		// tests for static logging
 		LoggingTestRunner.testSetNumberLogFiles();
@@ -35,6 +99,31 @@ public class LoggingTestRunner {
 		LoggingTestRunner.testGetLogFilesClass();
 		LoggingTestRunner.testLogWritingClass();
 		LoggingTestRunner.testConstructorsClass();
+		LoggingTestRunner.testConfigurationWatcherClass();
+		LoggingTestRunner.testSimpleFormatClass();
+		LoggingTestRunner.testSamplerClass();
+		LoggingTestRunner.testFlightRecorderClass();
+		LoggingTestRunner.testForwardingHandler();
+		LoggingTestRunner.testAggregator();
+		LoggingTestRunner.testCallerInfoModeClass();
+		LoggingTestRunner.testCloseClass();
+		LoggingTestRunner.testPool();
+		LoggingTestRunner.testStartLogWritingInBackgroundClass();
+		LoggingTestRunner.testTemplateFormatClass();
+		LoggingTestRunner.testSearchClass();
+		LoggingTestRunner.testFollowClass();
+		LoggingTestRunner.testDiskQuota();
+		LoggingTestRunner.testRollupClass();
+		LoggingTestRunner.testBackpressureClass();
+		LoggingTestRunner.testWriterPool();
+		LoggingTestRunner.testShutdown();
+		LoggingTestRunner.testLoggerFinderClass();
+		LoggingTestRunner.testPriorityLane();
+		LoggingTestRunner.testStress();
+		LoggingTestRunner.testArchiveClass();
+		LoggingTestRunner.testContextClass();
+		LoggingTestRunner.testStripeFolders();
+		LoggingTestRunner.testProfilerClass();
 		System.out.println("All tests passed");
 	}
 
@@ -582,4 +671,1683 @@ public class LoggingTestRunner {
 		}
 	}
 	
+	private static void testConfigurationWatcherClass() {
+		String folder = "TestLogging_" + System.nanoTime();
+		Logging testLogger = new Logging(new File(folder), "TestLog");
+		Path configurationFile = new File(folder + "_logging.properties").toPath();
+		LoggingConfigurationWatcher watcher = new LoggingConfigurationWatcher(configurationFile, testLogger);
+		try {
+			LoggingTestRunner.writeConfiguration(configurationFile, "TestLog", Level.ALL);
+			testLogger.startLogWriting();
+			watcher.startWatching();
+			if (!watcher.isWatching() || testLogger.getLog().getLevel() != Level.ALL) {
+				throw new IllegalArgumentException("The initial configuration has not been applied.");
+			}
+			testLogger.getLog().info("Before reconfiguration");
+			// change the file name while logging is running
+			LoggingTestRunner.writeConfiguration(configurationFile, "OtherLog", Level.INFO);
+			long deadline = System.currentTimeMillis() + 30000;
+			while (!"OtherLog".equals(testLogger.getLogFileName())) {
+				if (System.currentTimeMillis() > deadline) {
+					throw new IllegalArgumentException("The changed configuration has not been applied.");
+				}
+				Thread.sleep(10);
+			}
+			synchronized (testLogger) {
+				// wait until the reconfiguration started by the new file name has finished
+			}
+			testLogger.getLog().info("After reconfiguration");
+			if (testLogger.getLogFiles().length != 1 || testLogger.getLog().getLevel() != Level.INFO) {
+				throw new IllegalArgumentException("The changed configuration has not been applied correctly.");
+			}
+			watcher.stopWatching();
+			testLogger.stopLogWriting();
+			// both messages must have been written to their corresponding files
+			File[] oldFiles = new Logging(new File(folder), "TestLog").getLogFiles();
+			if (oldFiles.length != 1 || !new String(Files.readAllBytes(oldFiles[0].toPath()), 
+					StandardCharsets.UTF_8).contains("Before reconfiguration")) {
+				throw new IllegalArgumentException("The record before reconfiguration has been lost.");
+			}
+			if (!new String(Files.readAllBytes(testLogger.getLogFiles()[0].toPath()), 
+					StandardCharsets.UTF_8).contains("After reconfiguration")) {
+				throw new IllegalArgumentException("The record after reconfiguration has been lost.");
+			}
+			// failures are logged by the logger replacing the one of the closed facility
+			testLogger.close();
+			AtomicInteger warnings = new AtomicInteger();
+			testLogger.getLog().addHandler(LoggingTestRunner.countingHandler(warnings));
+			Files.write(configurationFile, "level=NONE".getBytes(StandardCharsets.ISO_8859_1));
+			if (watcher.reload() || warnings.get() != 1) {
+				throw new IllegalArgumentException("The failed reload has not been logged by the current logger.");
+			}
+		} catch (LoggingFailureException | IOException | InterruptedException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Watching the logging configuration caused a problem.");
+		} finally {
+			File[] files = new File(folder).listFiles();
+			for (int i = 0; files != null && i < files.length; i++) {
+				files[i].delete();
+			}
+			new File(folder).delete();
+			configurationFile.toFile().delete();
+		}
+		System.out.println("Test LoggingConfigurationWatcher passed");
+	}
+	
+	private static void testSimpleFormatClass() {
+		Logging testLogger = new Logging(new File("SimpleLog"), "SimpleLog");
+		testLogger.setLogFormat(LoggingFormat.SIMPLE);
+		try {
+			List<String> created = new ArrayList<String>();
+			testLogger.getLoggingFolder().mkdirs();
+			for (int i = 0; i < 3; i++) {
+				Set<File> before = new HashSet<File>(Arrays.asList(testLogger.getLogFiles()));
+				testLogger.startLogWriting();
+				testLogger.getLog().info("Plain text " + i);
+				testLogger.stopLogWriting();
+				for (File logFile : testLogger.getLogFiles()) {
+					if (!before.contains(logFile)) {
+						created.add(logFile.getName());
+					}
+				}
+			}
+			List<String> sorted = new ArrayList<String>();
+			for (File logFile : testLogger.getLogFiles()) {
+				sorted.add(logFile.getName());
+			}
+			if (!created.equals(sorted) 
+					|| !sorted.get(0).matches("SimpleLog_\\d{4}(_\\d{2}){5}_\\d{9}\\.log")) {
+				throw new IllegalArgumentException("The plain text log files are not sorted by time: " + sorted);
+			}
+			if (!testLogger.search("Plain").isEmpty() || testLogger.readLogFiles(record -> { }) != 0L) {
+				throw new IllegalArgumentException("The plain text log files have been read as records.");
+			}
+		} catch (LoggingFailureException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Writing plain text log files caused a problem.");
+		} finally {
+			for (File f : testLogger.getLogFiles()) {
+				f.delete();
+			}
+			testLogger.getLoggingFolder().delete();
+		}
+		System.out.println("Test (new Logging()).setLogFormat(SIMPLE) passed");
+	}
+	
+	private static void writeConfiguration(Path configurationFile, String logFileName, Level level) 
+			throws IOException {
+		Properties properties = new Properties();
+		properties.setProperty("fileName", logFileName);
+		properties.setProperty("level", level.getName());
+		try (Writer writer = Files.newBufferedWriter(configurationFile, StandardCharsets.UTF_8)) {
+			properties.store(writer, null);
+		}
+	}
+	
+	private static void testSamplerClass() {
+		Logging testLogger = new Logging();
+		testLogger.getLog().setLevel(Level.ALL);
+		AtomicInteger published = new AtomicInteger();
+		testLogger.getLog().addHandler(LoggingTestRunner.countingHandler(published));
+		LoggingSampler sampler = new LoggingSampler();
+		sampler.setRate(Level.FINE, 10);
+		sampler.setRate(Level.FINER, 10, LogRecord::getMessage);
+		sampler.setProbability(Level.FINEST, 0.0d);
+		testLogger.setSampler(sampler);
+		for (int i = 0; i < 1000; i++) {
+			testLogger.getLog().fine("Deterministic");
+			testLogger.getLog().finest("Never");
+			testLogger.getLog().info("Not sampled");
+		}
+		if (published.get() != 1100 || sampler.getSampledOut(Level.FINE) != 900 
+				|| sampler.getSampledOut(Level.FINEST) != 1000) {
+			throw new IllegalArgumentException("Sampling passed " + published.get() 
+					+ " instead of 1100 records.");
+		}
+		published.set(0);
+		for (int i = 0; i < 10; i++) { // every key keeps its first record
+			testLogger.getLog().finer("First key");
+			testLogger.getLog().finer("Second key");
+		}
+		if (published.get() != 2) {
+			throw new IllegalArgumentException("Sampling per key passed " + published.get() 
+					+ " instead of 2 records.");
+		}
+		published.set(0);
+		sampler.report(testLogger.getLog());
+		if (published.get() != 3 || sampler.getSampledOut(Level.FINE) != 0) {
+			throw new IllegalArgumentException("The sampled out counts have not been reported.");
+		}
+		testLogger.getLog().finest(LoggingSampler.REPORT_MESSAGE); // only report records are never sampled
+		if (published.get() != 3 || sampler.getSampledOut(Level.FINEST) != 1) {
+			throw new IllegalArgumentException("A record logging the report message has not been sampled.");
+		}
+		sampler.report(testLogger.getLog());
+		// a detached sampler forgets the counters of all threads
+		published.set(0);
+		testLogger.getLog().fine("Deterministic");
+		testLogger.setSampler(null);
+		testLogger.setSampler(sampler);
+		testLogger.getLog().fine("Deterministic");
+		if (published.get() != 2) {
+			throw new IllegalArgumentException("The detached sampler has kept the counters of the thread.");
+		}
+		Logging fileLogger = new Logging(new File("SamplerLog"), "SamplerLog");
+		try {
+			fileLogger.getLog().setLevel(Level.ALL);
+			fileLogger.setFileLevel(Level.WARNING);
+			fileLogger.setSampler(sampler);
+			fileLogger.startLogWriting();
+			File oldFile = fileLogger.getLogFiles()[0];
+			for (int i = 0; i < 100; i++) {
+				fileLogger.getLog().fine("Deterministic");
+			}
+			fileLogger.reconfigure(new LoggingConfiguration(null, "RotatedSamplerLog", null, null, null));
+			fileLogger.getLog().fine("Deterministic");
+			fileLogger.stopLogWriting();
+			List<LogRecord> reported = LoggingFileReader.readAll(oldFile);
+			if (reported.size() != 1 || reported.get(0).getLevel() != Level.WARNING 
+					|| !reported.get(0).getMessage().startsWith("Sampled out 90 records of level FINE")) {
+				throw new IllegalArgumentException("The sampled out counts have not been reported before rotating.");
+			}
+			oldFile.delete();
+		} catch (LoggingFailureException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Reporting the sampled out counts caused a problem.");
+		} finally {
+			for (File f : fileLogger.getLogFiles()) {
+				f.delete();
+			}
+			fileLogger.getLoggingFolder().delete();
+		}
+		System.out.println("Test LoggingSampler passed");
+	}
+	
+	private static void testFlightRecorderClass() {
+		String folder = "TestLogging_" + System.nanoTime();
+		Logging testLogger = new Logging(new File(folder), "TestLog");
+		try {
+			testLogger.startLogWriting();
+			Level fileLevel = testLogger.getFileLevel();
+			testLogger.startFlightRecording(100, Level.WARNING);
+			testLogger.getFlightRecorder().setDumpInterval(TimeUnit.MINUTES.toMillis(1));
+			for (int i = 0; i < 200; i++) {
+				testLogger.getLog().finest("Debug message " + i);
+			}
+			if (testLogger.getFlightRecorder().getRecords().size() != 128) {
+				throw new IllegalArgumentException("The flight recorder keeps " 
+						+ testLogger.getFlightRecorder().getRecords().size() + " instead of 128 records.");
+			}
+			testLogger.getLog().severe("Failure");
+			testLogger.getFlightRecorder().flush();
+			File[] dumps = testLogger.getFlightRecorder().getDumpFiles();
+			if (dumps.length != 1) {
+				throw new IllegalArgumentException("There should be one flight record, but " 
+						+ dumps.length + " are present.");
+			}
+			String dump = new String(Files.readAllBytes(dumps[0].toPath()), StandardCharsets.UTF_8);
+			if (!dump.contains("Debug message 199") || dump.contains("Debug message 72<") 
+					|| !dump.contains("Failure")) {
+				throw new IllegalArgumentException("The flight record does not contain the recent records.");
+			}
+			for (int i = 0; i < 50; i++) {
+				testLogger.getLog().severe("Repeated failure " + i);
+			}
+			testLogger.getFlightRecorder().flush();
+			if (testLogger.getFlightRecorder().getDumpFiles().length != 2) {
+				throw new IllegalArgumentException("A burst of severe records has not been dumped once.");
+			}
+			String oldest = dumps[0].getName();
+			testLogger.getFlightRecorder().setMaximumDumpFiles(2);
+			testLogger.getFlightRecorder().dump();
+			dumps = testLogger.getFlightRecorder().getDumpFiles();
+			if (dumps.length != 2 || dumps[0].getName().equals(oldest)) {
+				throw new IllegalArgumentException("The oldest flight record has not been deleted.");
+			}
+			testLogger.stopFlightRecording();
+			if (!fileLevel.equals(testLogger.getFileLevel())) {
+				throw new IllegalArgumentException("The file level has not been restored.");
+			}
+			testLogger.stopLogWriting();
+			String log = new String(Files.readAllBytes(testLogger.getLogFiles()[0].toPath()), 
+					StandardCharsets.UTF_8);
+			if (log.contains("Debug message") || !log.contains("Failure")) {
+				throw new IllegalArgumentException("The log file does not only contain the severe record.");
+			}
+		} catch (LoggingFailureException | IOException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Flight recording caused a problem.");
+		} finally {
+			for (File f : testLogger.getLogFiles()) {
+				f.delete();
+			}
+			for (File f : testLogger.getLoggingFolder().listFiles()) {
+				f.delete();
+			}
+			testLogger.getLoggingFolder().delete();
+		}
+		System.out.println("Test (new Logging()).startFlightRecording passed");
+	}
+	
+	private static void testForwardingHandler() {
+		String folder = "TestLogging_" + System.nanoTime();
+		Logging collected = new Logging(new File(folder), "Collected");
+		collected.getLog().setLevel(Level.ALL);
+		Logging forwarding = new Logging();
+		forwarding.getLog().setLevel(Level.ALL);
+		File spillFile = new File(folder + ".spill");
+		LoggingForwardingHandler handler = null;
+		LoggingCollector collector = null;
+		try {
+			// find a free port, the collector is not yet available
+			InetSocketAddress address;
+			try (ServerSocketChannel probe = ServerSocketChannel.open()) {
+				probe.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+				address = (InetSocketAddress) probe.getLocalAddress();
+			}
+			handler = new LoggingForwardingHandler(address, spillFile);
+			forwarding.getLog().addHandler(handler);
+			for (int i = 0; i < 100; i++) {
+				forwarding.getLog().fine("Spilled record " + i);
+			}
+			handler.flush();
+			if (handler.getForwardedRecords() != 0 || spillFile.length() == 0) {
+				throw new IllegalArgumentException("The records have not been spilled.");
+			}
+			// spilled records are replayed as soon as the collector is available
+			collected.startLogWriting();
+			collector = new LoggingCollector(address, collected);
+			collector.startCollecting();
+			for (int i = 0; i < 1000; i++) {
+				forwarding.getLog().log(Level.INFO, "Forwarded record {0}", i);
+			}
+			LoggingContext.EMPTY.with("request", "r-9").run(() -> forwarding.getLog().info("Forwarded in context"));
+			long deadline = System.currentTimeMillis() + 30000;
+			while (collector.getReceivedRecords() < 1101) {
+				if (System.currentTimeMillis() > deadline) {
+					throw new IllegalArgumentException("The collector received only " 
+							+ collector.getReceivedRecords() + " of 1101 records.");
+				}
+				Thread.sleep(10);
+			}
+			handler.close();
+			collector.stopCollecting();
+			collected.stopLogWriting();
+			String log = new String(Files.readAllBytes(collected.getLogFiles()[0].toPath()), 
+					StandardCharsets.UTF_8);
+			if (!log.contains("Spilled record 99") || !log.contains("Forwarded record 999") 
+					|| handler.getDroppedRecords() != 0 || spillFile.length() != 0) {
+				throw new IllegalArgumentException("The forwarded records have not been written.");
+			}
+			if (!log.contains("<context name=\"request\">r-9</context>")) {
+				throw new IllegalArgumentException("The context has not been forwarded.");
+			}
+		} catch (LoggingFailureException | IOException | InterruptedException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Forwarding records caused a problem.");
+		} finally {
+			if (handler != null) {
+				handler.close();
+			}
+			for (File f : collected.getLogFiles()) {
+				f.delete();
+			}
+			collected.getLoggingFolder().delete();
+			spillFile.delete();
+		}
+		System.out.println("Test LoggingForwardingHandler passed");
+	}
+	
+	private static void testAggregator() {
+		String folder = "TestLogging_" + System.nanoTime();
+		Logging[] processes = new Logging[3];
+		File merged = new File(folder + "_merged" + LoggingHandler.LOG_FILE_EXTENSION);
+		try {
+			for (int i = 0; i < processes.length; i++) {
+				processes[i] = new Logging(new File(folder, "Process" + i), "TestLog");
+				processes[i].startLogWriting();
+			}
+			Random r = new Random();
+			for (int i = 0; i < 3000; i++) {
+				processes[r.nextInt(processes.length)].getLog().info("Record " + i);
+			}
+			// the last process is still running, so its file is incomplete
+			processes[0].stopLogWriting();
+			processes[1].stopLogWriting();
+			long count = LoggingAggregator.aggregate(merged.toPath(), processes[0].getLoggingFolder(), 
+					processes[1].getLoggingFolder(), processes[2].getLoggingFolder());
+			List<LogRecord> records = LoggingFileReader.readAll(merged);
+			if (count != 3000 || records.size() != 3000) {
+				throw new IllegalArgumentException("Merged " + count + " and read " + records.size() 
+						+ " instead of 3000 records.");
+			}
+			for (int i = 1; i < records.size(); i++) {
+				if (records.get(i).getInstant().isBefore(records.get(i - 1).getInstant())) {
+					throw new IllegalArgumentException("The merged records are not ordered by time.");
+				}
+			}
+			processes[2].stopLogWriting();
+			// the priority lane writes severe records ahead of older queued records
+			Formatter formatter = LoggingFormat.XML.createFormatter();
+			Instant start = Instant.now();
+			int[][] offsets = {{5, 1, 3}, {2, 4}};
+			List<File> unordered = new ArrayList<File>();
+			for (int i = 0; i < offsets.length; i++) {
+				StringBuilder content = new StringBuilder(formatter.getHead(null));
+				for (int offset : offsets[i]) {
+					LogRecord record = new LogRecord(Level.INFO, "Unordered " + offset);
+					record.setInstant(start.plusMillis(offset));
+					content.append(formatter.format(record));
+				}
+				content.append(formatter.getTail(null));
+				File file = new File(folder, "Unordered" + i + LoggingHandler.LOG_FILE_EXTENSION);
+				Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+				unordered.add(file);
+			}
+			List<String> messages = new ArrayList<String>();
+			LoggingAggregator.merge(unordered, record -> messages.add(record.getMessage()));
+			if (!messages.equals(Arrays.asList("Unordered 1", "Unordered 2", "Unordered 3", "Unordered 4", 
+					"Unordered 5"))) {
+				throw new IllegalArgumentException("Unordered records are merged as " + messages + ".");
+			}
+			messages.clear();
+			Collections.reverse(unordered); // files are opened in the order of their start
+			LoggingAggregator.merge(unordered, record -> messages.add(record.getMessage()));
+			if (!messages.equals(Arrays.asList("Unordered 1", "Unordered 2", "Unordered 3", "Unordered 4", 
+					"Unordered 5"))) {
+				throw new IllegalArgumentException("Unordered records of files listed in reverse are merged as " 
+						+ messages + ".");
+			}
+			// a file ending within a record is truncated, a broken record within a file is malformed
+			File truncated = new File(folder, "Truncated" + LoggingHandler.LOG_FILE_EXTENSION);
+			String record = formatter.format(new LogRecord(Level.INFO, "Complete"));
+			Files.write(truncated.toPath(), (formatter.getHead(null) + record + record.substring(0, 
+					record.length() / 2)).getBytes(StandardCharsets.UTF_8));
+			if (LoggingFileReader.readAll(truncated).size() != 1) {
+				throw new IllegalArgumentException("The complete record of a truncated file has not been read.");
+			}
+			StringBuilder malformed = new StringBuilder(formatter.getHead(null)).append("<record><millis>1</level>");
+			while (malformed.length() < 2 * LoggingFileReader.BUFFER_SIZE) {
+				malformed.append(record);
+			}
+			Files.write(truncated.toPath(), malformed.append(formatter.getTail(null)).toString()
+					.getBytes(StandardCharsets.UTF_8));
+			try {
+				LoggingFileReader.readAll(truncated);
+				throw new IllegalArgumentException("A malformed file has been read as truncated.");
+			} catch (LoggingFailureException e) {
+				// Do nothing as the file is malformed.
+			}
+		} catch (LoggingFailureException | IOException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Aggregating log files caused a problem.");
+		} finally {
+			for (Logging process : processes) {
+				for (File f : process.getLogFiles()) {
+					f.delete();
+				}
+				process.getLoggingFolder().delete();
+			}
+			for (File f : new File(folder).listFiles()) {
+				f.delete();
+			}
+			new File(folder).delete();
+			merged.delete();
+		}
+		System.out.println("Test LoggingAggregator passed");
+	}
+	
+	private static void testCallerInfoModeClass() {
+		Logging testLogger = new Logging();
+		AtomicReference<String> published = new AtomicReference<String>();
+		testLogger.getLog().addHandler(new Handler() {
+			@Override
+			public void publish(LogRecord record) {
+				// request the source while publishing like any formatter writing it does
+				published.set(record.getSourceClassName() + "." + record.getSourceMethodName());
+			}
+
+			@Override
+			public void flush() {
+				// Do nothing as no records are stored.
+			}
+
+			@Override
+			public void close() throws SecurityException {
+				// Do nothing as no records are stored.
+			}
+		});
+		String caller = LoggingTestRunner.class.getName() + ".testCallerInfoModeClass";
+		for (CallerInfoMode mode : CallerInfoMode.values()) {
+			testLogger.setCallerInfoMode(mode);
+			testLogger.getLog().info("Implicit caller");
+			boolean expectCaller = mode == CallerInfoMode.INFERRED || mode == CallerInfoMode.STACK_WALKER;
+			if (expectCaller != caller.equals(published.get())) {
+				throw new IllegalArgumentException(String.format("The caller %s is wrong for mode %s.", 
+						published.get(), mode));
+			}
+			testLogger.logp(Level.INFO, "ExplicitClass", "explicitMethod", "Explicit caller");
+			boolean expectExplicit = mode != CallerInfoMode.OFF;
+			if (expectExplicit != "ExplicitClass.explicitMethod".equals(published.get())) {
+				throw new IllegalArgumentException(String.format("The explicit caller %s is wrong for mode %s.", 
+						published.get(), mode));
+			}
+		}
+		System.out.println("Test (new Logging()).setCallerInfoMode passed");
+	}
+	
+	private static void testCloseClass() {
+		int rep = 1000000;
+		long before = LoggingTestRunner.usedMemory();
+		for (int i = 0; i < rep; i++) {
+			try (Logging testLogger = new Logging()) {
+				testLogger.getLog().info("Short-lived logger " + i);
+			} catch (LoggingFailureException e) {
+				e.printStackTrace();
+				throw new IllegalArgumentException("Closing a logging facility caused a problem.");
+			}
+		}
+		long growth = LoggingTestRunner.usedMemory() - before;
+		if (growth > 16L * 1024L * 1024L) {
+			throw new IllegalArgumentException("Creating and closing " + rep 
+					+ " logging facilities retained " + growth + " bytes.");
+		}
+		try {
+			Logging closed = new Logging();
+			Logger stale = closed.getLog();
+			closed.close();
+			Logging tenant = new Logging();
+			if (tenant.getLog() == stale || tenant.getLog().getName().equals(stale.getName()) 
+					|| stale.isLoggable(Level.SEVERE) || stale.getHandlers().length != 0) {
+				throw new IllegalArgumentException("The logger " + stale.getName() 
+						+ " of a closed logging facility is still in use.");
+			}
+			tenant.close();
+		} catch (LoggingFailureException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Closing a logging facility caused a problem.");
+		}
+		System.out.println("Test (new Logging()).close passed");
+	}
+	
+	private static void testPool() {
+		LoggingPool pool = new LoggingPool(2);
+		try {
+			Logging first = pool.acquire(new File("PoolLog"), "PoolLog");
+			first.setNumberLogFiles(1);
+			first.getLog().setLevel(Level.FINE);
+			pool.release(first);
+			Logging second = pool.acquire();
+			if (second != first || !second.equals(new Logging()) || second.getLog().getLevel() != null) {
+				throw new IllegalArgumentException("The pooled logging facility " + second 
+						+ " has not been reset.");
+			}
+			pool.release(second);
+			pool.release(new Logging());
+			pool.release(new Logging());
+			if (pool.getIdle() != 2) {
+				throw new IllegalArgumentException("The pool keeps " + pool.getIdle() 
+						+ " instead of 2 logging facilities.");
+			}
+			pool.close();
+		} catch (LoggingFailureException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Pooling logging facilities caused a problem.");
+		}
+		System.out.println("Test LoggingPool passed");
+	}
+	
+	private static void testStartLogWritingInBackgroundClass() {
+		Logging testLogger = new Logging(new File("StartupLog"), "StartupLog");
+		File blockingFile = new File("StartupBlocked");
+		try {
+			if (testLogger.getLogWritingState() != LogWritingState.STOPPED) {
+				throw new IllegalArgumentException("Log writing is " + testLogger.getLogWritingState() 
+						+ " before being started.");
+			}
+			testLogger.startLogWritingInBackground();
+			int rep = 100;
+			for (int i = 0; i < rep; i++) {
+				testLogger.getLog().info("Record " + i);
+			}
+			if (!testLogger.awaitLogWriting(10, TimeUnit.SECONDS) 
+					|| testLogger.getLogWritingState() != LogWritingState.WRITING) {
+				throw new IllegalArgumentException("The log file has not been opened in the background.");
+			}
+			for (int i = rep; i < 2 * rep; i++) {
+				testLogger.getLog().info("Record " + i);
+			}
+			testLogger.stopLogWriting();
+			List<LogRecord> records = LoggingFileReader.readAll(testLogger.getLogFiles()[0]);
+			for (int i = 0; i < 2 * rep; i++) {
+				if (!("Record " + i).equals(records.get(i).getMessage())) {
+					throw new IllegalArgumentException("The record " + records.get(i).getMessage() 
+							+ " has been written instead of Record " + i + ".");
+				}
+			}
+			if (!"testStartLogWritingInBackgroundClass".equals(records.get(0).getSourceMethodName())) {
+				throw new IllegalArgumentException("The buffered record has been logged by " 
+						+ records.get(0).getSourceMethodName() + ".");
+			}
+			// a file in place of the logging folder lets opening the log file fail
+			blockingFile.createNewFile();
+			testLogger.setLoggingFolder(blockingFile);
+			testLogger.startLogWritingInBackground();
+			try {
+				testLogger.awaitLogWriting(10, TimeUnit.SECONDS);
+				throw new IllegalArgumentException("Starting log writing in a file did not fail.");
+			} catch (LoggingFailureException e) {
+				// expected as the logging folder is a file
+			}
+			if (testLogger.getLogWritingState() != LogWritingState.FAILED) {
+				throw new IllegalArgumentException("Log writing is " + testLogger.getLogWritingState() 
+						+ " after failing to open the log file.");
+			}
+			for (int i = 0; i < rep; i++) {
+				testLogger.getLog().info("Failed record " + i);
+			}
+			testLogger.reconfigure(new LoggingConfiguration(new File("StartupLog"), "RecoveredLog", 
+					null, null, null));
+			if (testLogger.getLogWritingState() != LogWritingState.WRITING) {
+				throw new IllegalArgumentException("Log writing is " + testLogger.getLogWritingState() 
+						+ " after moving to another log file.");
+			}
+			testLogger.stopLogWriting();
+			records = LoggingFileReader.readAll(testLogger.getLogFiles()[0]);
+			if (records.size() != 1 || !records.get(0).getMessage().startsWith(rep + " records have been dropped")) {
+				throw new IllegalArgumentException("The records logged after failing have not been dropped.");
+			}
+			if (testLogger.getLogWritingState() != LogWritingState.STOPPED) {
+				throw new IllegalArgumentException("Log writing is " + testLogger.getLogWritingState() 
+						+ " after being stopped.");
+			}
+		} catch (LoggingFailureException | IOException | InterruptedException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Starting log writing in the background caused a problem.");
+		} finally {
+			testLogger.setLoggingFolder("StartupLog");
+			for (File f : testLogger.getLoggingFolder().listFiles()) {
+				f.delete();
+			}
+			testLogger.getLoggingFolder().delete();
+			blockingFile.delete();
+		}
+		System.out.println("Test (new Logging()).startLogWritingInBackground passed");
+	}
+	
+	private static void testTemplateFormatClass() {
+		Logging templateLogger = new Logging(new File("TemplateLog"), "TemplateLog");
+		Logging xmlLogger = new Logging(new File("TemplateLog"), "XmlLog");
+		templateLogger.setLogFormat(LoggingFormat.TEMPLATE);
+		int rep = 10000;
+		try {
+			templateLogger.startLogWriting();
+			xmlLogger.startLogWriting();
+			for (Logging testLogger : Arrays.asList(templateLogger, xmlLogger)) {
+				for (int i = 0; i < rep; i++) {
+					testLogger.getLog().log(Level.INFO, "Request {0} of {1} took {2} ms", 
+							new Object[] {i, "client" + (i % 7), i * 0.5});
+				}
+				testLogger.getLog().log(Level.INFO, "Total {0,number,#.##} of {1,number,integer}", 
+						new Object[] {new BigDecimal("12345.678"), new BigInteger("123456789012345678901234567890")});
+				testLogger.getLog().log(Level.SEVERE, "Request failed", new IOException("Connection reset"));
+				testLogger.stopLogWriting();
+			}
+			File templateFile = templateLogger.getLogFiles()[0];
+			if (!templateFile.getName().endsWith(LoggingFormat.TEMPLATE.getFileExtension())) {
+				throw new IllegalArgumentException("The template log file " + templateFile + " has a wrong extension.");
+			}
+			List<LogRecord> records = LoggingTemplateReader.readAll(templateFile);
+			SimpleFormatter formatter = new SimpleFormatter();
+			for (int i = 0; i < rep; i++) {
+				String expected = String.format("Request %,d of client%d took %s ms", i, i % 7, 
+						new DecimalFormat("#,##0.###").format(i * 0.5));
+				if (!expected.equals(formatter.formatMessage(records.get(i)))) {
+					throw new IllegalArgumentException("The record " + formatter.formatMessage(records.get(i)) 
+							+ " has been read instead of " + expected + ".");
+				}
+			}
+			String total = formatter.formatMessage(records.get(rep));
+			if (!"Total 12345.68 of 123,456,789,012,345,678,901,234,567,890".equals(total)) {
+				throw new IllegalArgumentException("The number parameters have been read as " + total + ".");
+			}
+			LogRecord failure = records.get(rep + 1);
+			if (records.size() != rep + 2 || failure.getLevel() != Level.SEVERE 
+					|| !"java.io.IOException: Connection reset".equals(failure.getThrown().toString()) 
+					|| !LoggingTestRunner.class.getName().equals(failure.getSourceClassName())) {
+				throw new IllegalArgumentException("The template log file has not been read correctly.");
+			}
+			if (LoggingFormat.TEMPLATE.createFormatter() != null 
+					|| templateLogger.readLogFiles(record -> { }) != rep + 2) {
+				throw new IllegalArgumentException("The template log files have not been read like XML ones.");
+			}
+			long templateSize = templateFile.length();
+			long xmlSize = xmlLogger.getLogFiles()[0].length();
+			if (templateSize * 10 > xmlSize) {
+				throw new IllegalArgumentException("The template log file takes " + templateSize 
+						+ " bytes compared to " + xmlSize + " bytes in XML.");
+			}
+		} catch (LoggingFailureException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Writing a template log file caused a problem.");
+		} finally {
+			for (Logging testLogger : Arrays.asList(templateLogger, xmlLogger)) {
+				for (File f : testLogger.getLogFiles()) {
+					f.delete();
+				}
+			}
+			templateLogger.getLoggingFolder().delete();
+		}
+		System.out.println("Test (new Logging()).setLogFormat(TEMPLATE) passed");
+	}
+	
+	private static void testSearchClass() {
+		Logging testLogger = new Logging(new File("SearchLog"), "SearchLog");
+		testLogger.setLogIndexing(true);
+		int rep = 5000;
+		try {
+			testLogger.startLogWriting();
+			for (int i = 0; i < rep; i++) {
+				if (i % 1000 == 999) {
+					testLogger.getLog().log(Level.WARNING, "Error E4711 for request req-" + i, 
+							new IOException("Connection reset"));
+				} else {
+					testLogger.getLog().log(Level.INFO, "Request req-{0} finished", Integer.toString(i));
+				}
+			}
+			testLogger.stopLogWriting();
+			testLogger.startLogWriting();
+			for (int i = 0; i < rep; i++) {
+				testLogger.getLog().info("Heartbeat " + i);
+			}
+			testLogger.stopLogWriting();
+			if (testLogger.search("REQ-1234").size() != 1 || testLogger.search("e4711 reset").size() != 5 
+					|| !testLogger.search("req-5000").isEmpty()) {
+				throw new IllegalArgumentException("The indexed log files have not been searched correctly.");
+			}
+			// a few blocks may be read due to false positives of the index
+			LoggingSearch search = new LoggingSearch("req-1234");
+			List<LogRecord> found = search.search(testLogger.getLogFiles());
+			if (found.size() != 1 || !"Request req-1234 finished".equals(new SimpleFormatter().formatMessage(found.get(0))) 
+					|| search.getReadBlocks() > 3 || search.getSkippedBlocks() < 30) {
+				throw new IllegalArgumentException(String.format(
+						"Searching read %d blocks and skipped %d blocks instead of using the index.", 
+						search.getReadBlocks(), search.getSkippedBlocks()));
+			}
+			search = new LoggingSearch("E4711 reset");
+			if (search.search(testLogger.getLogFiles()).size() != 5 || search.getSkippedFiles() != 1) {
+				throw new IllegalArgumentException("Searching did not skip the log file without errors.");
+			}
+			// the index of a log file still being written covers the full blocks and is read along with the rest
+			testLogger.startLogWriting();
+			for (int i = 0; i < 600; i++) {
+				testLogger.getLog().log(Level.INFO, "Live request req-live-{0} finished", Integer.toString(i));
+			}
+			File[] logFiles = testLogger.getLogFiles();
+			File liveIndex = new File(logFiles[logFiles.length - 1].getPath() + ".idx");
+			long indexed = liveIndex.length();
+			if (indexed <= 5 || testLogger.search("req-live-3").size() != 1 
+					|| testLogger.search("req-live-599").size() != 1) {
+				throw new IllegalArgumentException("The log file being written has not been searched by its index.");
+			}
+			for (Handler handler : testLogger.getLog().getHandlers()) {
+				handler.flush();
+			}
+			if (liveIndex.length() <= indexed) {
+				throw new IllegalArgumentException("The index has not been written on flush.");
+			}
+			if (testLogger.search(testLogger.getLog().getName()).size() != testLogger.readLogFiles(record -> { })) {
+				throw new IllegalArgumentException("The records have not been found by their logger name.");
+			}
+			testLogger.stopLogWriting();
+		} catch (LoggingFailureException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Searching indexed log files caused a problem.");
+		} finally {
+			for (File f : testLogger.getLoggingFolder().listFiles()) {
+				f.delete();
+			}
+			testLogger.getLoggingFolder().delete();
+		}
+		System.out.println("Test (new Logging()).search passed");
+	}
+	
+	private static void testFollowClass() {
+		Logging testLogger = new Logging(new File("FollowLog"), "FollowLog");
+		Logging striped = new Logging(new File("FollowLog"), "StripedFollowLog");
+		List<LogRecord> subscribed = Collections.synchronizedList(new ArrayList<LogRecord>());
+		List<LogRecord> followed = Collections.synchronizedList(new ArrayList<LogRecord>());
+		testLogger.addSubscriber(subscribed::add);
+		LoggingFollower follower = new LoggingFollower(testLogger, followed::add);
+		follower.setPollInterval(20);
+		int rep = 100;
+		try {
+			testLogger.startLogWriting();
+			testLogger.getLog().info("Written before following");
+			follower.startFollowing();
+			for (int i = 0; i < rep; i++) {
+				testLogger.getLog().info("Record " + i);
+				if (i == rep / 2) { // writing moves on to a new log file
+					testLogger.stopLogWriting();
+					testLogger.startLogWriting();
+				}
+			}
+			long deadline = System.currentTimeMillis() + 10000;
+			while (followed.size() < rep && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			follower.stopFollowing();
+			testLogger.stopLogWriting();
+			if (subscribed.size() != rep + 1 || followed.size() != rep) {
+				throw new IllegalArgumentException(String.format(
+						"%d records have been subscribed and %d followed instead of %d.", 
+						subscribed.size(), followed.size(), rep));
+			}
+			for (int i = 0; i < rep; i++) {
+				if (!("Record " + i).equals(followed.get(i).getMessage())) {
+					throw new IllegalArgumentException("The record " + followed.get(i).getMessage() 
+							+ " has been followed instead of Record " + i + ".");
+				}
+			}
+			// the stripes written by many threads are followed in every folder
+			striped.setStripeFolders(new File("FollowStripe"));
+			striped.startLogWriting();
+			followed.clear();
+			LoggingFollower stripeFollower = new LoggingFollower(striped, followed::add);
+			stripeFollower.setPollInterval(20);
+			stripeFollower.startFollowing();
+			Thread[] threads = new Thread[8];
+			for (int t = 0; t < threads.length; t++) {
+				threads[t] = new Thread(() -> {
+					for (int i = 0; i < rep; i++) {
+						striped.getLog().info("Striped record " + i);
+					}
+				});
+				threads[t].start();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			deadline = System.currentTimeMillis() + 10000;
+			while (followed.size() < threads.length * rep && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			stripeFollower.stopFollowing();
+			striped.stopLogWriting();
+			if (followed.size() != threads.length * rep) {
+				throw new IllegalArgumentException(followed.size() + " striped records have been followed instead of " 
+						+ threads.length * rep + ".");
+			}
+		} catch (LoggingFailureException | InterruptedException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Following the log files caused a problem.");
+		} finally {
+			for (File folder : striped.getLoggingFolders()) {
+				for (File f : folder.listFiles()) {
+					f.delete();
+				}
+				folder.delete();
+			}
+		}
+		System.out.println("Test LoggingFollower passed");
+	}
+	
+	private static void testDiskQuota() {
+		Logging chattyLogger = new Logging(new File("QuotaLog"), "ChattyLog");
+		Logging quietLogger = new Logging(new File("QuotaLog"), "QuietLog");
+		chattyLogger.setNumberLogFiles(100);
+		long quota = 64L * 1024L;
+		try {
+			LoggingDiskQuota.setQuota(1L); // forget the log files of previous tests
+			LoggingDiskQuota.setQuota(quota);
+			quietLogger.startLogWriting();
+			quietLogger.getLog().info("Quiet record");
+			quietLogger.stopLogWriting();
+			for (int file = 0; file < 10; file++) {
+				chattyLogger.startLogWriting();
+				for (int i = 0; i < 100; i++) {
+					chattyLogger.getLog().info("Chatty record " + i + " of file " + file);
+				}
+				chattyLogger.stopLogWriting();
+			}
+			long usedBytes = 0L;
+			for (File f : chattyLogger.getLoggingFolder().listFiles()) {
+				usedBytes += f.length();
+			}
+			if (usedBytes > quota || quietLogger.getLogFiles().length != 0 || LoggingDiskQuota.getEvictedFiles() == 0) {
+				throw new IllegalArgumentException("The log files take " + usedBytes + " bytes exceeding the quota of " 
+						+ quota + " bytes or the oldest files have not been evicted.");
+			}
+			// a single log file exceeding the quota degrades logging
+			LoggingDiskQuota.setQuota(8L * 1024L);
+			chattyLogger.startLogWriting();
+			for (int i = 0; i < 2 * LoggingDiskQuota.RECORDS_PER_CHECK; i++) {
+				chattyLogger.getLog().info("Chatty record " + i);
+			}
+			chattyLogger.getLog().warning("Severe enough");
+			List<LogRecord> records = LoggingFileReader.readAll(chattyLogger.getLogFiles()[0]);
+			if (!LoggingDiskQuota.isDegraded() || LoggingDiskQuota.getDegradedRecords() == 0 
+					|| records.size() > 2 * LoggingDiskQuota.RECORDS_PER_CHECK 
+					|| !"Severe enough".equals(records.get(records.size() - 1).getMessage())) {
+				throw new IllegalArgumentException("Logging has not been degraded after exceeding the quota.");
+			}
+			chattyLogger.stopLogWriting();
+			LoggingDiskQuota.setQuota(LoggingDiskQuota.UNLIMITED);
+			if (LoggingDiskQuota.isDegraded()) {
+				throw new IllegalArgumentException("Logging is still degraded without quota.");
+			}
+			// indexes and archives count against the quota as well
+			LoggingDiskQuota.setQuota(1L);
+			LoggingDiskQuota.setQuota(LoggingDiskQuota.UNLIMITED);
+			Logging indexedLogger = new Logging(new File("QuotaLog"), "IndexedLog");
+			indexedLogger.setLogIndexing(true);
+			for (int file = 0; file < 2; file++) {
+				indexedLogger.startLogWriting();
+				for (int i = 0; i < 100; i++) {
+					indexedLogger.getLog().info("Indexed record " + i + " of file " + file);
+				}
+				indexedLogger.stopLogWriting();
+			}
+			for (int archived = 0; archived < 2; archived++) {
+				usedBytes = 0L;
+				for (File f : indexedLogger.getLoggingFolder().listFiles()) {
+					usedBytes += f.length();
+				}
+				if (usedBytes != LoggingDiskQuota.getUsedBytes()) {
+					throw new IllegalArgumentException("The log files take " + usedBytes + " bytes, but " 
+							+ LoggingDiskQuota.getUsedBytes() + " bytes are tracked.");
+				}
+				indexedLogger.archiveLogFiles(0L);
+			}
+		} catch (LoggingFailureException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Enforcing the disk quota caused a problem.");
+		} finally {
+			LoggingDiskQuota.setQuota(LoggingDiskQuota.UNLIMITED);
+			for (File f : chattyLogger.getLoggingFolder().listFiles()) {
+				f.delete();
+			}
+			chattyLogger.getLoggingFolder().delete();
+		}
+		System.out.println("Test LoggingDiskQuota passed");
+	}
+	
+	private static void testRollupClass() {
+		Logging testLogger = new Logging(new File("RollupLog"), "RollupLog");
+		File rollupFile = new File("RollupLog/Intervals" + LoggingRollup.ROLLUP_FILE_EXTENSION);
+		try {
+			testLogger.startRollup(60L * 60L * 1000L);
+			testLogger.startLogWriting();
+			for (int i = 0; i < 30; i++) {
+				testLogger.getLog().log(Level.INFO, "Request {0} finished", i);
+				if (i % 6 == 0) {
+					testLogger.getLog().log(Level.WARNING, "Request {0} slow", i);
+				}
+			}
+			testLogger.stopLogWriting();
+			LoggingRollup hourly = testLogger.getRollup();
+			testLogger.stopRollup();
+			// the records may have been counted in two intervals when the hour changed meanwhile
+			long total = 0L;
+			long warnings = 0L;
+			long finished = 0L;
+			for (LoggingRollup.Interval interval : LoggingRollup.read(hourly.getRollupFile())) {
+				total += interval.getCountsByLogger().getOrDefault(testLogger.getLog().getName(), 0L);
+				warnings += interval.getCountsByLevel().getOrDefault(Level.WARNING.getName(), 0L);
+				finished += interval.getCountsByTemplate().getOrDefault("Request {0} finished", 0L);
+			}
+			for (LoggingRollup.Interval interval : hourly.getIntervals()) {
+				total -= interval.getTotal();
+			}
+			if (total != 0L || warnings != 5L || finished != 30L) {
+				throw new IllegalArgumentException("The rollup of " + warnings + " warnings and " + finished 
+						+ " finished requests is wrong.");
+			}
+			// records of a later interval finish the current one
+			try (LoggingRollup rollup = new LoggingRollup(rollupFile, 1000L)) {
+				LogRecord record = new LogRecord(Level.INFO, "Tick");
+				long start = System.currentTimeMillis() / 1000L * 1000L + 10000L;
+				record.setInstant(Instant.ofEpochMilli(start));
+				rollup.accept(record);
+				rollup.accept(record);
+				record.setInstant(Instant.ofEpochMilli(start + 1000L));
+				rollup.accept(record);
+				List<LoggingRollup.Interval> intervals = rollup.getIntervals();
+				LoggingRollup.Interval last = intervals.get(intervals.size() - 1);
+				if (last.getTotal() != 2 || !last.getStart().equals(Instant.ofEpochMilli(start)) 
+						|| rollup.getCurrentInterval().getTotal() != 1) {
+					throw new IllegalArgumentException("The interval " + last + " has not been finished correctly.");
+				}
+			}
+		} catch (LoggingFailureException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Rolling up records caused a problem.");
+		} finally {
+			for (File f : testLogger.getLoggingFolder().listFiles()) {
+				f.delete();
+			}
+			testLogger.getLoggingFolder().delete();
+		}
+		System.out.println("Test (new Logging()).startRollup passed");
+	}
+	
+	private static void testBackpressureClass() {
+		Logging testLogger = new Logging(new File("BackpressureLog"), "BackpressureLog");
+		try {
+			LoggingBackpressure backpressure = new LoggingBackpressure();
+			backpressure.setRestoreDelay(0L);
+			backpressure.setLatencyThresholds(0L, 0L); // every write is too slow
+			testLogger.setBackpressure(backpressure);
+			testLogger.startLogWriting();
+			for (Thread thread : Thread.getAllStackTraces().keySet()) {
+				if (thread.getName().startsWith("AsynchronousHandler")) {
+					throw new IllegalArgumentException("Thread " + thread.getName() + " has been started for the handler.");
+				}
+			}
+			long deadline = System.currentTimeMillis() + 5000L;
+			while (backpressure.getEffectiveLevel() != Level.WARNING && System.currentTimeMillis() < deadline) {
+				testLogger.getLog().info("Request finished");
+				testLogger.getLog().warning("Request slow");
+			}
+			long dropped = backpressure.getDroppedRecords();
+			if (backpressure.getEffectiveLevel() != Level.WARNING) {
+				throw new IllegalArgumentException("Logging has not been degraded to level " 
+						+ backpressure.getEffectiveLevel() + " under load.");
+			}
+			for (int i = 0; i < 100; i++) {
+				testLogger.getLog().info("Request dropped");
+			}
+			testLogger.getLog().warning("Request still slow");
+			if (backpressure.getDroppedRecords() != dropped + 100L) {
+				throw new IllegalArgumentException((backpressure.getDroppedRecords() - dropped) 
+						+ " instead of 100 records have been dropped at level WARNING.");
+			}
+			backpressure.setLatencyThresholds(Long.MAX_VALUE, Long.MAX_VALUE); // every write is fast
+			deadline = System.currentTimeMillis() + 5000L;
+			while (backpressure.getEffectiveLevel() != Level.ALL && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			if (backpressure.getEffectiveLevel() != Level.ALL) {
+				throw new IllegalArgumentException("Logging has not been restored without load.");
+			}
+			testLogger.getLog().info("Request traced");
+			testLogger.stopLogWriting();
+			int degraded = 0;
+			int restored = 0;
+			boolean warned = false;
+			List<LogRecord> records = LoggingFileReader.readAll(testLogger.getLogFiles()[0]);
+			for (LogRecord record : records) {
+				if (record.getMessage().startsWith("Logging degraded")) {
+					degraded++;
+				} else if (record.getMessage().startsWith("Logging restored")) {
+					restored++;
+				} else if (record.getMessage().equals("Request dropped")) {
+					throw new IllegalArgumentException("A dropped record has been written.");
+				} else if (record.getMessage().equals("Request still slow")) {
+					warned = true;
+				}
+			}
+			if (!warned) {
+				throw new IllegalArgumentException("A warning has been dropped under load.");
+			}
+			if (degraded != 2 || restored != 2 || !"Request traced".equals(records.get(records.size() - 1).getMessage())) {
+				throw new IllegalArgumentException(degraded + " degradations and " + restored 
+						+ " restorations have been logged instead of 2 each.");
+			}
+		} catch (LoggingFailureException | InterruptedException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Logging with backpressure caused a problem.");
+		} finally {
+			for (File f : testLogger.getLoggingFolder().listFiles()) {
+				f.delete();
+			}
+			testLogger.getLoggingFolder().delete();
+		}
+		System.out.println("Test (new Logging()).setBackpressure passed");
+	}
+	
+	/**
+	 * Write 100 records to a log file and exit without stopping log writing, as done by 
+	 * the process started by {@link #exitWhileLogging(LoggingFormat, String...)}.
+	 * 
+	 * @param args - the name of the log format followed by the options of the logging facility
+	 */
+	private static void writeAndExit(String[] args) throws LoggingFailureException {
+		Logging testLogger = LoggingTestRunner.shutdownLogging(LoggingFormat.valueOf(args[0]), 
+				Arrays.copyOfRange(args, 1, args.length));
+		testLogger.startLogWriting();
+		for (int i = 0; i < 100; i++) {
+			testLogger.getLog().info("Record " + i);
+		}
+	}
+
+	/**
+	 * Create the logging facility of a process exiting while writing a log file.
+	 * 
+	 * @param format - the format of the log file
+	 * @param options - pooled, indexed, striped or asynchronous to write the log file so
+	 * @return the logging facility
+	 */
+	private static Logging shutdownLogging(LoggingFormat format, String... options) {
+		Logging testLogger = new Logging(new File("ShutdownLog"), "ShutdownLog");
+		testLogger.setLogFormat(format);
+		List<String> optionList = Arrays.asList(options);
+		testLogger.setPooledWriting(optionList.contains("pooled"));
+		testLogger.setLogIndexing(optionList.contains("indexed"));
+		if (optionList.contains("striped")) {
+			testLogger.setStripeFolders(new File("ShutdownStripe"));
+		}
+		if (optionList.contains("asynchronous")) {
+			testLogger.setBackpressure(new LoggingBackpressure());
+		}
+		return testLogger;
+	}
+
+	/**
+	 * Run a process writing 100 records to a log file, which exits without stopping log 
+	 * writing, and check that the log file has been closed and all records have been written.
+	 * 
+	 * @param format - the format of the log file
+	 * @param options - the options of the logging facility, see {@link #shutdownLogging(LoggingFormat, String...)}
+	 */
+	private static void exitWhileLogging(LoggingFormat format, String... options) 
+			throws IOException, InterruptedException, LoggingFailureException {
+		List<String> command = new ArrayList<String>(Arrays.asList(ProcessHandle.current().info().command().get(), 
+				"--module-path", System.getProperty("jdk.module.path"), 
+				"-m", "central.logging/" + LoggingTestRunner.class.getName(), format.name()));
+		command.addAll(Arrays.asList(options));
+		Process process = new ProcessBuilder(command).inheritIO().start();
+		if (!process.waitFor(60, TimeUnit.SECONDS) || process.exitValue() != 0) {
+			process.destroyForcibly();
+			throw new IllegalArgumentException("The process writing " + format + " log files has failed.");
+		}
+		Logging testLogger = LoggingTestRunner.shutdownLogging(format, options);
+		try {
+			for (File logFile : testLogger.getLogFiles()) {
+				if (new File(logFile.getPath() + ".lck").exists()) {
+					throw new IllegalArgumentException("The lock of " + logFile + " has been left behind on exit.");
+				}
+				if (format == LoggingFormat.XML && !new String(Files.readAllBytes(logFile.toPath()), 
+						StandardCharsets.UTF_8).trim().endsWith("</log>")) {
+					throw new IllegalArgumentException("The log file " + logFile + " has not been completed on exit.");
+				}
+			}
+			List<LogRecord> records = new ArrayList<LogRecord>();
+			testLogger.readLogFiles(records::add);
+			if (records.size() != 100) {
+				throw new IllegalArgumentException(records.size() + " records have been written to a " + format 
+						+ " log file " + Arrays.toString(options) + " left open on exit instead of 100.");
+			}
+		} finally {
+			for (File folder : testLogger.getLoggingFolders()) {
+				if (folder.exists()) {
+					for (File f : folder.listFiles()) {
+						f.delete();
+					}
+					folder.delete();
+				}
+			}
+		}
+	}
+
+	private static void testShutdown() {
+		try {
+			LoggingTestRunner.exitWhileLogging(LoggingFormat.XML);
+			LoggingTestRunner.exitWhileLogging(LoggingFormat.TEMPLATE);
+			LoggingTestRunner.exitWhileLogging(LoggingFormat.XML, "pooled", "asynchronous");
+			LoggingTestRunner.exitWhileLogging(LoggingFormat.XML, "indexed", "striped", "asynchronous");
+			LoggingTestRunner.exitWhileLogging(LoggingFormat.TEMPLATE, "striped", "asynchronous");
+		} catch (IOException | InterruptedException | LoggingFailureException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Exiting while writing a log file caused a problem.");
+		}
+		System.out.println("Test LoggingWriterPool shutdown passed");
+	}
+
+	private static void testWriterPool() {
+		File folder = new File("PooledLog");
+		List<Logging> testLoggers = new ArrayList<Logging>();
+		int maximumOpenFiles = LoggingWriterPool.getMaximumOpenFiles();
+		try {
+			LoggingWriterPool.setMaximumOpenFiles(16);
+			long writtenRecords = LoggingWriterPool.getWrittenRecords();
+			long writes = LoggingWriterPool.getWrites();
+			for (int i = 0; i < 200; i++) {
+				Logging testLogger = new Logging(folder, String.format("Pooled%03d_", i));
+				testLogger.setPooledWriting(true);
+				testLogger.startLogWriting();
+				testLoggers.add(testLogger);
+			}
+			for (int j = 0; j < 20; j++) {
+				for (Logging testLogger : testLoggers) {
+					testLogger.getLog().info("Record " + j);
+				}
+				if (LoggingWriterPool.getOpenFiles() > 16) {
+					throw new IllegalArgumentException(LoggingWriterPool.getOpenFiles() + " log files are open.");
+				}
+			}
+			for (Logging testLogger : testLoggers) {
+				testLogger.stopLogWriting();
+			}
+			int writers = 0;
+			for (Thread thread : Thread.getAllStackTraces().keySet()) {
+				if (thread.getName().startsWith("LoggingWriterPool-")) {
+					writers++;
+				}
+			}
+			if (writers > LoggingWriterPool.getWriterThreads() || LoggingWriterPool.getOpenFiles() != 0) {
+				throw new IllegalArgumentException(writers + " writer threads have written " 
+						+ LoggingWriterPool.getOpenFiles() + " open log files.");
+			}
+			// heads are not counted, tails are written along with the last records
+			if (LoggingWriterPool.getWrittenRecords() - writtenRecords != 4000L 
+					|| LoggingWriterPool.getWrites() - writes > 4000L) {
+				throw new IllegalArgumentException((LoggingWriterPool.getWrittenRecords() - writtenRecords) 
+						+ " records have been written.");
+			}
+			for (Logging testLogger : testLoggers) {
+				List<LogRecord> records = LoggingFileReader.readAll(testLogger.getLogFiles()[0]);
+				if (records.size() != 20 || !"Record 19".equals(records.get(19).getMessage())) {
+					throw new IllegalArgumentException("The log file " + testLogger.getLogFiles()[0] 
+							+ " contains " + records.size() + " records.");
+				}
+				testLogger.close();
+			}
+		} catch (LoggingFailureException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Writing log files by the writer pool caused a problem.");
+		} finally {
+			LoggingWriterPool.setMaximumOpenFiles(maximumOpenFiles);
+			for (File f : folder.listFiles()) {
+				f.delete();
+			}
+			folder.delete();
+		}
+		System.out.println("Test LoggingWriterPool passed");
+	}
+	
+	private static void testLoggerFinderClass() {
+		Logging testLogger = new Logging(new File("FinderLog"), "FinderLog");
+		List<LogRecord> records = Collections.synchronizedList(new ArrayList<LogRecord>());
+		try {
+			LoggingLoggerFinder.setLogging(testLogger);
+			testLogger.getLog().setLevel(Level.INFO);
+			testLogger.addSubscriber(records::add);
+			testLogger.startLogWriting();
+			System.Logger systemLogger = System.getLogger("central.logging.testing.System");
+			if (!(System.LoggerFinder.getLoggerFinder() instanceof LoggingLoggerFinder) 
+					|| systemLogger != System.getLogger("central.logging.testing.System")) {
+				throw new IllegalArgumentException("The system logger " + systemLogger + " is not provided by Logging.");
+			}
+			systemLogger.log(System.Logger.Level.DEBUG, () -> {
+				throw new IllegalArgumentException("The message of a disabled level has been supplied.");
+			});
+			systemLogger.log(System.Logger.Level.INFO, "Request {0} finished", 7);
+			systemLogger.log(System.Logger.Level.ERROR, () -> "Request failed", new IOException("Closed"));
+			systemLogger.log(System.Logger.Level.OFF, "Request ignored");
+			if (records.size() != 2 || systemLogger.isLoggable(System.Logger.Level.TRACE) 
+					|| systemLogger.isLoggable(System.Logger.Level.OFF)) {
+				throw new IllegalArgumentException(records.size() + " records have been logged instead of 2.");
+			}
+			LogRecord finished = records.get(0);
+			LogRecord failed = records.get(1);
+			if (!"central.logging.testing.System".equals(finished.getLoggerName()) 
+					|| !"testLoggerFinderClass".equals(finished.getSourceMethodName())
+					|| !Integer.valueOf(7).equals(finished.getParameters()[0]) 
+					|| failed.getLevel() != Level.SEVERE || !(failed.getThrown() instanceof IOException)) {
+				throw new IllegalArgumentException("The records " + finished.getMessage() + " and " 
+						+ failed.getMessage() + " have not been logged correctly.");
+			}
+			testLogger.stopLogWriting();
+		} catch (LoggingFailureException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Logging via a system logger caused a problem.");
+		} finally {
+			LoggingLoggerFinder.setLogging(null);
+			for (File f : testLogger.getLoggingFolder().listFiles()) {
+				f.delete();
+			}
+			testLogger.getLoggingFolder().delete();
+		}
+		System.out.println("Test LoggingLoggerFinder passed");
+	}
+	
+	private static void testPriorityLane() {
+		Logging testLogger = new Logging(new File("PriorityLog"), "PriorityLog");
+		Logging pooledLogger = new Logging(new File("PriorityLog"), "PooledPriorityLog");
+		List<LogRecord> records = Collections.synchronizedList(new ArrayList<LogRecord>());
+		try {
+			LoggingBackpressure backpressure = new LoggingBackpressure();
+			backpressure.setQueueDepthThresholds(1.0, 1.0); // never degrade
+			backpressure.setLatencyThresholds(Long.MAX_VALUE, Long.MAX_VALUE);
+			testLogger.setBackpressure(backpressure);
+			testLogger.addSubscriber(record -> {
+				records.add(record);
+				try {
+					Thread.sleep(1); // a slow log file
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			testLogger.startLogWriting();
+			for (int i = 0; i < 500; i++) {
+				testLogger.getLog().info("Bulk " + i);
+			}
+			testLogger.getLog().severe("Crash");
+			if (!LoggingWriterPool.drain(10000L) || records.size() != 500 + 1) {
+				throw new IllegalArgumentException("Only " + records.size() + " records have been drained.");
+			}
+			int position = 0;
+			while (!"Crash".equals(records.get(position).getMessage())) {
+				position++;
+			}
+			if (position > 100) {
+				throw new IllegalArgumentException("The severe record has waited for " + position + " bulk records.");
+			}
+			testLogger.stopLogWriting();
+			// pooled log files are written by the logging thread for severe records
+			pooledLogger.setPooledWriting(true);
+			pooledLogger.startLogWriting();
+			pooledLogger.getLog().info("Bulk");
+			pooledLogger.getLog().severe("Crash");
+			List<LogRecord> written = LoggingFileReader.readAll(pooledLogger.getLogFiles()[0]);
+			if (written.size() != 2 || !"Crash".equals(written.get(1).getMessage())) {
+				throw new IllegalArgumentException(written.size() + " records have been written at once.");
+			}
+			pooledLogger.stopLogWriting();
+		} catch (LoggingFailureException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Writing severe records ahead caused a problem.");
+		} finally {
+			for (File f : testLogger.getLoggingFolder().listFiles()) {
+				f.delete();
+			}
+			testLogger.getLoggingFolder().delete();
+		}
+		System.out.println("Test LoggingWriterPool.PRIORITY_LEVEL passed");
+	}
+	
+	private static void testStress() {
+		ByteArrayOutputStream report = new ByteArrayOutputStream();
+		if (!LoggingStressTest.run(3000L, 4, 6, new PrintStream(report, true))) {
+			throw new IllegalArgumentException("Logging concurrently failed:" + System.lineSeparator() + report);
+		}
+		System.out.println("Test LoggingStressTest passed");
+	}
+	
+	private static void testArchiveClass() {
+		Logging testLogger = new Logging(new File("ArchiveLog"), "ArchiveLog");
+		try {
+			testLogger.startLogWriting();
+			for (int i = 0; i < 10000; i++) {
+				if (i == 9000) {
+					testLogger.getLog().log(Level.SEVERE, "Request " + i + " failed", new IOException("Closed"));
+				} else {
+					testLogger.getLog().log(i % 100 == 0 ? Level.WARNING : Level.INFO, "Request {0} finished", i);
+				}
+			}
+			testLogger.stopLogWriting();
+			File logFile = testLogger.getLogFiles()[0];
+			List<LogRecord> original = LoggingFileReader.readAll(logFile);
+			testLogger.startLogWriting();
+			List<File> archives = testLogger.archiveLogFiles(0L);
+			if (archives.size() != 1 || logFile.exists() || testLogger.getLogFiles().length != 1) {
+				throw new IllegalArgumentException("The log files " + archives + " have not been archived.");
+			}
+			if (!LoggingArchive.archive(testLogger.getLoggingFolder(), 0L).isEmpty() 
+					|| testLogger.getLogFiles().length != 1) {
+				throw new IllegalArgumentException("The log file being written has been archived.");
+			}
+			testLogger.stopLogWriting();
+			File archive = archives.get(0);
+			// all blocks of a scan without criteria are counted from their headers
+			LoggingArchiveScan all = new LoggingArchiveScan(null, null, null, null, null);
+			if (all.count(archive) != 10000 || all.getCountedBlocks() != 3 || all.getReadBlocks() != 0) {
+				throw new IllegalArgumentException("The archive " + archive + " has not been counted from its headers.");
+			}
+			List<LogRecord> archived = all.scan(archive);
+			for (int i = 0; i < original.size(); i++) {
+				LogRecord expected = original.get(i);
+				LogRecord actual = archived.get(i);
+				if (!expected.getMessage().equals(actual.getMessage()) || expected.getLevel() != actual.getLevel() 
+						|| !expected.getInstant().equals(actual.getInstant()) 
+						|| !expected.getLoggerName().equals(actual.getLoggerName()) 
+						|| expected.getSequenceNumber() != actual.getSequenceNumber() 
+						|| !String.valueOf(expected.getSourceMethodName()).equals(actual.getSourceMethodName()) 
+						|| !String.valueOf(expected.getThrown()).equals(String.valueOf(actual.getThrown()))) {
+					throw new IllegalArgumentException("The archived record " + actual.getMessage() 
+							+ " differs from the original " + expected.getMessage() + ".");
+				}
+			}
+			// blocks without severe records are skipped, only the requested columns are read
+			LoggingArchiveScan severe = new LoggingArchiveScan(Level.SEVERE, null, null, null, 
+					EnumSet.of(LoggingArchiveColumn.MESSAGE));
+			List<LogRecord> failed = severe.scan(archive);
+			if (failed.size() != 1 || !"Request 9000 failed".equals(failed.get(0).getMessage()) 
+					|| failed.get(0).getThrown() != null || severe.getSkippedBlocks() != 2) {
+				throw new IllegalArgumentException("The severe records " + failed + " have not been scanned.");
+			}
+			Instant middle = original.get(5000).getInstant();
+			LoggingArchiveScan warnings = new LoggingArchiveScan(Level.WARNING, testLogger.getLog().getName(), 
+					middle, null, null);
+			long later = 0L;
+			long laterWarnings = 0L;
+			for (LogRecord record : original) {
+				later += record.getInstant().isBefore(middle) ? 0 : 1;
+				laterWarnings += warnings.matches(record) ? 1 : 0;
+			}
+			if (new LoggingArchiveScan(null, null, middle, null, null).count(archive) != later 
+					|| warnings.count(archive) != laterWarnings || laterWarnings < 50) {
+				throw new IllegalArgumentException("The records of the archive have not been filtered by time.");
+			}
+			// a log file closed by rotation is last modified after the current one has been created
+			testLogger.startLogWriting();
+			testLogger.getLog().info("Request before rotation");
+			File[] rotatedFiles = testLogger.getLogFiles();
+			File rotatedFile = rotatedFiles[rotatedFiles.length - 1];
+			testLogger.reconfigure(new LoggingConfiguration(null, null, null, null, LoggingFormat.TEMPLATE));
+			File[] currentFiles = testLogger.getLogFiles();
+			currentFiles[currentFiles.length - 1].setLastModified(System.currentTimeMillis() - 60000L);
+			archives = testLogger.archiveLogFiles(0L);
+			currentFiles = testLogger.getLogFiles();
+			if (archives.size() != rotatedFiles.length || rotatedFile.exists() || currentFiles.length != 1 
+					|| !currentFiles[0].getName().endsWith(LoggingFormat.TEMPLATE.getFileExtension())) {
+				throw new IllegalArgumentException("The log files " + archives + " have been archived instead of " 
+						+ rotatedFile + ".");
+			}
+			testLogger.stopLogWriting();
+		} catch (LoggingFailureException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Archiving log files caused a problem.");
+		} finally {
+			for (File f : testLogger.getLoggingFolder().listFiles()) {
+				f.delete();
+			}
+			testLogger.getLoggingFolder().delete();
+		}
+		System.out.println("Test (new Logging()).archiveLogFiles passed");
+	}
+	
+	private static void testContextClass() {
+		LoggingContext request = LoggingContext.EMPTY.with("request", "r-1").with("tenant", "<acme>");
+		if (!"{request=r-1, tenant=<acme>}".equals(request.toString()) || !LoggingContext.current().isEmpty()
+				|| request.without("request").without("tenant") != LoggingContext.EMPTY) {
+			throw new IllegalArgumentException("The context has not been built correctly.");
+		}
+		Logging testLogger = new Logging(new File("ContextLog"), "ContextLog");
+		Logging templateLogger = new Logging(new File("ContextLog"), "TemplateContextLog");
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			testLogger.setBackpressure(new LoggingBackpressure()); // written by another thread
+			testLogger.setLogIndexing(true);
+			testLogger.startLogWriting();
+			testLogger.startFlightRecording(16, Level.INFO);
+			templateLogger.setLogFormat(LoggingFormat.TEMPLATE);
+			templateLogger.startLogWriting();
+			request.run(() -> {
+				testLogger.getLog().info("Started");
+				templateLogger.getLog().info("Started");
+				LoggingContext.Scope step = LoggingContext.put("step", "2");
+				try {
+					templateLogger.getLog().info("Step");
+				} finally {
+					step.close();
+				}
+				LoggingContext.wrap(executor).execute(() -> testLogger.getLog().info("Continued"));
+			});
+			executor.shutdown();
+			executor.awaitTermination(5, TimeUnit.SECONDS);
+			testLogger.getLog().info("Unrelated");
+			templateLogger.getLog().info("Unrelated");
+			testLogger.getLog().getHandlers()[0].flush();
+			List<String> contexts = new ArrayList<String>();
+			try (LoggingFileReader reader = new LoggingFileReader(testLogger.getLogFiles()[0])) {
+				LogRecord record;
+				while ((record = reader.next()) != null) {
+					contexts.add(record.getMessage() + reader.getContext());
+				}
+			}
+			if (!Arrays.asList("Started" + request, "Continued" + request, "Unrelated{}").equals(contexts)) {
+				throw new IllegalArgumentException("The context has not been written to XML: " + contexts);
+			}
+			templateLogger.stopLogWriting();
+			contexts.clear();
+			try (LoggingTemplateReader reader = new LoggingTemplateReader(templateLogger.getLogFiles()[0])) {
+				LogRecord record;
+				while ((record = reader.next()) != null) {
+					contexts.add(record.getMessage() + reader.getContext().asMap());
+				}
+			}
+			if (!Arrays.asList("Started" + request, "Step" + request.with("step", "2"), "Unrelated{}").equals(contexts)) {
+				throw new IllegalArgumentException("The context has not been written to the template file: " + contexts);
+			}
+			// records kept in memory carry their context, also in the dump
+			contexts.clear();
+			for (LogRecord record : testLogger.getFlightRecorder().getRecords()) {
+				contexts.add(record.getMessage() + LoggingContext.of(record));
+			}
+			File dumpFile = testLogger.getFlightRecorder().dump();
+			testLogger.stopFlightRecording();
+			for (LogRecord record : LoggingFileReader.readAll(dumpFile)) {
+				contexts.add(record.getMessage() + LoggingContext.of(record));
+			}
+			if (!Arrays.asList("Started" + request, "Continued" + request, "Unrelated{}",
+					"Started" + request, "Continued" + request, "Unrelated{}").equals(contexts)) {
+				throw new IllegalArgumentException("The context has not been recorded: " + contexts);
+			}
+			testLogger.stopLogWriting();
+			// records read, searched and archived later on carry their context
+			contexts.clear();
+			testLogger.readLogFiles(record -> contexts.add(record.getMessage() + LoggingContext.of(record)));
+			for (LogRecord record : testLogger.search("r-1")) {
+				contexts.add(record.getMessage() + LoggingContext.of(record));
+			}
+			for (LogRecord record : LoggingTemplateReader.readAll(templateLogger.getLogFiles()[0])) {
+				contexts.add(record.getMessage() + LoggingContext.of(record));
+			}
+			if (!Arrays.asList("Started" + request, "Continued" + request, "Unrelated{}", 
+					"Started" + request, "Continued" + request, 
+					"Started" + request, "Step" + request.with("step", "2"), "Unrelated{}").equals(contexts)) {
+				throw new IllegalArgumentException("The context has not been read: " + contexts);
+			}
+			contexts.clear();
+			List<File> archives = testLogger.archiveLogFiles(0L);
+			archives.addAll(templateLogger.archiveLogFiles(0L));
+			for (LogRecord record : new LoggingArchiveScan(null, null, null, null, null).scan(archives.toArray(new File[0]))) {
+				contexts.add(record.getMessage() + LoggingContext.of(record));
+			}
+			if (!Arrays.asList("Started" + request, "Continued" + request, "Unrelated{}", 
+					"Started" + request, "Step" + request.with("step", "2"), "Unrelated{}").equals(contexts)) {
+				throw new IllegalArgumentException("The context has not been archived: " + contexts);
+			}
+		} catch (LoggingFailureException | IOException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Logging in a context caused a problem.");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalArgumentException("Waiting for the executor has been interrupted.");
+		} finally {
+			executor.shutdownNow();
+			for (File f : testLogger.getLoggingFolder().listFiles()) {
+				f.delete();
+			}
+			testLogger.getLoggingFolder().delete();
+		}
+		System.out.println("Test LoggingContext passed");
+	}
+	
+	private static void testStripeFolders() {
+		Logging testLogger = new Logging(new File("StripeLogA"), "StripeLog");
+		testLogger.setStripeFolders(new File("StripeLogB"), new File("StripeLogC"));
+		testLogger.setNumberLogFiles(2);
+		try {
+			for (int round = 0; round < 3; round++) {
+				testLogger.startLogWriting();
+				Thread[] threads = new Thread[12];
+				for (int t = 0; t < threads.length; t++) {
+					int thread = t;
+					threads[t] = new Thread(() -> {
+						for (int i = 0; i < 50; i++) {
+							testLogger.getLog().info("Striped " + thread + " " + i);
+						}
+					});
+					threads[t].start();
+				}
+				for (Thread thread : threads) {
+					thread.join();
+				}
+				testLogger.stopLogWriting();
+			}
+			File[] logFiles = testLogger.getLogFiles();
+			if (logFiles.length != 2 * 3 || !logFiles[0].getName().equals(logFiles[2].getName())) {
+				throw new IllegalArgumentException("The stripes have not been kept as one log file: " 
+						+ Arrays.toString(logFiles));
+			}
+			int usedStripes = 0;
+			for (File logFile : logFiles) {
+				usedStripes += LoggingFileReader.readAll(logFile).isEmpty() ? 0 : 1;
+			}
+			List<LogRecord> records = new ArrayList<LogRecord>();
+			testLogger.readLogFiles(record -> {
+				if (record.getMessage().startsWith("Striped")) {
+					records.add(record);
+				}
+			});
+			int[] next = new int[12]; // the records of a thread are expected in order, round after round
+			for (LogRecord record : records) {
+				String[] parts = record.getMessage().split(" ");
+				int thread = Integer.parseInt(parts[1]);
+				if (Integer.parseInt(parts[2]) != next[thread]++ % 50) {
+					throw new IllegalArgumentException("The stripes have not been merged in time order.");
+				}
+			}
+			if (records.size() != 2 * 12 * 50 || usedStripes < 4) {
+				throw new IllegalArgumentException(records.size() + " records have been read from " 
+						+ usedStripes + " stripes.");
+			}
+		} catch (LoggingFailureException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Striping the log files caused a problem.");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalArgumentException("Waiting for the logging threads has been interrupted.");
+		} finally {
+			for (File folder : testLogger.getLoggingFolders()) {
+				for (File f : folder.listFiles()) {
+					f.delete();
+				}
+				folder.delete();
+			}
+		}
+		System.out.println("Test (new Logging()).setStripeFolders passed");
+	}
+	
+	private static void testProfilerClass() {
+		Logging testLogger = new Logging(new File("ProfilerLog"), "ProfilerLog");
+		LoggingProfiler profiler = new LoggingProfiler();
+		try {
+			testLogger.setProfiler(profiler);
+			testLogger.setBackpressure(new LoggingBackpressure()); // measured on the writer thread
+			testLogger.startLogWriting();
+			for (int i = 0; i < 200; i++) {
+				testLogger.getLog().info("Hot statement " + i);
+			}
+			testLogger.getLog().info("Cold statement");
+			testLogger.stopLogWriting();
+			List<LoggingProfiler.CallSiteStatistics> top = profiler.getTopCallSites(1);
+			if (top.size() != 1 || top.get(0).getRecords() != 200 || top.get(0).getBytes() <= 200 * 10 
+					|| top.get(0).getWritingNanos() < top.get(0).getFormattingNanos() 
+					|| !top.get(0).getCallSite().contains("testProfilerClass")) {
+				throw new IllegalArgumentException("The hot statement has not been found: " + top);
+			}
+			Object records = ManagementFactory.getPlatformMBeanServer().getAttribute(new ObjectName(profiler.getObjectName()), 
+					"ProfiledRecords");
+			if (!Long.valueOf(201L).equals(records) || profiler.getNumberCallSites() != 2) {
+				throw new IllegalArgumentException(records + " records have been profiled via JMX.");
+			}
+			ByteArrayOutputStream dump = new ByteArrayOutputStream();
+			profiler.dump(new PrintStream(dump, true), 5);
+			if (dump.toString().split(System.lineSeparator()).length != 1 + 2) {
+				throw new IllegalArgumentException("The profile has not been dumped:" + System.lineSeparator() + dump);
+			}
+			testLogger.setProfiler(null);
+			if (profiler.getObjectName() != null) {
+				throw new IllegalArgumentException("The profiler has not been unregistered.");
+			}
+			// a profiler set while writing measures the following records only
+			LoggingProfiler laterProfiler = new LoggingProfiler();
+			testLogger.setBackpressure(null);
+			testLogger.startLogWriting();
+			for (int i = 0; i < 10; i++) {
+				testLogger.getLog().info("Unprofiled statement " + i);
+			}
+			testLogger.setProfiler(laterProfiler);
+			for (int i = 0; i < 20; i++) {
+				testLogger.getLog().info("Profiled statement " + i);
+			}
+			testLogger.stopLogWriting();
+			testLogger.setProfiler(null);
+			top = laterProfiler.getTopCallSites(1);
+			if (laterProfiler.getProfiledRecords() != 20 || top.get(0).getRecords() != 20 || top.get(0).getBytes() == 0) {
+				throw new IllegalArgumentException(laterProfiler.getProfiledRecords() 
+						+ " records have been profiled after setting the profiler instead of 20.");
+			}
+			// records below the file level are not written and thereby not profiled
+			for (LoggingBackpressure backpressure : Arrays.asList(null, new LoggingBackpressure())) {
+				LoggingProfiler filteredProfiler = new LoggingProfiler();
+				testLogger.setProfiler(filteredProfiler);
+				testLogger.setBackpressure(backpressure);
+				testLogger.setFileLevel(Level.WARNING);
+				testLogger.startLogWriting();
+				for (int i = 0; i < 1000; i++) {
+					testLogger.getLog().info("Filtered statement " + i);
+				}
+				testLogger.getLog().warning("Written statement");
+				testLogger.stopLogWriting();
+				testLogger.setProfiler(null);
+				testLogger.setFileLevel(Level.ALL);
+				if (filteredProfiler.getProfiledRecords() != 1 || filteredProfiler.getNumberCallSites() != 1) {
+					throw new IllegalArgumentException(filteredProfiler.getProfiledRecords() 
+							+ " records have been profiled at file level WARNING instead of 1.");
+				}
+			}
+		} catch (LoggingFailureException | JMException e) {
+			e.printStackTrace();
+			throw new IllegalArgumentException("Profiling the call sites caused a problem.");
+		} finally {
+			for (File f : testLogger.getLoggingFolder().listFiles()) {
+				f.delete();
+			}
+			testLogger.getLoggingFolder().delete();
+		}
+		System.out.println("Test LoggingProfiler passed");
+	}
+	
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+	
+	private static Handler countingHandler(AtomicInteger published) {
+		return new Handler() {
+			@Override
+			public void publish(LogRecord record) {
+				published.incrementAndGet();
+			}
+
+			@Override
+			public void flush() {
+				// Do nothing as no records are stored.
+			}
+
+			@Override
+			public void close() throws SecurityException {
+				// Do nothing as no records are stored.
+			}
+		};
+	}
+	
 }
@@ -9,6 +9,10 @@ module central.logging {
 	
 	requires java.base;
 	requires transitive java.logging;
+	requires java.xml;
+	requires java.management;
+	
+	provides java.lang.System.LoggerFinder with central.logging.functionality.LoggingLoggerFinder;
 	
 	
 }
\ No newline at end of file